@@ -44,6 +44,12 @@ public class Config {
   static final String AUTH_PASSWORD = "password";
   static final String DEFALUT_PASSWORD = "password";
 
+  /**
+   * connection property to use framed transport, required by a server with
+   * rpc_selector_server_enable.
+   */
+  public static final String FRAMED_TRANSPORT = "framed_transport";
+
   static final int RETRY_NUM = 3;
   static final long RETRY_INTERVAL = 1000;
 
@@ -26,6 +26,7 @@ public class IoTDBConnectionParams {
   private String seriesName = Config.DEFAULT_SERIES_NAME;
   private String username = Config.DEFAULT_USER;
   private String password = Config.DEFALUT_PASSWORD;
+  private boolean framedTransport = false;
 
   public IoTDBConnectionParams(String url) {
     this.jdbcUriString = url;
@@ -79,4 +80,12 @@ public class IoTDBConnectionParams {
     this.password = password;
   }
 
+  public boolean isFramedTransport() {
+    return framedTransport;
+  }
+
+  public void setFramedTransport(boolean framedTransport) {
+    this.framedTransport = framedTransport;
+  }
+
 }
@@ -56,6 +56,9 @@ public class Utils {
     if (info.containsKey(Config.AUTH_PASSWORD)) {
       params.setPassword(info.getProperty(Config.AUTH_PASSWORD));
     }
+    if (info.containsKey(Config.FRAMED_TRANSPORT)) {
+      params.setFramedTransport(Boolean.parseBoolean(info.getProperty(Config.FRAMED_TRANSPORT)));
+    }
 
     return params;
   }
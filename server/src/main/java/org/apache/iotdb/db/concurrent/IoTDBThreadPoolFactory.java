@@ -20,9 +20,11 @@ package org.apache.iotdb.db.concurrent;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import org.apache.thrift.server.TThreadPoolServer.Args;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -137,4 +139,16 @@ public class IoTDBThreadPoolFactory {
         args.stopTimeoutUnit, executorQueue, new IoTThreadFactory(poolName, handler));
   }
 
+  /**
+   * function for creating the worker thread pool of a thrift selector server. The queue is bounded,
+   * so requests are rejected instead of piling up when the workers cannot keep up.
+   */
+  public static ThreadPoolExecutor createThriftRpcWorkerThreadPool(int threadNum, int queueSize,
+      String poolName) {
+    logger.info("new thrift rpc worker thread pool: {}, thread number: {}, queue size: {}",
+        poolName, threadNum, queueSize);
+    return new ThreadPoolExecutor(threadNum, threadNum, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(queueSize), new IoTThreadFactory(poolName));
+  }
+
 }
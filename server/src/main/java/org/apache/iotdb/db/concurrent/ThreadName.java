@@ -22,6 +22,7 @@ public enum ThreadName {
   METRICS_SERVICE("Metrics-ServerServiceImpl"),
   JDBC_SERVICE("JDBC-ServerServiceImpl"),
   JDBC_CLIENT("JDBC-Client"),
+  JDBC_WORKER("JDBC-Worker"),
   MERGE_SERVICE("Merge-ServerServiceImpl"),
   CLOSE_MERGE_SERVICE("Close-Merge-ServerServiceImpl"),
   CLOSE_MERGE_DAEMON("Close-Merge-Daemon-Thread"),
@@ -36,13 +37,15 @@ public enum ThreadName {
   FLUSH_SUB_TASK_SERVICE("Flush-SubTask-ServerServiceImpl"),
   WAL_DAEMON("IoTDB-MultiFileLogNodeManager-Sync-Thread"),
   WAL_FORCE_DAEMON("IoTDB-MultiFileLogNodeManager-Force-Thread"),
+  WAL_GROUP_COMMIT_DAEMON("IoTDB-MultiFileLogNodeManager-Group-Commit-Thread"),
   INDEX_SERVICE("Index-ServerServiceImpl"),
   SYNC_CLIENT("Sync-Client"),
   SYNC_SERVER("Sync-Server"),
   SYNC_MONITOR("Sync-Monitor"),
   LOAD_TSFILE("Load TsFile"),
   TIME_COST_STATSTIC("TIME_COST_STATSTIC"),
-  QUERY_SERVICE("Query-ServerServiceImpl");
+  QUERY_SERVICE("Query-ServerServiceImpl"),
+  CHUNK_PREFETCH_SERVICE("Chunk-Prefetch-ServerServiceImpl");
 
   private String name;
 
@@ -67,6 +67,29 @@ public class IoTDBConfig {
    */
   private int rpcMaxConcurrentClientNum = 65535;
 
+  /**
+   * whether to serve the clients by a selector server with framed transport instead of one thread
+   * per connection.
+   */
+  private boolean rpcSelectorServerEnable = false;
+
+  /**
+   * Number of selector threads of the selector server
+   */
+  private int rpcSelectorThreadNum = 2;
+
+  /**
+   * Number of worker threads which process the requests of the selector server, the requests of
+   * one connection are always processed by the same worker
+   */
+  private int rpcWorkerThreadNum = 64;
+
+  /**
+   * Max number of requests waiting for the workers of the selector server, split evenly among the
+   * workers. A request rejected by a full queue closes its connection
+   */
+  private int rpcWorkerQueueSize = 4096;
+
   /**
    * Memory allocated for the read process
    */
@@ -106,6 +129,43 @@ public class IoTDBConfig {
    */
   private long forceWalPeriodInMs = 10;
 
+  /**
+   * Whether to persist write ahead logs by group commit. If enabled, logs of concurrent insertions
+   * are written and forced to disk together by a background thread, and an insertion returns
+   * after the logs are forced. flushWalThreshold and forceWalPeriodInMs are ignored.
+   */
+  private boolean enableWalGroupCommit = false;
+
+  /**
+   * How long (in milliseconds) a group commit waits for more write ahead logs before forcing them.
+   * If it is 0, the logs are forced at once and the logs written meanwhile join the next commit.
+   */
+  private long walGroupCommitLatencyInMs = 0;
+
+  /**
+   * How long (in milliseconds) an insertion waits for its write ahead log to be forced by group
+   * commit before it fails.
+   */
+  private long walGroupCommitTimeoutInMs = 60000;
+
+  /**
+   * Whether to write write ahead logs into preallocated segment files, which are recycled instead
+   * of deleted when the logs are obsolete. So neither file creation nor file size change happens
+   * in most log writes.
+   */
+  private boolean enableWalSegment = false;
+
+  /**
+   * The size (in byte) of a newly preallocated WAL segment. A segment grows by this size when it
+   * is full.
+   */
+  private int walSegmentSize = 32 * 1024 * 1024;
+
+  /**
+   * The max number of obsolete WAL segments kept for reuse. Segments beyond it are deleted.
+   */
+  private int maxRecycledWalSegmentNum = 8;
+
   /**
    * Size of log buffer in each log node(in byte). If WAL is enabled and the size of a insert plan
    * is smaller than this parameter, then the insert plan will be rejected by WAL.
@@ -162,11 +222,63 @@ public class IoTDBConfig {
    */
   private int concurrentFlushThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many threads can concurrently encode the series of one memtable in a flush. When <= 0,
+   * use CPU core number.
+   */
+  private int concurrentEncodingThreadPerFlush = Runtime.getRuntime().availableProcessors();
+
   /**
    * How many threads can concurrently query. When <= 0, use CPU core number.
    */
   private int concurrentQueryThread = Runtime.getRuntime().availableProcessors();
 
+  /**
+   * How many threads of the query pool can concurrently compute the series of one aggregation or
+   * group by query. When <= 0, use CPU core number.
+   */
+  private int concurrentAggregationThreadPerQuery = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * The max time in ms to compute the aggregation results of all series of one aggregation query,
+   * or of one time interval of a group by query. The query fails when exceeded. When <= 0, there
+   * is no limit.
+   */
+  private long aggregationTimeoutInMs = 0;
+
+  /**
+   * How many chunks of a series in a sealed TsFile are read ahead in the background while the
+   * current chunk is decoded. When <= 0, chunks are not prefetched.
+   */
+  private int chunkPrefetchNum = 2;
+
+  /**
+   * The max size in byte of the chunks that are prefetched but not read yet by one query.
+   */
+  private long chunkPrefetchMemoryPerQueryInByte = 16 * 1024 * 1024L;
+
+  /**
+   * How many threads can concurrently prefetch chunks. When <= 0, use CPU core number.
+   */
+  private int concurrentChunkPrefetchThread = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Whether to write the pre-aggregated statistics (rollups) of each series into a companion file
+   * of each sequence TsFile at flush time. They are used by group by queries whose intervals are
+   * multiples of a rollup interval.
+   */
+  private boolean enableRollup = false;
+
+  /**
+   * The bucket intervals in ms of the rollup tiers, in ascending order.
+   */
+  private long[] rollupIntervalsInMs = {60_000L, 3_600_000L, 86_400_000L};
+
+  /**
+   * The max memory (in byte) of the cached indexes of the rollup files.
+   */
+  private long rollupIndexCacheSizeInByte = 16 * 1024 * 1024L;
+
   private ZoneId zoneID = ZoneId.systemDefault();
 
   /**
@@ -180,7 +292,19 @@ public class IoTDBConfig {
   private long memtableSizeThreshold = 128 * 1024 * 1024L;
 
   /**
-   * whether to cache meta data(ChunkMetaData and TsFileMetaData) or not.
+   * Max size (in byte) of the released primitive arrays kept by PrimitiveArrayPool for reuse,
+   * arrays released beyond it are left to GC.
+   */
+  private long primitiveArrayPoolCapacity = 256 * 1024 * 1024L;
+
+  /**
+   * How long (in ms) an insertion waits for a free memtable when all memtables of the MemTable
+   * pool are in use, after which the insertion is rejected as system busy.
+   */
+  private long memtableAcquireTimeoutInMs = 10000;
+
+  /**
+   * whether to cache meta data(ChunkMetaData and TsFileMetaData) and chunk data or not.
    */
   private boolean metaDataCacheEnable = true;
   /**
@@ -193,6 +317,17 @@ public class IoTDBConfig {
    */
   private long allocateMemoryForChumkMetaDataCache = allocateMemoryForRead * 6 / 19;
 
+  /**
+   * Memory allocated for chunk cache in read process
+   */
+  private long allocateMemoryForChunkCache = allocateMemoryForRead * 4 / 19;
+
+  /**
+   * whether to cache the latest point of each time series, so that last_value and max_time without
+   * a time filter are answered without reading any file.
+   */
+  private boolean lastValueCacheEnable = true;
+
   /**
    * The statMonitor writes statistics info into IoTDB every backLoopPeriodSec secs. The default
    * value is 5s.
@@ -614,6 +749,54 @@ public class IoTDBConfig {
     this.forceWalPeriodInMs = forceWalPeriodInMs;
   }
 
+  public boolean isEnableWalGroupCommit() {
+    return enableWalGroupCommit;
+  }
+
+  public void setEnableWalGroupCommit(boolean enableWalGroupCommit) {
+    this.enableWalGroupCommit = enableWalGroupCommit;
+  }
+
+  public long getWalGroupCommitLatencyInMs() {
+    return walGroupCommitLatencyInMs;
+  }
+
+  public void setWalGroupCommitLatencyInMs(long walGroupCommitLatencyInMs) {
+    this.walGroupCommitLatencyInMs = walGroupCommitLatencyInMs;
+  }
+
+  public long getWalGroupCommitTimeoutInMs() {
+    return walGroupCommitTimeoutInMs;
+  }
+
+  public void setWalGroupCommitTimeoutInMs(long walGroupCommitTimeoutInMs) {
+    this.walGroupCommitTimeoutInMs = walGroupCommitTimeoutInMs;
+  }
+
+  public boolean isEnableWalSegment() {
+    return enableWalSegment;
+  }
+
+  public void setEnableWalSegment(boolean enableWalSegment) {
+    this.enableWalSegment = enableWalSegment;
+  }
+
+  public int getWalSegmentSize() {
+    return walSegmentSize;
+  }
+
+  public void setWalSegmentSize(int walSegmentSize) {
+    this.walSegmentSize = walSegmentSize;
+  }
+
+  public int getMaxRecycledWalSegmentNum() {
+    return maxRecycledWalSegmentNum;
+  }
+
+  public void setMaxRecycledWalSegmentNum(int maxRecycledWalSegmentNum) {
+    this.maxRecycledWalSegmentNum = maxRecycledWalSegmentNum;
+  }
+
   public String getSystemDir() {
     return systemDir;
   }
@@ -682,6 +865,14 @@ public class IoTDBConfig {
     this.concurrentFlushThread = concurrentFlushThread;
   }
 
+  public int getConcurrentEncodingThreadPerFlush() {
+    return concurrentEncodingThreadPerFlush;
+  }
+
+  void setConcurrentEncodingThreadPerFlush(int concurrentEncodingThreadPerFlush) {
+    this.concurrentEncodingThreadPerFlush = concurrentEncodingThreadPerFlush;
+  }
+
   public int getConcurrentQueryThread() {
     return concurrentQueryThread;
   }
@@ -690,6 +881,70 @@ public class IoTDBConfig {
     this.concurrentQueryThread = concurrentQueryThread;
   }
 
+  public int getConcurrentAggregationThreadPerQuery() {
+    return concurrentAggregationThreadPerQuery;
+  }
+
+  void setConcurrentAggregationThreadPerQuery(int concurrentAggregationThreadPerQuery) {
+    this.concurrentAggregationThreadPerQuery = concurrentAggregationThreadPerQuery;
+  }
+
+  public long getAggregationTimeoutInMs() {
+    return aggregationTimeoutInMs;
+  }
+
+  public void setAggregationTimeoutInMs(long aggregationTimeoutInMs) {
+    this.aggregationTimeoutInMs = aggregationTimeoutInMs;
+  }
+
+  public int getChunkPrefetchNum() {
+    return chunkPrefetchNum;
+  }
+
+  public void setChunkPrefetchNum(int chunkPrefetchNum) {
+    this.chunkPrefetchNum = chunkPrefetchNum;
+  }
+
+  public long getChunkPrefetchMemoryPerQueryInByte() {
+    return chunkPrefetchMemoryPerQueryInByte;
+  }
+
+  public void setChunkPrefetchMemoryPerQueryInByte(long chunkPrefetchMemoryPerQueryInByte) {
+    this.chunkPrefetchMemoryPerQueryInByte = chunkPrefetchMemoryPerQueryInByte;
+  }
+
+  public int getConcurrentChunkPrefetchThread() {
+    return concurrentChunkPrefetchThread;
+  }
+
+  void setConcurrentChunkPrefetchThread(int concurrentChunkPrefetchThread) {
+    this.concurrentChunkPrefetchThread = concurrentChunkPrefetchThread;
+  }
+
+  public boolean isEnableRollup() {
+    return enableRollup;
+  }
+
+  public void setEnableRollup(boolean enableRollup) {
+    this.enableRollup = enableRollup;
+  }
+
+  public long[] getRollupIntervalsInMs() {
+    return rollupIntervalsInMs;
+  }
+
+  public void setRollupIntervalsInMs(long[] rollupIntervalsInMs) {
+    this.rollupIntervalsInMs = rollupIntervalsInMs;
+  }
+
+  public long getRollupIndexCacheSizeInByte() {
+    return rollupIndexCacheSizeInByte;
+  }
+
+  public void setRollupIndexCacheSizeInByte(long rollupIndexCacheSizeInByte) {
+    this.rollupIndexCacheSizeInByte = rollupIndexCacheSizeInByte;
+  }
+
   void setZoneID(ZoneId zoneID) {
     this.zoneID = zoneID;
   }
@@ -726,6 +981,38 @@ public class IoTDBConfig {
     this.rpcMaxConcurrentClientNum = rpcMaxConcurrentClientNum;
   }
 
+  public boolean isRpcSelectorServerEnable() {
+    return rpcSelectorServerEnable;
+  }
+
+  public void setRpcSelectorServerEnable(boolean rpcSelectorServerEnable) {
+    this.rpcSelectorServerEnable = rpcSelectorServerEnable;
+  }
+
+  public int getRpcSelectorThreadNum() {
+    return rpcSelectorThreadNum;
+  }
+
+  public void setRpcSelectorThreadNum(int rpcSelectorThreadNum) {
+    this.rpcSelectorThreadNum = rpcSelectorThreadNum;
+  }
+
+  public int getRpcWorkerThreadNum() {
+    return rpcWorkerThreadNum;
+  }
+
+  public void setRpcWorkerThreadNum(int rpcWorkerThreadNum) {
+    this.rpcWorkerThreadNum = rpcWorkerThreadNum;
+  }
+
+  public int getRpcWorkerQueueSize() {
+    return rpcWorkerQueueSize;
+  }
+
+  public void setRpcWorkerQueueSize(int rpcWorkerQueueSize) {
+    this.rpcWorkerQueueSize = rpcWorkerQueueSize;
+  }
+
   public int getStatMonitorDetectFreqSec() {
     return statMonitorDetectFreqSec;
   }
@@ -950,6 +1237,22 @@ public class IoTDBConfig {
     this.memtableSizeThreshold = memtableSizeThreshold;
   }
 
+  public long getPrimitiveArrayPoolCapacity() {
+    return primitiveArrayPoolCapacity;
+  }
+
+  public void setPrimitiveArrayPoolCapacity(long primitiveArrayPoolCapacity) {
+    this.primitiveArrayPoolCapacity = primitiveArrayPoolCapacity;
+  }
+
+  public long getMemtableAcquireTimeoutInMs() {
+    return memtableAcquireTimeoutInMs;
+  }
+
+  public void setMemtableAcquireTimeoutInMs(long memtableAcquireTimeoutInMs) {
+    this.memtableAcquireTimeoutInMs = memtableAcquireTimeoutInMs;
+  }
+
   public MergeFileStrategy getMergeFileStrategy() {
     return mergeFileStrategy;
   }
@@ -991,6 +1294,14 @@ public class IoTDBConfig {
     this.metaDataCacheEnable = metaDataCacheEnable;
   }
 
+  public boolean isLastValueCacheEnable() {
+    return lastValueCacheEnable;
+  }
+
+  public void setLastValueCacheEnable(boolean lastValueCacheEnable) {
+    this.lastValueCacheEnable = lastValueCacheEnable;
+  }
+
   public long getAllocateMemoryForFileMetaDataCache() {
     return allocateMemoryForFileMetaDataCache;
   }
@@ -1007,6 +1318,14 @@ public class IoTDBConfig {
     this.allocateMemoryForChumkMetaDataCache = allocateMemoryForChumkMetaDataCache;
   }
 
+  public long getAllocateMemoryForChunkCache() {
+    return allocateMemoryForChunkCache;
+  }
+
+  public void setAllocateMemoryForChunkCache(long allocateMemoryForChunkCache) {
+    this.allocateMemoryForChunkCache = allocateMemoryForChunkCache;
+  }
+
   public boolean isEnableWatermark() {
     return enableWatermark;
   }
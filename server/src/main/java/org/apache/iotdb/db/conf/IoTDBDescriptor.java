@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Properties;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
@@ -140,6 +141,10 @@ public class IoTDBDescriptor {
           Boolean.parseBoolean(properties.getProperty("meta_data_cache_enable",
               Boolean.toString(conf.isMetaDataCacheEnable()))));
 
+      conf.setLastValueCacheEnable(
+          Boolean.parseBoolean(properties.getProperty("last_value_cache_enable",
+              Boolean.toString(conf.isLastValueCacheEnable()))));
+
       initMemoryAllocate(properties);
 
       loadWALProps(properties);
@@ -183,6 +188,17 @@ public class IoTDBDescriptor {
         conf.setMemtableSizeThreshold(memTableSizeThreshold);
       }
 
+      conf.setPrimitiveArrayPoolCapacity(Long.parseLong(properties
+          .getProperty("primitive_array_pool_capacity_in_byte",
+              Long.toString(conf.getPrimitiveArrayPoolCapacity())).trim()));
+
+      long memtableAcquireTimeout = Long.parseLong(properties
+          .getProperty("memtable_acquire_timeout_in_ms",
+              Long.toString(conf.getMemtableAcquireTimeoutInMs())).trim());
+      if (memtableAcquireTimeout > 0) {
+        conf.setMemtableAcquireTimeoutInMs(memtableAcquireTimeout);
+      }
+
       conf.setSyncEnable(Boolean
           .parseBoolean(properties.getProperty("is_sync_enable",
               Boolean.toString(conf.isSyncEnable()))));
@@ -201,6 +217,57 @@ public class IoTDBDescriptor {
         conf.setConcurrentFlushThread(Runtime.getRuntime().availableProcessors());
       }
 
+      conf.setConcurrentEncodingThreadPerFlush(Integer
+          .parseInt(properties.getProperty("concurrent_encoding_thread_per_flush",
+              Integer.toString(conf.getConcurrentEncodingThreadPerFlush()))));
+
+      if (conf.getConcurrentEncodingThreadPerFlush() <= 0) {
+        conf.setConcurrentEncodingThreadPerFlush(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setConcurrentAggregationThreadPerQuery(Integer
+          .parseInt(properties.getProperty("concurrent_aggregation_thread_per_query",
+              Integer.toString(conf.getConcurrentAggregationThreadPerQuery()))));
+
+      if (conf.getConcurrentAggregationThreadPerQuery() <= 0) {
+        conf.setConcurrentAggregationThreadPerQuery(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setAggregationTimeoutInMs(Long
+          .parseLong(properties.getProperty("aggregation_timeout_in_ms",
+              Long.toString(conf.getAggregationTimeoutInMs()))));
+
+      conf.setChunkPrefetchNum(Integer
+          .parseInt(properties.getProperty("chunk_prefetch_num",
+              Integer.toString(conf.getChunkPrefetchNum()))));
+
+      conf.setChunkPrefetchMemoryPerQueryInByte(Long
+          .parseLong(properties.getProperty("chunk_prefetch_memory_per_query_in_byte",
+              Long.toString(conf.getChunkPrefetchMemoryPerQueryInByte()))));
+
+      conf.setConcurrentChunkPrefetchThread(Integer
+          .parseInt(properties.getProperty("concurrent_chunk_prefetch_thread",
+              Integer.toString(conf.getConcurrentChunkPrefetchThread()))));
+
+      if (conf.getConcurrentChunkPrefetchThread() <= 0) {
+        conf.setConcurrentChunkPrefetchThread(Runtime.getRuntime().availableProcessors());
+      }
+
+      conf.setEnableRollup(Boolean.parseBoolean(properties.getProperty("enable_rollup",
+          Boolean.toString(conf.isEnableRollup())).trim()));
+
+      String rollupIntervals = properties.getProperty("rollup_intervals_in_ms");
+      if (rollupIntervals != null) {
+        conf.setRollupIntervalsInMs(parseRollupIntervals(rollupIntervals));
+      }
+
+      long rollupIndexCacheSize = Long.parseLong(properties
+          .getProperty("rollup_index_cache_size_in_byte",
+              Long.toString(conf.getRollupIndexCacheSizeInByte())).trim());
+      if (rollupIndexCacheSize > 0) {
+        conf.setRollupIndexCacheSizeInByte(rollupIndexCacheSize);
+      }
+
       conf.setmManagerCacheSize(Integer
           .parseInt(properties.getProperty("schema_manager_cache_size",
               Integer.toString(conf.getmManagerCacheSize())).trim()));
@@ -260,6 +327,24 @@ public class IoTDBDescriptor {
         maxConcurrentClientNum = 65535;
       }
 
+      conf.setRpcSelectorServerEnable(Boolean.parseBoolean(properties.getProperty(
+          "rpc_selector_server_enable", Boolean.toString(conf.isRpcSelectorServerEnable())).trim()));
+      int rpcSelectorThreadNum = Integer.parseInt(properties.getProperty(
+          "rpc_selector_thread_num", Integer.toString(conf.getRpcSelectorThreadNum())).trim());
+      if (rpcSelectorThreadNum > 0) {
+        conf.setRpcSelectorThreadNum(rpcSelectorThreadNum);
+      }
+      int rpcWorkerThreadNum = Integer.parseInt(properties.getProperty(
+          "rpc_worker_thread_num", Integer.toString(conf.getRpcWorkerThreadNum())).trim());
+      if (rpcWorkerThreadNum > 0) {
+        conf.setRpcWorkerThreadNum(rpcWorkerThreadNum);
+      }
+      int rpcWorkerQueueSize = Integer.parseInt(properties.getProperty(
+          "rpc_worker_queue_size", Integer.toString(conf.getRpcWorkerQueueSize())).trim());
+      if (rpcWorkerQueueSize > 0) {
+        conf.setRpcWorkerQueueSize(rpcWorkerQueueSize);
+      }
+
       conf.setEnableWatermark(Boolean.parseBoolean(properties.getProperty("watermark_module_opened",
           Boolean.toString(conf.isEnableWatermark()).trim())));
       conf.setWatermarkSecretKey(
@@ -352,6 +437,39 @@ public class IoTDBDescriptor {
         .parseLong(properties.getProperty("force_wal_period_in_ms",
             Long.toString(conf.getForceWalPeriodInMs()))));
 
+    conf.setEnableWalGroupCommit(Boolean
+        .parseBoolean(properties.getProperty("enable_wal_group_commit",
+            Boolean.toString(conf.isEnableWalGroupCommit()))));
+
+    long walGroupCommitLatencyInMs = Long
+        .parseLong(properties.getProperty("wal_group_commit_latency_in_ms",
+            Long.toString(conf.getWalGroupCommitLatencyInMs())));
+    if (walGroupCommitLatencyInMs >= 0) {
+      conf.setWalGroupCommitLatencyInMs(walGroupCommitLatencyInMs);
+    }
+
+    long walGroupCommitTimeoutInMs = Long
+        .parseLong(properties.getProperty("wal_group_commit_timeout_in_ms",
+            Long.toString(conf.getWalGroupCommitTimeoutInMs())));
+    if (walGroupCommitTimeoutInMs > 0) {
+      conf.setWalGroupCommitTimeoutInMs(walGroupCommitTimeoutInMs);
+    }
+
+    conf.setEnableWalSegment(Boolean.parseBoolean(properties.getProperty("enable_wal_segment",
+        Boolean.toString(conf.isEnableWalSegment()))));
+
+    int walSegmentSize = Integer.parseInt(properties.getProperty("wal_segment_size",
+        Integer.toString(conf.getWalSegmentSize())));
+    if (walSegmentSize > 0) {
+      conf.setWalSegmentSize(walSegmentSize);
+    }
+
+    int maxRecycledWalSegmentNum = Integer
+        .parseInt(properties.getProperty("max_recycled_wal_segment_num",
+            Integer.toString(conf.getMaxRecycledWalSegmentNum())));
+    if (maxRecycledWalSegmentNum >= 0) {
+      conf.setMaxRecycledWalSegmentNum(maxRecycledWalSegmentNum);
+    }
   }
 
   private void loadAutoCreateSchemaProps(Properties properties){
@@ -421,6 +539,12 @@ public class IoTDBDescriptor {
             TSFileDescriptor.getInstance().getConfig().getValueEncoder()));
     TSFileDescriptor.getInstance().getConfig().setCompressor(properties
         .getProperty("compressor", TSFileDescriptor.getInstance().getConfig().getCompressor()));
+    TSFileDescriptor.getInstance().getConfig().setZstdLevel(Integer.parseInt(properties
+        .getProperty("zstd_level",
+            Integer.toString(TSFileDescriptor.getInstance().getConfig().getZstdLevel()))));
+    TSFileDescriptor.getInstance().getConfig().setMmapSealedFile(Boolean.parseBoolean(properties
+        .getProperty("mmap_sealed_file",
+            Boolean.toString(TSFileDescriptor.getInstance().getConfig().isMmapSealedFile()))));
   }
 
   public void loadHotModifiedProps() throws QueryProcessException {
@@ -482,6 +606,20 @@ public class IoTDBDescriptor {
     }
   }
 
+  /**
+   * parse the comma separated rollup intervals, ignoring non-positive and duplicated ones.
+   */
+  private long[] parseRollupIntervals(String rollupIntervals) {
+    return Arrays.stream(rollupIntervals.split(","))
+        .map(String::trim)
+        .filter(interval -> !interval.isEmpty())
+        .mapToLong(Long::parseLong)
+        .filter(interval -> interval > 0)
+        .sorted()
+        .distinct()
+        .toArray();
+  }
+
   private void initMemoryAllocate(Properties properties) {
     String memoryAllocateProportion = properties.getProperty("write_read_free_memory_proportion");
     if (memoryAllocateProportion != null) {
@@ -515,6 +653,9 @@ public class IoTDBDescriptor {
             maxMemoryAvailable * Integer.parseInt(proportions[0].trim()) / proportionSum);
         conf.setAllocateMemoryForChumkMetaDataCache(
             maxMemoryAvailable * Integer.parseInt(proportions[1].trim()) / proportionSum);
+        // the old form a:b:c does not reserve any memory for the chunk cache
+        conf.setAllocateMemoryForChunkCache(proportions.length > 3
+            ? maxMemoryAvailable * Integer.parseInt(proportions[2].trim()) / proportionSum : 0);
       } catch (Exception e) {
         throw new RuntimeException(
             "Each subsection of configuration item filemeta_chunkmeta_free_memory_proportion should be an integer, which is "
@@ -22,10 +22,14 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -33,6 +37,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -234,6 +239,64 @@ public class StorageEngine implements IService {
     }
   }
 
+  /**
+   * insert the rows of many devices, which are grouped by storage group so that each storage group
+   * inserts the rows of a device with one acquisition of the lock and one write of the WAL. The WAL
+   * of all storage groups is waited for together after all the rows are inserted.
+   *
+   * @return the exception of each row, or null if the row is inserted
+   */
+  public QueryProcessException[] insertRows(List<InsertPlan> insertPlans) {
+    QueryProcessException[] results = new QueryProcessException[insertPlans.size()];
+    Map<String, StorageGroupProcessor> deviceProcessors = new HashMap<>();
+    Map<StorageGroupProcessor, List<Integer>> processorIndexes = new LinkedHashMap<>();
+    for (int i = 0; i < insertPlans.size(); i++) {
+      String deviceId = insertPlans.get(i).getDeviceId();
+      StorageGroupProcessor storageGroupProcessor = deviceProcessors.get(deviceId);
+      if (storageGroupProcessor == null) {
+        try {
+          storageGroupProcessor = getProcessor(deviceId);
+        } catch (StorageEngineException e) {
+          logger.warn("get StorageGroupProcessor of device {} failed, because {}", deviceId,
+              e.getMessage(), e);
+          results[i] = new QueryProcessException(e);
+          continue;
+        }
+        deviceProcessors.put(deviceId, storageGroupProcessor);
+      }
+      processorIndexes.computeIfAbsent(storageGroupProcessor, k -> new ArrayList<>()).add(i);
+    }
+
+    List<CompletableFuture<Void>> walFutures = new ArrayList<>(processorIndexes.size());
+    List<List<Integer>> walIndexes = new ArrayList<>(processorIndexes.size());
+    for (Entry<StorageGroupProcessor, List<Integer>> entry : processorIndexes.entrySet()) {
+      walFutures.add(entry.getKey().insertRows(insertPlans, entry.getValue(), results));
+      walIndexes.add(entry.getValue());
+    }
+    // the futures never complete exceptionally, the rows whose WAL fails get their exceptions
+    long deadline = System.currentTimeMillis() + config.getWalGroupCommitTimeoutInMs();
+    for (int i = 0; i < walFutures.size(); i++) {
+      try {
+        walFutures.get(i).get(Math.max(deadline - System.currentTimeMillis(), 0),
+            TimeUnit.MILLISECONDS);
+      } catch (InterruptedException | ExecutionException | TimeoutException e) {
+        if (e instanceof InterruptedException) {
+          Thread.currentThread().interrupt();
+        }
+        logger.error("The WAL of {} rows is not forced in {}ms", walIndexes.get(i).size(),
+            config.getWalGroupCommitTimeoutInMs(), e);
+        for (int index : walIndexes.get(i)) {
+          if (results[index] == null) {
+            results[index] = new QueryProcessException(String.format(
+                "Failed to persist WAL of the insertion into %s in time",
+                insertPlans.get(index).getDeviceId()));
+          }
+        }
+      }
+    }
+    return results;
+  }
+
   /**
    * insert a BatchInsertPlan to a storage group
    *
@@ -316,7 +379,8 @@ public class StorageEngine implements IService {
     String deviceId = seriesExpression.getSeriesPath().getDevice();
     String measurementId = seriesExpression.getSeriesPath().getMeasurement();
     StorageGroupProcessor storageGroupProcessor = getProcessor(deviceId);
-    return storageGroupProcessor.query(deviceId, measurementId, context, filePathsManager);
+    return storageGroupProcessor.query(deviceId, measurementId, context, filePathsManager,
+        seriesExpression.getFilter());
   }
 
   /**
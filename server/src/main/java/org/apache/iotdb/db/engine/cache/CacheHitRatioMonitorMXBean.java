@@ -23,4 +23,6 @@ public interface CacheHitRatioMonitorMXBean {
   double getChunkMetaDataHitRatio();
 
   double getTsfileMetaDataHitRatio();
+
+  double getChunkHitRatio();
 }
@@ -0,0 +1,184 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class is used to cache <code>Chunk</code> of sealed TsFiles in IoTDB. A chunk is identified
+ * by the path of its file and the offset of its header, so it can be shared by all queries until
+ * the file is removed or rewritten by merge or TTL.
+ */
+public class ChunkCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ChunkCache.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private static final long MEMORY_THRESHOLD_IN_B = config.getAllocateMemoryForChunkCache();
+  private static boolean cacheEnable = config.isMetaDataCacheEnable() && MEMORY_THRESHOLD_IN_B > 0;
+
+  /**
+   * key: file path and offset of the chunk header. value: the chunk read from disk.
+   */
+  private LRULinkedHashMap<ChunkCacheKey, Chunk> lruCache;
+
+  private AtomicLong cacheHitNum = new AtomicLong();
+  private AtomicLong cacheRequestNum = new AtomicLong();
+
+  private ChunkCache(long memoryThreshold) {
+    lruCache = new LRULinkedHashMap<ChunkCacheKey, Chunk>(memoryThreshold, true) {
+      @Override
+      protected long calEntrySize(ChunkCacheKey key, Chunk value) {
+        return key.filePath.length() * 2 + Long.BYTES + value.getHeader().getSerializedSize()
+            + value.getData().capacity();
+      }
+    };
+  }
+
+  public static ChunkCache getInstance() {
+    return ChunkCacheHolder.INSTANCE;
+  }
+
+  /**
+   * get the {@link Chunk} of the given {@link ChunkMetaData}, read it by the reader if it is not
+   * cached. The returned chunk owns an independent view of the cached data and the deletion time
+   * of the given metadata, so it can be consumed by one reader without affecting others. THREAD
+   * SAFE.
+   */
+  public Chunk get(ChunkMetaData chunkMetaData, TsFileSequenceReader reader) throws IOException {
+    if (!cacheEnable) {
+      return reader.readMemChunk(chunkMetaData);
+    }
+
+    ChunkCacheKey key = new ChunkCacheKey(reader.getFileName(),
+        chunkMetaData.getOffsetOfChunkHeader());
+    cacheRequestNum.incrementAndGet();
+    Chunk chunk;
+    synchronized (lruCache) {
+      chunk = lruCache.get(key);
+    }
+    if (chunk != null) {
+      cacheHitNum.incrementAndGet();
+      printCacheLog(true);
+    } else {
+      printCacheLog(false);
+      chunk = reader.readMemChunk(chunkMetaData);
+      synchronized (lruCache) {
+        if (!lruCache.containsKey(key)) {
+          lruCache.put(key, chunk);
+        }
+      }
+    }
+    return new Chunk(chunk.getHeader(), chunk.getData().duplicate(),
+        chunkMetaData.getDeletedAt(), reader.getEndianType());
+  }
+
+  private void printCacheLog(boolean isHit) {
+    if (!logger.isDebugEnabled()) {
+      return;
+    }
+    logger.debug(
+        "[Chunk cache {}hit] The number of requests for cache is {}, hit rate is {}.",
+        isHit ? "" : "didn't ", cacheRequestNum.get(),
+        cacheHitNum.get() * 1.0 / cacheRequestNum.get());
+  }
+
+  public double calculateChunkHitRatio() {
+    if (cacheRequestNum.get() != 0) {
+      return cacheHitNum.get() * 1.0 / cacheRequestNum.get();
+    } else {
+      return 0;
+    }
+  }
+
+  /**
+   * remove all chunks of the given file, must be called before the file is deleted or rewritten.
+   */
+  public void remove(TsFileResource resource) {
+    String filePath = resource.getFile().getPath();
+    synchronized (lruCache) {
+      List<ChunkCacheKey> keys = new ArrayList<>();
+      for (ChunkCacheKey key : lruCache.keySet()) {
+        if (key.filePath.equals(filePath)) {
+          keys.add(key);
+        }
+      }
+      keys.forEach(lruCache::remove);
+    }
+  }
+
+  /**
+   * clear LRUCache.
+   */
+  public void clear() {
+    synchronized (lruCache) {
+      lruCache.clear();
+    }
+  }
+
+  private static class ChunkCacheKey {
+
+    private final String filePath;
+    private final long offset;
+
+    private ChunkCacheKey(String filePath, long offset) {
+      this.filePath = filePath;
+      this.offset = offset;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkCacheKey that = (ChunkCacheKey) o;
+      return offset == that.offset && filePath.equals(that.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(filePath, offset);
+    }
+  }
+
+  /**
+   * singleton pattern.
+   */
+  private static class ChunkCacheHolder {
+
+    private ChunkCacheHolder() {
+    }
+
+    private static final ChunkCache INSTANCE = new ChunkCache(MEMORY_THRESHOLD_IN_B);
+  }
+}
@@ -19,11 +19,15 @@
 package org.apache.iotdb.db.engine.cache;
 
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
@@ -38,22 +42,42 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * This class is used to cache <code>List<ChunkMetaData></code> of tsfile in IoTDB. The caching
- * strategy is LRU.
+ * This class is used to cache <code>List&lt;ChunkMetaData&gt;</code> of each time series in each
+ * TsFile. The cache is split into segments, each of which is an LRU map guarded by its own
+ * monitor, so that lookups of different devices do not contend on one lock. All measurements of
+ * one device in one file fall into the same segment.
+ * <p>
+ * The memory threshold is shared by all segments instead of being split evenly, so a few hot
+ * devices may use almost the whole cache. When the cache is full, the segments give up their
+ * eldest entries in turn, so the segments of cold devices are drained over time while a hot
+ * segment keeps growing.
  */
 public class DeviceMetaDataCache {
 
   private static final Logger logger = LoggerFactory.getLogger(DeviceMetaDataCache.class);
   private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static final long MEMORY_THRESHOLD_IN_B = config.getAllocateMemoryForChumkMetaDataCache();
+  private static final int SEGMENT_NUM = 64;
   private static StorageEngine storageEngine = StorageEngine.getInstance();
   private static boolean cacheEnable = config.isMetaDataCacheEnable();
   /**
-   * key: file path dot deviceId dot sensorId.
+   * key: file path, deviceId and sensorId.
    * <p>
-   * value: chunkMetaData list of one timeseries in the file.
+   * value: unmodifiable chunkMetaData list of one timeseries in the file.
    */
-  private LRULinkedHashMap<String, List<ChunkMetaData>> lruCache;
+  private LinkedHashMap<ChunkMetaDataCacheKey, List<ChunkMetaData>>[] segments;
+  private final long memoryThreshold;
+  private final AtomicLong usedMemory = new AtomicLong();
+  /**
+   * the segment to evict an entry from next time.
+   */
+  private final AtomicInteger evictionCursor = new AtomicInteger();
+
+  /**
+   * prevent concurrent loading of the metadata of the same device in the same file, indexed in
+   * the same way as the segments.
+   */
+  private Object[] loadLocks;
 
   private AtomicLong cacheHitNum = new AtomicLong();
   private AtomicLong cacheRequestNum = new AtomicLong();
@@ -63,16 +87,46 @@ public class DeviceMetaDataCache {
    */
   private long chunkMetaDataSize = 0;
 
+  @SuppressWarnings("unchecked")
   private DeviceMetaDataCache(long memoryThreshold) {
-    lruCache = new LRULinkedHashMap<String, List<ChunkMetaData>>(memoryThreshold, true) {
-      @Override
-      protected long calEntrySize(String key, List<ChunkMetaData> value) {
-        if (chunkMetaDataSize == 0 && !value.isEmpty()) {
-          chunkMetaDataSize = RamUsageEstimator.sizeOf(value.get(0));
+    this.memoryThreshold = memoryThreshold;
+    segments = new LinkedHashMap[SEGMENT_NUM];
+    loadLocks = new Object[SEGMENT_NUM];
+    for (int i = 0; i < SEGMENT_NUM; i++) {
+      segments[i] = new LinkedHashMap<>(16, 0.75f, true);
+      loadLocks[i] = new Object();
+    }
+  }
+
+  private long calEntrySize(ChunkMetaDataCacheKey key, List<ChunkMetaData> value) {
+    if (chunkMetaDataSize == 0 && !value.isEmpty()) {
+      chunkMetaDataSize = RamUsageEstimator.sizeOf(value.get(0));
+    }
+    return value.size() * chunkMetaDataSize + key.getSize();
+  }
+
+  /**
+   * evict the eldest entries of the segments in turn until the cache fits in the threshold, only
+   * one segment is locked at a time.
+   */
+  private void evict() {
+    int emptySegmentNum = 0;
+    while (usedMemory.get() > memoryThreshold && emptySegmentNum < SEGMENT_NUM) {
+      LinkedHashMap<ChunkMetaDataCacheKey, List<ChunkMetaData>> segment =
+          segments[Math.floorMod(evictionCursor.getAndIncrement(), SEGMENT_NUM)];
+      synchronized (segment) {
+        Iterator<Entry<ChunkMetaDataCacheKey, List<ChunkMetaData>>> iterator =
+            segment.entrySet().iterator();
+        if (!iterator.hasNext()) {
+          emptySegmentNum++;
+          continue;
         }
-        return value.size() * chunkMetaDataSize + key.length() * 2;
+        emptySegmentNum = 0;
+        Entry<ChunkMetaDataCacheKey, List<ChunkMetaData>> eldest = iterator.next();
+        usedMemory.addAndGet(-calEntrySize(eldest.getKey(), eldest.getValue()));
+        iterator.remove();
       }
-    };
+    }
   }
 
   public static DeviceMetaDataCache getInstance() {
@@ -81,6 +135,9 @@ public class DeviceMetaDataCache {
 
   /**
    * get {@link ChunkMetaData}. THREAD SAFE.
+   *
+   * @return the chunkMetaData list of the series in the file, which may be shared with other
+   * queries and must not be modified. Callers that need to modify it should make a copy.
    */
   public List<ChunkMetaData> get(TsFileResource resource, Path seriesPath)
       throws IOException {
@@ -92,40 +149,43 @@ public class DeviceMetaDataCache {
         if (logger.isDebugEnabled()) {
           logger.debug("path not found by bloom filter, file is: " + resource.getFile() + " path is: " + seriesPath);
         }
-        return new ArrayList<>();
+        return Collections.emptyList();
       }
       //
       TsDeviceMetadata deviceMetaData = TsFileMetadataUtils
           .getTsDeviceMetaData(resource, seriesPath, fileMetaData);
       // If measurement isn't included in the tsfile, empty list is returned.
       if (deviceMetaData == null) {
-        return new ArrayList<>();
+        return Collections.emptyList();
       }
       return TsFileMetadataUtils.getChunkMetaDataList(seriesPath.getMeasurement(), deviceMetaData);
     }
 
-    StringBuilder builder = new StringBuilder(resource.getFile().getPath()).append(".")
-        .append(seriesPath
-            .getDevice());
-    String pathDeviceStr = builder.toString();
-    String key = builder.append(".").append(seriesPath.getMeasurement()).toString();
-    Object devicePathObject = pathDeviceStr.intern();
+    String filePath = resource.getFile().getPath();
+    String device = seriesPath.getDevice();
+    ChunkMetaDataCacheKey key = new ChunkMetaDataCacheKey(filePath, device,
+        seriesPath.getMeasurement());
+    int segmentIndex = key.getSegmentIndex();
+    LinkedHashMap<ChunkMetaDataCacheKey, List<ChunkMetaData>> segment = segments[segmentIndex];
 
-    synchronized (lruCache) {
-      cacheRequestNum.incrementAndGet();
-      if (lruCache.containsKey(key)) {
+    cacheRequestNum.incrementAndGet();
+    List<ChunkMetaData> chunkMetaDataList;
+    synchronized (segment) {
+      chunkMetaDataList = segment.get(key);
+    }
+    if (chunkMetaDataList != null) {
+      cacheHitNum.incrementAndGet();
+      printCacheLog(true);
+      return chunkMetaDataList;
+    }
+    synchronized (loadLocks[segmentIndex]) {
+      synchronized (segment) {
+        chunkMetaDataList = segment.get(key);
+      }
+      if (chunkMetaDataList != null) {
         cacheHitNum.incrementAndGet();
         printCacheLog(true);
-        return new ArrayList<>(lruCache.get(key));
-      }
-    }
-    synchronized (devicePathObject) {
-      synchronized (lruCache) {
-        if (lruCache.containsKey(key)) {
-          printCacheLog(true);
-          cacheHitNum.incrementAndGet();
-          return new ArrayList<>(lruCache.get(key));
-        }
+        return chunkMetaDataList;
       }
       printCacheLog(false);
       TsFileMetaData fileMetaData = TsFileMetaDataCache.getInstance().get(resource);
@@ -135,29 +195,33 @@ public class DeviceMetaDataCache {
         if (logger.isDebugEnabled()) {
           logger.debug("path not found by bloom filter, file is: " + resource.getFile() + " path is: " + seriesPath);
         }
-        return new ArrayList<>();
+        return Collections.emptyList();
       }
       //
       TsDeviceMetadata deviceMetaData = TsFileMetadataUtils
           .getTsDeviceMetaData(resource, seriesPath, fileMetaData);
       // If measurement isn't included in the tsfile, empty list is returned.
       if (deviceMetaData == null) {
-        return new ArrayList<>();
+        return Collections.emptyList();
       }
       Map<Path, List<ChunkMetaData>> chunkMetaData = TsFileMetadataUtils
           .getChunkMetaDataList(calHotSensorSet(seriesPath), deviceMetaData);
-      synchronized (lruCache) {
-        chunkMetaData.forEach((path, chunkMetaDataList) -> {
-          String k = pathDeviceStr + "." + path.getMeasurement();
-          if (!lruCache.containsKey(k)) {
-            lruCache.put(k, chunkMetaDataList);
+      synchronized (segment) {
+        for (Map.Entry<Path, List<ChunkMetaData>> entry : chunkMetaData.entrySet()) {
+          ChunkMetaDataCacheKey k = new ChunkMetaDataCacheKey(filePath, device,
+              entry.getKey().getMeasurement());
+          List<ChunkMetaData> list = Collections.unmodifiableList(entry.getValue());
+          if (!segment.containsKey(k)) {
+            segment.put(k, list);
+            usedMemory.addAndGet(calEntrySize(k, list));
+          }
+          if (k.equals(key)) {
+            chunkMetaDataList = list;
           }
-        });
-        if (chunkMetaData.containsKey(seriesPath)) {
-          return new ArrayList<>(chunkMetaData.get(seriesPath));
         }
-        return new ArrayList<>();
       }
+      evict();
+      return chunkMetaDataList != null ? chunkMetaDataList : Collections.emptyList();
     }
   }
 
@@ -179,13 +243,20 @@ public class DeviceMetaDataCache {
     }
   }
 
+  /**
+   * calculate the proportion of used memory of all segments.
+   */
+  private double getUsedMemoryProportion() {
+    return usedMemory.get() * 1.0 / memoryThreshold;
+  }
+
   /**
    * calculate the most frequently query measurements set.
    *
    * @param seriesPath the series to be queried in a query statements.
    */
   private Set<String> calHotSensorSet(Path seriesPath) throws IOException {
-    double usedMemProportion = lruCache.getUsedMemoryProportion();
+    double usedMemProportion = getUsedMemoryProportion();
 
     if (usedMemProportion < 0.6) {
       return new HashSet<>();
@@ -210,16 +281,78 @@ public class DeviceMetaDataCache {
    * clear LRUCache.
    */
   public void clear() {
-    synchronized (lruCache) {
-      if (lruCache != null) {
-        lruCache.clear();
+    for (LinkedHashMap<ChunkMetaDataCacheKey, List<ChunkMetaData>> segment : segments) {
+      synchronized (segment) {
+        for (Entry<ChunkMetaDataCacheKey, List<ChunkMetaData>> entry : segment.entrySet()) {
+          usedMemory.addAndGet(-calEntrySize(entry.getKey(), entry.getValue()));
+        }
+        segment.clear();
       }
     }
   }
 
   public void remove(TsFileResource resource) {
-    synchronized (lruCache) {
-      lruCache.entrySet().removeIf(e -> e.getKey().startsWith(resource.getFile().getPath()));
+    String filePath = resource.getFile().getPath();
+    for (LinkedHashMap<ChunkMetaDataCacheKey, List<ChunkMetaData>> segment : segments) {
+      synchronized (segment) {
+        Iterator<Entry<ChunkMetaDataCacheKey, List<ChunkMetaData>>> iterator =
+            segment.entrySet().iterator();
+        while (iterator.hasNext()) {
+          Entry<ChunkMetaDataCacheKey, List<ChunkMetaData>> entry = iterator.next();
+          if (entry.getKey().filePath.equals(filePath)) {
+            usedMemory.addAndGet(-calEntrySize(entry.getKey(), entry.getValue()));
+            iterator.remove();
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * The key of a time series in a file. It only refers to the strings that already exist in the
+   * TsFileResource and the Path, so no string is built for a lookup.
+   */
+  static class ChunkMetaDataCacheKey {
+
+    private final String filePath;
+    private final String device;
+    private final String measurement;
+    private final int deviceHash;
+
+    ChunkMetaDataCacheKey(String filePath, String device, String measurement) {
+      this.filePath = filePath;
+      this.device = device;
+      this.measurement = measurement;
+      this.deviceHash = 31 * filePath.hashCode() + device.hashCode();
+    }
+
+    /**
+     * all measurements of one device in one file share the same segment.
+     */
+    int getSegmentIndex() {
+      return Math.abs(deviceHash % SEGMENT_NUM);
+    }
+
+    long getSize() {
+      return (filePath.length() + device.length() + measurement.length()) * 2L;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      ChunkMetaDataCacheKey that = (ChunkMetaDataCacheKey) o;
+      return deviceHash == that.deviceHash && measurement.equals(that.measurement)
+          && device.equals(that.device) && filePath.equals(that.filePath);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * deviceHash + measurement.hashCode();
     }
   }
 
@@ -231,4 +364,4 @@ public class DeviceMetaDataCache {
     private static final DeviceMetaDataCache INSTANCE = new
         DeviceMetaDataCache(MEMORY_THRESHOLD_IN_B);
   }
-}
\ No newline at end of file
+}
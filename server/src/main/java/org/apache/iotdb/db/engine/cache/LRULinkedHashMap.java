@@ -60,6 +60,22 @@ public abstract class LRULinkedHashMap<K, V> extends LinkedHashMap<K, V> {
     return super.put(key, value);
   }
 
+  @Override
+  @SuppressWarnings("unchecked")
+  public V remove(Object key) {
+    V value = super.remove(key);
+    if (value != null) {
+      usedMemInB -= calEntrySize((K) key, value);
+    }
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    usedMemInB = 0;
+  }
+
   /**
    * approximately estimate the additional size of key and value.
    */
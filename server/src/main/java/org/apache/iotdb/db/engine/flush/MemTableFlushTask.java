@@ -19,17 +19,22 @@
 package org.apache.iotdb.db.engine.flush;
 
 import java.io.IOException;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.engine.flush.pool.FlushSubTaskPoolManager;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.IWritableMemChunk;
+import org.apache.iotdb.db.engine.rollup.RollupWriter;
 import org.apache.iotdb.db.exception.runtime.FlushRunTimeException;
 import org.apache.iotdb.db.utils.datastructure.TVList;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.utils.Pair;
 import org.apache.iotdb.tsfile.write.chunk.ChunkWriterImpl;
 import org.apache.iotdb.tsfile.write.chunk.IChunkWriter;
 import org.apache.iotdb.tsfile.write.schema.Schema;
@@ -38,30 +43,66 @@ import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Flush a memtable into a TsFile. The series of the memtable are sorted and encoded concurrently
+ * by several encoding workers, while a single io task writes the encoded chunks in the order of
+ * the chunk groups. The io task blocks on each series until its encoding is done.
+ */
 public class MemTableFlushTask {
 
   private static final Logger logger = LoggerFactory.getLogger(MemTableFlushTask.class);
   private static final FlushSubTaskPoolManager subTaskPoolManager = FlushSubTaskPoolManager
       .getInstance();
+  /**
+   * put into the encoding task queue once for each encoding worker and into the io task queue
+   * once, to notify the sub tasks that there are no more tasks.
+   */
+  private static final Runnable END_OF_TASKS = () -> {
+  };
+
   private Future ioTaskFuture;
   private RestorableTsFileIOWriter writer;
 
-  private ConcurrentLinkedQueue ioTaskQueue = new ConcurrentLinkedQueue();
-  private ConcurrentLinkedQueue encodingTaskQueue = new ConcurrentLinkedQueue();
+  /**
+   * StartFlushGroupIOTask, FutureTask of the encoding of each series and EndChunkGroupIoTask in
+   * the order they should be written.
+   */
+  private BlockingQueue<Object> ioTaskQueue = new LinkedBlockingQueue<>();
+  private BlockingQueue<Runnable> encodingTaskQueue = new LinkedBlockingQueue<>();
+  private int encodingWorkerNum;
+  /**
+   * set when an encoding worker is interrupted, the encoding tasks left in the queue are cancelled
+   * so that the io task does not wait for them forever.
+   */
+  private volatile boolean encodingAborted = false;
   private String storageGroup;
 
   private IMemTable memTable;
   private Schema schema;
+  /**
+   * writes the rollups of the flushed series, null if rollup is disabled for the TsFile.
+   */
+  private RollupWriter rollupWriter;
 
-  private volatile boolean noMoreEncodingTask = false;
-  private volatile boolean noMoreIOTask = false;
+  private AtomicLong sortTime = new AtomicLong();
+  private AtomicLong memSerializeTime = new AtomicLong();
 
   public MemTableFlushTask(IMemTable memTable, Schema schema, RestorableTsFileIOWriter writer, String storageGroup) {
+    this(memTable, schema, writer, null, storageGroup);
+  }
+
+  public MemTableFlushTask(IMemTable memTable, Schema schema, RestorableTsFileIOWriter writer,
+      RollupWriter rollupWriter, String storageGroup) {
     this.memTable = memTable;
+    this.rollupWriter = rollupWriter;
     this.schema = schema;
     this.writer = writer;
     this.storageGroup = storageGroup;
-    subTaskPoolManager.submit(encodingTask);
+    this.encodingWorkerNum = IoTDBDescriptor.getInstance().getConfig()
+        .getConcurrentEncodingThreadPerFlush();
+    for (int i = 0; i < encodingWorkerNum; i++) {
+      subTaskPoolManager.submit(encodingTask);
+    }
     this.ioTaskFuture = subTaskPoolManager.submit(ioTask);
     logger.debug("flush task of Storage group {} memtable {} is created ",
         storageGroup, memTable.getVersion());
@@ -73,160 +114,185 @@ public class MemTableFlushTask {
    */
   public void syncFlushMemTable() throws ExecutionException, InterruptedException {
     long start = System.currentTimeMillis();
-    long sortTime = 0;
-    for (String deviceId : memTable.getMemTableMap().keySet()) {
-      encodingTaskQueue.add(new StartFlushGroupIOTask(deviceId));
-      for (String measurementId : memTable.getMemTableMap().get(deviceId).keySet()) {
-        long startTime = System.currentTimeMillis();
-        IWritableMemChunk series = memTable.getMemTableMap().get(deviceId).get(measurementId);
-        MeasurementSchema desc = schema.getMeasurementSchema(measurementId);
-        TVList tvList = series.getSortedTVList();
-        sortTime += System.currentTimeMillis() - startTime;
-        encodingTaskQueue.add(new Pair<>(tvList, desc));
-        // register active time series to the ActiveTimeSeriesCounter
-        ActiveTimeSeriesCounter.getInstance().offer(storageGroup, deviceId, measurementId);
+    try {
+      for (String deviceId : memTable.getMemTableMap().keySet()) {
+        ioTaskQueue.add(new StartFlushGroupIOTask(deviceId));
+        for (String measurementId : memTable.getMemTableMap().get(deviceId).keySet()) {
+          IWritableMemChunk series = memTable.getMemTableMap().get(deviceId).get(measurementId);
+          MeasurementSchema desc = schema.getMeasurementSchema(measurementId);
+          FutureTask<IChunkWriter> encodingFuture = new FutureTask<>(
+              () -> encodeOneSeries(deviceId, measurementId, series, desc));
+          encodingTaskQueue.add(encodingFuture);
+          ioTaskQueue.add(encodingFuture);
+          // register active time series to the ActiveTimeSeriesCounter
+          ActiveTimeSeriesCounter.getInstance().offer(storageGroup, deviceId, measurementId);
+        }
+        ioTaskQueue.add(new EndChunkGroupIoTask(memTable.getVersion()));
+      }
+      ActiveTimeSeriesCounter.getInstance().updateActiveRatio(storageGroup);
+    } finally {
+      for (int i = 0; i < encodingWorkerNum; i++) {
+        encodingTaskQueue.add(END_OF_TASKS);
+      }
+      ioTaskQueue.add(END_OF_TASKS);
+      if (encodingAborted) {
+        cancelEncodingTasks();
       }
-      encodingTaskQueue.add(new EndChunkGroupIoTask(memTable.getVersion()));
     }
-    ActiveTimeSeriesCounter.getInstance().updateActiveRatio(storageGroup);
-    noMoreEncodingTask = true;
-    logger.debug(
-        "Storage group {} memtable {}, flushing into disk: data sort time cost {} ms.",
-        storageGroup, memTable.getVersion(), sortTime);
 
     ioTaskFuture.get();
 
+    logger.debug(
+        "Storage group {} memtable {}, flushing into disk: data sort time cost {} ms, encoding "
+            + "data cost {} ms.", storageGroup, memTable.getVersion(), sortTime.get(),
+        memSerializeTime.get());
     logger.info(
         "Storage group {} memtable {} flushing a memtable has finished! Time consumption: {}ms",
         storageGroup, memTable, System.currentTimeMillis() - start);
   }
 
+  private IChunkWriter encodeOneSeries(String deviceId, String measurementId,
+      IWritableMemChunk series, MeasurementSchema desc) {
+    long startTime = System.currentTimeMillis();
+    TVList tvList = series.getSortedTVList();
+    long sortEndTime = System.currentTimeMillis();
+    sortTime.addAndGet(sortEndTime - startTime);
+    IChunkWriter seriesWriter = new ChunkWriterImpl(desc);
+    writeOneSeries(tvList, seriesWriter, desc.getType());
+    if (rollupWriter != null) {
+      try {
+        rollupWriter.write(deviceId, measurementId, desc.getType(), tvList);
+      } catch (IOException e) {
+        // the TsFile can still be read without rollups
+        logger.error("Storage group {} memtable {} cannot write the rollups into {}", storageGroup,
+            memTable.getVersion(), rollupWriter.getFile(), e);
+        rollupWriter.abort();
+      }
+    }
+    memSerializeTime.addAndGet(System.currentTimeMillis() - sortEndTime);
+    return seriesWriter;
+  }
 
-  private Runnable encodingTask = new Runnable() {
-    private void writeOneSeries(TVList tvPairs, IChunkWriter seriesWriterImpl,
-        TSDataType dataType){
-      for (int i = 0; i < tvPairs.size(); i++) {
-        long time = tvPairs.getTime(i);
+  private void writeOneSeries(TVList tvPairs, IChunkWriter seriesWriterImpl,
+      TSDataType dataType) {
+    for (int i = 0; i < tvPairs.size(); i++) {
+      long time = tvPairs.getTime(i);
 
-        // skip duplicated data
-        if ((i+1 < tvPairs.size() && (time == tvPairs.getTime(i+1)))) {
-          continue;
-        }
+      // skip duplicated data
+      if ((i + 1 < tvPairs.size() && (time == tvPairs.getTime(i + 1)))) {
+        continue;
+      }
 
-        switch (dataType) {
-          case BOOLEAN:
-            seriesWriterImpl.write(time, tvPairs.getBoolean(i));
-            break;
-          case INT32:
-            seriesWriterImpl.write(time, tvPairs.getInt(i));
-            break;
-          case INT64:
-            seriesWriterImpl.write(time, tvPairs.getLong(i));
-            break;
-          case FLOAT:
-            seriesWriterImpl.write(time, tvPairs.getFloat(i));
-            break;
-          case DOUBLE:
-            seriesWriterImpl.write(time, tvPairs.getDouble(i));
-            break;
-          case TEXT:
-            seriesWriterImpl.write(time, tvPairs.getBinary(i));
-            break;
-          default:
-            logger.error("Storage group {} does not support data type: {}", storageGroup,
-                dataType);
-            break;
-        }
+      switch (dataType) {
+        case BOOLEAN:
+          seriesWriterImpl.write(time, tvPairs.getBoolean(i));
+          break;
+        case INT32:
+          seriesWriterImpl.write(time, tvPairs.getInt(i));
+          break;
+        case INT64:
+          seriesWriterImpl.write(time, tvPairs.getLong(i));
+          break;
+        case FLOAT:
+          seriesWriterImpl.write(time, tvPairs.getFloat(i));
+          break;
+        case DOUBLE:
+          seriesWriterImpl.write(time, tvPairs.getDouble(i));
+          break;
+        case TEXT:
+          seriesWriterImpl.write(time, tvPairs.getBinary(i));
+          break;
+        default:
+          logger.error("Storage group {} does not support data type: {}", storageGroup,
+              dataType);
+          break;
       }
     }
+  }
 
-    @SuppressWarnings("squid:S135")
-    @Override
-    public void run() {
-      long memSerializeTime = 0;
-      boolean noMoreMessages = false;
-      logger.debug("Storage group {} memtable {}, starts to encoding data.", storageGroup,
-          memTable.getVersion());
-      while (true) {
-        if (noMoreEncodingTask) {
-          noMoreMessages = true;
-        }
-        Object task = encodingTaskQueue.poll();
-        if (task == null) {
-          if (noMoreMessages) {
-            break;
-          }
-          try {
-            Thread.sleep(10);
-          } catch (@SuppressWarnings("squid:S2142") InterruptedException e) {
-            logger.error("Storage group {} memtable {}, encoding task is interrupted.",
-                storageGroup, memTable.getVersion(), e);
-            // generally it is because the thread pool is shutdown so the task should be aborted
-            break;
-          }
-        } else {
-          if (task instanceof StartFlushGroupIOTask) {
-            ioTaskQueue.add(task);
-          } else if (task instanceof EndChunkGroupIoTask) {
-            ioTaskQueue.add(task);
-          } else {
-            long starTime = System.currentTimeMillis();
-            Pair<TVList, MeasurementSchema> encodingMessage = (Pair<TVList, MeasurementSchema>) task;
-            IChunkWriter seriesWriter = new ChunkWriterImpl(encodingMessage.right);
-            writeOneSeries(encodingMessage.left, seriesWriter, encodingMessage.right.getType());
-            ioTaskQueue.add(seriesWriter);
-            memSerializeTime += System.currentTimeMillis() - starTime;
-          }
-        }
+  private Runnable encodingTask = () -> {
+    logger.debug("Storage group {} memtable {}, starts to encoding data.", storageGroup,
+        memTable.getVersion());
+    while (true) {
+      Runnable task;
+      try {
+        task = encodingTaskQueue.take();
+      } catch (InterruptedException e) {
+        logger.error("Storage group {} memtable {}, encoding task is interrupted.",
+            storageGroup, memTable.getVersion(), e);
+        // generally it is because the thread pool is shutdown so the task should be aborted
+        Thread.currentThread().interrupt();
+        encodingAborted = true;
+        cancelEncodingTasks();
+        break;
+      }
+      if (task == END_OF_TASKS) {
+        break;
       }
-      noMoreIOTask = true;
-      logger.debug("Storage group {}, flushing memtable {} into disk: Encoding data cost "
-              + "{} ms.",
-          storageGroup, memTable.getVersion(), memSerializeTime);
+      // the result or the exception is handed over to the io task by the FutureTask
+      task.run();
     }
   };
 
+  /**
+   * Cancel the encoding tasks which are not taken by any worker, the io task fails when it meets
+   * one of them.
+   */
+  private void cancelEncodingTasks() {
+    Runnable task;
+    while ((task = encodingTaskQueue.poll()) != null) {
+      if (task instanceof FutureTask) {
+        ((FutureTask) task).cancel(false);
+      }
+    }
+  }
+
   @SuppressWarnings("squid:S135")
   private Runnable ioTask = () -> {
       long ioTime = 0;
-      boolean returnWhenNoTask = false;
       logger.debug("Storage group {} memtable {}, start io.", storageGroup, memTable.getVersion());
       while (true) {
-        if (noMoreIOTask) {
-          returnWhenNoTask = true;
-        }
-        Object ioMessage = ioTaskQueue.poll();
-        if (ioMessage == null) {
-          if (returnWhenNoTask) {
-            break;
-          }
-          try {
-            Thread.sleep(10);
-          } catch (@SuppressWarnings("squid:S2142")  InterruptedException e) {
-            logger.error("Storage group {} memtable, io task is interrupted.", storageGroup
-                , memTable.getVersion(), e);
-            // generally it is because the thread pool is shutdown so the task should be aborted
-            break;
+        Object ioMessage;
+        ChunkWriterImpl chunkWriter = null;
+        try {
+          ioMessage = ioTaskQueue.take();
+          if (ioMessage instanceof FutureTask) {
+            chunkWriter = (ChunkWriterImpl) ((FutureTask) ioMessage).get();
           }
-        } else {
-          long starTime = System.currentTimeMillis();
-          try {
-            if (ioMessage instanceof StartFlushGroupIOTask) {
-              writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
-            } else if (ioMessage instanceof IChunkWriter) {
-              ChunkWriterImpl chunkWriter = (ChunkWriterImpl) ioMessage;
-              chunkWriter.writeToFileWriter(MemTableFlushTask.this.writer);
-            } else {
-              EndChunkGroupIoTask endGroupTask = (EndChunkGroupIoTask) ioMessage;
-              writer.endChunkGroup(endGroupTask.version);
-            }
-          } catch (IOException e) {
-            logger.error("Storage group {} memtable {}, io task meets error.", storageGroup,
-                memTable.getVersion(), e);
-            throw new FlushRunTimeException(e);
+        } catch (InterruptedException e) {
+          logger.error("Storage group {} memtable {}, io task is interrupted.", storageGroup
+              , memTable.getVersion(), e);
+          // generally it is because the thread pool is shutdown so the task should be aborted
+          Thread.currentThread().interrupt();
+          break;
+        } catch (ExecutionException e) {
+          logger.error("Storage group {} memtable {}, encoding task meets error.", storageGroup,
+              memTable.getVersion(), e);
+          throw new FlushRunTimeException(e);
+        } catch (CancellationException e) {
+          logger.error("Storage group {} memtable {}, encoding task is cancelled.", storageGroup,
+              memTable.getVersion(), e);
+          throw new FlushRunTimeException(e);
+        }
+        if (ioMessage == END_OF_TASKS) {
+          break;
+        }
+        long starTime = System.currentTimeMillis();
+        try {
+          if (ioMessage instanceof StartFlushGroupIOTask) {
+            writer.startChunkGroup(((StartFlushGroupIOTask) ioMessage).deviceId);
+          } else if (chunkWriter != null) {
+            chunkWriter.writeToFileWriter(MemTableFlushTask.this.writer);
+          } else {
+            EndChunkGroupIoTask endGroupTask = (EndChunkGroupIoTask) ioMessage;
+            writer.endChunkGroup(endGroupTask.version);
           }
-          ioTime += System.currentTimeMillis() - starTime;
+        } catch (IOException e) {
+          logger.error("Storage group {} memtable {}, io task meets error.", storageGroup,
+              memTable.getVersion(), e);
+          throw new FlushRunTimeException(e);
         }
+        ioTime += System.currentTimeMillis() - starTime;
       }
       logger.debug("flushing a memtable {} in storage group {}, io cost {}ms", memTable.getVersion(),
           storageGroup, ioTime);
@@ -23,17 +23,17 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
-import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.rescon.TVListAllocator;
 import org.apache.iotdb.db.utils.MemUtils;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
-import org.apache.iotdb.tsfile.utils.Binary;
 
 public abstract class AbstractMemTable implements IMemTable {
 
@@ -41,12 +41,17 @@ public abstract class AbstractMemTable implements IMemTable {
 
   private List<Modification> modifications = new ArrayList<>();
 
+  /**
+   * deviceId -> measurementId -> chunk. Devices may be added by concurrent insertions of different
+   * devices, while the chunks of one device are only accessed by the insertions and queries of that
+   * device, which are serialized by the StorageGroupProcessor.
+   */
   private final Map<String, Map<String, IWritableMemChunk>> memTableMap;
 
-  private long memSize = 0;
+  private final AtomicLong memSize = new AtomicLong();
 
   public AbstractMemTable() {
-    this.memTableMap = new HashMap<>();
+    this.memTableMap = new ConcurrentHashMap<>();
   }
 
   public AbstractMemTable(Map<String, Map<String, IWritableMemChunk>> memTableMap) {
@@ -69,10 +74,8 @@ public abstract class AbstractMemTable implements IMemTable {
 
   private IWritableMemChunk createIfNotExistAndGet(String deviceId, String measurement,
       TSDataType dataType) {
-    if (!memTableMap.containsKey(deviceId)) {
-      memTableMap.put(deviceId, new HashMap<>());
-    }
-    Map<String, IWritableMemChunk> memSeries = memTableMap.get(deviceId);
+    Map<String, IWritableMemChunk> memSeries = memTableMap
+        .computeIfAbsent(deviceId, k -> new HashMap<>());
     if (!memSeries.containsKey(measurement)) {
       memSeries.put(measurement, genMemSeries(dataType));
     }
@@ -84,65 +87,25 @@ public abstract class AbstractMemTable implements IMemTable {
   @Override
   public void insert(InsertPlan insertPlan) throws QueryProcessException {
     try {
-      for (int i = 0; i < insertPlan.getValues().length; i++) {
+      for (int i = 0; i < insertPlan.getMeasurements().length; i++) {
 
-        Object value = parseValue(insertPlan.getDataTypes()[i], insertPlan.getValues()[i]);
+        Object value = insertPlan.getValue(i);
         write(insertPlan.getDeviceId(), insertPlan.getMeasurements()[i],
             insertPlan.getDataTypes()[i], insertPlan.getTime(), value);
       }
       long recordSizeInByte = MemUtils.getRecordSize(insertPlan);
-      memSize += recordSizeInByte;
+      memSize.addAndGet(recordSizeInByte);
     } catch (RuntimeException e) {
       throw new QueryProcessException(e.getMessage());
     }
   }
 
-  private static Object parseValue(TSDataType dataType, String value) throws QueryProcessException {
-    try {
-      switch (dataType) {
-        case BOOLEAN:
-          value = value.toLowerCase();
-          if (SQLConstant.BOOLEAN_FALSE_NUM.equals(value) || SQLConstant.BOOLEN_FALSE.equals(value)) {
-            return false;
-          } else if (SQLConstant.BOOLEAN_TRUE_NUM.equals(value) || SQLConstant.BOOLEN_TRUE.equals(value)) {
-            return true;
-          } else {
-            throw new QueryProcessException(
-                "The BOOLEAN data type should be true/TRUE, false/FALSE or 0/1");
-          }
-        case INT32:
-          return Integer.parseInt(value);
-        case INT64:
-          return Long.parseLong(value);
-        case FLOAT:
-          return Float.parseFloat(value);
-        case DOUBLE:
-          return Double.parseDouble(value);
-        case TEXT:
-          if ((value.startsWith(SQLConstant.QUOTE) && value.endsWith(SQLConstant.QUOTE))
-              || (value.startsWith(SQLConstant.DQUOTE) && value.endsWith(SQLConstant.DQUOTE))) {
-            if (value.length() == 1) {
-              return new Binary(value);
-            } else {
-              return new Binary(value.substring(1, value.length() - 1));
-            }
-          } else {
-            throw new QueryProcessException("The TEXT data type should be covered by \" or '");
-          }
-        default:
-          throw new QueryProcessException("Unsupported data type:" + dataType);
-      }
-    } catch (NumberFormatException e) {
-      throw new QueryProcessException(e.getMessage());
-    }
-  }
-
   @Override
   public void insertBatch(BatchInsertPlan batchInsertPlan, List<Integer> indexes) throws QueryProcessException {
     try {
       write(batchInsertPlan, indexes);
       long recordSizeInByte = MemUtils.getRecordSize(batchInsertPlan);
-      memSize += recordSizeInByte;
+      memSize.addAndGet(recordSizeInByte);
     } catch (RuntimeException e) {
       throw new QueryProcessException(e.getMessage());
     }
@@ -179,14 +142,14 @@ public abstract class AbstractMemTable implements IMemTable {
 
   @Override
   public long memSize() {
-    return memSize;
+    return memSize.get();
   }
 
   @Override
   public void clear() {
     memTableMap.clear();
     modifications.clear();
-    memSize = 0;
+    memSize.set(0);
   }
 
   @Override
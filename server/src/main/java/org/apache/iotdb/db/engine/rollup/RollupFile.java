@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+
+/**
+ * RollupFile is the companion file of a sealed sequence TsFile, which holds the statistics of the
+ * points of each series in fixed time buckets of several intervals (tiers). It is written by
+ * {@link RollupWriter} and laid out as:
+ * <pre>
+ * header:   magic, tier number, the interval of each tier
+ * sections: one for each series in each flush, which contains for each tier the number of buckets,
+ *           the size of the serialized buckets and the statistics of the buckets
+ * index:    for each device and measurement, the data type and the offsets and sizes of its
+ *           sections
+ * tail:     the offset of the index, magic
+ * </pre>
+ * Only the header and the index are loaded when the file is opened, sections are read on demand.
+ */
+public class RollupFile {
+
+  public static final String FILE_SUFFIX = ".rollup";
+
+  static final int MAGIC = 0x524F4C4C;
+  private static final int TAIL_SIZE = Long.BYTES + Integer.BYTES;
+
+  private final File file;
+  private final long[] intervals;
+  private final Map<String, Map<String, SeriesSections>> index;
+
+  private RollupFile(File file, long[] intervals, Map<String, Map<String, SeriesSections>> index) {
+    this.file = file;
+    this.intervals = intervals;
+    this.index = index;
+  }
+
+  /**
+   * open a rollup file and load its index.
+   *
+   * @return null if the file does not exist or is not completely written
+   */
+  static RollupFile open(File file) throws IOException {
+    if (!file.exists()) {
+      return null;
+    }
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long fileSize = channel.size();
+      if (fileSize < 2 * Integer.BYTES + TAIL_SIZE) {
+        return null;
+      }
+      ByteBuffer tail = read(channel, fileSize - TAIL_SIZE, TAIL_SIZE);
+      long indexOffset = tail.getLong();
+      if (tail.getInt() != MAGIC) {
+        return null;
+      }
+      ByteBuffer header = read(channel, 0, 2 * Integer.BYTES);
+      if (header.getInt() != MAGIC) {
+        return null;
+      }
+      int tierNum = header.getInt();
+      long headerSize = 2L * Integer.BYTES + (long) tierNum * Long.BYTES;
+      if (tierNum < 0 || indexOffset < headerSize || indexOffset > fileSize - TAIL_SIZE) {
+        return null;
+      }
+      ByteBuffer intervalBuffer = read(channel, 2L * Integer.BYTES, tierNum * Long.BYTES);
+      long[] intervals = new long[tierNum];
+      for (int i = 0; i < tierNum; i++) {
+        intervals[i] = intervalBuffer.getLong();
+      }
+      ByteBuffer indexBuffer = read(channel, indexOffset,
+          (int) (fileSize - TAIL_SIZE - indexOffset));
+      return new RollupFile(file, intervals, deserializeIndex(indexBuffer));
+    }
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  public long[] getIntervals() {
+    return intervals;
+  }
+
+  /**
+   * read the buckets of a series in the tier of the given interval.
+   *
+   * @return the statistics of the buckets in chronological order, in which the parts of a bucket
+   * written by different flushes are merged, or null if the file has no rollup of the series in
+   * the tier
+   */
+  public List<Statistics> getBuckets(String device, String measurement, long interval)
+      throws IOException {
+    int tier = Arrays.binarySearch(intervals, interval);
+    Map<String, SeriesSections> deviceIndex = index.get(device);
+    if (tier < 0 || deviceIndex == null || !deviceIndex.containsKey(measurement)) {
+      return null;
+    }
+    SeriesSections sections = deviceIndex.get(measurement);
+    List<Statistics> buckets = new ArrayList<>();
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      for (int i = 0; i < sections.size(); i++) {
+        ByteBuffer section = read(channel, sections.getOffset(i), sections.getSize(i));
+        // skip the finer tiers
+        for (int j = 0; j < tier; j++) {
+          section.getInt();
+          int bucketsSize = section.getInt();
+          section.position(section.position() + bucketsSize);
+        }
+        int bucketNum = section.getInt();
+        section.getInt();
+        for (int j = 0; j < bucketNum; j++) {
+          addBucket(buckets, Statistics.deserialize(section, sections.getDataType()), interval);
+        }
+      }
+    }
+    return buckets;
+  }
+
+  /**
+   * the data of a sequence file is flushed in chronological order, so a bucket may only be split
+   * between the last bucket of a flush and the first one of the next flush.
+   */
+  private void addBucket(List<Statistics> buckets, Statistics bucket, long interval) {
+    if (!buckets.isEmpty()) {
+      Statistics last = buckets.get(buckets.size() - 1);
+      if (Math.floorDiv(last.getStartTime(), interval)
+          == Math.floorDiv(bucket.getStartTime(), interval)) {
+        last.mergeStatistics(bucket);
+        return;
+      }
+    }
+    buckets.add(bucket);
+  }
+
+  /**
+   * approximate memory size of the loaded index.
+   */
+  long getIndexSize() {
+    long size = file.getPath().length() * 2L + intervals.length * (long) Long.BYTES;
+    for (Entry<String, Map<String, SeriesSections>> deviceEntry : index.entrySet()) {
+      size += deviceEntry.getKey().length() * 2L;
+      for (Entry<String, SeriesSections> entry : deviceEntry.getValue().entrySet()) {
+        size += entry.getKey().length() * 2L
+            + entry.getValue().size() * (long) (Long.BYTES + Integer.BYTES);
+      }
+    }
+    return size;
+  }
+
+  private static ByteBuffer read(FileChannel channel, long position, int size) throws IOException {
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer, position + buffer.position()) < 0) {
+        throw new IOException("Unexpected end of the rollup file at " + position);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  static void serializeIndex(Map<String, Map<String, SeriesSections>> index,
+      OutputStream outputStream) throws IOException {
+    ReadWriteIOUtils.write(index.size(), outputStream);
+    for (Entry<String, Map<String, SeriesSections>> deviceEntry : index.entrySet()) {
+      ReadWriteIOUtils.write(deviceEntry.getKey(), outputStream);
+      ReadWriteIOUtils.write(deviceEntry.getValue().size(), outputStream);
+      for (Entry<String, SeriesSections> entry : deviceEntry.getValue().entrySet()) {
+        ReadWriteIOUtils.write(entry.getKey(), outputStream);
+        entry.getValue().serialize(outputStream);
+      }
+    }
+  }
+
+  private static Map<String, Map<String, SeriesSections>> deserializeIndex(ByteBuffer buffer) {
+    int deviceNum = buffer.getInt();
+    Map<String, Map<String, SeriesSections>> index = new HashMap<>(deviceNum);
+    for (int i = 0; i < deviceNum; i++) {
+      String device = ReadWriteIOUtils.readString(buffer);
+      int measurementNum = buffer.getInt();
+      Map<String, SeriesSections> deviceIndex = new HashMap<>(measurementNum);
+      for (int j = 0; j < measurementNum; j++) {
+        String measurement = ReadWriteIOUtils.readString(buffer);
+        deviceIndex.put(measurement, SeriesSections.deserialize(buffer));
+      }
+      index.put(device, deviceIndex);
+    }
+    return index;
+  }
+
+  /**
+   * the data type and the positions of the sections of one series.
+   */
+  static class SeriesSections {
+
+    private TSDataType dataType;
+    private List<Long> offsets = new ArrayList<>();
+    private List<Integer> sizes = new ArrayList<>();
+
+    SeriesSections(TSDataType dataType) {
+      this.dataType = dataType;
+    }
+
+    TSDataType getDataType() {
+      return dataType;
+    }
+
+    void add(long offset, int size) {
+      offsets.add(offset);
+      sizes.add(size);
+    }
+
+    int size() {
+      return offsets.size();
+    }
+
+    long getOffset(int i) {
+      return offsets.get(i);
+    }
+
+    int getSize(int i) {
+      return sizes.get(i);
+    }
+
+    void serialize(OutputStream outputStream) throws IOException {
+      ReadWriteIOUtils.write(dataType, outputStream);
+      ReadWriteIOUtils.write(offsets.size(), outputStream);
+      for (int i = 0; i < offsets.size(); i++) {
+        ReadWriteIOUtils.write(offsets.get(i), outputStream);
+        ReadWriteIOUtils.write(sizes.get(i), outputStream);
+      }
+    }
+
+    static SeriesSections deserialize(ByteBuffer buffer) {
+      SeriesSections sections = new SeriesSections(ReadWriteIOUtils.readDataType(buffer));
+      int sectionNum = buffer.getInt();
+      for (int i = 0; i < sectionNum; i++) {
+        sections.add(buffer.getLong(), buffer.getInt());
+      }
+      return sections;
+    }
+  }
+}
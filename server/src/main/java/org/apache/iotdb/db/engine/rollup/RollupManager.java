@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.cache.LRULinkedHashMap;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.qp.constant.DatetimeUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RollupManager creates the {@link RollupWriter} of sequence TsFiles and caches the index of the
+ * {@link RollupFile} of sealed ones. A rollup file must be removed by {@link #remove} whenever its
+ * TsFile is removed or rewritten.
+ */
+public class RollupManager {
+
+  private static final Logger logger = LoggerFactory.getLogger(RollupManager.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  /**
+   * key: path of the rollup file.
+   */
+  private final LRULinkedHashMap<String, RollupFile> cache;
+
+  private RollupManager() {
+    cache = new LRULinkedHashMap<String, RollupFile>(config.getRollupIndexCacheSizeInByte(),
+        true) {
+      @Override
+      protected long calEntrySize(String key, RollupFile value) {
+        return value.getIndexSize();
+      }
+    };
+  }
+
+  public static RollupManager getInstance() {
+    return RollupManagerHolder.INSTANCE;
+  }
+
+  /**
+   * the intervals of the tiers in the timestamp precision.
+   */
+  private static long[] getIntervals() {
+    long[] intervalsInMs = config.getRollupIntervalsInMs();
+    long[] intervals = new long[intervalsInMs.length];
+    for (int i = 0; i < intervalsInMs.length; i++) {
+      intervals[i] = DatetimeUtils
+          .convertDurationStrToLong(intervalsInMs[i], "ms", config.getTimestampPrecision());
+    }
+    return intervals;
+  }
+
+  public static File getRollupFile(File tsFile) {
+    return new File(tsFile.getPath() + RollupFile.FILE_SUFFIX);
+  }
+
+  /**
+   * create the rollup writer of a new sequence TsFile.
+   *
+   * @return null if rollup is disabled or the file cannot be created
+   */
+  public RollupWriter createWriter(File tsFile) {
+    if (!config.isEnableRollup() || config.getRollupIntervalsInMs().length == 0) {
+      return null;
+    }
+    File file = getRollupFile(tsFile);
+    try {
+      return new RollupWriter(file, getIntervals());
+    } catch (IOException e) {
+      logger.error("Cannot create the rollup file {}, {} is written without rollups", file,
+          tsFile, e);
+      return null;
+    }
+  }
+
+  /**
+   * select the coarsest tier whose buckets are all covered by single intervals of a group by
+   * query, i.e., the unit, the sliding step and the start time of the query are its multiples.
+   *
+   * @return the interval of the tier, or 0 if no tier can be used
+   */
+  public long selectInterval(long unit, long slidingStep, long startTime) {
+    if (!config.isEnableRollup()) {
+      return 0;
+    }
+    long[] intervals = getIntervals();
+    for (int i = intervals.length - 1; i >= 0; i--) {
+      long interval = intervals[i];
+      if (unit % interval == 0 && slidingStep % interval == 0
+          && Math.floorMod(startTime, interval) == 0) {
+        return interval;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * get the buckets of a series in a sealed sequence TsFile as chunk metadata, whose statistics
+   * are those of the points in the buckets.
+   *
+   * @return null if there is no rollup of the series in the tier of the interval
+   */
+  public List<ChunkMetaData> getBuckets(TsFileResource resource, Path seriesPath, long interval)
+      throws IOException {
+    RollupFile rollupFile = get(resource);
+    if (rollupFile == null) {
+      return null;
+    }
+    List<Statistics> bucketStatistics = rollupFile
+        .getBuckets(seriesPath.getDevice(), seriesPath.getMeasurement(), interval);
+    if (bucketStatistics == null || bucketStatistics.isEmpty()) {
+      return null;
+    }
+    TSDataType dataType = bucketStatistics.get(0).getType();
+    List<ChunkMetaData> buckets = new ArrayList<>(bucketStatistics.size());
+    for (Statistics statistics : bucketStatistics) {
+      buckets.add(new ChunkMetaData(seriesPath.getMeasurement(), dataType, -1, statistics));
+    }
+    return buckets;
+  }
+
+  private RollupFile get(TsFileResource resource) throws IOException {
+    String path = getRollupFile(resource.getFile()).getPath();
+    synchronized (cache) {
+      RollupFile rollupFile = cache.get(path);
+      if (rollupFile != null) {
+        return rollupFile;
+      }
+    }
+    RollupFile rollupFile = RollupFile.open(new File(path));
+    if (rollupFile != null) {
+      synchronized (cache) {
+        if (!cache.containsKey(path)) {
+          cache.put(path, rollupFile);
+        }
+      }
+    }
+    return rollupFile;
+  }
+
+  /**
+   * evict and delete the rollup file of a TsFile, must be called before the TsFile is deleted or
+   * rewritten.
+   */
+  public void remove(TsFileResource resource) {
+    File file = getRollupFile(resource.getFile());
+    synchronized (cache) {
+      cache.remove(file.getPath());
+    }
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      logger.warn("Cannot delete the rollup file {}", file, e);
+    }
+  }
+
+  public void clear() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  private static class RollupManagerHolder {
+
+    private RollupManagerHolder() {
+    }
+
+    private static final RollupManager INSTANCE = new RollupManager();
+  }
+}
@@ -0,0 +1,215 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.iotdb.db.engine.rollup.RollupFile.SeriesSections;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.utils.PublicBAOS;
+import org.apache.iotdb.tsfile.utils.ReadWriteIOUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * RollupWriter writes the {@link RollupFile} of an unsealed sequence TsFile. The series of each
+ * flushed memtable are appended by {@link #write} as they are encoded, which may be called by
+ * several encoding threads concurrently, and the index is written by {@link #endFile} when the
+ * TsFile is sealed.
+ * <p>
+ * Once an error occurs, the rollup file is deleted and the writer ignores all the following
+ * calls, so that the TsFile is read without rollups.
+ */
+public class RollupWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(RollupWriter.class);
+
+  private final File file;
+  private final long[] intervals;
+  private FileOutputStream fileOutputStream;
+  private BufferedOutputStream outputStream;
+  private long position;
+  private volatile boolean closed;
+
+  /**
+   * device -> measurement -> the sections written for the series.
+   */
+  private Map<String, Map<String, SeriesSections>> index = new HashMap<>();
+
+  /**
+   * @param intervals the intervals of the tiers in ascending order
+   */
+  public RollupWriter(File file, long[] intervals) throws IOException {
+    this.file = file;
+    this.intervals = intervals;
+    this.fileOutputStream = new FileOutputStream(file);
+    this.outputStream = new BufferedOutputStream(fileOutputStream);
+    position += ReadWriteIOUtils.write(RollupFile.MAGIC, outputStream);
+    position += ReadWriteIOUtils.write(intervals.length, outputStream);
+    for (long interval : intervals) {
+      position += ReadWriteIOUtils.write(interval, outputStream);
+    }
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * compute the buckets of a flushed series and append them.
+   *
+   * @param tvList the sorted points of the series, of which only the last one of the points with
+   * the same timestamp is written into the TsFile
+   */
+  public void write(String deviceId, String measurementId, TSDataType dataType, TVList tvList)
+      throws IOException {
+    if (closed) {
+      return;
+    }
+    List<List<Statistics>> tiers = aggregate(tvList, dataType);
+    PublicBAOS section = new PublicBAOS();
+    PublicBAOS buckets = new PublicBAOS();
+    for (List<Statistics> tier : tiers) {
+      buckets.reset();
+      for (Statistics bucket : tier) {
+        bucket.serialize(buckets);
+      }
+      ReadWriteIOUtils.write(tier.size(), section);
+      ReadWriteIOUtils.write(buckets.size(), section);
+      buckets.writeTo(section);
+    }
+
+    synchronized (this) {
+      if (closed) {
+        return;
+      }
+      outputStream.write(section.getBuf(), 0, section.size());
+      index.computeIfAbsent(deviceId, k -> new HashMap<>())
+          .computeIfAbsent(measurementId, k -> new SeriesSections(dataType))
+          .add(position, section.size());
+      position += section.size();
+    }
+  }
+
+  private List<List<Statistics>> aggregate(TVList tvList, TSDataType dataType) {
+    List<List<Statistics>> tiers = new ArrayList<>(intervals.length);
+    for (int i = 0; i < intervals.length; i++) {
+      tiers.add(new ArrayList<>());
+    }
+    long[] currentBuckets = new long[intervals.length];
+    Statistics[] currentStatistics = new Statistics[intervals.length];
+    for (int i = 0; i < tvList.size(); i++) {
+      long time = tvList.getTime(i);
+      // skip duplicated data in the same way as the flush
+      if (i + 1 < tvList.size() && time == tvList.getTime(i + 1)) {
+        continue;
+      }
+      for (int j = 0; j < intervals.length; j++) {
+        long bucket = Math.floorDiv(time, intervals[j]);
+        if (currentStatistics[j] == null || currentBuckets[j] != bucket) {
+          currentBuckets[j] = bucket;
+          currentStatistics[j] = Statistics.getStatsByType(dataType);
+          tiers.get(j).add(currentStatistics[j]);
+        }
+        update(currentStatistics[j], tvList, i, time, dataType);
+      }
+    }
+    return tiers;
+  }
+
+  private void update(Statistics statistics, TVList tvList, int i, long time,
+      TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        statistics.update(time, tvList.getBoolean(i));
+        break;
+      case INT32:
+        statistics.update(time, tvList.getInt(i));
+        break;
+      case INT64:
+        statistics.update(time, tvList.getLong(i));
+        break;
+      case FLOAT:
+        statistics.update(time, tvList.getFloat(i));
+        break;
+      case DOUBLE:
+        statistics.update(time, tvList.getDouble(i));
+        break;
+      case TEXT:
+        statistics.update(time, tvList.getBinary(i));
+        break;
+      default:
+        throw new UnsupportedOperationException("Unsupported data type: " + dataType);
+    }
+  }
+
+  /**
+   * write the index and close the file, called when the TsFile is sealed.
+   */
+  public synchronized void endFile() throws IOException {
+    if (closed) {
+      return;
+    }
+    long indexOffset = position;
+    RollupFile.serializeIndex(index, outputStream);
+    ReadWriteIOUtils.write(indexOffset, outputStream);
+    ReadWriteIOUtils.write(RollupFile.MAGIC, outputStream);
+    outputStream.flush();
+    fileOutputStream.getFD().sync();
+    close();
+  }
+
+  /**
+   * close the file without writing the index, so that it will not be used. It is deleted when the
+   * TsFile is recovered.
+   */
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    index = null;
+    outputStream.close();
+  }
+
+  /**
+   * close and delete the file after an error, the TsFile is read without rollups.
+   */
+  public synchronized void abort() {
+    try {
+      close();
+    } catch (IOException e) {
+      logger.warn("Cannot close the rollup file {}", file, e);
+    }
+    try {
+      Files.deleteIfExists(file.toPath());
+    } catch (IOException e) {
+      logger.warn("Cannot delete the rollup file {}", file, e);
+    }
+  }
+}
@@ -30,14 +30,22 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.concurrent.HashLock;
 import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
@@ -64,6 +72,7 @@ import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.exception.metadata.MetadataException;
 import org.apache.iotdb.db.exception.query.OutOfTTLException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.query.SystemBusyException;
 import org.apache.iotdb.db.exception.storageGroup.StorageGroupProcessorException;
 import org.apache.iotdb.db.metadata.MManager;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
@@ -73,6 +82,7 @@ import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryFileManager;
 import org.apache.iotdb.db.utils.CopyOnReadLinkedList;
 import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.db.utils.UpgradeUtils;
 import org.apache.iotdb.db.writelog.recover.TsFileRecoverPerformer;
 import org.apache.iotdb.rpc.TSStatusCode;
@@ -83,7 +93,11 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.fileSystem.fsFactory.FSFactory;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
 import org.apache.iotdb.tsfile.write.writer.RestorableTsFileIOWriter;
@@ -119,10 +133,18 @@ public class StorageGroupProcessor {
   /**
    * a read write lock for guaranteeing concurrent safety when accessing all fields in this class
    * (i.e., schema, (un)sequenceFileList, work(un)SequenceTsFileProcessor,
-   * closing(Un)SequenceTsFileProcessor, latestTimeForEachDevice, and
-   * latestFlushedTimeForEachDevice)
+   * closing(Un)SequenceTsFileProcessor, latestTimeForEachDevice,
+   * latestFlushedTimeForEachDevice and latestValueForEachSeries). Insertions and queries only
+   * hold its read lock together with the lock of their device in deviceLock, operations that
+   * change the working processors or the file lists (e.g., creating a working processor,
+   * flushing, closing, deleting and merging) hold its write lock.
    */
   private final ReadWriteLock insertLock = new ReentrantReadWriteLock();
+  /**
+   * striped locks of devices, so that insertions of different devices go in parallel while the
+   * insertions and queries of one device exclude each other.
+   */
+  private final HashLock deviceLock = new HashLock();
   /**
    * closeStorageGroupCondition is used to wait for all currently closing TsFiles to be done.
    */
@@ -141,6 +163,13 @@ public class StorageGroupProcessor {
   private CopyOnReadLinkedList<TsFileProcessor> closingSequenceTsFileProcessor = new CopyOnReadLinkedList<>();
   // includes sealed and unsealed unSequence TsFiles
   private List<TsFileResource> unSequenceFileList = new ArrayList<>();
+  /**
+   * time indexes of sequenceFileList and unSequenceFileList for queries, built lazily and
+   * discarded whenever the lists or the time ranges of the sealed files may be changed, i.e., when
+   * the write lock or the write lock of mergeLock is released.
+   */
+  private volatile TsFileTimeIndex sequenceTimeIndex;
+  private volatile TsFileTimeIndex unSequenceTimeIndex;
   private TsFileProcessor workUnSequenceTsFileProcessor = null;
   private CopyOnReadLinkedList<TsFileProcessor> closingUnSequenceTsFileProcessor = new CopyOnReadLinkedList<>();
   /**
@@ -148,14 +177,27 @@ public class StorageGroupProcessor {
    * changes upon timestamps of each device, and is used to update latestFlushedTimeForEachDevice
    * when a flush is issued.
    */
-  private Map<String, Long> latestTimeForEachDevice = new HashMap<>();
+  private Map<String, Long> latestTimeForEachDevice = new ConcurrentHashMap<>();
   /**
    * device -> largest timestamp of the latest memtable to be submitted to asyncTryToFlush
    * latestFlushedTimeForEachDevice determines whether a data point should be put into a sequential
    * file or an unsequential file. Data of some device with timestamp less than or equals to the
    * device's latestFlushedTime should go into an unsequential file.
    */
-  private Map<String, Long> latestFlushedTimeForEachDevice = new HashMap<>();
+  private Map<String, Long> latestFlushedTimeForEachDevice = new ConcurrentHashMap<>();
+  /**
+   * device -> measurement -> the latest point of each time series. An entry exists only if it is
+   * known to be the latest point of the series, so last_value and max_time without a time filter
+   * can be answered from it. Points that are out of TTL are treated as absent.
+   */
+  private Map<String, Map<String, TimeValuePair>> latestValueForEachSeries = new ConcurrentHashMap<>();
+  /**
+   * increased by each change of the data in this storage group, so that a query does not put the
+   * last value it computed into latestValueForEachSeries if the data was changed meanwhile.
+   */
+  private AtomicLong lastValueCacheVersion = new AtomicLong();
+  private boolean lastValueCacheEnable = IoTDBDescriptor.getInstance().getConfig()
+      .isLastValueCacheEnable();
   private String storageGroupName;
   private File storageGroupSysDir;
   /**
@@ -391,60 +433,463 @@ public class StorageGroupProcessor {
     if (!checkTTL(insertPlan.getTime())) {
       throw new OutOfTTLException(insertPlan.getTime(), (System.currentTimeMillis() - dataTTL));
     }
-    writeLock();
-    try {
-      // init map
-      latestTimeForEachDevice.putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
-      latestFlushedTimeForEachDevice.putIfAbsent(insertPlan.getDeviceId(), Long.MIN_VALUE);
+    String deviceId = insertPlan.getDeviceId();
+    CompletableFuture<Void> walFuture;
+    TsFileProcessor tsFileProcessor;
+    boolean sequence;
+    boolean creationFailed = false;
+    while (true) {
+      insertLock.readLock().lock();
+      deviceLock.writeLock(deviceId);
+      try {
+        // init map
+        latestTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+        latestFlushedTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+        long previousLatestTime = latestTimeForEachDevice.get(deviceId);
+
+        // insert to sequence or unSequence file
+        sequence = insertPlan.getTime() > latestFlushedTimeForEachDevice.get(deviceId);
+        tsFileProcessor = getWorkTsFileProcessor(sequence);
+        if (tsFileProcessor != null || creationFailed) {
+          walFuture = insertToTsFileProcessor(insertPlan, tsFileProcessor);
+          if (walFuture != null) {
+            updateLastValueCache(insertPlan, previousLatestTime);
+          }
+          break;
+        }
+      } finally {
+        deviceLock.writeUnlock(deviceId);
+        insertLock.readLock().unlock();
+      }
+      creationFailed = !createWorkTsFileProcessors(sequence, !sequence);
+    }
+    if (walFuture != null) {
+      tryToFlush(tsFileProcessor, sequence);
+    }
+    if (!waitForWal(walFuture)) {
+      throw newWalFailure(insertPlan.getDeviceId());
+    }
+  }
 
-      // insert to sequence or unSequence file
-      insertToTsFileProcessor(insertPlan,
-          insertPlan.getTime() > latestFlushedTimeForEachDevice.get(insertPlan.getDeviceId()));
-    } finally {
-      writeUnlock();
+  /**
+   * insert the rows of the given indexes in a list of InsertPlans, whose devices all belong to this
+   * storage group. The rows of one device are inserted with the lock of the device acquired once,
+   * and the WAL of the rows inserted into the same TsFile is written at once.
+   *
+   * @param results the exception of each row that fails is put here
+   * @return a future which is completed when the WAL of all the inserted rows is forced to disk.
+   * It never completes exceptionally, the rows whose WAL cannot be forced get their exceptions in
+   * results by then.
+   */
+  public CompletableFuture<Void> insertRows(List<InsertPlan> insertPlans, List<Integer> indexes,
+      QueryProcessException[] results) {
+    // keep the order of the rows of each device
+    Map<String, List<Integer>> deviceIndexes = new LinkedHashMap<>();
+    for (int index : indexes) {
+      deviceIndexes.computeIfAbsent(insertPlans.get(index).getDeviceId(), k -> new ArrayList<>())
+          .add(index);
+    }
+    List<CompletableFuture<Void>> walFutures = new ArrayList<>();
+    for (Entry<String, List<Integer>> entry : deviceIndexes.entrySet()) {
+      insertRowsOfDevice(entry.getKey(), insertPlans, entry.getValue(), results, walFutures);
+    }
+    return CompletableFuture.allOf(walFutures.toArray(new CompletableFuture[0]));
+  }
+
+  private void insertRowsOfDevice(String deviceId, List<InsertPlan> insertPlans,
+      List<Integer> indexes, QueryProcessException[] results,
+      List<CompletableFuture<Void>> walFutures) {
+    List<Integer> sequenceIndexes = new ArrayList<>();
+    List<Integer> unsequenceIndexes = new ArrayList<>();
+    CompletableFuture<Void> sequenceWalFuture;
+    CompletableFuture<Void> unsequenceWalFuture;
+    TsFileProcessor sequenceProcessor;
+    TsFileProcessor unsequenceProcessor;
+    boolean creationFailed = false;
+    while (true) {
+      insertLock.readLock().lock();
+      deviceLock.writeLock(deviceId);
+      try {
+        // init map
+        latestTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+        latestFlushedTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+
+        long lastFlushTime = latestFlushedTimeForEachDevice.get(deviceId);
+        long previousLatestTime = latestTimeForEachDevice.get(deviceId);
+        sequenceIndexes.clear();
+        unsequenceIndexes.clear();
+        for (int index : indexes) {
+          long time = insertPlans.get(index).getTime();
+          // reject insertions that are out of ttl
+          if (!checkTTL(time)) {
+            results[index] = new OutOfTTLException(time, System.currentTimeMillis() - dataTTL);
+          } else if (time > lastFlushTime) {
+            sequenceIndexes.add(index);
+          } else {
+            unsequenceIndexes.add(index);
+          }
+        }
+
+        sequenceProcessor = getWorkTsFileProcessor(true);
+        unsequenceProcessor = getWorkTsFileProcessor(false);
+        if (creationFailed || (sequenceIndexes.isEmpty() || sequenceProcessor != null)
+            && (unsequenceIndexes.isEmpty() || unsequenceProcessor != null)) {
+          sequenceWalFuture = insertRowsToTsFileProcessor(insertPlans, sequenceIndexes,
+              sequenceProcessor, results);
+          unsequenceWalFuture = insertRowsToTsFileProcessor(insertPlans, unsequenceIndexes,
+              unsequenceProcessor, results);
+          updateLastValueCache(insertPlans, indexes, results, previousLatestTime);
+          break;
+        }
+      } finally {
+        deviceLock.writeUnlock(deviceId);
+        insertLock.readLock().unlock();
+      }
+      creationFailed = !createWorkTsFileProcessors(
+          !sequenceIndexes.isEmpty() && sequenceProcessor == null,
+          !unsequenceIndexes.isEmpty() && unsequenceProcessor == null);
     }
+    if (sequenceWalFuture != null) {
+      tryToFlush(sequenceProcessor, true);
+      walFutures.add(handleWalFailure(sequenceWalFuture, deviceId, sequenceIndexes, results));
+    }
+    if (unsequenceWalFuture != null) {
+      tryToFlush(unsequenceProcessor, false);
+      walFutures.add(handleWalFailure(unsequenceWalFuture, deviceId, unsequenceIndexes, results));
+    }
+  }
+
+  /**
+   * @return a future which is completed normally after the given future of the WAL, the inserted
+   * rows get the exception if the WAL cannot be forced to disk
+   */
+  private CompletableFuture<Void> handleWalFailure(CompletableFuture<Void> walFuture,
+      String deviceId, List<Integer> indexes, QueryProcessException[] results) {
+    return walFuture.handle((v, e) -> {
+      if (e != null) {
+        logger.error("{}: failed to force the WAL", storageGroupName, e);
+        for (int index : indexes) {
+          if (results[index] == null) {
+            results[index] = newWalFailure(deviceId);
+          }
+        }
+      }
+      return null;
+    });
+  }
+
+  private static QueryProcessException newWalFailure(String deviceId) {
+    return new QueryProcessException(
+        String.format("Failed to persist WAL of the insertion into %s", deviceId));
   }
 
   public Integer[] insertBatch(BatchInsertPlan batchInsertPlan) throws QueryProcessException {
-    writeLock();
-    try {
-      // init map
-      latestTimeForEachDevice.putIfAbsent(batchInsertPlan.getDeviceId(), Long.MIN_VALUE);
-      latestFlushedTimeForEachDevice.putIfAbsent(batchInsertPlan.getDeviceId(), Long.MIN_VALUE);
-
-      Integer[] results = new Integer[batchInsertPlan.getRowCount()];
-      List<Integer> sequenceIndexes = new ArrayList<>();
-      List<Integer> unsequenceIndexes = new ArrayList<>();
-
-      long lastFlushTime = latestFlushedTimeForEachDevice.get(batchInsertPlan.getDeviceId());
-      for (int i = 0; i < batchInsertPlan.getRowCount(); i++) {
-        long currTime = batchInsertPlan.getTimes()[i];
-        // skip points that do not satisfy TTL
-        if (!checkTTL(currTime)) {
-          results[i] = TSStatusCode.OUT_OF_TTL_ERROR.getStatusCode();
-          continue;
+    Integer[] results = new Integer[batchInsertPlan.getRowCount()];
+    List<Integer> sequenceIndexes = new ArrayList<>();
+    List<Integer> unsequenceIndexes = new ArrayList<>();
+    CompletableFuture<Void> sequenceWalFuture = null;
+    CompletableFuture<Void> unsequenceWalFuture = null;
+    TsFileProcessor sequenceProcessor;
+    TsFileProcessor unsequenceProcessor;
+    String deviceId = batchInsertPlan.getDeviceId();
+    boolean creationFailed = false;
+    while (true) {
+      insertLock.readLock().lock();
+      deviceLock.writeLock(deviceId);
+      try {
+        // init map
+        latestTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+        latestFlushedTimeForEachDevice.putIfAbsent(deviceId, Long.MIN_VALUE);
+
+        long lastFlushTime = latestFlushedTimeForEachDevice.get(deviceId);
+        long previousLatestTime = latestTimeForEachDevice.get(deviceId);
+        sequenceIndexes.clear();
+        unsequenceIndexes.clear();
+        for (int i = 0; i < batchInsertPlan.getRowCount(); i++) {
+          long currTime = batchInsertPlan.getTimes()[i];
+          // skip points that do not satisfy TTL
+          if (!checkTTL(currTime)) {
+            results[i] = TSStatusCode.OUT_OF_TTL_ERROR.getStatusCode();
+            continue;
+          }
+          results[i] = TSStatusCode.SUCCESS_STATUS.getStatusCode();
+          if (currTime > lastFlushTime) {
+            sequenceIndexes.add(i);
+          } else {
+            unsequenceIndexes.add(i);
+          }
         }
-        results[i] = TSStatusCode.SUCCESS_STATUS.getStatusCode();
-        if (currTime > lastFlushTime) {
-          sequenceIndexes.add(i);
-        } else {
-          unsequenceIndexes.add(i);
+
+        sequenceProcessor = getWorkTsFileProcessor(true);
+        unsequenceProcessor = getWorkTsFileProcessor(false);
+        if (creationFailed || (sequenceIndexes.isEmpty() || sequenceProcessor != null)
+            && (unsequenceIndexes.isEmpty() || unsequenceProcessor != null)) {
+          if (!sequenceIndexes.isEmpty()) {
+            sequenceWalFuture = insertBatchToTsFileProcessor(batchInsertPlan, sequenceIndexes,
+                sequenceProcessor, results);
+          }
+
+          if (!unsequenceIndexes.isEmpty()) {
+            unsequenceWalFuture = insertBatchToTsFileProcessor(batchInsertPlan, unsequenceIndexes,
+                unsequenceProcessor, results);
+          }
+          updateLastValueCache(batchInsertPlan, results, previousLatestTime);
+          break;
         }
+      } finally {
+        deviceLock.writeUnlock(deviceId);
+        insertLock.readLock().unlock();
       }
+      creationFailed = !createWorkTsFileProcessors(
+          !sequenceIndexes.isEmpty() && sequenceProcessor == null,
+          !unsequenceIndexes.isEmpty() && unsequenceProcessor == null);
+    }
+    if (sequenceWalFuture != null) {
+      tryToFlush(sequenceProcessor, true);
+    }
+    if (unsequenceWalFuture != null) {
+      tryToFlush(unsequenceProcessor, false);
+    }
+    if (!waitForWal(sequenceWalFuture)) {
+      for (int index : sequenceIndexes) {
+        results[index] = TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
+      }
+    }
+    if (!waitForWal(unsequenceWalFuture)) {
+      for (int index : unsequenceIndexes) {
+        results[index] = TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Wait until the WAL of an insertion is forced to disk, which only takes time when WAL group
+   * commit is enabled. It must be called without holding the insert lock, so that concurrent
+   * insertions can share one group commit.
+   *
+   * @param walFuture returned by TsFileProcessor, may be null if the insertion failed
+   * @return false if the WAL cannot be forced to disk
+   */
+  private boolean waitForWal(CompletableFuture<Void> walFuture) {
+    if (walFuture == null) {
+      return true;
+    }
+    try {
+      walFuture.get(IoTDBDescriptor.getInstance().getConfig().getWalGroupCommitTimeoutInMs(),
+          TimeUnit.MILLISECONDS);
+      return true;
+    } catch (InterruptedException e) {
+      logger.error("{}: interrupted when waiting for the WAL to be forced", storageGroupName, e);
+      Thread.currentThread().interrupt();
+      return false;
+    } catch (ExecutionException e) {
+      logger.error("{}: failed to force the WAL", storageGroupName, e.getCause());
+      return false;
+    } catch (TimeoutException e) {
+      logger.error("{}: the WAL is not forced in {}ms", storageGroupName,
+          IoTDBDescriptor.getInstance().getConfig().getWalGroupCommitTimeoutInMs());
+      return false;
+    }
+  }
+
+  /**
+   * update the cached latest points of the series written by an insertion, must be called with the
+   * lock of the device held.
+   *
+   * @param previousLatestTime the latest time of the device before the insertion
+   */
+  private void updateLastValueCache(InsertPlan insertPlan, long previousLatestTime)
+      throws QueryProcessException {
+    if (!lastValueCacheEnable) {
+      return;
+    }
+    lastValueCacheVersion.incrementAndGet();
+    Map<String, TimeValuePair> seriesValues = latestValueForEachSeries
+        .computeIfAbsent(insertPlan.getDeviceId(), k -> new HashMap<>());
+    for (int i = 0; i < insertPlan.getMeasurements().length; i++) {
+      TSDataType dataType = insertPlan.getDataTypes()[i];
+      int index = i;
+      updateLastValue(seriesValues, insertPlan.getMeasurements()[i], insertPlan.getTime(),
+          previousLatestTime, false,
+          () -> TsPrimitiveType.getByType(dataType, insertPlan.getValue(index)));
+    }
+  }
+
+  /**
+   * update the cached latest points of the series written by the inserted rows of one device in
+   * their order, must be called with the lock of the device held.
+   *
+   * @param previousLatestTime the latest time of the device before the insertion
+   */
+  private void updateLastValueCache(List<InsertPlan> insertPlans, List<Integer> indexes,
+      QueryProcessException[] results, long previousLatestTime) {
+    for (int index : indexes) {
+      if (results[index] != null) {
+        continue;
+      }
+      InsertPlan insertPlan = insertPlans.get(index);
+      try {
+        updateLastValueCache(insertPlan, previousLatestTime);
+      } catch (QueryProcessException e) {
+        results[index] = e;
+      }
+      previousLatestTime = Math.max(previousLatestTime, insertPlan.getTime());
+    }
+  }
+
+  /**
+   * update the cached latest points of the series written by a batch insertion with the latest
+   * successfully inserted row of each series, must be called with the lock of the device held.
+   *
+   * @param previousLatestTime the latest time of the device before the insertion
+   */
+  private void updateLastValueCache(BatchInsertPlan batchInsertPlan, Integer[] results,
+      long previousLatestTime) throws QueryProcessException {
+    if (!lastValueCacheEnable) {
+      return;
+    }
+    lastValueCacheVersion.incrementAndGet();
+    long[] times = batchInsertPlan.getTimes();
+    int latestRow = -1;
+    boolean duplicated = false;
+    for (int i = 0; i < batchInsertPlan.getRowCount(); i++) {
+      if (results[i] != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
+        continue;
+      }
+      if (latestRow == -1 || times[i] > times[latestRow]) {
+        latestRow = i;
+        duplicated = false;
+      } else if (times[i] == times[latestRow]) {
+        duplicated = true;
+      }
+    }
+    if (latestRow == -1) {
+      return;
+    }
+    Map<String, TimeValuePair> seriesValues = latestValueForEachSeries
+        .computeIfAbsent(batchInsertPlan.getDeviceId(), k -> new HashMap<>());
+    int row = latestRow;
+    for (int i = 0; i < batchInsertPlan.getMeasurements().length; i++) {
+      TSDataType dataType = batchInsertPlan.getDataTypes()[i];
+      Object column = batchInsertPlan.getColumns()[i];
+      updateLastValue(seriesValues, batchInsertPlan.getMeasurements()[i], times[row],
+          previousLatestTime, duplicated, () -> getColumnValue(dataType, column, row));
+    }
+  }
+
+  /**
+   * A point at the same time as the cached one may or may not replace it when the data is merged,
+   * so such an entry is removed and will be computed again by the next query.
+   */
+  private void updateLastValue(Map<String, TimeValuePair> seriesValues, String measurement,
+      long time, long previousLatestTime, boolean duplicated, LastValueSupplier valueSupplier)
+      throws QueryProcessException {
+    TimeValuePair cached = seriesValues.get(measurement);
+    if (duplicated || time == previousLatestTime
+        || (cached != null && cached.getTimestamp() == time)) {
+      seriesValues.remove(measurement);
+    } else if (time > previousLatestTime || (cached != null && time > cached.getTimestamp())) {
+      seriesValues.put(measurement, new TimeValuePair(time, valueSupplier.get()));
+    }
+  }
+
+  private static TsPrimitiveType getColumnValue(TSDataType dataType, Object column, int row) {
+    switch (dataType) {
+      case BOOLEAN:
+        return new TsPrimitiveType.TsBoolean(((boolean[]) column)[row]);
+      case INT32:
+        return new TsPrimitiveType.TsInt(((int[]) column)[row]);
+      case INT64:
+        return new TsPrimitiveType.TsLong(((long[]) column)[row]);
+      case FLOAT:
+        return new TsPrimitiveType.TsFloat(((float[]) column)[row]);
+      case DOUBLE:
+        return new TsPrimitiveType.TsDouble(((double[]) column)[row]);
+      case TEXT:
+        return new TsPrimitiveType.TsBinary(((Binary[]) column)[row]);
+      default:
+        throw new UnsupportedOperationException("Unsupported data type:" + dataType);
+    }
+  }
+
+  @FunctionalInterface
+  private interface LastValueSupplier {
+
+    TsPrimitiveType get() throws QueryProcessException;
+  }
 
-      if (!sequenceIndexes.isEmpty()) {
-        insertBatchToTsFileProcessor(batchInsertPlan, sequenceIndexes, true, results);
+  /**
+   * get the cached latest point of a time series.
+   *
+   * @return the latest point, or null if it is not cached or is out of TTL
+   */
+  public TimeValuePair getLastValue(String deviceId, String measurementId) {
+    if (!lastValueCacheEnable) {
+      return null;
+    }
+    insertLock.readLock().lock();
+    deviceLock.readLock(deviceId);
+    try {
+      Map<String, TimeValuePair> seriesValues = latestValueForEachSeries.get(deviceId);
+      TimeValuePair lastValue = seriesValues == null ? null : seriesValues.get(measurementId);
+      if (lastValue == null || !checkTTL(lastValue.getTimestamp())) {
+        return null;
       }
+      return lastValue;
+    } finally {
+      deviceLock.readUnlock(deviceId);
+      insertLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * @return the version of the data used to guard {@link #putLastValue}
+   */
+  public long getLastValueCacheVersion() {
+    return lastValueCacheVersion.get();
+  }
 
-      if (!unsequenceIndexes.isEmpty()) {
-        insertBatchToTsFileProcessor(batchInsertPlan, unsequenceIndexes, false, results);
+  /**
+   * cache the latest point of a time series computed by a query.
+   *
+   * @param version the version returned by {@link #getLastValueCacheVersion} before the query
+   * started, the point is discarded if the data has been changed since then
+   */
+  public void putLastValue(String deviceId, String measurementId, TimeValuePair lastValue,
+      long version) {
+    if (!lastValueCacheEnable) {
+      return;
+    }
+    // every writer of the device changes the version under the lock of the device, and the cache
+    // is cleared under the write lock, so neither can happen between the check and the update.
+    // Writers of other devices may change the version too, which only discards the point
+    insertLock.readLock().lock();
+    deviceLock.writeLock(deviceId);
+    try {
+      if (version != lastValueCacheVersion.get()) {
+        return;
+      }
+      Map<String, TimeValuePair> seriesValues = latestValueForEachSeries
+          .computeIfAbsent(deviceId, k -> new HashMap<>());
+      TimeValuePair cached = seriesValues.get(measurementId);
+      if (cached == null || cached.getTimestamp() < lastValue.getTimestamp()) {
+        seriesValues.put(measurementId, lastValue);
       }
-      return results;
     } finally {
-      writeUnlock();
+      deviceLock.writeUnlock(deviceId);
+      insertLock.readLock().unlock();
     }
   }
 
+  /**
+   * drop all cached latest points, must be called with the write lock held.
+   */
+  private void clearLastValueCache() {
+    lastValueCacheVersion.incrementAndGet();
+    latestValueForEachSeries.clear();
+  }
+
   /**
    * @return whether the given time falls in ttl
    */
@@ -452,53 +897,141 @@ public class StorageGroupProcessor {
     return dataTTL == Long.MAX_VALUE || (System.currentTimeMillis() - time) <= dataTTL;
   }
 
-  private void insertBatchToTsFileProcessor(BatchInsertPlan batchInsertPlan,
-      List<Integer> indexes, boolean sequence, Integer[] results) throws QueryProcessException {
+  /**
+   * @return the future of the WAL returned by TsFileProcessor, or null if the insertion fails
+   */
+  private CompletableFuture<Void> insertBatchToTsFileProcessor(BatchInsertPlan batchInsertPlan,
+      List<Integer> indexes, TsFileProcessor tsFileProcessor, Integer[] results)
+      throws QueryProcessException {
 
-    TsFileProcessor tsFileProcessor = getOrCreateTsFileProcessor(sequence);
     if (tsFileProcessor == null) {
       for (int index : indexes) {
         results[index] = TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
       }
-      return;
+      return null;
     }
 
-    boolean result = tsFileProcessor.insertBatch(batchInsertPlan, indexes, results);
+    CompletableFuture<Void> walFuture;
+    try {
+      walFuture = tsFileProcessor.insertBatch(batchInsertPlan, indexes, results);
+    } catch (SystemBusyException e) {
+      logger.warn("{}: {}", storageGroupName, e.getMessage());
+      for (int index : indexes) {
+        results[index] = TSStatusCode.SYSTEM_BUSY.getStatusCode();
+      }
+      return null;
+    }
 
     // try to update the latest time of the device of this tsRecord
-    if (result && latestTimeForEachDevice.get(batchInsertPlan.getDeviceId()) < batchInsertPlan
+    if (walFuture != null && latestTimeForEachDevice.get(batchInsertPlan.getDeviceId()) < batchInsertPlan
         .getMaxTime()) {
       latestTimeForEachDevice.put(batchInsertPlan.getDeviceId(), batchInsertPlan.getMaxTime());
     }
+    return walFuture;
+  }
 
-    // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+  /**
+   * @return the future of the WAL returned by TsFileProcessor, or null if no row is inserted
+   */
+  private CompletableFuture<Void> insertRowsToTsFileProcessor(List<InsertPlan> insertPlans,
+      List<Integer> indexes, TsFileProcessor tsFileProcessor, QueryProcessException[] results) {
+    if (indexes.isEmpty()) {
+      return null;
+    }
+    String deviceId = insertPlans.get(indexes.get(0)).getDeviceId();
+    CompletableFuture<Void> walFuture = null;
+    if (tsFileProcessor != null) {
+      try {
+        walFuture = tsFileProcessor.insertRows(insertPlans, indexes, results);
+      } catch (SystemBusyException e) {
+        logger.warn("{}: {}", storageGroupName, e.getMessage());
+        for (int index : indexes) {
+          results[index] = e;
+        }
+        return null;
+      }
+    }
+    if (walFuture == null) {
+      for (int index : indexes) {
+        if (results[index] == null) {
+          results[index] = newWalFailure(deviceId);
+        }
+      }
+      return null;
     }
-  }
 
-  private void insertToTsFileProcessor(InsertPlan insertPlan, boolean sequence)
-      throws QueryProcessException {
-    TsFileProcessor tsFileProcessor;
-    boolean result;
+    // try to update the latest time of the device with the inserted rows
+    for (int index : indexes) {
+      long time = insertPlans.get(index).getTime();
+      if (results[index] == null && latestTimeForEachDevice.get(deviceId) < time) {
+        latestTimeForEachDevice.put(deviceId, time);
+      }
+    }
+    return walFuture;
+  }
 
-    tsFileProcessor = getOrCreateTsFileProcessor(sequence);
+  /**
+   * @return the future of the WAL returned by TsFileProcessor, or null if the insertion fails
+   */
+  private CompletableFuture<Void> insertToTsFileProcessor(InsertPlan insertPlan,
+      TsFileProcessor tsFileProcessor) throws QueryProcessException {
+    CompletableFuture<Void> walFuture;
 
     if (tsFileProcessor == null) {
-      return;
+      return null;
     }
 
     // insert TsFileProcessor
-    result = tsFileProcessor.insert(insertPlan);
+    walFuture = tsFileProcessor.insert(insertPlan);
 
     // try to update the latest time of the device of this tsRecord
-    if (result && latestTimeForEachDevice.get(insertPlan.getDeviceId()) < insertPlan.getTime()) {
+    if (walFuture != null
+        && latestTimeForEachDevice.get(insertPlan.getDeviceId()) < insertPlan.getTime()) {
       latestTimeForEachDevice.put(insertPlan.getDeviceId(), insertPlan.getTime());
     }
+    return walFuture;
+  }
+
+  /**
+   * @return the working processor, or null if it has not been created, must be called with the
+   * read lock held.
+   */
+  private TsFileProcessor getWorkTsFileProcessor(boolean sequence) {
+    return sequence ? workSequenceTsFileProcessor : workUnSequenceTsFileProcessor;
+  }
 
-    // check memtable size and may asyncTryToFlush the work memtable
-    if (tsFileProcessor.shouldFlush()) {
-      fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+  /**
+   * create the missing working processors with the write lock held, so that insertions holding
+   * only the read lock never change the file lists read by queries.
+   *
+   * @return false if a processor cannot be created
+   */
+  private boolean createWorkTsFileProcessors(boolean sequence, boolean unsequence) {
+    writeLock();
+    try {
+      return (!sequence || getOrCreateTsFileProcessor(true) != null)
+          && (!unsequence || getOrCreateTsFileProcessor(false) != null);
+    } finally {
+      writeUnlock();
+    }
+  }
+
+  /**
+   * check memtable size and may asyncTryToFlush the work memtable. The memtable is shared by the
+   * insertions of all devices, so the flush policy is applied with the write lock held and only if
+   * no other insertion has done it meanwhile.
+   */
+  private void tryToFlush(TsFileProcessor tsFileProcessor, boolean sequence) {
+    if (!tsFileProcessor.shouldFlush()) {
+      return;
+    }
+    writeLock();
+    try {
+      if (getWorkTsFileProcessor(sequence) == tsFileProcessor && tsFileProcessor.shouldFlush()) {
+        fileFlushPolicy.apply(this, tsFileProcessor, sequence);
+      }
+    } finally {
+      writeUnlock();
     }
   }
 
@@ -640,6 +1173,7 @@ public class StorageGroupProcessor {
       this.unSequenceFileList.clear();
       this.latestFlushedTimeForEachDevice.clear();
       this.latestTimeForEachDevice.clear();
+      clearLastValueCache();
     } finally {
       writeUnlock();
     }
@@ -680,6 +1214,22 @@ public class StorageGroupProcessor {
     for (TsFileResource tsFileResource : unseqFiles) {
       checkFileTTL(tsFileResource, timeLowerBound, false);
     }
+    removeExpiredLastValues(timeLowerBound);
+  }
+
+  /**
+   * remove the cached latest points that are out of TTL, they are already ignored by queries and
+   * are removed here only to release the memory.
+   */
+  private void removeExpiredLastValues(long timeLowerBound) {
+    writeLock();
+    try {
+      for (Map<String, TimeValuePair> seriesValues : latestValueForEachSeries.values()) {
+        seriesValues.values().removeIf(lastValue -> lastValue.getTimestamp() < timeLowerBound);
+      }
+    } finally {
+      writeUnlock();
+    }
   }
 
   private void checkFileTTL(TsFileResource resource, long timeLowerBound, boolean isSeq) {
@@ -753,11 +1303,20 @@ public class StorageGroupProcessor {
     }
   }
 
-  // TODO need a read lock, please consider the concurrency with flush manager threads.
   public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
       QueryFileManager filePathsManager) {
+    return query(deviceId, measurementId, context, filePathsManager, null);
+  }
+
+  /**
+   * @param timeFilter the time filter of the query, the files that have no data of the device in
+   * its time range are not returned. Null means all files containing the device.
+   */
+  public QueryDataSource query(String deviceId, String measurementId, QueryContext context,
+      QueryFileManager filePathsManager, Filter timeFilter) {
     insertLock.readLock().lock();
     mergeLock.readLock().lock();
+    deviceLock.readLock(deviceId);
     synchronized (lruForSensorUsedInQuery) {
       if (lruForSensorUsedInQuery.size() >= MAX_CACHE_SENSORS) {
         lruForSensorUsedInQuery.removeFirst();
@@ -765,10 +1324,10 @@ public class StorageGroupProcessor {
       lruForSensorUsedInQuery.add(measurementId);
     }
     try {
-      List<TsFileResource> seqResources = getFileReSourceListForQuery(sequenceFileList,
-          deviceId, measurementId, context);
-      List<TsFileResource> unseqResources = getFileReSourceListForQuery(unSequenceFileList,
-          deviceId, measurementId, context);
+      List<TsFileResource> seqResources = getFileReSourceListForQuery(true,
+          deviceId, measurementId, context, timeFilter);
+      List<TsFileResource> unseqResources = getFileReSourceListForQuery(false,
+          deviceId, measurementId, context, timeFilter);
       QueryDataSource dataSource = new QueryDataSource(new Path(deviceId, measurementId),
           seqResources, unseqResources);
       // used files should be added before mergeLock is unlocked, or they may be deleted by
@@ -780,6 +1339,7 @@ public class StorageGroupProcessor {
       dataSource.setDataTTL(dataTTL);
       return dataSource;
     } finally {
+      deviceLock.readUnlock(deviceId);
       insertLock.readLock().unlock();
       mergeLock.readLock().unlock();
     }
@@ -811,16 +1371,44 @@ public class StorageGroupProcessor {
   }
 
   public void writeUnlock() {
+    clearTimeIndexes();
     insertLock.writeLock().unlock();
   }
 
+  /**
+   * must be called before the write lock or the write lock of mergeLock is released.
+   */
+  private void clearTimeIndexes() {
+    sequenceTimeIndex = null;
+    unSequenceTimeIndex = null;
+  }
+
+  /**
+   * @return the time index of the file list, must be called with the read lock held
+   */
+  private TsFileTimeIndex getTimeIndex(boolean sequence) {
+    TsFileTimeIndex timeIndex = sequence ? sequenceTimeIndex : unSequenceTimeIndex;
+    if (timeIndex == null) {
+      // concurrent queries may build the same index, either of them can be used
+      timeIndex = new TsFileTimeIndex(sequence ? sequenceFileList : unSequenceFileList);
+      if (sequence) {
+        sequenceTimeIndex = timeIndex;
+      } else {
+        unSequenceTimeIndex = timeIndex;
+      }
+    }
+    return timeIndex;
+  }
+
 
   /**
-   * @param tsFileResources includes sealed and unsealed tsfile resources
+   * select the sealed and unsealed tsfile resources of the sequence or unsequence file list that
+   * contain the device and may have data beyond TTL in the time range of the time filter.
+   *
    * @return fill unsealed tsfile resources with memory data and ChunkMetadataList of data in disk
    */
-  private List<TsFileResource> getFileReSourceListForQuery(List<TsFileResource> tsFileResources,
-      String deviceId, String measurementId, QueryContext context) {
+  private List<TsFileResource> getFileReSourceListForQuery(boolean sequence,
+      String deviceId, String measurementId, QueryContext context, Filter timeFilter) {
 
     MeasurementSchema mSchema = schema.getMeasurementSchema(measurementId);
     TSDataType dataType = mSchema.getType();
@@ -830,11 +1418,14 @@ public class StorageGroupProcessor {
         .MIN_VALUE;
     context.setQueryTimeLowerBound(timeLowerBound);
 
+    TimeRange timeRange = TsFileTimeIndex.getTimeRange(timeFilter);
+    if (timeRange == null || timeRange.getMax() < timeLowerBound) {
+      return tsfileResourcesForQuery;
+    }
+    List<TsFileResource> tsFileResources = getTimeIndex(sequence).select(deviceId,
+        Math.max(timeRange.getMin(), timeLowerBound), timeRange.getMax());
+
     for (TsFileResource tsFileResource : tsFileResources) {
-      // TODO: try filtering files if the query contains time filter
-      if (!testResourceDevice(tsFileResource, deviceId)) {
-        continue;
-      }
       closeQueryLock.readLock().lock();
 
       try {
@@ -855,20 +1446,6 @@ public class StorageGroupProcessor {
     return tsfileResourcesForQuery;
   }
 
-  /**
-   * @return true if the device is contained in the TsFile and it lives beyond TTL
-   */
-  private boolean testResourceDevice(TsFileResource tsFileResource, String deviceId) {
-    if (!tsFileResource.containsDevice(deviceId)) {
-      return false;
-    }
-    if (dataTTL != Long.MAX_VALUE) {
-      Long deviceEndTime = tsFileResource.getEndTimeMap().get(deviceId);
-      return deviceEndTime == null || checkTTL(deviceEndTime);
-    }
-    return true;
-  }
-
 
   /**
    * Delete data whose timestamp <= 'timestamp' and belongs to the timeseries
@@ -908,6 +1485,8 @@ public class StorageGroupProcessor {
         }
       }
 
+      removeDeletedLastValue(deviceId, measurementId, timestamp);
+
       Path fullPath = new Path(deviceId, measurementId);
       Deletion deletion = new Deletion(fullPath, versionController.nextVersion(), timestamp);
       if (mergingModification != null) {
@@ -931,6 +1510,22 @@ public class StorageGroupProcessor {
   }
 
 
+  /**
+   * remove the cached latest point of a time series if it is covered by a deletion, must be called
+   * with the write lock held.
+   */
+  private void removeDeletedLastValue(String deviceId, String measurementId, long timestamp) {
+    lastValueCacheVersion.incrementAndGet();
+    Map<String, TimeValuePair> seriesValues = latestValueForEachSeries.get(deviceId);
+    if (seriesValues == null) {
+      return;
+    }
+    TimeValuePair lastValue = seriesValues.get(measurementId);
+    if (lastValue != null && lastValue.getTimestamp() <= timestamp) {
+      seriesValues.remove(measurementId);
+    }
+  }
+
   private void deleteDataInFiles(List<TsFileResource> tsFileResourceList, Deletion deletion,
       List<ModificationFile> updatedModFiles)
       throws IOException {
@@ -1110,6 +1705,7 @@ public class StorageGroupProcessor {
     try {
       unSequenceFileList.removeAll(unseqFiles);
     } finally {
+      clearTimeIndexes();
       mergeLock.writeLock().unlock();
     }
 
@@ -1183,6 +1779,8 @@ public class StorageGroupProcessor {
           mergeLog.delete();
         }
       } finally {
+        // the start times of the merged files have been changed
+        clearTimeIndexes();
         mergeLock.writeLock().unlock();
       }
     }
@@ -1209,6 +1807,7 @@ public class StorageGroupProcessor {
     writeLock();
     mergeLock.writeLock().lock();
     try {
+      clearLastValueCache();
       loadTsFileByType(LoadTsFileType.LOAD_SEQUENCE, tsfileToBeInserted, newTsFileResource,
           getBinarySearchIndex(newTsFileResource));
       updateLatestTimeMap(newTsFileResource);
@@ -1243,6 +1842,7 @@ public class StorageGroupProcessor {
     writeLock();
     mergeLock.writeLock().lock();
     try {
+      clearLastValueCache();
       boolean isOverlap = false;
       int preIndex = -1, subsequentIndex = sequenceFileList.size();
 
@@ -1506,6 +2106,7 @@ public class StorageGroupProcessor {
     mergeLock.writeLock().lock();
     TsFileResource tsFileResourceToBeDeleted = null;
     try {
+      clearLastValueCache();
       Iterator<TsFileResource> sequenceIterator = sequenceFileList.iterator();
       while (sequenceIterator.hasNext()) {
         TsFileResource sequenceResource = sequenceIterator.next();
@@ -1560,6 +2161,7 @@ public class StorageGroupProcessor {
     mergeLock.writeLock().lock();
     TsFileResource tsFileResourceToBeMoved = null;
     try {
+      clearLastValueCache();
       Iterator<TsFileResource> sequenceIterator = sequenceFileList.iterator();
       while (sequenceIterator.hasNext()) {
         TsFileResource sequenceResource = sequenceIterator.next();
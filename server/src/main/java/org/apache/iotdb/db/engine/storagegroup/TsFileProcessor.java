@@ -20,10 +20,12 @@ package org.apache.iotdb.db.engine.storagegroup;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -44,10 +46,13 @@ import org.apache.iotdb.db.engine.modification.Deletion;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.db.engine.querycontext.ReadOnlyMemChunk;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
+import org.apache.iotdb.db.engine.rollup.RollupWriter;
 import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor.CloseTsFileCallBack;
 import org.apache.iotdb.db.engine.version.VersionController;
 import org.apache.iotdb.db.exception.TsFileProcessorException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.exception.query.SystemBusyException;
 import org.apache.iotdb.db.qp.constant.DatetimeUtils;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
@@ -68,6 +73,8 @@ import org.slf4j.LoggerFactory;
 public class TsFileProcessor {
 
   private static final Logger logger = LoggerFactory.getLogger(TsFileProcessor.class);
+  private static final CompletableFuture<Void> COMPLETED_FUTURE = CompletableFuture
+      .completedFuture(null);
 
   private RestorableTsFileIOWriter writer;
 
@@ -90,7 +97,14 @@ public class TsFileProcessor {
    */
   private volatile boolean shouldClose;
 
-  private IMemTable workMemTable;
+  /**
+   * it is applied by the first insertion after a flush, insertions of different devices may write
+   * into it at the same time (see {@link StorageGroupProcessor#insert}), while it is switched only
+   * when the StorageGroupProcessor holds its write lock.
+   */
+  private volatile IMemTable workMemTable;
+
+  private final Object workMemTableApplyLock = new Object();
 
   /**
    * sync this object in query() and asyncTryToFlush()
@@ -110,10 +124,15 @@ public class TsFileProcessor {
    */
   private Supplier updateLatestFlushTimeCallback;
 
-  private WriteLogNode logNode;
+  private volatile WriteLogNode logNode;
 
   private boolean sequence;
 
+  /**
+   * writes the rollups of a sequence TsFile, null if rollup is disabled for the file.
+   */
+  private RollupWriter rollupWriter;
+
   private long totalMemTableSize;
 
   TsFileProcessor(String storageGroupName, File tsfile, Schema schema,
@@ -129,6 +148,9 @@ public class TsFileProcessor {
     this.closeTsFileCallback = closeTsFileCallback;
     this.updateLatestFlushTimeCallback = updateLatestFlushTimeCallback;
     this.sequence = sequence;
+    if (sequence) {
+      this.rollupWriter = RollupManager.getInstance().createWriter(tsfile);
+    }
     logger.info("create a new tsfile processor {}", tsfile.getAbsolutePath());
 
     // a file generated by flush has only one historical version, which is itself
@@ -153,23 +175,21 @@ public class TsFileProcessor {
    * insert data in an InsertPlan into the workingMemtable.
    *
    * @param insertPlan physical plan of insertion
-   * @return succeed or fail
+   * @return a future which is completed when the WAL of the insertion is forced to disk (see
+   * {@link WriteLogNode#write}), or null if the insertion fails
    */
-  public boolean insert(InsertPlan insertPlan) throws QueryProcessException {
-
-    if (workMemTable == null) {
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
-    }
+  public CompletableFuture<Void> insert(InsertPlan insertPlan) throws QueryProcessException {
 
     // insert insertPlan to the work memtable
-    workMemTable.insert(insertPlan);
+    getOrApplyWorkMemTable().insert(insertPlan);
 
+    CompletableFuture<Void> walFuture = COMPLETED_FUTURE;
     if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
       try {
-        getLogNode().write(insertPlan);
+        walFuture = getLogNode().write(insertPlan);
       } catch (IOException e) {
         logger.error("write WAL failed", e);
-        return false;
+        return null;
       }
     }
 
@@ -181,29 +201,75 @@ public class TsFileProcessor {
       tsFileResource.updateEndTime(insertPlan.getDeviceId(), insertPlan.getTime());
     }
 
-    return true;
+    return walFuture;
   }
 
-  public boolean insertBatch(BatchInsertPlan batchInsertPlan, List<Integer> indexes,
-      Integer[] results) throws QueryProcessException {
+  /**
+   * insert the rows of the given indexes in a list of InsertPlans into the workingMemtable, and
+   * write the WAL of them at once. A row that cannot be inserted into the memtable gets its
+   * exception in results and is not written into the WAL.
+   *
+   * @return a future which is completed when the WAL of the inserted rows is forced to disk (see
+   * {@link WriteLogNode#write}), or null if the WAL cannot be written
+   */
+  public CompletableFuture<Void> insertRows(List<InsertPlan> insertPlans, List<Integer> indexes,
+      QueryProcessException[] results) throws SystemBusyException {
+
+    IMemTable memTable = getOrApplyWorkMemTable();
+    List<InsertPlan> insertedPlans = new ArrayList<>(indexes.size());
+    for (int index : indexes) {
+      try {
+        memTable.insert(insertPlans.get(index));
+        insertedPlans.add(insertPlans.get(index));
+      } catch (QueryProcessException e) {
+        results[index] = e;
+      }
+    }
 
-    if (workMemTable == null) {
-      workMemTable = MemTablePool.getInstance().getAvailableMemTable(this);
+    CompletableFuture<Void> walFuture = COMPLETED_FUTURE;
+    if (IoTDBDescriptor.getInstance().getConfig().isEnableWal() && !insertedPlans.isEmpty()) {
+      try {
+        walFuture = getLogNode().write(insertedPlans);
+      } catch (IOException e) {
+        logger.error("write WAL failed", e);
+        return null;
+      }
     }
 
+    for (InsertPlan insertPlan : insertedPlans) {
+      tsFileResource.updateStartTime(insertPlan.getDeviceId(), insertPlan.getTime());
+      //for sequence tsfile, we update the endTime only when the file is prepared to be closed.
+      //for unsequence tsfile, we have to update the endTime for each insertion.
+      if (!sequence) {
+        tsFileResource.updateEndTime(insertPlan.getDeviceId(), insertPlan.getTime());
+      }
+    }
+    return walFuture;
+  }
+
+  /**
+   * insert the rows of the given indexes in a BatchInsertPlan into the workingMemtable.
+   *
+   * @return a future which is completed when the WAL of the insertion is forced to disk (see
+   * {@link WriteLogNode#write}), or null if the insertion fails
+   */
+  public CompletableFuture<Void> insertBatch(BatchInsertPlan batchInsertPlan,
+      List<Integer> indexes, Integer[] results) throws QueryProcessException {
+
     // insert insertPlan to the work memtable
-    workMemTable.insertBatch(batchInsertPlan, indexes);
+    getOrApplyWorkMemTable().insertBatch(batchInsertPlan, indexes);
 
+    CompletableFuture<Void> walFuture = COMPLETED_FUTURE;
     if (IoTDBDescriptor.getInstance().getConfig().isEnableWal()) {
       try {
         batchInsertPlan.setIndex(new HashSet<>(indexes));
-        getLogNode().write(batchInsertPlan);
+        walFuture = getLogNode().write(batchInsertPlan);
       } catch (IOException e) {
         logger.error("write WAL failed", e);
         for (int index: indexes) {
           results[index] = TSStatusCode.INTERNAL_SERVER_ERROR.getStatusCode();
         }
-        return false;
+        return null;
       }
     }
 
@@ -215,7 +281,21 @@ public class TsFileProcessor {
       tsFileResource.updateEndTime(batchInsertPlan.getDeviceId(), batchInsertPlan.getMaxTime());
     }
 
-    return true;
+    return walFuture;
+  }
+
+  private IMemTable getOrApplyWorkMemTable() throws SystemBusyException {
+    IMemTable memTable = workMemTable;
+    if (memTable == null) {
+      synchronized (workMemTableApplyLock) {
+        memTable = workMemTable;
+        if (memTable == null) {
+          memTable = MemTablePool.getInstance().getAvailableMemTable(this);
+          workMemTable = memTable;
+        }
+      }
+    }
+    return memTable;
   }
 
   /**
@@ -442,13 +522,14 @@ public class TsFileProcessor {
     // signal memtable only may appear when calling asyncClose()
     if (!memTableToFlush.isSignalMemTable()) {
       MemTableFlushTask flushTask = new MemTableFlushTask(memTableToFlush, schema, writer,
-          storageGroupName);
+          rollupWriter, storageGroupName);
       try {
         writer.mark();
         flushTask.syncFlushMemTable();
       } catch (ExecutionException | InterruptedException | IOException e) {
         logger.error("meet error when flushing a memtable, change system mode to read-only", e);
         IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
+        abortRollup();
         try {
           logger.error("IOTask meets error, truncate the corrupted data", e);
           writer.reset();
@@ -507,6 +588,15 @@ public class TsFileProcessor {
   private void endFile() throws IOException, TsFileProcessorException {
     long closeStartTime = System.currentTimeMillis();
 
+    if (rollupWriter != null) {
+      try {
+        rollupWriter.endFile();
+      } catch (IOException e) {
+        logger.error("meet error when sealing the rollup file {}", rollupWriter.getFile(), e);
+        rollupWriter.abort();
+      }
+      rollupWriter = null;
+    }
     tsFileResource.serialize();
     writer.endFile(schema);
     tsFileResource.cleanCloseFlag();
@@ -529,14 +619,25 @@ public class TsFileProcessor {
   }
 
 
+  private void abortRollup() {
+    if (rollupWriter != null) {
+      rollupWriter.abort();
+      rollupWriter = null;
+    }
+  }
+
   public boolean isManagedByFlushManager() {
     return managedByFlushManager;
   }
 
   WriteLogNode getLogNode() {
     if (logNode == null) {
-      logNode = MultiFileLogNodeManager.getInstance()
-          .getNode(storageGroupName + "-" + tsFileResource.getFile().getName());
+      synchronized (this) {
+        if (logNode == null) {
+          logNode = MultiFileLogNodeManager.getInstance()
+              .getNode(storageGroupName + "-" + tsFileResource.getFile().getName());
+        }
+      }
     }
     return logNode;
   }
@@ -545,6 +646,9 @@ public class TsFileProcessor {
     try {
       //when closing resource file, its corresponding mod file is also closed.
       tsFileResource.close();
+      if (rollupWriter != null) {
+        rollupWriter.close();
+      }
       MultiFileLogNodeManager.getInstance()
           .deleteNode(storageGroupName + "-" + tsFileResource.getFile().getName());
     } catch (IOException e) {
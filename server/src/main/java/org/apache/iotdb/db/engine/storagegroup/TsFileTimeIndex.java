@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
+import org.apache.iotdb.tsfile.read.filter.operator.Eq;
+import org.apache.iotdb.tsfile.read.filter.operator.Gt;
+import org.apache.iotdb.tsfile.read.filter.operator.GtEq;
+import org.apache.iotdb.tsfile.read.filter.operator.Lt;
+import org.apache.iotdb.tsfile.read.filter.operator.LtEq;
+import org.apache.iotdb.tsfile.read.filter.operator.OrFilter;
+
+/**
+ * An index of the time ranges of each device in a list of TsFileResources, so that the files that
+ * may contain the data of a device in a time range are selected without testing every file.
+ * <p>
+ * For each device, the sealed files that contain it are sorted by their start times of the device,
+ * along with the running maximum of their end times, which is non-decreasing. So the files that
+ * may overlap [minTime, maxTime] lie between the first file whose running maximum end time is no
+ * less than minTime and the last file whose start time is no larger than maxTime, both of which
+ * are found by binary search. Since the sequence files of a device never overlap, all files
+ * between them are selected in that case. The time ranges of unsealed files still grow, so they
+ * are tested one by one.
+ * <p>
+ * The index of a device is built by the first query of the device. The index reflects the list
+ * and the time ranges of its sealed files when it is built, so it must be discarded once they
+ * are changed.
+ */
+public class TsFileTimeIndex {
+
+  private final List<TsFileResource> resources;
+
+  private final Map<String, DeviceTimeIndex> deviceIndexes = new ConcurrentHashMap<>();
+
+  public TsFileTimeIndex(List<TsFileResource> resources) {
+    this.resources = resources;
+  }
+
+  /**
+   * @return the resources that contain the device and may have data in [minTime, maxTime], in the
+   * order of the list
+   */
+  public List<TsFileResource> select(String deviceId, long minTime, long maxTime) {
+    return deviceIndexes.computeIfAbsent(deviceId, this::buildDeviceIndex)
+        .select(deviceId, minTime, maxTime);
+  }
+
+  private DeviceTimeIndex buildDeviceIndex(String deviceId) {
+    List<Integer> sealed = new ArrayList<>();
+    List<Long> sealedStartTimes = new ArrayList<>();
+    List<Integer> unsealed = new ArrayList<>();
+    for (int i = 0; i < resources.size(); i++) {
+      TsFileResource resource = resources.get(i);
+      Long startTime = resource.getStartTimeMap().get(deviceId);
+      if (!resource.isClosed()) {
+        unsealed.add(i);
+      } else if (startTime != null) {
+        sealed.add(i);
+        // the start times may be updated by a merge, so they are read only once
+        sealedStartTimes.add(startTime);
+      }
+    }
+    Integer[] order = new Integer[sealed.size()];
+    for (int i = 0; i < order.length; i++) {
+      order[i] = i;
+    }
+    Arrays.sort(order, Comparator.comparingLong(sealedStartTimes::get));
+
+    DeviceTimeIndex index = new DeviceTimeIndex(sealed.size(), unsealed.size());
+    long maxEndTime = Long.MIN_VALUE;
+    for (int i = 0; i < order.length; i++) {
+      index.positions[i] = sealed.get(order[i]);
+      index.startTimes[i] = sealedStartTimes.get(order[i]);
+      index.endTimes[i] = getEndTime(resources.get(index.positions[i]), deviceId);
+      maxEndTime = Math.max(maxEndTime, index.endTimes[i]);
+      index.maxEndTimes[i] = maxEndTime;
+    }
+    for (int i = 0; i < unsealed.size(); i++) {
+      index.unsealedPositions[i] = unsealed.get(i);
+    }
+    return index;
+  }
+
+  /**
+   * @return the end time of the device in the file, or Long.MAX_VALUE if it is unknown, e.g., in
+   * an unsealed sequence file
+   */
+  private static long getEndTime(TsFileResource resource, String deviceId) {
+    Long endTime = resource.getEndTimeMap().get(deviceId);
+    return endTime == null ? Long.MAX_VALUE : endTime;
+  }
+
+  /**
+   * @return the smallest range that covers all the timestamps satisfying the given time filter,
+   * [Long.MIN_VALUE, Long.MAX_VALUE] if the filter is null or not bounded in time, or null if no
+   * timestamp satisfies the filter
+   */
+  public static TimeRange getTimeRange(Filter timeFilter) {
+    if (timeFilter instanceof AndFilter) {
+      TimeRange left = getTimeRange(((AndFilter) timeFilter).getLeft());
+      TimeRange right = getTimeRange(((AndFilter) timeFilter).getRight());
+      if (left == null || right == null) {
+        return null;
+      }
+      long min = Math.max(left.getMin(), right.getMin());
+      long max = Math.min(left.getMax(), right.getMax());
+      return min <= max ? new TimeRange(min, max) : null;
+    } else if (timeFilter instanceof OrFilter) {
+      TimeRange left = getTimeRange(((OrFilter) timeFilter).getLeft());
+      TimeRange right = getTimeRange(((OrFilter) timeFilter).getRight());
+      if (left == null || right == null) {
+        return left == null ? right : left;
+      }
+      return new TimeRange(Math.min(left.getMin(), right.getMin()),
+          Math.max(left.getMax(), right.getMax()));
+    } else if (timeFilter instanceof GroupByFilter) {
+      GroupByFilter groupByFilter = (GroupByFilter) timeFilter;
+      return groupByFilter.getStartTime() <= groupByFilter.getEndTime() ? new TimeRange(
+          groupByFilter.getStartTime(), groupByFilter.getEndTime()) : null;
+    } else if (timeFilter instanceof UnaryFilter
+        && ((UnaryFilter) timeFilter).getFilterType() == FilterType.TIME_FILTER) {
+      long time = (Long) ((UnaryFilter) timeFilter).getValue();
+      if (timeFilter instanceof Eq) {
+        return new TimeRange(time, time);
+      } else if (timeFilter instanceof Gt) {
+        return time < Long.MAX_VALUE ? new TimeRange(time + 1, Long.MAX_VALUE) : null;
+      } else if (timeFilter instanceof GtEq) {
+        return new TimeRange(time, Long.MAX_VALUE);
+      } else if (timeFilter instanceof Lt) {
+        return time > Long.MIN_VALUE ? new TimeRange(Long.MIN_VALUE, time - 1) : null;
+      } else if (timeFilter instanceof LtEq) {
+        return new TimeRange(Long.MIN_VALUE, time);
+      }
+    }
+    return new TimeRange(Long.MIN_VALUE, Long.MAX_VALUE);
+  }
+
+  private class DeviceTimeIndex {
+
+    /**
+     * positions in the list of the sealed files containing the device, sorted by the start times
+     */
+    private final int[] positions;
+    private final long[] startTimes;
+    private final long[] endTimes;
+    /**
+     * maxEndTimes[i] is the max of endTimes[0..i]
+     */
+    private final long[] maxEndTimes;
+    /**
+     * positions in the list of the unsealed files, which may or may not contain the device
+     */
+    private final int[] unsealedPositions;
+
+    private DeviceTimeIndex(int sealedNum, int unsealedNum) {
+      positions = new int[sealedNum];
+      startTimes = new long[sealedNum];
+      endTimes = new long[sealedNum];
+      maxEndTimes = new long[sealedNum];
+      unsealedPositions = new int[unsealedNum];
+    }
+
+    private List<TsFileResource> select(String deviceId, long minTime, long maxTime) {
+      int from = lowerBound(maxEndTimes, minTime);
+      int to = upperBound(startTimes, maxTime);
+      int[] selected = new int[Math.max(to - from, 0) + unsealedPositions.length];
+      int selectedNum = 0;
+      for (int i = from; i < to; i++) {
+        if (endTimes[i] >= minTime) {
+          selected[selectedNum++] = positions[i];
+        }
+      }
+      for (int position : unsealedPositions) {
+        TsFileResource resource = resources.get(position);
+        Long startTime = resource.getStartTimeMap().get(deviceId);
+        if (startTime != null && startTime <= maxTime
+            && getEndTime(resource, deviceId) >= minTime) {
+          selected[selectedNum++] = position;
+        }
+      }
+      // keep the order of the list, which the readers of sequence files rely on
+      Arrays.sort(selected, 0, selectedNum);
+      List<TsFileResource> result = new ArrayList<>(selectedNum);
+      for (int i = 0; i < selectedNum; i++) {
+        result.add(resources.get(selected[i]));
+      }
+      return result;
+    }
+  }
+
+  /**
+   * @return the index of the first element no less than the key in the sorted array
+   */
+  private static int lowerBound(long[] array, long key) {
+    int low = 0;
+    int high = array.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (array[mid] < key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @return the index of the first element larger than the key in the sorted array
+   */
+  private static int upperBound(long[] array, long key) {
+    int low = 0;
+    int high = array.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (array[mid] <= key) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -56,6 +56,7 @@ import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.FillQueryPlan;
 import org.apache.iotdb.db.qp.physical.crud.GroupByPlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.QueryPlan;
 import org.apache.iotdb.db.qp.physical.sys.AuthorPlan;
 import org.apache.iotdb.db.qp.physical.sys.CountPlan;
@@ -362,6 +363,22 @@ public abstract class AbstractQueryProcessExecutor implements IQueryProcessExecu
     return queryDataSet;
   }
 
+  /**
+   * insert the rows one by one, an executor can override it to insert them together.
+   */
+  @Override
+  public QueryProcessException[] insertRows(List<InsertPlan> insertPlans) {
+    QueryProcessException[] results = new QueryProcessException[insertPlans.size()];
+    for (int i = 0; i < insertPlans.size(); i++) {
+      try {
+        insert(insertPlans.get(i));
+      } catch (QueryProcessException e) {
+        results[i] = e;
+      }
+    }
+    return results;
+  }
+
   @Override
   public void delete(DeletePlan deletePlan) throws QueryProcessException {
     try {
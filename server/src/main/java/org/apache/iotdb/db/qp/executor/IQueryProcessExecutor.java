@@ -109,6 +109,13 @@ public interface IQueryProcessExecutor {
    */
   void insert(InsertPlan insertPlan) throws QueryProcessException;
 
+  /**
+   * execute the insertions of many rows, a row that fails does not stop the others.
+   *
+   * @return the exception of each row, or null if the row is inserted
+   */
+  QueryProcessException[] insertRows(List<InsertPlan> insertPlans);
+
   /**
    * execute batch insert plan
    *
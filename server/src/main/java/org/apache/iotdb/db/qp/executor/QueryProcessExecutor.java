@@ -46,6 +46,7 @@ import org.apache.iotdb.db.qp.physical.sys.*;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.dataset.ListDataSet;
 import org.apache.iotdb.db.utils.AuthUtils;
+import org.apache.iotdb.db.utils.CommonUtils;
 import org.apache.iotdb.db.utils.FileLoaderUtils;
 import org.apache.iotdb.db.utils.TypeInferenceUtils;
 import org.apache.iotdb.db.utils.UpgradeUtils;
@@ -338,17 +339,8 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
   @Override
   public void insert(InsertPlan insertPlan) throws QueryProcessException {
     try {
-      String[] measurementList = insertPlan.getMeasurements();
-      String deviceId = insertPlan.getDeviceId();
-      MNode node = mManager.getNodeByPathFromCache(deviceId);
-      String[] strValues = insertPlan.getValues();
-      TSDataType[] dataTypes = new TSDataType[measurementList.length];
-
-      for (int i = 0; i < measurementList.length; i++) {
-        MNode measurementNode = checkPathExists(node, deviceId, measurementList[i], strValues[i]);
-        dataTypes[i] = measurementNode.getSchema().getType();
-      }
-      insertPlan.setDataTypes(dataTypes);
+      MNode node = mManager.getNodeByPathFromCache(insertPlan.getDeviceId());
+      checkInsertSchema(insertPlan, node);
       storageEngine.insert(insertPlan);
     } catch (PathException | StorageEngineException | MetadataException e) {
       throw new QueryProcessException(e);
@@ -357,7 +349,79 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
     }
   }
 
-  private MNode checkPathExists(MNode node, String deviceId, String measurement, String strValue)
+  /**
+   * check the schema of each row as {@link #insert} does, then insert the rows together, so that
+   * the MNode of a device is fetched once and the rows of a device are inserted with one
+   * acquisition of its lock and one write of the WAL.
+   */
+  @Override
+  public QueryProcessException[] insertRows(List<InsertPlan> insertPlans) {
+    QueryProcessException[] results = new QueryProcessException[insertPlans.size()];
+    Map<String, MNode> deviceNodes = new HashMap<>();
+    List<InsertPlan> checkedPlans = new ArrayList<>(insertPlans.size());
+    List<Integer> checkedIndexes = new ArrayList<>(insertPlans.size());
+    for (int i = 0; i < insertPlans.size(); i++) {
+      InsertPlan insertPlan = insertPlans.get(i);
+      try {
+        MNode node = deviceNodes.get(insertPlan.getDeviceId());
+        if (node == null) {
+          node = mManager.getNodeByPathFromCache(insertPlan.getDeviceId());
+          deviceNodes.put(insertPlan.getDeviceId(), node);
+        }
+        checkInsertSchema(insertPlan, node);
+        checkedPlans.add(insertPlan);
+        checkedIndexes.add(i);
+      } catch (QueryProcessException e) {
+        results[i] = e;
+      } catch (StorageEngineException | MetadataException e) {
+        results[i] = new QueryProcessException(e);
+      } catch (CacheException e) {
+        results[i] = new QueryProcessException(e.getMessage());
+      }
+    }
+
+    QueryProcessException[] insertResults = storageEngine.insertRows(checkedPlans);
+    for (int i = 0; i < insertResults.length; i++) {
+      results[checkedIndexes.get(i)] = insertResults[i];
+    }
+    return results;
+  }
+
+  /**
+   * check the series of the measurements in an InsertPlan exist or create them, then set the
+   * data types of the series into the plan.
+   *
+   * @param node the MNode of the device of the plan
+   */
+  private void checkInsertSchema(InsertPlan insertPlan, MNode node)
+      throws MetadataException, QueryProcessException, StorageEngineException {
+    String[] measurementList = insertPlan.getMeasurements();
+    String deviceId = insertPlan.getDeviceId();
+    TSDataType[] dataTypes = new TSDataType[measurementList.length];
+
+    for (int i = 0; i < measurementList.length; i++) {
+      // a typed value tells the type of a series to create
+      MNode measurementNode = checkPathExists(node, deviceId, measurementList[i],
+          insertPlan.isTyped() ? insertPlan.getDataTypes()[i] : insertPlan.getValues()[i]);
+      dataTypes[i] = measurementNode.getSchema().getType();
+    }
+    if (insertPlan.isTyped()) {
+      Object[] typedValues = insertPlan.getTypedValues();
+      for (int i = 0; i < measurementList.length; i++) {
+        typedValues[i] = CommonUtils
+            .convertValue(insertPlan.getDataTypes()[i], dataTypes[i], typedValues[i]);
+      }
+      insertPlan.setTypedValues(dataTypes, typedValues);
+    } else {
+      insertPlan.setDataTypes(dataTypes);
+    }
+  }
+
+  /**
+   * @param valueOrType the string value or the data type of the inserted value, which determines
+   * the data type of the series if it is created
+   */
+  private MNode checkPathExists(MNode node, String deviceId, String measurement, Object valueOrType)
       throws MetadataException, QueryProcessException, StorageEngineException {
     // check if timeseries exists
     if (!node.hasChild(measurement)) {
@@ -367,7 +431,11 @@ public class QueryProcessExecutor extends AbstractQueryProcessExecutor {
                 measurement));
       }
       try {
-        addPathToMTree(deviceId, measurement, strValue);
+        if (valueOrType instanceof TSDataType) {
+          addPathToMTree(deviceId, measurement, (TSDataType) valueOrType);
+        } else {
+          addPathToMTree(deviceId, measurement, valueOrType);
+        }
       } catch (MetadataException e) {
         if (!e.getMessage().contains("already exist")) {
           throw e;
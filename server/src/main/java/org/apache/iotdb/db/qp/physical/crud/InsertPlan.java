@@ -23,20 +23,34 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.qp.logical.Operator;
 import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.utils.CommonUtils;
 import org.apache.iotdb.db.utils.TestOnly;
+import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 
+/**
+ * An insertion of one row of a device. The values are either strings, which are parsed by the
+ * data types of the series when they are written, or typed values (Boolean, Integer, Long, Float,
+ * Double or Binary) that are written without parsing, see {@link #isTyped()}.
+ */
 public class InsertPlan extends PhysicalPlan {
 
   private String deviceId;
   private String[] measurements;
   private TSDataType[] dataTypes;
   private String[] values;
+  /**
+   * the values in their data types, or null if the values are strings.
+   */
+  private Object[] typedValues;
   private long time;
 
   public InsertPlan() {
@@ -123,6 +137,118 @@ public class InsertPlan extends PhysicalPlan {
 
   public void setValues(String[] values) {
     this.values = values;
+    this.typedValues = null;
+  }
+
+  /**
+   * @return whether the values are typed objects instead of strings
+   */
+  public boolean isTyped() {
+    return typedValues != null;
+  }
+
+  public Object[] getTypedValues() {
+    return typedValues;
+  }
+
+  /**
+   * set the values in their data types, whose classes must match the data types.
+   */
+  public void setTypedValues(TSDataType[] dataTypes, Object[] typedValues) {
+    this.dataTypes = dataTypes;
+    this.typedValues = typedValues;
+    this.values = null;
+  }
+
+  /**
+   * @return the value of the index-th measurement in the data type of the measurement, which is
+   * parsed if the values are strings
+   */
+  public Object getValue(int index) throws QueryProcessException {
+    if (typedValues != null) {
+      return typedValues[index];
+    }
+    return CommonUtils.parseValue(dataTypes[index], values[index]);
+  }
+
+  /**
+   * read the typed values of all measurements, each one serialized as the ordinal of its data type
+   * in one byte followed by the value in binary. This is the format of the values of a
+   * TSTypedInsertReq and of a typed plan in the WAL.
+   */
+  public void readTypedValues(ByteBuffer buffer) {
+    TSDataType[] types = new TSDataType[measurements.length];
+    Object[] objects = new Object[measurements.length];
+    for (int i = 0; i < measurements.length; i++) {
+      byte typeNum = buffer.get();
+      if (typeNum < 0 || typeNum >= TSDataType.values().length) {
+        throw new UnSupportedDataTypeException("Unrecognized data type " + typeNum);
+      }
+      types[i] = TSDataType.values()[typeNum];
+      switch (types[i]) {
+        case BOOLEAN:
+          objects[i] = BytesUtils.byteToBool(buffer.get());
+          break;
+        case INT32:
+          objects[i] = buffer.getInt();
+          break;
+        case INT64:
+          objects[i] = buffer.getLong();
+          break;
+        case FLOAT:
+          objects[i] = buffer.getFloat();
+          break;
+        case DOUBLE:
+          objects[i] = buffer.getDouble();
+          break;
+        case TEXT:
+          // the length comes from the client, check it before allocating the value
+          int length = buffer.getInt();
+          if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid length %d of a TEXT value, %d bytes remain", length, buffer.remaining()));
+          }
+          byte[] bytes = new byte[length];
+          buffer.get(bytes);
+          objects[i] = new Binary(bytes);
+          break;
+        default:
+          throw new UnSupportedDataTypeException(
+              String.format("Data type %s is not supported.", types[i]));
+      }
+    }
+    setTypedValues(types, objects);
+  }
+
+  private void writeTypedValues(ByteBuffer buffer) {
+    for (int i = 0; i < typedValues.length; i++) {
+      buffer.put((byte) dataTypes[i].ordinal());
+      switch (dataTypes[i]) {
+        case BOOLEAN:
+          buffer.put(BytesUtils.boolToByte((Boolean) typedValues[i]));
+          break;
+        case INT32:
+          buffer.putInt((Integer) typedValues[i]);
+          break;
+        case INT64:
+          buffer.putLong((Long) typedValues[i]);
+          break;
+        case FLOAT:
+          buffer.putFloat((Float) typedValues[i]);
+          break;
+        case DOUBLE:
+          buffer.putDouble((Double) typedValues[i]);
+          break;
+        case TEXT:
+          Binary binary = (Binary) typedValues[i];
+          buffer.putInt(binary.getLength());
+          buffer.put(binary.getValues());
+          break;
+        default:
+          throw new UnSupportedDataTypeException(
+              String.format("Data type %s is not supported.", dataTypes[i]));
+      }
+    }
   }
 
   @Override
@@ -136,7 +262,7 @@ public class InsertPlan extends PhysicalPlan {
     InsertPlan that = (InsertPlan) o;
     return time == that.time && Objects.equals(deviceId, that.deviceId)
         && Arrays.equals(measurements, that.measurements)
-        && Arrays.equals(values, that.values);
+        && Arrays.equals(values, that.values) && Arrays.equals(typedValues, that.typedValues);
   }
 
   @Override
@@ -146,7 +272,8 @@ public class InsertPlan extends PhysicalPlan {
 
   @Override
   public void serializeTo(ByteBuffer buffer) {
-    int type = PhysicalPlanType.INSERT.ordinal();
+    int type = isTyped() ? PhysicalPlanType.TYPED_INSERT.ordinal()
+        : PhysicalPlanType.INSERT.ordinal();
     buffer.put((byte) type);
     buffer.putLong(time);
 
@@ -157,6 +284,10 @@ public class InsertPlan extends PhysicalPlan {
       putString(buffer, m);
     }
 
+    if (isTyped()) {
+      writeTypedValues(buffer);
+      return;
+    }
     buffer.putInt(values.length);
     for (String m : values) {
       putString(buffer, m);
@@ -165,6 +296,24 @@ public class InsertPlan extends PhysicalPlan {
 
   @Override
   public void deserializeFrom(ByteBuffer buffer) {
+    deserializeHeaderFrom(buffer);
+
+    int valueSize = buffer.getInt();
+    this.values = new String[valueSize];
+    for (int i = 0; i < valueSize; i++) {
+      values[i] = readString(buffer);
+    }
+  }
+
+  /**
+   * deserialize a plan serialized as {@link PhysicalPlanType#TYPED_INSERT}.
+   */
+  public void deserializeTypedFrom(ByteBuffer buffer) {
+    deserializeHeaderFrom(buffer);
+    readTypedValues(buffer);
+  }
+
+  private void deserializeHeaderFrom(ByteBuffer buffer) {
     this.time = buffer.getLong();
     this.deviceId = readString(buffer);
 
@@ -173,12 +322,6 @@ public class InsertPlan extends PhysicalPlan {
     for (int i = 0; i < measurementSize; i++) {
       measurements[i] = readString(buffer);
     }
-
-    int valueSize = buffer.getInt();
-    this.values = new String[valueSize];
-    for (int i = 0; i < valueSize; i++) {
-      values[i] = readString(buffer);
-    }
   }
 
   @Override
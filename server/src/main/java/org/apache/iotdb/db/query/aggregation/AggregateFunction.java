@@ -25,6 +25,7 @@ import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 public abstract class AggregateFunction {
@@ -51,7 +52,18 @@ public abstract class AggregateFunction {
    *
    * @param pageHeader <code>PageHeader</code>
    */
-  public abstract void calculateValueFromPageHeader(PageHeader pageHeader)
+  public void calculateValueFromPageHeader(PageHeader pageHeader)
+      throws QueryProcessException {
+    calculateValueFromStatistics(pageHeader.getStatistics());
+  }
+
+  /**
+   * <p> Calculate the aggregation using the <code>Statistics</code> of a page, a chunk or a file,
+   * all points of which are aggregated. </p>
+   *
+   * @param statistics <code>Statistics</code>
+   */
+  public abstract void calculateValueFromStatistics(Statistics statistics)
       throws QueryProcessException;
 
   /**
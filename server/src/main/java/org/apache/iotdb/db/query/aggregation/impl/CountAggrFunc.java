@@ -23,8 +23,8 @@ import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
-import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -52,13 +52,13 @@ public class CountAggrFunc extends AggregateFunction {
   }
 
   @Override
-  public void calculateValueFromPageHeader(PageHeader pageHeader) {
+  public void calculateValueFromStatistics(Statistics statistics) {
     if (logger.isDebugEnabled()) {
-      logger.debug("PageHeader>>>>>>>>>>>>num of rows:{}, minTimeStamp:{}, maxTimeStamp{}",
-          pageHeader.getNumOfValues(), pageHeader.getStartTime(), pageHeader.getEndTime());
+      logger.debug("Statistics>>>>>>>>>>>>num of rows:{}, minTimeStamp:{}, maxTimeStamp{}",
+          statistics.getCount(), statistics.getStartTime(), statistics.getEndTime());
     }
     long preValue = resultData.getLongRet();
-    preValue += pageHeader.getNumOfValues();
+    preValue += statistics.getCount();
     resultData.setLongRet(preValue);
 
   }
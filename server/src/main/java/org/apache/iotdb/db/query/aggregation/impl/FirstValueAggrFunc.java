@@ -25,8 +25,8 @@ import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
-import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 public class FirstValueAggrFunc extends AggregateFunction {
@@ -46,14 +46,14 @@ public class FirstValueAggrFunc extends AggregateFunction {
   }
 
   @Override
-  public void calculateValueFromPageHeader(PageHeader pageHeader) throws QueryProcessException {
+  public void calculateValueFromStatistics(Statistics statistics) throws QueryProcessException {
     if (resultData.isSetTime()) {
       return;
     }
 
-    Object firstVal = pageHeader.getStatistics().getFirstValue();
+    Object firstVal = statistics.getFirstValue();
     if (firstVal == null) {
-      throw new QueryProcessException("PageHeader contains no FIRST value");
+      throw new QueryProcessException("Statistics contains no FIRST value");
     }
     resultData.putTimeAndValue(0, firstVal);
   }
@@ -25,12 +25,17 @@ import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.utils.TimeValuePair;
-import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 public class LastValueAggrFunc extends AggregateFunction {
 
+  /**
+   * the time of the last value, kept because the timestamp of the result is reset by getResult().
+   */
+  private long lastTime;
+
   public LastValueAggrFunc(TSDataType dataType) {
     super(dataType);
   }
@@ -38,6 +43,7 @@ public class LastValueAggrFunc extends AggregateFunction {
   @Override
   public void init() {
     resultData.reset();
+    lastTime = 0;
   }
 
   @Override
@@ -49,9 +55,9 @@ public class LastValueAggrFunc extends AggregateFunction {
   }
 
   @Override
-  public void calculateValueFromPageHeader(PageHeader pageHeader) {
-    Object lastVal = pageHeader.getStatistics().getLastValue();
-    updateLastResult(pageHeader.getEndTime(), lastVal);
+  public void calculateValueFromStatistics(Statistics statistics) {
+    Object lastVal = statistics.getLastValue();
+    updateLastResult(statistics.getEndTime(), lastVal);
   }
 
   @Override
@@ -138,12 +144,24 @@ public class LastValueAggrFunc extends AggregateFunction {
     return false;
   }
 
-  private void updateLastResult(long time, Object value) {
+  /**
+   * @return the time of the last value, only meaningful if the result has a value
+   */
+  public long getLastTime() {
+    return lastTime;
+  }
+
+  /**
+   * update the result with a point if it is not earlier than the current last value.
+   */
+  public void updateLastResult(long time, Object value) {
     if (!resultData.isSetTime()) {
       resultData.putTimeAndValue(time, value);
+      lastTime = time;
     } else {
       if (time >= resultData.getTimestamp()) {
         resultData.putTimeAndValue(time, value);
+        lastTime = time;
       }
     }
   }
@@ -24,8 +24,8 @@ import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
-import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 public class MinTimeAggrFunc extends AggregateFunction {
@@ -45,11 +45,11 @@ public class MinTimeAggrFunc extends AggregateFunction {
   }
 
   @Override
-  public void calculateValueFromPageHeader(PageHeader pageHeader) {
+  public void calculateValueFromStatistics(Statistics statistics) {
     if (resultData.isSetValue()) {
       return;
     }
-    long time = pageHeader.getStartTime();
+    long time = statistics.getStartTime();
     resultData.putTimeAndValue(0, time);
   }
 
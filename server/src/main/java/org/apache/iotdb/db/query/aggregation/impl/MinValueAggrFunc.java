@@ -24,8 +24,8 @@ import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
-import org.apache.iotdb.tsfile.file.header.PageHeader;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 public class MinValueAggrFunc extends AggregateFunction {
@@ -45,8 +45,8 @@ public class MinValueAggrFunc extends AggregateFunction {
   }
 
   @Override
-  public void calculateValueFromPageHeader(PageHeader pageHeader) {
-    Comparable<Object> minVal = (Comparable<Object>) pageHeader.getStatistics().getMinValue();
+  public void calculateValueFromStatistics(Statistics statistics) {
+    Comparable<Object> minVal = (Comparable<Object>) statistics.getMinValue();
     updateResult(minVal);
   }
 
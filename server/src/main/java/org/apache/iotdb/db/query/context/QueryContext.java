@@ -20,10 +20,11 @@
 package org.apache.iotdb.db.query.context;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.modification.Modification;
 import org.apache.iotdb.db.engine.modification.ModificationFile;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
@@ -43,12 +44,17 @@ public class QueryContext {
    * use this field because each call of Modification.getModifications() return a copy of the
    * Modifications, and we do not want it to create multiple copies within a query.
    */
-  private Map<String, List<Modification>> fileModCache = new HashMap<>();
+  private Map<String, List<Modification>> fileModCache = new ConcurrentHashMap<>();
 
   private long queryId;
 
   private long queryTimeLowerBound = Long.MIN_VALUE;
 
+  /**
+   * the size of the chunks that are prefetched by the readers of the query but not read yet.
+   */
+  private AtomicLong prefetchedChunkSize = new AtomicLong();
+
   public QueryContext() {
   }
 
@@ -96,4 +102,29 @@ public class QueryContext {
   public boolean chunkNotSatisfy(ChunkMetaData chunkMetaData) {
     return chunkMetaData.getEndTime() < queryTimeLowerBound;
   }
+
+  /**
+   * reserve memory for a chunk to be prefetched.
+   *
+   * @return false if the prefetched chunks of the query would exceed the budget
+   */
+  public boolean reservePrefetchMemory(long size) {
+    long budget = IoTDBDescriptor.getInstance().getConfig().getChunkPrefetchMemoryPerQueryInByte();
+    long current;
+    do {
+      current = prefetchedChunkSize.get();
+      if (current + size > budget) {
+        return false;
+      }
+    } while (!prefetchedChunkSize.compareAndSet(current, current + size));
+    return true;
+  }
+
+  /**
+   * release the memory reserved by {@link #reservePrefetchMemory} once the chunk is read or
+   * discarded.
+   */
+  public void releasePrefetchMemory(long size) {
+    prefetchedChunkSize.addAndGet(-size);
+  }
 }
@@ -19,16 +19,22 @@
 package org.apache.iotdb.db.query.control;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.service.IService;
 import org.apache.iotdb.db.service.ServiceType;
+import org.apache.iotdb.db.utils.OpenFileNumUtil;
+import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.UnClosedTsFileReader;
 import org.slf4j.Logger;
@@ -37,6 +43,12 @@ import org.slf4j.LoggerFactory;
 /**
  * FileReaderManager is a singleton, which is used to manage
  * all file readers(opened file streams) to ensure that each file is opened at most once.
+ * <p>
+ * Each file has a reference count of the queries using it. There is no global lock: a file is
+ * only synchronized with the queries of the same file. When the number of opened readers exceeds
+ * the limit derived from the max open file number of the process, the readers not used by any
+ * query are closed in least recently used order. Besides, readers that have not been used for a
+ * whole clear period are closed periodically.
  */
 public class FileReaderManager implements IService {
 
@@ -48,34 +60,37 @@ public class FileReaderManager implements IService {
   private static final int MAX_CACHED_FILE_SIZE = 30000;
 
   /**
-   * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap
-   * is the corresponding reader.
+   * the key of closedReaderMap is the file and the value of closedReaderMap is the corresponding
+   * reader and its reference count.
    */
-  private Map<TsFileResource, TsFileSequenceReader> closedFileReaderMap;
+  private Map<TsFileResource, CachedReader> closedReaderMap;
   /**
-   * the key of unclosedFileReaderMap is the file path and the value of unclosedFileReaderMap
-   * is the corresponding reader.
+   * the key of unclosedReaderMap is the file and the value of unclosedReaderMap is the
+   * corresponding reader and its reference count.
    */
-  private Map<TsFileResource, TsFileSequenceReader> unclosedFileReaderMap;
+  private Map<TsFileResource, CachedReader> unclosedReaderMap;
 
   /**
-   * the key of closedFileReaderMap is the file path and the value of closedFileReaderMap
-   * is the file's reference count.
+   * number of the readers that are opened and not closed yet.
    */
-  private Map<TsFileResource, AtomicInteger> closedReferenceMap;
+  private AtomicInteger openedReaderNum = new AtomicInteger();
+
   /**
-   * the key of unclosedFileReaderMap is the file path and the value of unclosedFileReaderMap
-   * is the file's reference count.
+   * when more readers are opened, unused readers are evicted until the number drops to 90% of it.
    */
-  private Map<TsFileResource, AtomicInteger> unclosedReferenceMap;
+  private int maxCachedReaderNum;
+
+  /**
+   * only one thread evicts readers at a time, others just go on.
+   */
+  private AtomicBoolean evicting = new AtomicBoolean();
 
   private ScheduledExecutorService executorService;
 
   private FileReaderManager() {
-    closedFileReaderMap = new ConcurrentHashMap<>();
-    unclosedFileReaderMap = new ConcurrentHashMap<>();
-    closedReferenceMap = new ConcurrentHashMap<>();
-    unclosedReferenceMap = new ConcurrentHashMap<>();
+    closedReaderMap = new ConcurrentHashMap<>();
+    unclosedReaderMap = new ConcurrentHashMap<>();
+    maxCachedReaderNum = calMaxCachedReaderNum();
     executorService = IoTDBThreadPoolFactory.newScheduledThreadPool(1,
         "open-files-manager");
 
@@ -86,16 +101,27 @@ public class FileReaderManager implements IService {
     return FileReaderManagerHelper.INSTANCE;
   }
 
-  public synchronized void closeFileAndRemoveReader(TsFileResource seqFile) throws IOException {
-    closedReferenceMap.remove(seqFile);
-    TsFileSequenceReader reader = closedFileReaderMap.remove(seqFile);
-    if (reader != null) {
-      reader.close();
+  /**
+   * use at most half of the files the process can open, the others are left to the WAL, the
+   * TsFiles being written and the connections.
+   */
+  private static int calMaxCachedReaderNum() {
+    int maxOpenFileNum = OpenFileNumUtil.getMaxOpenFileNum();
+    int maxCachedReaderNum = maxOpenFileNum > 0 ? Math.min(maxOpenFileNum / 2, MAX_CACHED_FILE_SIZE)
+        : MAX_CACHED_FILE_SIZE;
+    logger.info("At most {} file readers are cached, the max open file number is {}",
+        maxCachedReaderNum, maxOpenFileNum);
+    return maxCachedReaderNum;
+  }
+
+  public void closeFileAndRemoveReader(TsFileResource seqFile) throws IOException {
+    CachedReader cachedReader = closedReaderMap.remove(seqFile);
+    if (cachedReader != null) {
+      cachedReader.forceClose();
     }
-    unclosedReferenceMap.remove(seqFile);
-    reader = unclosedFileReaderMap.remove(seqFile);
-    if (reader != null) {
-      reader.close();
+    cachedReader = unclosedReaderMap.remove(seqFile);
+    if (cachedReader != null) {
+      cachedReader.forceClose();
     }
   }
 
@@ -104,34 +130,75 @@ public class FileReaderManager implements IService {
     long examinePeriod = IoTDBDescriptor.getInstance().getConfig().getCacheFileReaderClearPeriod();
 
     executorService.scheduleAtFixedRate(() -> {
-      synchronized (this) {
-        clearMap(closedFileReaderMap, closedReferenceMap);
-        clearMap(unclosedFileReaderMap, unclosedReferenceMap);
-      }
+      long expireTime = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(examinePeriod);
+      clearMap(closedReaderMap, expireTime);
+      clearMap(unclosedReaderMap, expireTime);
     }, 0, examinePeriod, TimeUnit.MILLISECONDS);
   }
 
-  private void clearMap(Map<TsFileResource, TsFileSequenceReader> readerMap,
-      Map<TsFileResource, AtomicInteger> refMap) {
-    for (Map.Entry<TsFileResource, TsFileSequenceReader> entry : readerMap.entrySet()) {
-      TsFileSequenceReader reader = entry.getValue();
-      AtomicInteger refAtom = refMap.get(entry.getKey());
+  /**
+   * close and remove the readers not used by any query since the expire time.
+   */
+  private void clearMap(Map<TsFileResource, CachedReader> readerMap, long expireTime) {
+    for (Map.Entry<TsFileResource, CachedReader> entry : readerMap.entrySet()) {
+      CachedReader cachedReader = entry.getValue();
+      if (cachedReader.lastAccessTime - expireTime <= 0 && cachedReader.tryClose()) {
+        readerMap.remove(entry.getKey(), cachedReader);
+      }
+    }
+  }
 
-      if (refAtom != null && refAtom.get() == 0) {
-        try {
-          reader.close();
-        } catch (IOException e) {
-          logger.error("Can not close TsFileSequenceReader {} !", reader.getFileName(), e);
+  /**
+   * close the least recently used readers that are not used by any query, until the number of
+   * opened readers drops to 90% of the limit.
+   */
+  private void evictIfNecessary() {
+    if (openedReaderNum.get() <= maxCachedReaderNum || !evicting.compareAndSet(false, true)) {
+      return;
+    }
+    try {
+      List<Map.Entry<TsFileResource, CachedReader>> candidates = new ArrayList<>();
+      for (Map<TsFileResource, CachedReader> readerMap : getReaderMaps()) {
+        for (Map.Entry<TsFileResource, CachedReader> entry : readerMap.entrySet()) {
+          if (entry.getValue().isIdle()) {
+            candidates.add(entry);
+          }
+        }
+      }
+      candidates.sort(Comparator.comparingLong(entry -> entry.getValue().lastAccessTime));
+
+      int targetNum = maxCachedReaderNum / 10 * 9;
+      for (Map.Entry<TsFileResource, CachedReader> entry : candidates) {
+        if (openedReaderNum.get() <= targetNum) {
+          break;
+        }
+        CachedReader cachedReader = entry.getValue();
+        if (cachedReader.tryClose()) {
+          getReaderMap(cachedReader.isClosed).remove(entry.getKey(), cachedReader);
         }
-        readerMap.remove(entry.getKey());
-        refMap.remove(entry.getKey());
       }
+      if (openedReaderNum.get() > maxCachedReaderNum) {
+        logger.warn("Query has opened {} files !", openedReaderNum.get());
+      }
+    } finally {
+      evicting.set(false);
     }
   }
 
+  private Map<TsFileResource, CachedReader> getReaderMap(boolean isClosed) {
+    return isClosed ? closedReaderMap : unclosedReaderMap;
+  }
+
+  private List<Map<TsFileResource, CachedReader>> getReaderMaps() {
+    List<Map<TsFileResource, CachedReader>> readerMaps = new ArrayList<>(2);
+    readerMaps.add(closedReaderMap);
+    readerMaps.add(unclosedReaderMap);
+    return readerMaps;
+  }
+
   /**
    * Get the reader of the file(tsfile or unseq tsfile) indicated by filePath. If the reader already
-   * exists, just get it from closedFileReaderMap or unclosedFileReaderMap depending on isClosing .
+   * exists, just get it from closedReaderMap or unclosedReaderMap depending on isClosing .
    * Otherwise a new reader will be created and cached.
    *
    * @param tsFile the path of the file, of which the reader is desired.
@@ -139,25 +206,20 @@ public class FileReaderManager implements IService {
    * @return the reader of the file specified by filePath.
    * @throws IOException when reader cannot be created.
    */
-  public synchronized TsFileSequenceReader get(TsFileResource tsFile, boolean isClosed)
+  public TsFileSequenceReader get(TsFileResource tsFile, boolean isClosed)
       throws IOException {
-
-    Map<TsFileResource, TsFileSequenceReader> readerMap = !isClosed ? unclosedFileReaderMap
-        : closedFileReaderMap;
-    if (!readerMap.containsKey(tsFile)) {
-
-      if (readerMap.size() >= MAX_CACHED_FILE_SIZE) {
-        logger.warn("Query has opened {} files !", readerMap.size());
+    Map<TsFileResource, CachedReader> readerMap = getReaderMap(isClosed);
+    while (true) {
+      CachedReader cachedReader = readerMap
+          .computeIfAbsent(tsFile, k -> new CachedReader(isClosed));
+      TsFileSequenceReader reader = cachedReader.getOrOpen(tsFile);
+      if (reader != null) {
+        evictIfNecessary();
+        return reader;
       }
-
-      TsFileSequenceReader tsFileReader = !isClosed ? new UnClosedTsFileReader(tsFile.getFile().getPath())
-          : new TsFileSequenceReader(tsFile.getFile().getPath());
-
-      readerMap.put(tsFile, tsFileReader);
-      return tsFileReader;
+      // the reader was closed and removed concurrently, try again with a new one
+      readerMap.remove(tsFile, cachedReader);
     }
-
-    return readerMap.get(tsFile);
   }
 
   /**
@@ -167,12 +229,14 @@ public class FileReaderManager implements IService {
   void increaseFileReaderReference(TsFileResource tsFile, boolean isClosed) {
     // TODO : this should be called in get()
     tsFile.getWriteQueryLock().readLock().lock();
-    synchronized (this) {
-      if (!isClosed) {
-        unclosedReferenceMap.computeIfAbsent(tsFile, k -> new AtomicInteger()).getAndIncrement();
-      } else {
-        closedReferenceMap.computeIfAbsent(tsFile, k -> new AtomicInteger()).getAndIncrement();
+    Map<TsFileResource, CachedReader> readerMap = getReaderMap(isClosed);
+    while (true) {
+      CachedReader cachedReader = readerMap
+          .computeIfAbsent(tsFile, k -> new CachedReader(isClosed));
+      if (cachedReader.increaseReference()) {
+        return;
       }
+      readerMap.remove(tsFile, cachedReader);
     }
   }
 
@@ -181,12 +245,12 @@ public class FileReaderManager implements IService {
    * Only when the reference count of a reader equals zero, the reader can be closed and removed.
    */
   void decreaseFileReaderReference(TsFileResource tsFile, boolean isClosed) {
-    synchronized (this) {
-      if (!isClosed && unclosedReferenceMap.containsKey(tsFile)) {
-        unclosedReferenceMap.get(tsFile).getAndDecrement();
-      } else if (closedReferenceMap.containsKey(tsFile)){
-        closedReferenceMap.get(tsFile).getAndDecrement();
-      }
+    CachedReader cachedReader = isClosed ? null : unclosedReaderMap.get(tsFile);
+    if (cachedReader == null) {
+      cachedReader = closedReaderMap.get(tsFile);
+    }
+    if (cachedReader != null) {
+      cachedReader.decreaseReference();
     }
     tsFile.getWriteQueryLock().readLock().unlock();
   }
@@ -195,25 +259,35 @@ public class FileReaderManager implements IService {
    * Only for <code>EnvironmentUtils.cleanEnv</code> method. To make sure that unit tests and
    * integration tests will not conflict with each other.
    */
-  public synchronized void closeAndRemoveAllOpenedReaders() throws IOException {
-    for (Map.Entry<TsFileResource, TsFileSequenceReader> entry : closedFileReaderMap.entrySet()) {
-      entry.getValue().close();
-      closedReferenceMap.remove(entry.getKey());
-      closedFileReaderMap.remove(entry.getKey());
-    }
-    for (Map.Entry<TsFileResource, TsFileSequenceReader> entry : unclosedFileReaderMap.entrySet()) {
-      entry.getValue().close();
-      unclosedReferenceMap.remove(entry.getKey());
-      unclosedFileReaderMap.remove(entry.getKey());
+  public void closeAndRemoveAllOpenedReaders() throws IOException {
+    for (Map<TsFileResource, CachedReader> readerMap : getReaderMaps()) {
+      for (Map.Entry<TsFileResource, CachedReader> entry : readerMap.entrySet()) {
+        entry.getValue().forceClose();
+        readerMap.remove(entry.getKey());
+      }
     }
   }
 
   /**
    * This method is only for unit tests.
    */
-  public synchronized boolean contains(TsFileResource tsFile, boolean isClosed) {
-    return (isClosed && closedFileReaderMap.containsKey(tsFile))
-        || (!isClosed && unclosedFileReaderMap.containsKey(tsFile));
+  public boolean contains(TsFileResource tsFile, boolean isClosed) {
+    CachedReader cachedReader = getReaderMap(isClosed).get(tsFile);
+    return cachedReader != null && cachedReader.reader != null;
+  }
+
+  /**
+   * This method is only for unit tests.
+   */
+  void setMaxCachedReaderNum(int maxCachedReaderNum) {
+    this.maxCachedReaderNum = maxCachedReaderNum;
+  }
+
+  /**
+   * This method is only for unit tests.
+   */
+  int getMaxCachedReaderNum() {
+    return maxCachedReaderNum;
   }
 
   @Override
@@ -241,6 +315,99 @@ public class FileReaderManager implements IService {
     return ServiceType.FILE_READER_MANAGER_SERVICE;
   }
 
+  /**
+   * The reader of a file and the number of queries using it. Once it is closed because no query
+   * uses it, it is marked as removed and never reused, so the queries that get it concurrently
+   * will create a new one.
+   */
+  private class CachedReader {
+
+    private final boolean isClosed;
+    private volatile TsFileSequenceReader reader;
+    private int referenceCount;
+    private boolean removed;
+    /**
+     * in nanoseconds, so that the readers are ordered precisely for eviction
+     */
+    private volatile long lastAccessTime = System.nanoTime();
+
+    private CachedReader(boolean isClosed) {
+      this.isClosed = isClosed;
+    }
+
+    /**
+     * @return the reader, or null if it has been removed
+     */
+    private synchronized TsFileSequenceReader getOrOpen(TsFileResource tsFile) throws IOException {
+      if (removed) {
+        return null;
+      }
+      if (reader == null) {
+        String path = tsFile.getFile().getPath();
+        // a sealed file may be memory-mapped, which is released after the reader is closed
+        reader = !isClosed ? new UnClosedTsFileReader(path) : new TsFileSequenceReader(path,
+            FSFactoryProducer.getFileInputFactory().getSealedTsFileInput(path), true);
+        openedReaderNum.incrementAndGet();
+      }
+      lastAccessTime = System.nanoTime();
+      return reader;
+    }
+
+    /**
+     * @return false if it has been removed
+     */
+    private synchronized boolean increaseReference() {
+      if (removed) {
+        return false;
+      }
+      referenceCount++;
+      lastAccessTime = System.nanoTime();
+      return true;
+    }
+
+    private synchronized void decreaseReference() {
+      if (referenceCount > 0) {
+        referenceCount--;
+      }
+      lastAccessTime = System.nanoTime();
+    }
+
+    private synchronized boolean isIdle() {
+      return !removed && referenceCount == 0 && reader != null;
+    }
+
+    /**
+     * close the reader and mark it as removed if no query uses it.
+     *
+     * @return true if it is removed
+     */
+    private synchronized boolean tryClose() {
+      if (removed || referenceCount > 0) {
+        return false;
+      }
+      TsFileSequenceReader closingReader = reader;
+      try {
+        forceClose();
+      } catch (IOException e) {
+        logger.error("Can not close TsFileSequenceReader {} !", closingReader.getFileName(), e);
+      }
+      return true;
+    }
+
+    /**
+     * close the reader and mark it as removed even if some queries are using it.
+     */
+    private synchronized void forceClose() throws IOException {
+      removed = true;
+      if (reader != null) {
+        TsFileSequenceReader closingReader = reader;
+        reader = null;
+        openedReaderNum.decrementAndGet();
+        closingReader.close();
+      }
+    }
+  }
+
   private static class FileReaderManagerHelper {
 
     private static final FileReaderManager INSTANCE = new FileReaderManager();
@@ -248,4 +415,4 @@ public class FileReaderManager implements IService {
     private FileReaderManagerHelper() {
     }
   }
-}
\ No newline at end of file
+}
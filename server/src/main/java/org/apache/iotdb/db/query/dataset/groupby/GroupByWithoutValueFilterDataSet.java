@@ -19,7 +19,10 @@
 
 package org.apache.iotdb.db.query.dataset.groupby;
 
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
@@ -28,10 +31,12 @@ import org.apache.iotdb.db.query.aggregation.AggreResultData;
 import org.apache.iotdb.db.query.aggregation.AggregateFunction;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.*;
 import org.apache.iotdb.tsfile.read.expression.IExpression;
@@ -42,9 +47,12 @@ import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 
 public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
 
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
   private List<IPointReader> unSequenceReaderList;
   private List<IAggregateReader> sequenceReaderList;
   private List<BatchData> batchDataList;
@@ -81,15 +89,19 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     if (expression != null) {
       timeFilter = ((GlobalTimeExpression) expression).getFilter();
     }
+    // the buckets of the rollup tier never cross the intervals of the query
+    long rollupInterval = RollupManager.getInstance()
+        .selectInterval(groupByPlan.getUnit(), groupByPlan.getSlidingStep(),
+            groupByPlan.getStartTime());
     for (Path path : paths) {
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(path, context);
+          .getQueryDataSource(path, context, timeFilter);
       timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
       // sequence reader for sealed tsfile, unsealed tsfile, memory
       IAggregateReader seqResourceIterateReader = new SeqResourceIterateReader(
           queryDataSource.getSeriesPath(), queryDataSource.getSeqResources(), timeFilter, context,
-          false);
+          rollupInterval);
 
       // unseq reader for all chunk groups in unSeqFile, memory
       IPointReader unseqResourceMergeReader = new OldUnseqResourceMergeReader(
@@ -110,13 +122,20 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
     hasCachedTimeInterval = false;
     RowRecord record = new RowRecord(startTime);
+    List<Callable<AggreResultData>> tasks = new ArrayList<>();
     for (int i = 0; i < functions.size(); i++) {
-      AggreResultData res;
-      try {
-        res = nextSeries(i);
-      } catch (QueryProcessException e) {
-        throw new IOException(e);
-      }
+      int idx = i;
+      tasks.add(() -> nextSeries(idx));
+    }
+    List<AggreResultData> results;
+    try {
+      results = QueryTaskPoolManager.getInstance()
+          .invokeAll(tasks, config.getConcurrentAggregationThreadPerQuery(),
+              config.getAggregationTimeoutInMs());
+    } catch (QueryProcessException e) {
+      throw new IOException(e);
+    }
+    for (AggreResultData res : results) {
       if (res == null) {
         record.addField(new Field(null));
       } else {
@@ -149,7 +168,23 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
 
     // continue checking sequence data
-    while (sequenceReader.hasNextBatch()) {
+    while (true) {
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (chunkMetaData != null) {
+        if (chunkMetaData.getStartTime() >= endTime) {
+          // no point in sequence data with a timestamp less than endTime
+          break;
+        }
+        if (canUseChunkMetaData(chunkMetaData, unsequenceReader, function)) {
+          // cal using the statistics of the whole chunk without reading it
+          function.calculateValueFromStatistics(chunkMetaData.getStatistics());
+          sequenceReader.skipChunkData();
+          continue;
+        }
+      }
+      if (!sequenceReader.hasNextBatch()) {
+        break;
+      }
       PageHeader pageHeader = sequenceReader.nextPageHeader();
 
       // memory data
@@ -235,7 +270,21 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
 
     // skip the points in sequenceReader data whose timestamp are less than startTime
-    while (sequenceReader.hasNextBatch()) {
+    while (true) {
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (chunkMetaData != null) {
+        if (chunkMetaData.getEndTime() < startTime) {
+          // timestamps of all points in the chunk are less than startTime
+          sequenceReader.skipChunkData();
+          continue;
+        } else if (chunkMetaData.getStartTime() >= startTime) {
+          // timestamps of all points in the chunk are greater or equal to startTime
+          return;
+        }
+      }
+      if (!sequenceReader.hasNextBatch()) {
+        return;
+      }
       PageHeader pageHeader = sequenceReader.nextPageHeader();
       // memory data
       if (pageHeader == null) {
@@ -302,6 +351,16 @@ public class GroupByWithoutValueFilterDataSet extends GroupByEngineDataSet {
     }
   }
 
+  private boolean canUseChunkMetaData(ChunkMetaData chunkMetaData, IPointReader unSequenceReader,
+      AggregateFunction function) throws IOException, QueryProcessException {
+    // part of the points in the chunk are deleted
+    if (chunkMetaData.getDeletedAt() >= chunkMetaData.getStartTime()) {
+      return false;
+    }
+    return canUseHeader(chunkMetaData.getStartTime(), chunkMetaData.getEndTime(),
+        unSequenceReader, function);
+  }
+
   private boolean canUseHeader(long minTime, long maxTime, IPointReader unSequenceReader,
       AggregateFunction function)
       throws IOException, QueryProcessException {
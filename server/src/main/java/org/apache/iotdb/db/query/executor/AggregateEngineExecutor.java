@@ -22,8 +22,12 @@ package org.apache.iotdb.db.query.executor;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
+import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
 import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.exception.path.PathException;
 import org.apache.iotdb.db.exception.query.QueryProcessException;
@@ -37,13 +41,16 @@ import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.AggreResultDataPointReader;
 import org.apache.iotdb.db.query.dataset.OldEngineDataSetWithoutValueFilter;
 import org.apache.iotdb.db.query.factory.AggreFuncFactory;
+import org.apache.iotdb.db.query.pool.QueryTaskPoolManager;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.IReaderByTimestamp;
 import org.apache.iotdb.db.query.reader.resourceRelated.OldUnseqResourceMergeReader;
 import org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader;
 import org.apache.iotdb.db.query.reader.seriesRelated.SeriesReaderByTimestamp;
 import org.apache.iotdb.db.query.timegenerator.EngineTimeGenerator;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
@@ -52,9 +59,12 @@ import org.apache.iotdb.tsfile.read.expression.impl.GlobalTimeExpression;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 
 public class AggregateEngineExecutor {
 
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
   private List<Path> selectedSeries;
   private List<TSDataType> dataTypes;
   private List<String> aggres;
@@ -73,7 +83,7 @@ public class AggregateEngineExecutor {
     this.dataTypes = aggregationPlan.getDeduplicatedDataTypes();
     this.aggres = aggregationPlan.getDeduplicatedAggregations();
     this.expression = aggregationPlan.getExpression();
-    this.aggregateFetchSize = IoTDBDescriptor.getInstance().getConfig().getBatchSize();
+    this.aggregateFetchSize = config.getBatchSize();
   }
 
   /**
@@ -83,6 +93,45 @@ public class AggregateEngineExecutor {
    */
   public QueryDataSet executeWithoutValueFilter(QueryContext context)
       throws StorageEngineException, IOException, QueryProcessException {
+    List<AggreResultData> aggreResultDataList = aggregateWithoutValueFilter(context,
+        new ArrayList<>());
+    return constructDataSet(aggreResultDataList);
+  }
+
+  /**
+   * get the latest point of each selected series, all aggregations of the plan must be last_value
+   * and there must be no filter, so that the latest points cached by the storage groups are used.
+   *
+   * @param context query context
+   * @return the latest point of each series, or null if the series has no data
+   */
+  public List<TimeValuePair> executeLastValues(QueryContext context)
+      throws StorageEngineException, IOException, QueryProcessException {
+    List<AggregateFunction> aggregateFunctions = new ArrayList<>();
+    List<AggreResultData> aggreResultDataList = aggregateWithoutValueFilter(context,
+        aggregateFunctions);
+    List<TimeValuePair> lastValues = new ArrayList<>();
+    for (int i = 0; i < aggreResultDataList.size(); i++) {
+      AggreResultData resultData = aggreResultDataList.get(i);
+      if (!resultData.isSetValue()) {
+        lastValues.add(null);
+      } else {
+        lastValues.add(new TimeValuePair(
+            ((LastValueAggrFunc) aggregateFunctions.get(i)).getLastTime(),
+            TsPrimitiveType.getByType(dataTypes.get(i), resultData.getValue())));
+      }
+    }
+    return lastValues;
+  }
+
+  /**
+   * calculate the aggregate results of all series with only time filter or no filter.
+   *
+   * @param aggregateFunctions filled with the aggregate function of each series
+   */
+  private List<AggreResultData> aggregateWithoutValueFilter(QueryContext context,
+      List<AggregateFunction> aggregateFunctions)
+      throws StorageEngineException, IOException, QueryProcessException {
     Filter timeFilter = null;
     if (expression != null) {
       timeFilter = ((GlobalTimeExpression) expression).getFilter();
@@ -90,7 +139,10 @@ public class AggregateEngineExecutor {
 
     List<IAggregateReader> readersOfSequenceData = new ArrayList<>();
     List<IPointReader> readersOfUnSequenceData = new ArrayList<>();
-    List<AggregateFunction> aggregateFunctions = new ArrayList<>();
+    // the results answered by the last value cache, and the versions of the last value cache
+    // before the other results of last_value are computed
+    List<AggreResultData> cachedResults = new ArrayList<>();
+    List<Long> lastValueCacheVersions = new ArrayList<>();
     for (int i = 0; i < selectedSeries.size(); i++) {
       // construct AggregateFunction
       TSDataType tsDataType = dataTypes.get(i);
@@ -98,8 +150,28 @@ public class AggregateEngineExecutor {
       function.init();
       aggregateFunctions.add(function);
 
+      AggreResultData cachedResult = null;
+      Long lastValueCacheVersion = null;
+      if (expression == null && (function instanceof MaxTimeAggrFunc
+          || function instanceof LastValueAggrFunc)) {
+        StorageGroupProcessor processor = StorageEngine.getInstance()
+            .getProcessor(selectedSeries.get(i).getDevice());
+        if (function instanceof LastValueAggrFunc) {
+          lastValueCacheVersion = processor.getLastValueCacheVersion();
+        }
+        cachedResult = getResultFromLastValueCache(function, tsDataType, processor,
+            selectedSeries.get(i));
+      }
+      cachedResults.add(cachedResult);
+      lastValueCacheVersions.add(lastValueCacheVersion);
+      if (cachedResult != null) {
+        readersOfSequenceData.add(null);
+        readersOfUnSequenceData.add(null);
+        continue;
+      }
+
       QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-          .getQueryDataSource(selectedSeries.get(i), context);
+          .getQueryDataSource(selectedSeries.get(i), context, timeFilter);
       // add additional time filter if TTL is set
       timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
@@ -121,14 +193,57 @@ public class AggregateEngineExecutor {
       readersOfSequenceData.add(seqResourceIterateReader);
       readersOfUnSequenceData.add(unseqResourceMergeReader);
     }
-    List<AggreResultData> aggreResultDataList = new ArrayList<>();
-    //TODO use multi-thread
+    List<Callable<AggreResultData>> tasks = new ArrayList<>();
+    Filter finalTimeFilter = timeFilter;
     for (int i = 0; i < selectedSeries.size(); i++) {
-      AggreResultData aggreResultData = aggregateWithoutValueFilter(aggregateFunctions.get(i),
-          readersOfSequenceData.get(i), readersOfUnSequenceData.get(i), timeFilter);
-      aggreResultDataList.add(aggreResultData);
+      AggreResultData cachedResult = cachedResults.get(i);
+      if (cachedResult != null) {
+        tasks.add(() -> cachedResult);
+        continue;
+      }
+      AggregateFunction function = aggregateFunctions.get(i);
+      IAggregateReader sequenceReader = readersOfSequenceData.get(i);
+      IPointReader unSequenceReader = readersOfUnSequenceData.get(i);
+      Path path = selectedSeries.get(i);
+      TSDataType tsDataType = dataTypes.get(i);
+      Long lastValueCacheVersion = lastValueCacheVersions.get(i);
+      tasks.add(() -> {
+        AggreResultData result = aggregateWithoutValueFilter(function, sequenceReader,
+            unSequenceReader, finalTimeFilter);
+        if (lastValueCacheVersion != null && result.isSetValue()) {
+          StorageEngine.getInstance().getProcessor(path.getDevice())
+              .putLastValue(path.getDevice(), path.getMeasurement(),
+                  new TimeValuePair(((LastValueAggrFunc) function).getLastTime(),
+                      TsPrimitiveType.getByType(tsDataType, result.getValue())),
+                  lastValueCacheVersion);
+        }
+        return result;
+      });
     }
-    return constructDataSet(aggreResultDataList);
+    return QueryTaskPoolManager.getInstance()
+        .invokeAll(tasks, config.getConcurrentAggregationThreadPerQuery(),
+            config.getAggregationTimeoutInMs());
+  }
+
+  /**
+   * answer last_value or max_time without a time filter by the cached latest point of the series.
+   *
+   * @return the result, or null if the latest point is not cached
+   */
+  private AggreResultData getResultFromLastValueCache(AggregateFunction function,
+      TSDataType dataType, StorageGroupProcessor processor, Path path) {
+    TimeValuePair lastValue = processor.getLastValue(path.getDevice(), path.getMeasurement());
+    if (lastValue == null || lastValue.getValue().getDataType() != dataType) {
+      return null;
+    }
+    if (function instanceof MaxTimeAggrFunc) {
+      AggreResultData result = function.getResult();
+      result.putTimeAndValue(0, lastValue.getTimestamp());
+      return result;
+    }
+    ((LastValueAggrFunc) function)
+        .updateLastResult(lastValue.getTimestamp(), lastValue.getValue().getValue());
+    return function.getResult();
   }
 
   /**
@@ -148,16 +263,25 @@ public class AggregateEngineExecutor {
           filter);
     }
 
-    while (sequenceReader.hasNextBatch()) {
-      PageHeader pageHeader = sequenceReader.nextPageHeader();
-      // judge if overlap with unsequence data
-      if (canUseHeader(function, pageHeader, unSequenceReader, filter)) {
-        // cal by pageHeader
-        function.calculateValueFromPageHeader(pageHeader);
-        sequenceReader.skipPageData();
+    while (true) {
+      ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+      if (canUseChunkMetaData(function, chunkMetaData, unSequenceReader, filter)) {
+        // cal by the statistics of the whole chunk without reading it
+        function.calculateValueFromStatistics(chunkMetaData.getStatistics());
+        sequenceReader.skipChunkData();
+      } else if (sequenceReader.hasNextBatch()) {
+        PageHeader pageHeader = sequenceReader.nextPageHeader();
+        // judge if overlap with unsequence data
+        if (canUseHeader(function, pageHeader, unSequenceReader, filter)) {
+          // cal by pageHeader
+          function.calculateValueFromPageHeader(pageHeader);
+          sequenceReader.skipPageData();
+        } else {
+          // cal by pageData
+          function.calculateValueFromPageData(sequenceReader.nextBatch(), unSequenceReader);
+        }
       } else {
-        // cal by pageData
-        function.calculateValueFromPageData(sequenceReader.nextBatch(), unSequenceReader);
+        break;
       }
 
       if (function.isCalculatedAggregationResult()) {
@@ -183,11 +307,35 @@ public class AggregateEngineExecutor {
       return false;
     }
 
-    long minTime = pageHeader.getStartTime();
-    long maxTime = pageHeader.getEndTime();
+    return canUseStatistics(function, pageHeader.getStartTime(), pageHeader.getEndTime(),
+        unSequenceReader, filter);
+  }
+
+  /**
+   * determine whether the statistics in chunkMetaData can be used to compute aggregation results,
+   * so that the chunk need not be read.
+   */
+  private boolean canUseChunkMetaData(AggregateFunction function, ChunkMetaData chunkMetaData,
+      IPointReader unSequenceReader, Filter filter) throws IOException, QueryProcessException {
+    if (chunkMetaData == null) {
+      return false;
+    }
+    // part of the points in the chunk are deleted
+    if (chunkMetaData.getDeletedAt() >= chunkMetaData.getStartTime()) {
+      return false;
+    }
+    return canUseStatistics(function, chunkMetaData.getStartTime(), chunkMetaData.getEndTime(),
+        unSequenceReader, filter);
+  }
 
-    // If there are points in the page that do not satisfy the time filter,
-    // page header cannot be used to calculate.
+  /**
+   * determine whether the statistics of the sequence data in [minTime, maxTime] can be used to
+   * compute aggregation results.
+   */
+  private boolean canUseStatistics(AggregateFunction function, long minTime, long maxTime,
+      IPointReader unSequenceReader, Filter filter) throws IOException, QueryProcessException {
+    // If there are points in the page or chunk that do not satisfy the time filter,
+    // the statistics cannot be used to calculate.
     if (filter != null && !filter.containStartEndTime(minTime, maxTime)) {
       return false;
     }
@@ -196,7 +344,6 @@ public class AggregateEngineExecutor {
     function.calculateValueFromUnsequenceReader(unSequenceReader, minTime);
 
     return !(unSequenceReader.hasNext() && unSequenceReader.current().getTimestamp() <= maxTime);
-
   }
 
   /**
@@ -212,7 +359,13 @@ public class AggregateEngineExecutor {
       throws IOException, QueryProcessException {
     long lastBatchTimeStamp = Long.MIN_VALUE;
     boolean isChunkEnd = false;
-    while (sequenceReader.hasNextBatch()) {
+    // the chunks are in reverse order, so the first chunk has the result of sequence data
+    ChunkMetaData chunkMetaData = sequenceReader.nextChunkMetaData();
+    if (canUseChunkMetaData(function, chunkMetaData, unSequenceReader, timeFilter)) {
+      function.calculateValueFromStatistics(chunkMetaData.getStatistics());
+      isChunkEnd = true;
+    }
+    while (!isChunkEnd && sequenceReader.hasNextBatch()) {
       PageHeader pageHeader = sequenceReader.nextPageHeader();
       // judge if overlap with unsequence data
       if (canUseHeader(function, pageHeader, unSequenceReader, timeFilter)) {
@@ -19,10 +19,23 @@
 
 package org.apache.iotdb.db.query.pool;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
 import org.apache.iotdb.db.concurrent.ThreadName;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.flush.pool.AbstractPoolManager;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +52,117 @@ public class QueryTaskPoolManager extends AbstractPoolManager {
     return QueryTaskPoolManager.InstanceHolder.instance;
   }
 
+  /**
+   * Run the tasks of one query, e.g., one task for each series, and wait for their results. At
+   * most maxParallelism tasks run at the same time so that one query cannot occupy the whole pool.
+   * When timeoutInMs is positive and the tasks are not finished in time, or a task fails, the
+   * tasks that have not started are cancelled and the running ones are interrupted. This method
+   * returns or throws only after the running tasks finish, so that no task reads files after the
+   * query releases them.
+   *
+   * @return the results in the order of the tasks
+   */
+  @SuppressWarnings("unchecked")
+  public <T> List<T> invokeAll(List<Callable<T>> tasks, int maxParallelism, long timeoutInMs)
+      throws IOException, QueryProcessException {
+    if (timeoutInMs <= 0 && (tasks.size() <= 1 || maxParallelism <= 1)) {
+      return runInCurrentThread(tasks);
+    }
+    long deadline = timeoutInMs > 0 ? System.currentTimeMillis() + timeoutInMs : Long.MAX_VALUE;
+    Object[] results = new Object[tasks.size()];
+    AtomicInteger nextTask = new AtomicInteger();
+    AtomicBoolean cancelled = new AtomicBoolean();
+    int workerNum = Math.min(tasks.size(), maxParallelism);
+    // a worker is started either by the pool or, if it is cancelled before, by this thread
+    AtomicBoolean[] workerStarted = new AtomicBoolean[workerNum];
+    CountDownLatch workerFinished = new CountDownLatch(workerNum);
+    List<Future<Void>> workers = new ArrayList<>(workerNum);
+    try {
+      for (int k = 0; k < workerNum; k++) {
+        AtomicBoolean started = new AtomicBoolean();
+        workerStarted[k] = started;
+        workers.add(submit(() -> {
+          if (!started.compareAndSet(false, true)) {
+            return null;
+          }
+          try {
+            int i;
+            while (!cancelled.get() && (i = nextTask.getAndIncrement()) < tasks.size()) {
+              results[i] = tasks.get(i).call();
+            }
+            return null;
+          } finally {
+            workerFinished.countDown();
+          }
+        }));
+      }
+      for (Future<Void> future : workers) {
+        future.get(Math.max(deadline - System.currentTimeMillis(), 0), TimeUnit.MILLISECONDS);
+      }
+    } catch (TimeoutException e) {
+      throw new QueryProcessException(
+          String.format("The query is not finished in %d ms and is cancelled", timeoutInMs));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new QueryProcessException("The query is interrupted");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      } else if (cause instanceof QueryProcessException) {
+        throw (QueryProcessException) cause;
+      }
+      throw new IOException(cause);
+    } finally {
+      cancelled.set(true);
+      for (int k = 0; k < workerNum; k++) {
+        if (k < workers.size()) {
+          workers.get(k).cancel(true);
+        }
+        if (workerStarted[k].compareAndSet(false, true)) {
+          // the worker will never run
+          workerFinished.countDown();
+        }
+      }
+      awaitWorkers(workerFinished);
+    }
+    return (List<T>) Arrays.asList(results);
+  }
+
+  /**
+   * wait for the running workers even if this thread is interrupted, as they may still read the
+   * files of the query.
+   */
+  private void awaitWorkers(CountDownLatch workerFinished) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        workerFinished.await();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private <T> List<T> runInCurrentThread(List<Callable<T>> tasks)
+      throws IOException, QueryProcessException {
+    List<T> results = new ArrayList<>(tasks.size());
+    for (Callable<T> task : tasks) {
+      try {
+        results.add(task.call());
+      } catch (IOException | QueryProcessException | RuntimeException e) {
+        throw e;
+      } catch (Exception e) {
+        throw new IOException(e);
+      }
+    }
+    return results;
+  }
+
   @Override
   public Logger getLogger() {
     return LOGGER;
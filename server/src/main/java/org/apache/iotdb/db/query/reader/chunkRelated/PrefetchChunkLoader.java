@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.chunkRelated;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.pool.ChunkPrefetchPoolManager;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+
+/**
+ * Read the chunks of a series in a sealed TsFile ahead of the reader. Each time a chunk is
+ * requested, the next chunks in the metadata list that may satisfy the filter are loaded by the
+ * given loader in {@link ChunkPrefetchPoolManager}, so that the disk read of a chunk overlaps the
+ * decoding of the previous ones.
+ * <p>
+ * At most prefetchNum chunks are pending for one series, and the estimated size of the pending
+ * chunks of one query is bounded by the prefetch memory of the {@link QueryContext}. Nothing is
+ * prefetched before the first chunk is requested, so the readers that only use chunk statistics
+ * (e.g., aggregations) do not read any chunk data in vain.
+ * <p>
+ * A discarded prefetch that is already reading keeps its memory until the read finishes, and
+ * {@link #clear()} and {@link #close()} wait for such reads, so that no chunk is read after the
+ * query releases the file.
+ * <p>
+ * Not thread safe, a loader is used by one reader.
+ */
+public class PrefetchChunkLoader implements IChunkLoader {
+
+  private IChunkLoader chunkLoader;
+  /**
+   * the chunks of the series in the order they are read.
+   */
+  private List<ChunkMetaData> chunkMetaDataList;
+  private Filter filter;
+  private QueryContext context;
+  private int prefetchNum;
+
+  /**
+   * the pending prefetches in the order of chunkMetaDataList.
+   */
+  private Deque<PrefetchTask> prefetchTasks = new ArrayDeque<>();
+  /**
+   * the discarded prefetches that were already reading when they were discarded.
+   */
+  private List<PrefetchTask> abandonedTasks = new ArrayList<>();
+  /**
+   * the index of the last requested chunk in chunkMetaDataList.
+   */
+  private int currentIndex = -1;
+  /**
+   * the index of the next chunk that may be prefetched.
+   */
+  private int nextPrefetchIndex = 0;
+
+  private long loadedChunkNum = 0;
+  private long loadedChunkSize = 0;
+
+  public PrefetchChunkLoader(IChunkLoader chunkLoader, List<ChunkMetaData> chunkMetaDataList,
+      Filter filter, QueryContext context, int prefetchNum) {
+    this.chunkLoader = chunkLoader;
+    this.chunkMetaDataList = chunkMetaDataList;
+    this.filter = filter;
+    this.context = context;
+    this.prefetchNum = prefetchNum;
+  }
+
+  @Override
+  public Chunk getChunk(ChunkMetaData chunkMetaData) throws IOException {
+    int index = indexOf(chunkMetaData);
+    if (index < 0) {
+      // not a chunk of the list, e.g., a chunk of another series
+      return chunkLoader.getChunk(chunkMetaData);
+    }
+    currentIndex = index;
+    // the reader has skipped the chunks before, so their prefetches are useless
+    while (!prefetchTasks.isEmpty() && prefetchTasks.peekFirst().index < index) {
+      discard(prefetchTasks.pollFirst());
+    }
+
+    Chunk chunk;
+    if (!prefetchTasks.isEmpty() && prefetchTasks.peekFirst().index == index) {
+      chunk = take(prefetchTasks.pollFirst());
+    } else {
+      chunk = chunkLoader.getChunk(chunkMetaData);
+    }
+    loadedChunkNum++;
+    loadedChunkSize += chunk.getData().remaining();
+
+    prefetch(index + 1);
+    return chunk;
+  }
+
+  /**
+   * the reader mostly requests the chunks in the order of the list, so the search starts from the
+   * last requested one.
+   */
+  private int indexOf(ChunkMetaData chunkMetaData) {
+    for (int i = Math.max(currentIndex, 0); i < chunkMetaDataList.size(); i++) {
+      if (chunkMetaDataList.get(i) == chunkMetaData) {
+        return i;
+      }
+    }
+    for (int i = 0; i < currentIndex && i < chunkMetaDataList.size(); i++) {
+      if (chunkMetaDataList.get(i) == chunkMetaData) {
+        // the reader goes back, drop what is prefetched after it
+        clear();
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private void prefetch(int fromIndex) {
+    nextPrefetchIndex = Math.max(nextPrefetchIndex, fromIndex);
+    abandonedTasks.removeIf(PrefetchTask::isFinished);
+    long estimatedSize = loadedChunkSize / loadedChunkNum;
+    while (prefetchTasks.size() < prefetchNum && nextPrefetchIndex < chunkMetaDataList.size()) {
+      ChunkMetaData chunkMetaData = chunkMetaDataList.get(nextPrefetchIndex);
+      if (chunkSatisfied(chunkMetaData)) {
+        if (!context.reservePrefetchMemory(estimatedSize)) {
+          // retry when the next chunk is requested
+          return;
+        }
+        PrefetchTask task = new PrefetchTask(nextPrefetchIndex, chunkMetaData, estimatedSize);
+        task.future = ChunkPrefetchPoolManager.getInstance().submit(task);
+        prefetchTasks.addLast(task);
+      }
+      nextPrefetchIndex++;
+    }
+  }
+
+  private boolean chunkSatisfied(ChunkMetaData chunkMetaData) {
+    return !context.chunkNotSatisfy(chunkMetaData)
+        && chunkMetaData.getDeletedAt() < chunkMetaData.getEndTime()
+        && (filter == null || filter.satisfy(chunkMetaData.getStatistics()));
+  }
+
+  private Chunk take(PrefetchTask task) throws IOException {
+    try {
+      return task.future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted when waiting for a prefetched chunk", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException(cause);
+    } finally {
+      context.releasePrefetchMemory(task.reservedSize);
+    }
+  }
+
+  /**
+   * a running prefetch is not interrupted, as an interrupt closes the file channel shared by other
+   * queries. Its result is just dropped, and its memory is released when it finishes.
+   */
+  private void discard(PrefetchTask task) {
+    task.future.cancel(false);
+    if (task.abandon()) {
+      abandonedTasks.add(task);
+    }
+  }
+
+  /**
+   * wait until the discarded prefetches that are still reading finish.
+   */
+  private void waitAbandonedTasks() {
+    boolean interrupted = false;
+    for (PrefetchTask task : abandonedTasks) {
+      while (!task.isFinished()) {
+        try {
+          task.finished.await();
+        } catch (InterruptedException e) {
+          // the file must not be released while it is being read
+          interrupted = true;
+        }
+      }
+    }
+    abandonedTasks.clear();
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * wait until the prefetch of the index-th chunk finishes if it is pending, only for tests.
+   */
+  void waitPrefetched(int index) throws ExecutionException, InterruptedException {
+    for (PrefetchTask task : prefetchTasks) {
+      if (task.index == index) {
+        task.future.get();
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    clear();
+    chunkLoader.close();
+  }
+
+  @Override
+  public void clear() {
+    while (!prefetchTasks.isEmpty()) {
+      discard(prefetchTasks.pollFirst());
+    }
+    waitAbandonedTasks();
+    nextPrefetchIndex = 0;
+    chunkLoader.clear();
+  }
+
+  private class PrefetchTask implements Callable<Chunk> {
+
+    private static final int NEW = 0;
+    private static final int RUNNING = 1;
+    private static final int FINISHED = 2;
+    private static final int ABANDONED = 3;
+    private static final int ABANDONED_FINISHED = 4;
+
+    private final int index;
+    private final ChunkMetaData chunkMetaData;
+    private final long reservedSize;
+    private Future<Chunk> future;
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private PrefetchTask(int index, ChunkMetaData chunkMetaData, long reservedSize) {
+      this.index = index;
+      this.chunkMetaData = chunkMetaData;
+      this.reservedSize = reservedSize;
+    }
+
+    @Override
+    public Chunk call() throws IOException {
+      if (!state.compareAndSet(NEW, RUNNING)) {
+        // discarded before it starts
+        return null;
+      }
+      try {
+        return chunkLoader.getChunk(chunkMetaData);
+      } finally {
+        if (!state.compareAndSet(RUNNING, FINISHED)) {
+          // discarded while reading, nobody takes the chunk
+          state.set(ABANDONED_FINISHED);
+          context.releasePrefetchMemory(reservedSize);
+        }
+        finished.countDown();
+      }
+    }
+
+    /**
+     * drop the result of the task, the reserved memory is released at once if the task is not
+     * reading, or else when the read finishes.
+     *
+     * @return true if the task is still reading
+     */
+    private boolean abandon() {
+      if (state.compareAndSet(NEW, ABANDONED_FINISHED)) {
+        finished.countDown();
+        context.releasePrefetchMemory(reservedSize);
+        return false;
+      }
+      if (state.compareAndSet(RUNNING, ABANDONED)) {
+        return true;
+      }
+      // the read has finished
+      state.set(ABANDONED_FINISHED);
+      context.releasePrefetchMemory(reservedSize);
+      return false;
+    }
+
+    private boolean isFinished() {
+      return finished.getCount() == 0;
+    }
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.fileRelated;
+
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
+import org.apache.iotdb.tsfile.read.reader.series.FileSeriesReader;
+
+/**
+ * To read a series of a sealed sequence TsFile that has rollups. The buckets of a rollup tier are
+ * returned by {@link #nextChunkMetaData()} as chunks without data, so that an aggregation can use
+ * their statistics directly. If the caller does not skip a bucket, e.g., it is partly deleted or
+ * overlapped by unsequence data, the points of the bucket are read from the TsFile by
+ * {@link #hasNextBatch()} and {@link #nextBatch()}.
+ * <p>
+ * A page read in a bucket may also contain the points of the neighbouring buckets, so its page
+ * header is only returned by {@link #nextPageHeader()} when the page lies in the bucket. Otherwise
+ * null is returned and the page should be read by {@link #nextBatch()}, which only returns the
+ * points in the bucket.
+ * <p>
+ * This class is used in {@link org.apache.iotdb.db.query.reader.resourceRelated.SeqResourceIterateReader}.
+ */
+public class RollupSeriesReader implements IAggregateReader {
+
+  private IChunkLoader chunkLoader;
+  private List<ChunkMetaData> chunkMetaDataList;
+  private Filter filter;
+
+  private List<ChunkMetaData> buckets;
+  private int bucketIndex;
+
+  /**
+   * reads the points of the bucket at bucketIndex, null if the bucket is not being read.
+   */
+  private FileSeriesReader bucketReader;
+
+  /**
+   * @param chunkMetaDataList the chunks of the series in the TsFile, with modifications applied
+   * @param buckets the buckets of the series in chronological order, with modifications applied
+   * @param filter filter condition. Null if no filter.
+   */
+  public RollupSeriesReader(IChunkLoader chunkLoader, List<ChunkMetaData> chunkMetaDataList,
+      List<ChunkMetaData> buckets, Filter filter) {
+    this.chunkLoader = chunkLoader;
+    this.chunkMetaDataList = chunkMetaDataList;
+    this.buckets = buckets;
+    this.filter = filter;
+  }
+
+  @Override
+  public ChunkMetaData nextChunkMetaData() throws IOException {
+    if (bucketReader != null) {
+      if (bucketReader.hasNextBatch()) {
+        // the current bucket is partly read
+        return null;
+      }
+      bucketReader = null;
+      bucketIndex++;
+    }
+    while (bucketIndex < buckets.size()) {
+      ChunkMetaData bucket = buckets.get(bucketIndex);
+      if (filter == null || filter.satisfyStartEndTime(bucket.getStartTime(), bucket.getEndTime())) {
+        return bucket;
+      }
+      bucketIndex++;
+    }
+    return null;
+  }
+
+  @Override
+  public void skipChunkData() {
+    bucketIndex++;
+  }
+
+  @Override
+  public boolean hasNextBatch() throws IOException {
+    while (true) {
+      if (bucketReader == null) {
+        if (nextChunkMetaData() == null) {
+          return false;
+        }
+        ChunkMetaData bucket = buckets.get(bucketIndex);
+        Filter bucketFilter = FilterFactory.and(TimeFilter.gtEq(bucket.getStartTime()),
+            TimeFilter.ltEq(bucket.getEndTime()));
+        if (filter != null) {
+          bucketFilter = FilterFactory.and(filter, bucketFilter);
+        }
+        bucketReader = new FileSeriesReader(chunkLoader, chunkMetaDataList, bucketFilter);
+      }
+      if (bucketReader.hasNextBatch()) {
+        return true;
+      }
+      bucketReader = null;
+      bucketIndex++;
+    }
+  }
+
+  @Override
+  public BatchData nextBatch() throws IOException {
+    return bucketReader.nextBatch();
+  }
+
+  @Override
+  public PageHeader nextPageHeader() {
+    PageHeader pageHeader = bucketReader.nextPageHeader();
+    ChunkMetaData bucket = buckets.get(bucketIndex);
+    if (pageHeader.getStartTime() >= bucket.getStartTime()
+        && pageHeader.getEndTime() <= bucket.getEndTime()) {
+      return pageHeader;
+    }
+    return null;
+  }
+
+  @Override
+  public void skipPageData() {
+    bucketReader.skipPageData();
+  }
+
+  @Override
+  public void close() {
+    // file stream is managed in QueryResourceManager.
+  }
+}
@@ -26,6 +26,7 @@ import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.FileReaderManager;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.db.utils.TimeValuePair;
@@ -35,6 +36,7 @@ import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
 
@@ -94,6 +96,8 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
         List<Modification> pathModifications = context
             .getPathModifications(tsFileResource.getModFile(), seriesPath.getFullPath());
         if (!pathModifications.isEmpty()) {
+          // the cached list is shared by all queries, so modify a copy of it
+          currentChunkMetaDataList = new ArrayList<>(currentChunkMetaDataList);
           QueryUtils.modifyChunkMetaData(currentChunkMetaDataList, pathModifications);
         }
       } else {
@@ -104,7 +108,8 @@ public class NewUnseqResourceMergeReader implements IBatchReader {
       if (!currentChunkMetaDataList.isEmpty()) {
         TsFileSequenceReader tsFileReader = FileReaderManager.getInstance()
             .get(tsFileResource, tsFileResource.isClosed());
-        ChunkLoaderImpl chunkLoader = new ChunkLoaderImpl(tsFileReader);
+        IChunkLoader chunkLoader = tsFileResource.isClosed() ? new DiskChunkLoader(tsFileReader)
+            : new ChunkLoaderImpl(tsFileReader);
 
         for (ChunkMetaData chunkMetaData : currentChunkMetaDataList) {
           if (timeFilter == null || timeFilter.satisfy(chunkMetaData.getStatistics())) {
@@ -31,12 +31,14 @@ import org.apache.iotdb.db.query.externalsort.ExternalSortJobEngine;
 import org.apache.iotdb.db.query.externalsort.SimpleExternalSortEngine;
 import org.apache.iotdb.db.query.reader.IPointReader;
 import org.apache.iotdb.db.query.reader.chunkRelated.ChunkReaderWrap;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
 import org.apache.iotdb.db.query.reader.universal.PriorityMergeReader;
 import org.apache.iotdb.db.utils.QueryUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 
 /**
@@ -74,6 +76,8 @@ public class OldUnseqResourceMergeReader extends PriorityMergeReader {
         List<Modification> pathModifications = context
             .getPathModifications(tsFileResource.getModFile(), seriesPath.getFullPath());
         if (!pathModifications.isEmpty()) {
+          // the cached list is shared by all queries, so modify a copy of it
+          metaDataList = new ArrayList<>(metaDataList);
           QueryUtils.modifyChunkMetaData(metaDataList, pathModifications);
         }
       } else {
@@ -85,11 +89,12 @@ public class OldUnseqResourceMergeReader extends PriorityMergeReader {
         metaDataList = tsFileResource.getChunkMetaDataList();
       }
 
-      ChunkLoaderImpl chunkLoader = null;
+      IChunkLoader chunkLoader = null;
       if (!metaDataList.isEmpty()) {
         TsFileSequenceReader tsFileReader = FileReaderManager.getInstance()
             .get(tsFileResource, tsFileResource.isClosed());
-        chunkLoader = new ChunkLoaderImpl(tsFileReader);
+        chunkLoader = tsFileResource.isClosed() ? new DiskChunkLoader(tsFileReader)
+            : new ChunkLoaderImpl(tsFileReader);
       }
 
       for (ChunkMetaData chunkMetaData : metaDataList) {
@@ -19,13 +19,19 @@
 package org.apache.iotdb.db.query.reader.resourceRelated;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
 import org.apache.iotdb.db.engine.modification.Modification;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.query.reader.chunkRelated.DiskChunkLoader;
+import org.apache.iotdb.db.query.reader.chunkRelated.PrefetchChunkLoader;
+import org.apache.iotdb.db.query.reader.fileRelated.RollupSeriesReader;
 import org.apache.iotdb.db.query.reader.fileRelated.UnSealedTsFileIterateReader;
 import org.apache.iotdb.db.query.reader.universal.IterateReader;
 import org.apache.iotdb.db.utils.QueryUtils;
@@ -34,7 +40,6 @@ import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
-import org.apache.iotdb.tsfile.read.controller.ChunkLoaderImpl;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
 import org.apache.iotdb.tsfile.read.reader.IBatchReader;
@@ -67,6 +72,18 @@ public class SeqResourceIterateReader extends IterateReader {
   private Filter filter;
   private QueryContext context;
 
+  /**
+   * the interval of the rollup tier whose buckets are returned as chunks of the sealed TsFiles
+   * having rollups, or 0 if rollups are not used.
+   */
+  private long rollupInterval;
+
+  /**
+   * the chunk loader of the current sealed TsFile if its chunks are prefetched. Its pending
+   * prefetches are dropped when the reader moves to the next TsFile.
+   */
+  private PrefetchChunkLoader prefetchChunkLoader;
+
   /**
    * Constructor function.
    * <p>
@@ -100,6 +117,18 @@ public class SeqResourceIterateReader extends IterateReader {
     this(seriesPath, seqResources, timeFilter, context, false);
   }
 
+  /**
+   * Constructor function of a reader in chronological order, which reads the sealed TsFiles
+   * having rollups by {@link RollupSeriesReader}.
+   *
+   * @param rollupInterval the interval of the rollup tier to use, or 0 if rollups are not used
+   */
+  public SeqResourceIterateReader(Path seriesPath, List<TsFileResource> seqResources,
+      Filter filter, QueryContext context, long rollupInterval) {
+    this(seriesPath, seqResources, filter, context, false);
+    this.rollupInterval = rollupInterval;
+  }
+
   /**
    * If the idx-th TsFile in the <code>seqResources</code> might satisfy this <code>filter</code>,
    * then construct a reader for it, assign to <code>currentSeriesReader</code>
@@ -110,6 +139,7 @@ public class SeqResourceIterateReader extends IterateReader {
    */
   @Override
   public boolean constructNextReader(int idx) throws IOException {
+    clearPrefetchChunkLoader();
     TsFileResource tsFileResource = seqResources.get(idx);
     if (tsFileResource.isClosed()) {
       if (!ResourceRelatedUtil.isTsFileSatisfied(tsFileResource, filter, seriesPath)) {
@@ -139,6 +169,10 @@ public class SeqResourceIterateReader extends IterateReader {
         .get(sealedTsFile, seriesPath);
     List<Modification> pathModifications = context.getPathModifications(sealedTsFile.getModFile(),
         seriesPath.getFullPath());
+    if (!pathModifications.isEmpty() || enableReverse) {
+      // the cached list is shared by all queries, so modify a copy of it
+      metaDataList = new ArrayList<>(metaDataList);
+    }
     if (!pathModifications.isEmpty()) {
       QueryUtils.modifyChunkMetaData(metaDataList, pathModifications);
     }
@@ -149,9 +183,37 @@ public class SeqResourceIterateReader extends IterateReader {
     // prepare chunkLoader
     TsFileSequenceReader tsFileReader = FileReaderManager.getInstance()
         .get(sealedTsFile, true);
-    IChunkLoader chunkLoader = new ChunkLoaderImpl(tsFileReader);
+    IChunkLoader chunkLoader = new DiskChunkLoader(tsFileReader);
+    int prefetchNum = IoTDBDescriptor.getInstance().getConfig().getChunkPrefetchNum();
+    if (prefetchNum > 0) {
+      prefetchChunkLoader = new PrefetchChunkLoader(chunkLoader, metaDataList, filter, context,
+          prefetchNum);
+      chunkLoader = prefetchChunkLoader;
+    }
+
+    if (rollupInterval > 0) {
+      List<ChunkMetaData> buckets = RollupManager.getInstance()
+          .getBuckets(sealedTsFile, seriesPath, rollupInterval);
+      if (buckets != null) {
+        // a bucket may contain points of different versions, so all deletions are applied
+        QueryUtils.modifyChunkMetaData(buckets, pathModifications);
+        return new RollupSeriesReader(chunkLoader, metaDataList, buckets, filter);
+      }
+    }
 
     // init fileSeriesReader
     return new FileSeriesReader(chunkLoader, metaDataList, filter);
   }
+
+  private void clearPrefetchChunkLoader() {
+    if (prefetchChunkLoader != null) {
+      prefetchChunkLoader.clear();
+      prefetchChunkLoader = null;
+    }
+  }
+
+  @Override
+  public void close() {
+    clearPrefetchChunkLoader();
+  }
 }
\ No newline at end of file
@@ -85,7 +85,7 @@ public class SeriesReaderWithoutValueFilter implements ManagedSeriesReader {
   public SeriesReaderWithoutValueFilter(Path seriesPath, TSDataType dataType, Filter timeFilter,
       QueryContext context, boolean pushdownUnseq) throws StorageEngineException, IOException {
     QueryDataSource queryDataSource = QueryResourceManager.getInstance()
-            .getQueryDataSource(seriesPath, context);
+            .getQueryDataSource(seriesPath, context, timeFilter);
     timeFilter = queryDataSource.updateTimeFilter(timeFilter);
 
     // reader for sequence resources
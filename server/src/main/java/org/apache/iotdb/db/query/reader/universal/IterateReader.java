@@ -21,6 +21,7 @@ package org.apache.iotdb.db.query.reader.universal;
 import java.io.IOException;
 import org.apache.iotdb.tsfile.read.reader.IAggregateReader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 
 /**
@@ -29,6 +30,9 @@ import org.apache.iotdb.tsfile.read.common.BatchData;
 public abstract class IterateReader implements IAggregateReader {
 
   protected IAggregateReader currentSeriesReader;
+  /**
+   * whether currentSeriesReader is constructed and may have remaining data.
+   */
   private boolean curReaderInitialized;
   private int nextSeriesReaderIndex;
   private int readerSize;
@@ -42,21 +46,44 @@ public abstract class IterateReader implements IAggregateReader {
 
   @Override
   public boolean hasNextBatch() throws IOException {
-
-    if (curReaderInitialized && currentSeriesReader.hasNextBatch()) {
-      return true;
-    } else {
-      curReaderInitialized = false;
+    while (true) {
+      if (curReaderInitialized) {
+        if (currentSeriesReader.hasNextBatch()) {
+          return true;
+        }
+        curReaderInitialized = false;
+      }
+      if (nextSeriesReaderIndex >= readerSize) {
+        return false;
+      }
+      curReaderInitialized = constructNextReader(nextSeriesReaderIndex++);
     }
+  }
 
-    while (nextSeriesReaderIndex < readerSize) {
-      boolean isConstructed = constructNextReader(nextSeriesReaderIndex++);
-      if (isConstructed && currentSeriesReader.hasNextBatch()) {
-        curReaderInitialized = true;
-        return true;
+  @Override
+  public ChunkMetaData nextChunkMetaData() throws IOException {
+    while (true) {
+      if (curReaderInitialized) {
+        ChunkMetaData chunkMetaData = currentSeriesReader.nextChunkMetaData();
+        if (chunkMetaData != null) {
+          return chunkMetaData;
+        }
+        if (currentSeriesReader.hasNextBatch()) {
+          // the remaining data of the current reader can only be read by batches
+          return null;
+        }
+        curReaderInitialized = false;
+      }
+      if (nextSeriesReaderIndex >= readerSize) {
+        return null;
       }
+      curReaderInitialized = constructNextReader(nextSeriesReaderIndex++);
     }
-    return false;
+  }
+
+  @Override
+  public void skipChunkData() throws IOException {
+    currentSeriesReader.skipChunkData();
   }
 
   /**
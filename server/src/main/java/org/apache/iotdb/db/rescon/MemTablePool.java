@@ -20,14 +20,27 @@ package org.apache.iotdb.db.rescon;
 
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
 import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBConstant;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.engine.memtable.IMemTable;
 import org.apache.iotdb.db.engine.memtable.PrimitiveMemTable;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.exception.query.SystemBusyException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class MemTablePool {
+/**
+ * Manage the memtables of all storage groups. At most max_memtable_number memtables are created,
+ * an applier that finds all of them in use waits at most memtable_acquire_timeout_in_ms for one
+ * to be put back, and is rejected with a {@link SystemBusyException} after that so that the
+ * client can retry later instead of parking the insertion thread for good.
+ */
+public class MemTablePool implements MemTablePoolMBean, IService {
 
   private static final IoTDBConfig CONFIG = IoTDBDescriptor.getInstance().getConfig();
 
@@ -37,13 +50,25 @@ public class MemTablePool {
 
   private int size = 0;
 
-  private static final int WAIT_TIME = 2000;
+  private int waitingNum = 0;
+
+  private final AtomicLong rejectedNum = new AtomicLong();
+
+  private static final long WAIT_TIME = 2000;
+
+  private String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
 
   private MemTablePool() {
   }
 
-  // TODO change the impl of getAvailableMemTable to non-blocking
-  public IMemTable getAvailableMemTable(Object applier) {
+  /**
+   * get a memtable from the pool, or create one if the pool has not reached its max size.
+   *
+   * @throws SystemBusyException if no memtable is put back within memtable_acquire_timeout_in_ms
+   */
+  public IMemTable getAvailableMemTable(Object applier) throws SystemBusyException {
     synchronized (availableMemTables) {
       if (availableMemTables.isEmpty() && size < CONFIG.getMaxMemtableNumber()) {
         size++;
@@ -57,22 +82,39 @@ public class MemTablePool {
         return availableMemTables.pop();
       }
 
-      // wait until some one has released a memtable
-      int waitCount = 1;
-      while (true) {
-        if (!availableMemTables.isEmpty()) {
-          logger.debug(
-              "system memtable size: {}, stack size: {}, then get a memtable from stack for {}",
-              size, availableMemTables.size(), applier);
-          return availableMemTables.pop();
-        }
-        try {
-          availableMemTables.wait(WAIT_TIME);
-        } catch (InterruptedException e) {
-          logger.error("{} fails to wait fot memtables {}, continue to wait", applier, e);
-          Thread.currentThread().interrupt();
+      // wait until some one has released a memtable or the deadline is reached
+      long startTime = System.currentTimeMillis();
+      long deadline = startTime + CONFIG.getMemtableAcquireTimeoutInMs();
+      waitingNum++;
+      try {
+        while (true) {
+          if (!availableMemTables.isEmpty()) {
+            logger.debug(
+                "system memtable size: {}, stack size: {}, then get a memtable from stack for {}",
+                size, availableMemTables.size(), applier);
+            return availableMemTables.pop();
+          }
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            rejectedNum.incrementAndGet();
+            throw new SystemBusyException(String.format(
+                "%s cannot get a memtable in %dms, all %d memtables are in use", applier,
+                CONFIG.getMemtableAcquireTimeoutInMs(), size));
+          }
+          try {
+            availableMemTables.wait(Math.min(remaining, WAIT_TIME));
+          } catch (InterruptedException e) {
+            logger.error("{} fails to wait for memtables", applier, e);
+            Thread.currentThread().interrupt();
+            rejectedNum.incrementAndGet();
+            throw new SystemBusyException(
+                String.format("%s is interrupted when waiting for a memtable", applier));
+          }
+          logger.info("{} has waited for a memtable for {}ms", applier,
+              System.currentTimeMillis() - startTime);
         }
-        logger.info("{} has waited for a memtable for {}ms", applier, waitCount++ * WAIT_TIME);
+      } finally {
+        waitingNum--;
       }
     }
   }
@@ -101,6 +143,56 @@ public class MemTablePool {
     return size;
   }
 
+  @Override
+  public int getCreatedMemTableNum() {
+    synchronized (availableMemTables) {
+      return size;
+    }
+  }
+
+  @Override
+  public int getAvailableMemTableNum() {
+    synchronized (availableMemTables) {
+      return availableMemTables.size();
+    }
+  }
+
+  @Override
+  public int getMaxMemTableNum() {
+    return CONFIG.getMaxMemtableNumber();
+  }
+
+  @Override
+  public int getWaitingApplierNum() {
+    synchronized (availableMemTables) {
+      return waitingNum;
+    }
+  }
+
+  @Override
+  public long getRejectedApplicationNum() {
+    return rejectedNum.get();
+  }
+
+  @Override
+  public void start() throws StartupException {
+    try {
+      JMXService.registerMBean(getInstance(), mbeanName);
+    } catch (Exception e) {
+      throw new StartupException(this.getID().getName(), e.getMessage());
+    }
+  }
+
+  @Override
+  public void stop() {
+    JMXService.deregisterMBean(mbeanName);
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.MEMTABLE_POOL_SERVICE;
+  }
+
   public static MemTablePool getInstance() {
     return InstanceHolder.INSTANCE;
   }
@@ -18,96 +18,208 @@
  */
 package org.apache.iotdb.db.rescon;
 
-import java.util.ArrayDeque;
-import java.util.EnumMap;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.StartupException;
+import org.apache.iotdb.db.service.IService;
+import org.apache.iotdb.db.service.JMXService;
+import org.apache.iotdb.db.service.ServiceType;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Binary;
 
 /**
  * Manage all primitive data list in memory, including get and release operation.
+ * <p>
+ * Each thread caches a few released arrays of each data type, and the rest are kept in a lock
+ * free pool shared by all threads, so that concurrent insertions do not contend on one monitor.
+ * The arrays cached by the threads and the shared pool together are bounded by
+ * primitive_array_pool_capacity_in_byte, arrays released beyond it are left to GC. The arrays
+ * cached by a thread which has exited are given back to the budget once GC collects its cache.
  */
-public class PrimitiveArrayPool {
+public class PrimitiveArrayPool implements PrimitiveArrayPoolMBean, IService {
+
+  public static final int ARRAY_SIZE = 128;
 
   /**
-   * data type -> Array<PrimitiveArray>
+   * max number of arrays of each data type cached by one thread.
    */
-  private static final EnumMap<TSDataType, ArrayDeque> primitiveArraysMap = new EnumMap<>(TSDataType.class);
+  private static final int THREAD_CACHE_CAPACITY = 32;
 
-  public static final int ARRAY_SIZE = 128;
+  private static final int TYPE_NUM = TSDataType.values().length;
+
+  /**
+   * approximate size in byte of an array of each data type, indexed by the ordinal of the type.
+   */
+  private static final long[] ARRAY_BYTES = new long[TYPE_NUM];
 
   static {
-    primitiveArraysMap.put(TSDataType.BOOLEAN, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.INT32, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.INT64, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.FLOAT, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.DOUBLE, new ArrayDeque());
-    primitiveArraysMap.put(TSDataType.TEXT, new ArrayDeque());
+    ARRAY_BYTES[TSDataType.BOOLEAN.ordinal()] = arrayBytes(1);
+    ARRAY_BYTES[TSDataType.INT32.ordinal()] = arrayBytes(Integer.BYTES);
+    ARRAY_BYTES[TSDataType.INT64.ordinal()] = arrayBytes(Long.BYTES);
+    ARRAY_BYTES[TSDataType.FLOAT.ordinal()] = arrayBytes(Float.BYTES);
+    ARRAY_BYTES[TSDataType.DOUBLE.ordinal()] = arrayBytes(Double.BYTES);
+    // only the references, the Binary objects are not kept by a released array
+    ARRAY_BYTES[TSDataType.TEXT.ordinal()] = arrayBytes(Long.BYTES);
   }
 
+  private static final PrimitiveArrayPool INSTANCE = new PrimitiveArrayPool();
+
+  /**
+   * data type ordinal -> released arrays shared by all threads
+   */
+  private final Queue<Object>[] sharedPools;
+
+  private final ThreadLocal<ThreadCache> threadCache =
+      ThreadLocal.withInitial(this::newThreadCache);
+  /**
+   * the caches of the threads, whose references are enqueued after the threads exit and the caches
+   * are collected.
+   */
+  private final Set<ThreadCacheReference> threadCacheReferences = ConcurrentHashMap.newKeySet();
+  private final ReferenceQueue<ThreadCache> collectedThreadCaches = new ReferenceQueue<>();
+
+  private final AtomicLong pooledBytes = new AtomicLong();
+  private final LongAdder allocatedBytes = new LongAdder();
+  private final LongAdder discardedBytes = new LongAdder();
+
+  private String mbeanName = String
+      .format("%s:%s=%s", IoTDBConstant.IOTDB_PACKAGE, IoTDBConstant.JMX_TYPE,
+          getID().getJmxName());
+
   public static PrimitiveArrayPool getInstance() {
     return INSTANCE;
   }
 
-  private static final PrimitiveArrayPool INSTANCE = new PrimitiveArrayPool();
+  @SuppressWarnings("unchecked")
+  private PrimitiveArrayPool() {
+    sharedPools = new Queue[TYPE_NUM];
+    for (int i = 0; i < TYPE_NUM; i++) {
+      sharedPools[i] = new ConcurrentLinkedQueue<>();
+    }
+  }
 
+  private static long arrayBytes(int elementBytes) {
+    // 16 bytes for the object header and the length
+    return 16L + (long) elementBytes * ARRAY_SIZE;
+  }
 
-  private PrimitiveArrayPool() {}
+  private ThreadCache newThreadCache() {
+    ThreadCache cache = new ThreadCache();
+    threadCacheReferences.add(new ThreadCacheReference(cache, collectedThreadCaches));
+    return cache;
+  }
+
+  public Object getPrimitiveDataListByType(TSDataType dataType) {
+    int typeIdx = dataType.ordinal();
+    Object dataArray = threadCache.get().poll(typeIdx);
+    if (dataArray == null) {
+      dataArray = sharedPools[typeIdx].poll();
+    }
+    if (dataArray != null) {
+      pooledBytes.addAndGet(-ARRAY_BYTES[typeIdx]);
+      return dataArray;
+    }
 
-  public synchronized Object getPrimitiveDataListByType(TSDataType dataType) {
-    ArrayDeque dataListQueue = primitiveArraysMap.computeIfAbsent(dataType, k ->new ArrayDeque<>());
-    Object dataArray = dataListQueue.poll();
     switch (dataType) {
       case BOOLEAN:
-        if (dataArray == null) {
-          dataArray = new boolean[ARRAY_SIZE];
-        }
+        dataArray = new boolean[ARRAY_SIZE];
         break;
       case INT32:
-        if (dataArray == null) {
-          dataArray = new int[ARRAY_SIZE];
-        }
+        dataArray = new int[ARRAY_SIZE];
         break;
       case INT64:
-        if (dataArray == null) {
-          dataArray = new long[ARRAY_SIZE];
-        }
+        dataArray = new long[ARRAY_SIZE];
         break;
       case FLOAT:
-        if (dataArray == null) {
-          dataArray = new float[ARRAY_SIZE];
-        }
+        dataArray = new float[ARRAY_SIZE];
         break;
       case DOUBLE:
-        if (dataArray == null) {
-          dataArray = new double[ARRAY_SIZE];
-        }
+        dataArray = new double[ARRAY_SIZE];
         break;
       case TEXT:
-        if (dataArray == null) {
-          dataArray = new Binary[ARRAY_SIZE];
-        }
+        dataArray = new Binary[ARRAY_SIZE];
         break;
       default:
         throw new UnSupportedDataTypeException("DataType: " + dataType);
     }
+    allocatedBytes.add(ARRAY_BYTES[typeIdx]);
     return dataArray;
   }
 
 
-  public synchronized void release(Object dataArray) {
+  public void release(Object dataArray) {
+    TSDataType dataType;
     if (dataArray instanceof boolean[]) {
-      primitiveArraysMap.get(TSDataType.BOOLEAN).add(dataArray);
+      dataType = TSDataType.BOOLEAN;
     } else if (dataArray instanceof int[]) {
-      primitiveArraysMap.get(TSDataType.INT32).add(dataArray);
+      dataType = TSDataType.INT32;
     } else if (dataArray instanceof long[]){
-      primitiveArraysMap.get(TSDataType.INT64).add(dataArray);
+      dataType = TSDataType.INT64;
     } else if (dataArray instanceof float[]) {
-      primitiveArraysMap.get(TSDataType.FLOAT).add(dataArray);
+      dataType = TSDataType.FLOAT;
     } else if (dataArray instanceof double[]) {
-      primitiveArraysMap.get(TSDataType.DOUBLE).add(dataArray);
+      dataType = TSDataType.DOUBLE;
     } else if (dataArray instanceof Binary[]) {
-      primitiveArraysMap.get(TSDataType.TEXT).add(dataArray);
+      dataType = TSDataType.TEXT;
+      // do not keep the values alive in the pool
+      Arrays.fill((Binary[]) dataArray, null);
+    } else {
+      return;
+    }
+    int typeIdx = dataType.ordinal();
+    long arrayBytes = ARRAY_BYTES[typeIdx];
+    long capacity = IoTDBDescriptor.getInstance().getConfig().getPrimitiveArrayPoolCapacity();
+    if (pooledBytes.addAndGet(arrayBytes) > capacity) {
+      pooledBytes.addAndGet(-arrayBytes);
+      discard(arrayBytes);
+      reclaimCollectedThreadCaches();
+      trim(capacity);
+      return;
+    }
+    if (!threadCache.get().offer(typeIdx, dataArray)) {
+      sharedPools[typeIdx].add(dataArray);
+    }
+  }
+
+  private void discard(long arrayBytes) {
+    allocatedBytes.add(-arrayBytes);
+    discardedBytes.add(arrayBytes);
+  }
+
+  /**
+   * give the arrays cached by the exited threads back to the budget.
+   */
+  private void reclaimCollectedThreadCaches() {
+    ThreadCacheReference reference;
+    while ((reference = (ThreadCacheReference) collectedThreadCaches.poll()) != null) {
+      threadCacheReferences.remove(reference);
+      long cachedBytes = reference.cachedBytes.getAndSet(0);
+      pooledBytes.addAndGet(-cachedBytes);
+      discard(cachedBytes);
+    }
+  }
+
+  /**
+   * drop arrays of the shared pool until the pooled arrays fit in the capacity again, in case the
+   * capacity was lowered. The arrays cached by the threads are kept until they are reused.
+   */
+  private void trim(long capacity) {
+    for (int typeIdx = 0; typeIdx < TYPE_NUM; typeIdx++) {
+      long arrayBytes = ARRAY_BYTES[typeIdx];
+      while (pooledBytes.get() > capacity && sharedPools[typeIdx].poll() != null) {
+        pooledBytes.addAndGet(-arrayBytes);
+        discard(arrayBytes);
+      }
     }
   }
 
@@ -115,7 +227,7 @@ public class PrimitiveArrayPool {
    * @param size needed capacity
    * @return an array of primitive data arrays
    */
-  public synchronized Object getDataListsByType(TSDataType dataType, int size) {
+  public Object getDataListsByType(TSDataType dataType, int size) {
     int arrayNumber = (int) Math.ceil((float) size / (float)ARRAY_SIZE);
     switch (dataType) {
       case BOOLEAN:
@@ -159,4 +271,83 @@ public class PrimitiveArrayPool {
     }
   }
 
+  @Override
+  public long getAllocatedBytes() {
+    return allocatedBytes.sum();
+  }
+
+  @Override
+  public long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  @Override
+  public long getDiscardedBytes() {
+    return discardedBytes.sum();
+  }
+
+  @Override
+  public void start() throws StartupException {
+    try {
+      JMXService.registerMBean(INSTANCE, mbeanName);
+    } catch (Exception e) {
+      throw new StartupException(this.getID().getName(), e.getMessage());
+    }
+  }
+
+  @Override
+  public void stop() {
+    JMXService.deregisterMBean(mbeanName);
+    // the arrays cached by the threads stay in the budget until they are reused
+    trim(0);
+  }
+
+  @Override
+  public ServiceType getID() {
+    return ServiceType.PRIMITIVE_ARRAY_POOL_SERVICE;
+  }
+
+  /**
+   * released arrays cached by one thread, they are counted in the pooled bytes.
+   */
+  private static class ThreadCache {
+
+    private final Object[][] arrays = new Object[TYPE_NUM][THREAD_CACHE_CAPACITY];
+    private final int[] sizes = new int[TYPE_NUM];
+    /**
+     * shared with the reference of the cache, which gives the bytes back after the cache is
+     * collected.
+     */
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private Object poll(int typeIdx) {
+      if (sizes[typeIdx] == 0) {
+        return null;
+      }
+      int idx = --sizes[typeIdx];
+      Object dataArray = arrays[typeIdx][idx];
+      arrays[typeIdx][idx] = null;
+      cachedBytes.addAndGet(-ARRAY_BYTES[typeIdx]);
+      return dataArray;
+    }
+
+    private boolean offer(int typeIdx, Object dataArray) {
+      if (sizes[typeIdx] == THREAD_CACHE_CAPACITY) {
+        return false;
+      }
+      arrays[typeIdx][sizes[typeIdx]++] = dataArray;
+      cachedBytes.addAndGet(ARRAY_BYTES[typeIdx]);
+      return true;
+    }
+  }
+
+  private static class ThreadCacheReference extends WeakReference<ThreadCache> {
+
+    private final AtomicLong cachedBytes;
+
+    private ThreadCacheReference(ThreadCache cache, ReferenceQueue<ThreadCache> queue) {
+      super(cache, queue);
+      this.cachedBytes = cache.cachedBytes;
+    }
+  }
 }
@@ -0,0 +1,39 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+public interface PrimitiveArrayPoolMBean {
+
+  /**
+   * @return the size in byte of the arrays allocated by the pool and not left to GC yet, either in
+   * use or pooled
+   */
+  long getAllocatedBytes();
+
+  /**
+   * @return the size in byte of the released arrays held by the thread caches and the shared pool
+   */
+  long getPooledBytes();
+
+  /**
+   * @return the total size in byte of the released arrays left to GC because the pool is full
+   */
+  long getDiscardedBytes();
+
+}
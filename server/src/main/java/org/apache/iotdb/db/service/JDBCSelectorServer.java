@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.db.concurrent.IoTDBThreadPoolFactory;
+import org.apache.iotdb.db.concurrent.ThreadName;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A selector server which always processes the requests of one connection by the same worker
+ * thread. A query holds thread-owned read locks of its TsFileResources from executeQuery to
+ * closeOperation or to the exit of its client, so a connection must not move between threads as
+ * it would with a shared worker pool. The requests waiting for each worker are bounded, a request
+ * rejected by a busy worker closes its connection. The queue of a worker itself is unbounded so
+ * that the cleanup of an exited client, which must run on the worker too, is never rejected.
+ */
+class JDBCSelectorServer extends TThreadedSelectorServer {
+
+  private static final Logger logger = LoggerFactory.getLogger(JDBCSelectorServer.class);
+
+  /**
+   * the worker of the current thread, null if the thread is not a worker.
+   */
+  private static final ThreadLocal<Executor> currentWorker = new ThreadLocal<>();
+
+  private final ThreadPoolExecutor[] workers;
+  /**
+   * the requests submitted to each worker and not finished yet
+   */
+  private final AtomicInteger[] pendingRequestNums;
+  private final int queueSizePerWorker;
+  private final long stopTimeoutMs;
+  private final AtomicLong rejectedRequestNum = new AtomicLong();
+
+  /**
+   * @param queueSize the total size of the queues, which is split evenly among the workers
+   */
+  JDBCSelectorServer(Args args, int workerNum, int queueSize) {
+    // the requests are dispatched to the workers below instead of the executor of args
+    super(args.workerThreads(0).executorService(null));
+    this.stopTimeoutMs = args.getStopTimeoutUnit().toMillis(args.getStopTimeoutVal());
+    workers = new ThreadPoolExecutor[workerNum];
+    pendingRequestNums = new AtomicInteger[workerNum];
+    queueSizePerWorker = Math.max(queueSize / workerNum, 1);
+    for (int i = 0; i < workerNum; i++) {
+      workers[i] = IoTDBThreadPoolFactory.createThriftRpcWorkerThreadPool(1, Integer.MAX_VALUE,
+          ThreadName.JDBC_WORKER.getName() + "-" + i);
+      pendingRequestNums[i] = new AtomicInteger();
+    }
+  }
+
+  /**
+   * @return the worker of the current thread, or null if it is not a worker of a selector server
+   */
+  static Executor getCurrentWorker() {
+    return currentWorker.get();
+  }
+
+  @Override
+  protected boolean requestInvoke(FrameBuffer frameBuffer) {
+    int index = Math.floorMod(System.identityHashCode(frameBuffer), workers.length);
+    ThreadPoolExecutor worker = workers[index];
+    AtomicInteger pendingRequestNum = pendingRequestNums[index];
+    // one request may be running besides the waiting ones
+    if (pendingRequestNum.incrementAndGet() > queueSizePerWorker + 1) {
+      pendingRequestNum.decrementAndGet();
+      rejectedRequestNum.incrementAndGet();
+      logger.warn("{} requests are waiting for the worker, close the connection",
+          queueSizePerWorker);
+      return false;
+    }
+    Runnable invocation = getRunnable(frameBuffer);
+    try {
+      worker.execute(() -> {
+        currentWorker.set(worker);
+        try {
+          invocation.run();
+        } finally {
+          pendingRequestNum.decrementAndGet();
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      // the worker is shut down
+      pendingRequestNum.decrementAndGet();
+      rejectedRequestNum.incrementAndGet();
+      logger.warn("The worker is shut down, close the connection");
+      return false;
+    }
+  }
+
+  @Override
+  protected void gracefullyShutdownInvokerPool() {
+    for (ThreadPoolExecutor worker : workers) {
+      worker.shutdown();
+    }
+    long deadline = System.currentTimeMillis() + stopTimeoutMs;
+    try {
+      for (ThreadPoolExecutor worker : workers) {
+        long remaining = deadline - System.currentTimeMillis();
+        if (remaining <= 0 || !worker.awaitTermination(remaining, TimeUnit.MILLISECONDS)) {
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  int getActiveWorkerNum() {
+    int num = 0;
+    for (ThreadPoolExecutor worker : workers) {
+      num += worker.getActiveCount();
+    }
+    return num;
+  }
+
+  int getWorkerQueueSize() {
+    int size = 0;
+    for (ThreadPoolExecutor worker : workers) {
+      size += worker.getQueue().size();
+    }
+    return size;
+  }
+
+  long getRejectedRequestNum() {
+    return rejectedRequestNum.get();
+  }
+}
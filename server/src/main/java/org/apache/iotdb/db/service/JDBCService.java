@@ -34,13 +34,18 @@ import org.apache.thrift.protocol.TProtocolFactory;
 import org.apache.thrift.server.TServer;
 import org.apache.thrift.server.TThreadPoolServer;
 import org.apache.thrift.server.TThreadPoolServer.Args;
+import org.apache.thrift.server.TThreadedSelectorServer;
+import org.apache.thrift.transport.TNonblockingServerSocket;
 import org.apache.thrift.transport.TServerSocket;
+import org.apache.thrift.transport.TServerTransport;
 import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A service to handle jdbc request from client.
+ * A service to handle jdbc request from client. By default each connection is served by its own
+ * thread, if rpc_selector_server_enable is set, the connections are served by a few selector
+ * threads and a bounded pool of workers, and the clients must use framed transport.
  */
 public class JDBCService implements JDBCServiceMBean, IService {
 
@@ -55,6 +60,11 @@ public class JDBCService implements JDBCServiceMBean, IService {
   private Processor<TSIService.Iface> processor;
   private TThreadPoolServer.Args poolArgs;
   private TSServiceImpl impl;
+  private JDBCServiceEventHandler eventHandler;
+  /**
+   * null if each connection has its own thread
+   */
+  private JDBCSelectorServer selectorServer;
   private CountDownLatch startLatch;
   private CountDownLatch stopLatch;
 
@@ -93,6 +103,36 @@ public class JDBCService implements JDBCServiceMBean, IService {
     return config.getRpcPort();
   }
 
+  @Override
+  public int getConnectionNum() {
+    JDBCServiceEventHandler handler = eventHandler;
+    return handler == null ? 0 : handler.getConnectionNum();
+  }
+
+  @Override
+  public String[] getConnectionInfo() {
+    JDBCServiceEventHandler handler = eventHandler;
+    return handler == null ? new String[0] : handler.getConnectionInfo();
+  }
+
+  @Override
+  public int getActiveWorkerNum() {
+    JDBCSelectorServer server = selectorServer;
+    return server == null ? getConnectionNum() : server.getActiveWorkerNum();
+  }
+
+  @Override
+  public int getWorkerQueueSize() {
+    JDBCSelectorServer server = selectorServer;
+    return server == null ? 0 : server.getWorkerQueueSize();
+  }
+
+  @Override
+  public long getRejectedRequestNum() {
+    JDBCSelectorServer server = selectorServer;
+    return server == null ? 0 : server.getRejectedRequestNum();
+  }
+
   @Override
   public void start() throws StartupException {
     try {
@@ -181,7 +221,7 @@ public class JDBCService implements JDBCServiceMBean, IService {
 
   private class JDBCServiceThread extends Thread {
 
-    private TServerSocket serverTransport;
+    private TServerTransport serverTransport;
     private TServer poolServer;
     private CountDownLatch threadStartLatch;
     private CountDownLatch threadStopLatch;
@@ -206,18 +246,17 @@ public class JDBCService implements JDBCServiceMBean, IService {
     public void run() {
       try {
         IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
-        serverTransport = new TServerSocket(new InetSocketAddress(config.getRpcAddress(),
-            config.getRpcPort()));
-        poolArgs = new Args(serverTransport).maxWorkerThreads(IoTDBDescriptor.
-            getInstance().getConfig().getRpcMaxConcurrentClientNum()).minWorkerThreads(1)
-            .stopTimeoutVal(
-                IoTDBDescriptor.getInstance().getConfig().getThriftServerAwaitTimeForStopService());
-        poolArgs.executorService = IoTDBThreadPoolFactory.createThriftRpcClientThreadPool(poolArgs,
-            ThreadName.JDBC_CLIENT.getName());
-        poolArgs.processor(processor);
-        poolArgs.protocolFactory(protocolFactory);
-        poolServer = new TThreadPoolServer(poolArgs);
-        poolServer.setServerEventHandler(new JDBCServiceEventHandler(impl, threadStartLatch));
+        if (config.isRpcSelectorServerEnable()) {
+          poolServer = createSelectorServer(config);
+        } else {
+          poolServer = createThreadPoolServer(config);
+        }
+        eventHandler = new JDBCServiceEventHandler(impl, threadStartLatch);
+        poolServer.setServerEventHandler(eventHandler);
+        if (config.isRpcSelectorServerEnable()) {
+          // the selector server never calls preServe(), and its socket is already listening
+          eventHandler.preServe();
+        }
         poolServer.serve();
       } catch (TTransportException e) {
         logger.error("{}: failed to start {}, because ", IoTDBConstant.GLOBAL_DB_NAME,
@@ -237,12 +276,42 @@ public class JDBCService implements JDBCServiceMBean, IService {
         if (threadStopLatch != null && threadStopLatch.getCount() == 1) {
           threadStopLatch.countDown();
         }
-        logger.info("{}: close TThreadPoolServer and TServerSocket for {}",
+        logger.info("{}: close thrift server and server socket for {}",
             IoTDBConstant.GLOBAL_DB_NAME,
             getID().getName());
       }
     }
 
+    private TServer createThreadPoolServer(IoTDBConfig config) throws TTransportException {
+      serverTransport = new TServerSocket(new InetSocketAddress(config.getRpcAddress(),
+          config.getRpcPort()));
+      poolArgs = new Args(serverTransport).maxWorkerThreads(config.getRpcMaxConcurrentClientNum())
+          .minWorkerThreads(1).stopTimeoutVal(config.getThriftServerAwaitTimeForStopService());
+      poolArgs.executorService = IoTDBThreadPoolFactory.createThriftRpcClientThreadPool(poolArgs,
+          ThreadName.JDBC_CLIENT.getName());
+      poolArgs.processor(processor);
+      poolArgs.protocolFactory(protocolFactory);
+      return new TThreadPoolServer(poolArgs);
+    }
+
+    /**
+     * a server whose selector threads read the framed requests of all connections and hand them
+     * to a bounded pool of workers.
+     */
+    private TServer createSelectorServer(IoTDBConfig config) throws TTransportException {
+      TNonblockingServerSocket socket = new TNonblockingServerSocket(
+          new InetSocketAddress(config.getRpcAddress(), config.getRpcPort()));
+      serverTransport = socket;
+      TThreadedSelectorServer.Args selectorArgs = new TThreadedSelectorServer.Args(socket)
+          .selectorThreads(config.getRpcSelectorThreadNum())
+          .stopTimeoutVal(config.getThriftServerAwaitTimeForStopService());
+      selectorArgs.processor(processor);
+      selectorArgs.protocolFactory(protocolFactory);
+      selectorServer = new JDBCSelectorServer(selectorArgs, config.getRpcWorkerThreadNum(),
+          config.getRpcWorkerQueueSize());
+      return selectorServer;
+    }
+
     private synchronized void close() {
       if (poolServer != null) {
         poolServer.stop();
@@ -252,6 +321,7 @@ public class JDBCService implements JDBCServiceMBean, IService {
         serverTransport.close();
         serverTransport = null;
       }
+      selectorServer = null;
     }
   }
 }
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.service;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.thrift.server.ServerContext;
+
+/**
+ * The state of one client connection. A selector server may serve the requests of one connection
+ * by different threads, so the session of a connection is recorded here instead of in a
+ * ThreadLocal.
+ */
+public class JDBCServiceContext implements ServerContext {
+
+  private final long connectTime = System.currentTimeMillis();
+  private final AtomicLong requestNum = new AtomicLong();
+  private volatile Long sessionId;
+  /**
+   * the worker of the selector server serving this connection, null for the thread pool server
+   */
+  private volatile Executor worker;
+
+  void onRequest() {
+    requestNum.incrementAndGet();
+    if (worker == null) {
+      worker = JDBCSelectorServer.getCurrentWorker();
+    }
+  }
+
+  Executor getWorker() {
+    return worker;
+  }
+
+  public long getRequestNum() {
+    return requestNum.get();
+  }
+
+  public long getConnectTime() {
+    return connectTime;
+  }
+
+  public Long getSessionId() {
+    return sessionId;
+  }
+
+  void setSessionId(Long sessionId) {
+    this.sessionId = sessionId;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("session %s, connected for %dms, %d requests", sessionId,
+        System.currentTimeMillis() - connectTime, requestNum.get());
+  }
+}
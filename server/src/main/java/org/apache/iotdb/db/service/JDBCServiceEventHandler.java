@@ -18,16 +18,25 @@
  */
 package org.apache.iotdb.db.service;
 
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import org.apache.thrift.protocol.TProtocol;
 import org.apache.thrift.server.ServerContext;
 import org.apache.thrift.server.TServerEventHandler;
 import org.apache.thrift.transport.TTransport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class JDBCServiceEventHandler implements TServerEventHandler {
 
+  private static final Logger logger = LoggerFactory.getLogger(JDBCServiceEventHandler.class);
+
   private TSServiceImpl serviceImpl;
   private CountDownLatch startLatch;
+  private Set<JDBCServiceContext> contexts = ConcurrentHashMap.newKeySet();
 
   JDBCServiceEventHandler(TSServiceImpl serviceImpl, CountDownLatch startLatch) {
     this.serviceImpl = serviceImpl;
@@ -36,13 +45,29 @@ public class JDBCServiceEventHandler implements TServerEventHandler {
 
   @Override
   public ServerContext createContext(TProtocol arg0, TProtocol arg1) {
-    // TODO Auto-generated method stub
-    return null;
+    JDBCServiceContext context = new JDBCServiceContext();
+    contexts.add(context);
+    return context;
   }
 
   @Override
   public void deleteContext(ServerContext arg0, TProtocol arg1, TProtocol arg2) {
-    serviceImpl.handleClientExit();
+    JDBCServiceContext context = (JDBCServiceContext) arg0;
+    contexts.remove(context);
+    logger.debug("Client exits: {}", context);
+    // the resources of the client hold thread-owned locks, so they are released only by the
+    // worker which acquired them. The queue of a worker is unbounded, it rejects the task only
+    // after it is shut down, when its thread and the locks are gone anyway
+    Executor worker = context.getWorker();
+    if (worker == null) {
+      serviceImpl.handleClientExit(context);
+      return;
+    }
+    try {
+      worker.execute(() -> serviceImpl.handleClientExit(context));
+    } catch (RejectedExecutionException e) {
+      logger.warn("The worker of {} is shut down, its resources are not released", context);
+    }
   }
 
   @Override
@@ -52,8 +77,16 @@ public class JDBCServiceEventHandler implements TServerEventHandler {
 
   @Override
   public void processContext(ServerContext arg0, TTransport arg1, TTransport arg2) {
-    // TODO Auto-generated method stub
+    JDBCServiceContext context = (JDBCServiceContext) arg0;
+    context.onRequest();
+    serviceImpl.setCurrentContext(context);
+  }
 
+  int getConnectionNum() {
+    return contexts.size();
   }
 
+  String[] getConnectionInfo() {
+    return contexts.stream().map(JDBCServiceContext::toString).toArray(String[]::new);
+  }
 }
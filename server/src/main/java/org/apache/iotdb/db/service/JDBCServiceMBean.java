@@ -26,6 +26,23 @@ public interface JDBCServiceMBean {
 
   int getRPCPort();
 
+  int getConnectionNum();
+
+  /**
+   * the session, connected time and number of requests of each connection.
+   */
+  String[] getConnectionInfo();
+
+  int getActiveWorkerNum();
+
+  /**
+   * the number of requests waiting for the workers, always 0 if each connection has its own
+   * thread.
+   */
+  int getWorkerQueueSize();
+
+  long getRejectedRequestNum();
+
   void startService() throws StartupException;
 
   void restartService() throws StartupException;
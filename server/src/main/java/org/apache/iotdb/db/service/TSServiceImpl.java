@@ -25,6 +25,8 @@ import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_TTL;
 import static org.apache.iotdb.db.conf.IoTDBConstant.COLUMN_USER;
 
 import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.ZoneId;
@@ -33,6 +35,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -63,6 +66,7 @@ import org.apache.iotdb.db.qp.constant.SQLConstant;
 import org.apache.iotdb.db.qp.executor.QueryProcessExecutor;
 import org.apache.iotdb.db.qp.logical.Operator.OperatorType;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.AggregationPlan;
 import org.apache.iotdb.db.qp.physical.crud.BatchInsertPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
@@ -76,9 +80,11 @@ import org.apache.iotdb.db.qp.physical.sys.ShowPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.control.QueryResourceManager;
 import org.apache.iotdb.db.query.dataset.NewEngineDataSetWithoutValueFilter;
+import org.apache.iotdb.db.query.executor.AggregateEngineExecutor;
 import org.apache.iotdb.db.tools.watermark.GroupedLSBWatermarkEncoder;
 import org.apache.iotdb.db.tools.watermark.WatermarkEncoder;
 import org.apache.iotdb.db.utils.QueryDataSetUtils;
+import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.rpc.TSStatusCode;
 import org.apache.iotdb.service.rpc.thrift.ServerProperties;
 import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
@@ -92,6 +98,8 @@ import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteInsertRowInBatchResp;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSFetchLastValuesReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchLastValuesResp;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataReq;
 import org.apache.iotdb.service.rpc.thrift.TSFetchMetadataResp;
 import org.apache.iotdb.service.rpc.thrift.TSFetchResultsReq;
@@ -107,6 +115,8 @@ import org.apache.iotdb.service.rpc.thrift.TSQueryDataSet;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
 import org.apache.iotdb.service.rpc.thrift.TSStatus;
 import org.apache.iotdb.service.rpc.thrift.TSStatusType;
+import org.apache.iotdb.service.rpc.thrift.TSTypedInsertInBatchReq;
+import org.apache.iotdb.service.rpc.thrift.TSTypedInsertReq;
 import org.apache.iotdb.tsfile.exception.filter.QueryFilterOptimizationException;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
@@ -153,8 +163,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
 
   private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
 
-  // When the client abnormally exits, we can still know who to disconnect
-  private ThreadLocal<Long> currSessionId = new ThreadLocal<>();
+  // When the client abnormally exits, we can still know who to disconnect. The context of the
+  // connection is set before each of its requests, as the requests may be served by any thread.
+  private ThreadLocal<JDBCServiceContext> currContext = new ThreadLocal<>();
 
   public TSServiceImpl() {
     processor = new QueryProcessor(new QueryProcessExecutor());
@@ -225,7 +236,10 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       sessionId = sessionIdGenerator.incrementAndGet();
       sessionIdUsernameMap.put(sessionId, req.getUsername());
       sessionIdZoneIdMap.put(sessionId, config.getZoneID());
-      currSessionId.set(sessionId);
+      JDBCServiceContext context = currContext.get();
+      if (context != null) {
+        context.setSessionId(sessionId);
+      }
     } else {
       tsStatus = getStatus(TSStatusCode.WRONG_LOGIN_PASSWORD_ERROR);
     }
@@ -968,8 +982,12 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return resp;
   }
 
-  void handleClientExit() {
-    Long sessionId = currSessionId.get();
+  void setCurrentContext(JDBCServiceContext context) {
+    currContext.set(context);
+  }
+
+  void handleClientExit(JDBCServiceContext context) {
+    Long sessionId = context.getSessionId();
     if (sessionId != null) {
       TSCloseSessionReq req = new TSCloseSessionReq(sessionId);
       closeSession(req);
@@ -1026,23 +1044,93 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       return resp;
     }
 
-    InsertPlan plan = new InsertPlan();
+    TSStatus[] statuses = new TSStatus[req.deviceIds.size()];
+    List<InsertPlan> plans = new ArrayList<>(statuses.length);
+    List<Integer> indexes = new ArrayList<>(statuses.length);
     for (int i = 0; i < req.deviceIds.size(); i++) {
+      InsertPlan plan = new InsertPlan();
       plan.setDeviceId(req.getDeviceIds().get(i));
       plan.setTime(req.getTimestamps().get(i));
       plan.setMeasurements(req.getMeasurementsList().get(i).toArray(new String[0]));
       plan.setValues(req.getValuesList().get(i).toArray(new String[0]));
       TSStatus status = checkAuthority(plan, req.getSessionId());
       if (status != null) {
-        resp.addToStatusList(new TSStatus(status));
+        statuses[i] = new TSStatus(status);
+      } else {
+        plans.add(plan);
+        indexes.add(i);
+      }
+    }
+    executeInsertRows(plans, indexes, statuses);
+
+    resp.setStatusList(Arrays.asList(statuses));
+    return resp;
+  }
+
+  @Override
+  public TSExecuteInsertRowInBatchResp insertTypedRowInBatch(TSTypedInsertInBatchReq req) {
+    TSExecuteInsertRowInBatchResp resp = new TSExecuteInsertRowInBatchResp();
+    if (!checkLogin(req.getSessionId())) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      resp.addToStatusList(getStatus(TSStatusCode.NOT_LOGIN_ERROR));
+      return resp;
+    }
+
+    TSStatus[] statuses = new TSStatus[req.deviceIds.size()];
+    List<InsertPlan> plans = new ArrayList<>(statuses.length);
+    List<Integer> indexes = new ArrayList<>(statuses.length);
+    for (int i = 0; i < req.deviceIds.size(); i++) {
+      InsertPlan plan = new InsertPlan();
+      plan.setDeviceId(req.getDeviceIds().get(i));
+      plan.setTime(req.getTimestamps().get(i));
+      plan.setMeasurements(req.getMeasurementsList().get(i).toArray(new String[0]));
+      TSStatus status = readTypedValues(plan, req.getValuesList().get(i));
+      if (status == null) {
+        status = checkAuthority(plan, req.getSessionId());
+      }
+      if (status != null) {
+        statuses[i] = new TSStatus(status);
       } else {
-        resp.addToStatusList(executePlan(plan));
+        plans.add(plan);
+        indexes.add(i);
       }
     }
+    executeInsertRows(plans, indexes, statuses);
 
+    resp.setStatusList(Arrays.asList(statuses));
     return resp;
   }
 
+  /**
+   * insert the rows together instead of executing their plans one by one, so that the server
+   * groups them by storage group and device.
+   *
+   * @param indexes the index of the status of each plan in statuses
+   */
+  private void executeInsertRows(List<InsertPlan> plans, List<Integer> indexes,
+      TSStatus[] statuses) {
+    if (plans.isEmpty()) {
+      return;
+    }
+    QueryProcessException[] results;
+    if (IoTDBDescriptor.getInstance().getConfig().isReadOnly()) {
+      results = new QueryProcessException[plans.size()];
+      Arrays.fill(results, new QueryProcessException(
+          "Current system mode is read-only, does not support non-query operation"));
+    } else {
+      results = processor.getExecutor().insertRows(plans);
+    }
+    for (int i = 0; i < results.length; i++) {
+      if (results[i] == null) {
+        statuses[indexes.get(i)] = getStatus(TSStatusCode.SUCCESS_STATUS, "Execute successfully");
+      } else {
+        logger.debug("meet error while inserting a row. ", results[i]);
+        statuses[indexes.get(i)] = new TSStatus(
+            new TSStatusType(results[i].getErrorCode(), results[i].getMessage()));
+      }
+    }
+  }
+
   @Override
   public TSExecuteBatchStatementResp testInsertBatch(TSBatchInsertionReq req) {
     logger.debug("Test insert batch request receive.");
@@ -1088,6 +1176,45 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     return new TSStatus(executePlan(plan));
   }
 
+  @Override
+  public TSStatus insertTyped(TSTypedInsertReq req) {
+    if (!checkLogin(req.getSessionId())) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return getStatus(TSStatusCode.NOT_LOGIN_ERROR);
+    }
+
+    InsertPlan plan = new InsertPlan();
+    plan.setDeviceId(req.getDeviceId());
+    plan.setTime(req.getTimestamp());
+    plan.setMeasurements(req.getMeasurements().toArray(new String[0]));
+    TSStatus status = readTypedValues(plan, req.bufferForValues());
+    if (status != null) {
+      return status;
+    }
+
+    status = checkAuthority(plan, req.getSessionId());
+    if (status != null) {
+      return new TSStatus(status);
+    }
+    return new TSStatus(executePlan(plan));
+  }
+
+  /**
+   * @return null if the values are read, or the error status if they are malformed
+   */
+  private TSStatus readTypedValues(InsertPlan plan, ByteBuffer values) {
+    try {
+      plan.readTypedValues(values.duplicate());
+      return null;
+    } catch (BufferUnderflowException | IllegalArgumentException
+        | UnSupportedDataTypeException e) {
+      logger.info("{}: malformed values of device {}", IoTDBConstant.GLOBAL_DB_NAME,
+          plan.getDeviceId(), e);
+      return getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR,
+          "Malformed values of device " + plan.getDeviceId());
+    }
+  }
+
   @Override
   public TSStatus deleteData(TSDeleteDataReq req) {
     if (!checkLogin(req.getSessionId())) {
@@ -1129,6 +1256,7 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       batchInsertPlan.setDataTypes(req.types);
 
       boolean isAllSuccessful = true;
+      boolean isSystemBusy = false;
       TSStatus status = checkAuthority(batchInsertPlan, req.getSessionId());
       if (status != null) {
         return new TSExecuteBatchStatementResp(status);
@@ -1138,6 +1266,9 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
       for (Integer result : results) {
         if (result != TSStatusCode.SUCCESS_STATUS.getStatusCode()) {
           isAllSuccessful = false;
+        }
+        if (result == TSStatusCode.SYSTEM_BUSY.getStatusCode()) {
+          isSystemBusy = true;
           break;
         }
       }
@@ -1146,6 +1277,11 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
         logger.debug("Insert one RowBatch successfully");
         return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.SUCCESS_STATUS),
             Arrays.asList(results));
+      } else if (isSystemBusy) {
+        // the rows whose result is SYSTEM_BUSY can be retried later
+        logger.debug("Insert one RowBatch rejected because the system is busy");
+        return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.SYSTEM_BUSY),
+            Arrays.asList(results));
       } else {
         logger.debug("Insert one RowBatch failed!");
         return getTSBatchExecuteStatementResp(getStatus(TSStatusCode.INTERNAL_SERVER_ERROR),
@@ -1160,6 +1296,78 @@ public class TSServiceImpl implements TSIService.Iface, ServerContext {
     }
   }
 
+  @Override
+  public TSFetchLastValuesResp fetchLastValues(TSFetchLastValuesReq req) {
+    if (!checkLogin(req.getSessionId())) {
+      logger.info(INFO_NOT_LOGIN, IoTDBConstant.GLOBAL_DB_NAME);
+      return new TSFetchLastValuesResp(getStatus(TSStatusCode.NOT_LOGIN_ERROR));
+    }
+
+    // the same path may be requested more than once
+    Map<String, Integer> pathIndexes = new LinkedHashMap<>();
+    AggregationPlan plan = new AggregationPlan();
+    List<Path> paths = new ArrayList<>();
+    List<String> aggregations = new ArrayList<>();
+    for (String path : req.getPaths()) {
+      if (!pathIndexes.containsKey(path)) {
+        pathIndexes.put(path, paths.size());
+        paths.add(new Path(path));
+        aggregations.add(SQLConstant.LAST_VALUE);
+      }
+    }
+    plan.setPaths(paths);
+    plan.setAggregations(aggregations);
+    TSStatus status = checkAuthority(plan, req.getSessionId());
+    if (status != null) {
+      return new TSFetchLastValuesResp(status);
+    }
+
+    long queryId = QueryResourceManager.getInstance().assignQueryId(true);
+    try {
+      List<TSDataType> dataTypes = new ArrayList<>();
+      for (Path path : paths) {
+        TSDataType dataType = getSeriesType(path.getFullPath());
+        dataTypes.add(dataType);
+        plan.addDeduplicatedPaths(path);
+        plan.addDeduplicatedDataTypes(dataType);
+        plan.addDeduplicatedAggregations(SQLConstant.LAST_VALUE);
+      }
+      plan.setDataTypes(dataTypes);
+      List<TimeValuePair> lastValues = new AggregateEngineExecutor(plan)
+          .executeLastValues(new QueryContext(queryId));
+
+      TSFetchLastValuesResp resp = new TSFetchLastValuesResp(
+          getStatus(TSStatusCode.SUCCESS_STATUS));
+      List<Boolean> hasValues = new ArrayList<>();
+      List<Long> timestamps = new ArrayList<>();
+      List<String> values = new ArrayList<>();
+      List<String> types = new ArrayList<>();
+      for (String path : req.getPaths()) {
+        int index = pathIndexes.get(path);
+        TimeValuePair lastValue = lastValues.get(index);
+        hasValues.add(lastValue != null);
+        timestamps.add(lastValue != null ? lastValue.getTimestamp() : 0L);
+        values.add(lastValue != null ? lastValue.getValue().getStringValue() : "");
+        types.add(dataTypes.get(index).toString());
+      }
+      resp.setHasValues(hasValues);
+      resp.setTimestamps(timestamps);
+      resp.setValues(values);
+      resp.setDataTypes(types);
+      return resp;
+    } catch (Exception e) {
+      logger.info("{}: error occurs when fetching last values", IoTDBConstant.GLOBAL_DB_NAME, e);
+      return new TSFetchLastValuesResp(
+          getStatus(TSStatusCode.EXECUTE_STATEMENT_ERROR, e.getMessage()));
+    } finally {
+      try {
+        QueryResourceManager.getInstance().endQuery(queryId);
+      } catch (StorageEngineException e) {
+        logger.error("Error happened while releasing query resource: ", e);
+      }
+    }
+  }
+
   @Override
   public TSStatus setStorageGroup(long sessionId, String storageGroup) {
     if (!checkLogin(sessionId)) {
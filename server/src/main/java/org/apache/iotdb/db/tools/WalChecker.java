@@ -28,6 +28,7 @@ import java.util.List;
 
 import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.exception.SystemCheckException;
+import org.apache.iotdb.db.writelog.io.LogSegmentPool;
 import org.apache.iotdb.db.writelog.io.SingleFileLogReader;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,10 +70,20 @@ public class WalChecker {
     List<File> failedFiles = new ArrayList<>();
     for (int dirIndex = 0; dirIndex < storageWalFolders.length; dirIndex++) {
       File storageWalFolder = storageWalFolders[dirIndex];
+      if (storageWalFolder.getName().equals(LogSegmentPool.POOL_DIR_NAME)) {
+        // recycled segments contain no valid logs
+        continue;
+      }
       logger.info("Checking the No.{} directory {}", dirIndex, storageWalFolder.getName());
-      File walFile = SystemFileFactory.INSTANCE.getFile(storageWalFolder, WAL_FILE_NAME);
-      if (!checkFile(walFile)) {
-        failedFiles.add(walFile);
+      File[] walFiles = storageWalFolder
+          .listFiles((dir, name) -> name.startsWith(WAL_FILE_NAME));
+      if (walFiles == null) {
+        continue;
+      }
+      for (File walFile : walFiles) {
+        if (!checkFile(walFile)) {
+          failedFiles.add(walFile);
+        }
       }
     }
     return failedFiles;
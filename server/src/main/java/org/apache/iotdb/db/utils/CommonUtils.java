@@ -22,6 +22,10 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.qp.constant.SQLConstant;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 
 public class CommonUtils {
@@ -61,4 +65,102 @@ public class CommonUtils {
     return Files.walk(folder).filter(p -> p.toFile().isFile())
         .mapToLong(p -> p.toFile().length()).sum();
   }
+
+  /**
+   * convert a typed value of an insertion into the data type of its series, which is only
+   * necessary when the client sends a value of another type, e.g., an INT32 to an INT64 series.
+   * A number is converted directly, and a floating point number to an integer series must be a
+   * whole number in the range of the type.
+   */
+  public static Object convertValue(TSDataType fromType, TSDataType toType, Object value)
+      throws QueryProcessException {
+    if (fromType == toType) {
+      return value;
+    }
+    if (toType == TSDataType.TEXT) {
+      return new Binary(value.toString());
+    }
+    if (value instanceof Number && toType != TSDataType.BOOLEAN) {
+      return convertNumber(toType, (Number) value);
+    }
+    // the string form of a Binary is its content
+    return parseValue(toType, value.toString());
+  }
+
+  private static Object convertNumber(TSDataType toType, Number value)
+      throws QueryProcessException {
+    switch (toType) {
+      case FLOAT:
+        return value.floatValue();
+      case DOUBLE:
+        return value.doubleValue();
+      case INT32:
+        long longValue = toLong(value);
+        if (longValue < Integer.MIN_VALUE || longValue > Integer.MAX_VALUE) {
+          throw new QueryProcessException(
+              String.format("The value %s is out of the range of INT32", value));
+        }
+        return (int) longValue;
+      case INT64:
+        return toLong(value);
+      default:
+        throw new QueryProcessException("Unsupported data type:" + toType);
+    }
+  }
+
+  private static long toLong(Number value) throws QueryProcessException {
+    if (value instanceof Float || value instanceof Double) {
+      double doubleValue = value.doubleValue();
+      // 0x1p63 is the smallest double greater than Long.MAX_VALUE
+      if (doubleValue != Math.rint(doubleValue) || doubleValue < Long.MIN_VALUE
+          || doubleValue >= 0x1p63) {
+        throw new QueryProcessException(
+            String.format("The value %s cannot be converted to an integer", value));
+      }
+    }
+    return value.longValue();
+  }
+
+  /**
+   * parse the string value of an insertion into the object of the given data type.
+   */
+  public static Object parseValue(TSDataType dataType, String value) throws QueryProcessException {
+    try {
+      switch (dataType) {
+        case BOOLEAN:
+          value = value.toLowerCase();
+          if (SQLConstant.BOOLEAN_FALSE_NUM.equals(value) || SQLConstant.BOOLEN_FALSE.equals(value)) {
+            return false;
+          } else if (SQLConstant.BOOLEAN_TRUE_NUM.equals(value) || SQLConstant.BOOLEN_TRUE.equals(value)) {
+            return true;
+          } else {
+            throw new QueryProcessException(
+                "The BOOLEAN data type should be true/TRUE, false/FALSE or 0/1");
+          }
+        case INT32:
+          return Integer.parseInt(value);
+        case INT64:
+          return Long.parseLong(value);
+        case FLOAT:
+          return Float.parseFloat(value);
+        case DOUBLE:
+          return Double.parseDouble(value);
+        case TEXT:
+          if ((value.startsWith(SQLConstant.QUOTE) && value.endsWith(SQLConstant.QUOTE))
+              || (value.startsWith(SQLConstant.DQUOTE) && value.endsWith(SQLConstant.DQUOTE))) {
+            if (value.length() == 1) {
+              return new Binary(value);
+            } else {
+              return new Binary(value.substring(1, value.length() - 1));
+            }
+          } else {
+            throw new QueryProcessException("The TEXT data type should be covered by \" or '");
+          }
+        default:
+          throw new QueryProcessException("Unsupported data type:" + dataType);
+      }
+    } catch (NumberFormatException e) {
+      throw new QueryProcessException(e.getMessage());
+    }
+  }
 }
@@ -46,6 +46,7 @@ public class OpenFileNumUtil {
   private static final String SEARCH_PID_MAC = "ps aux | grep -i %s | grep -v grep";
   //command 'lsof -p' is available on most Linux distro except CentOS.
   private static final String SEARCH_OPEN_DATA_FILE_BY_PID = "lsof -p %d";
+  private static final String SEARCH_MAX_OPEN_FILE_NUM = "ulimit -n";
 
   private static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
   private static DirectoryManager directoryManager = DirectoryManager.getInstance();
@@ -133,6 +134,34 @@ public class OpenFileNumUtil {
     return iotdbPid;
   }
 
+  /**
+   * get the max number of files that can be opened by the IoTDB process, i.e., the soft limit
+   * given by "ulimit -n", which is inherited by the child process.
+   *
+   * @return the limit, or a negative error code if it is unknown or unlimited
+   */
+  public static int getMaxOpenFileNum() {
+    String osName = System.getProperty("os.name").toLowerCase();
+    if (!osName.startsWith(LINUX_OS_NAME) && !osName.startsWith(MAC_OS_NAME)) {
+      return UNSUPPORTED_OS_ERROR_CODE;
+    }
+    int maxOpenFileNum = UNKNOWN_STATISTICS_ERROR_CODE;
+    try {
+      Process pro = Runtime.getRuntime()
+          .exec(new String[]{"/bin/bash", "-c", SEARCH_MAX_OPEN_FILE_NUM});
+      try (BufferedReader in = new BufferedReader(new InputStreamReader(pro.getInputStream()))) {
+        String line = in.readLine();
+        if (line != null && isNumeric(line.trim())) {
+          maxOpenFileNum = Integer.parseInt(line.trim());
+        }
+      }
+      pro.destroy();
+    } catch (IOException | NumberFormatException e) {
+      logger.error("Cannot get max open file number of IoTDB process because ", e);
+    }
+    return maxOpenFileNum;
+  }
+
   /**
    * set pid.
    *
@@ -48,9 +48,7 @@ public class BinaryTVList extends TVList {
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
     values.get(arrayIndex)[elementIndex] = value;
     size++;
-    if (sorted && size > 1 && timestamp < getTime(size - 2)) {
-      sorted = false;
-    }
+    checkSorted(timestamp);
   }
 
   @Override
@@ -89,19 +87,13 @@ public class BinaryTVList extends TVList {
     return cloneArray;
   }
 
-  public void sort() {
-    if (sortedTimestamps == null || sortedTimestamps.length < size) {
-      sortedTimestamps = (long[][]) PrimitiveArrayPool
-          .getInstance().getDataListsByType(TSDataType.INT64, size);
-    }
-    if (sortedValues == null || sortedValues.length < size) {
-      sortedValues = (Binary[][]) PrimitiveArrayPool
-          .getInstance().getDataListsByType(TSDataType.TEXT, size);
+  @Override
+  protected void prepareSortedValues(int arrayNum, int fromArray) {
+    sortedValues = new Binary[arrayNum][];
+    for (int i = fromArray; i < arrayNum; i++) {
+      sortedValues[i] = (Binary[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.TEXT);
     }
-    sort(0, size);
-    clearSortedValue();
-    clearSortedTime();
-    sorted = true;
   }
 
   @Override
@@ -118,7 +110,9 @@ public class BinaryTVList extends TVList {
   void clearSortedValue() {
     if (sortedValues != null) {
       for (Binary[] dataArray : sortedValues) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        if (dataArray != null) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       sortedValues = null;
     }
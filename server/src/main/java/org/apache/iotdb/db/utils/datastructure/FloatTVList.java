@@ -47,9 +47,7 @@ public class FloatTVList extends TVList {
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
     values.get(arrayIndex)[elementIndex] = value;
     size++;
-    if (sorted && size > 1 && timestamp < getTime(size - 2)) {
-      sorted = false;
-    }
+    checkSorted(timestamp);
   }
 
   @Override
@@ -88,19 +86,13 @@ public class FloatTVList extends TVList {
     return cloneArray;
   }
 
-  public void sort() {
-    if (sortedTimestamps == null || sortedTimestamps.length < size) {
-      sortedTimestamps = (long[][]) PrimitiveArrayPool
-          .getInstance().getDataListsByType(TSDataType.INT64, size);
-    }
-    if (sortedValues == null || sortedValues.length < size) {
-      sortedValues = (float[][]) PrimitiveArrayPool
-          .getInstance().getDataListsByType(TSDataType.FLOAT, size);
+  @Override
+  protected void prepareSortedValues(int arrayNum, int fromArray) {
+    sortedValues = new float[arrayNum][];
+    for (int i = fromArray; i < arrayNum; i++) {
+      sortedValues[i] = (float[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.FLOAT);
     }
-    sort(0, size);
-    clearSortedValue();
-    clearSortedTime();
-    sorted = true;
   }
 
   @Override
@@ -117,7 +109,9 @@ public class FloatTVList extends TVList {
   void clearSortedValue() {
     if (sortedValues != null) {
       for (float[] dataArray : sortedValues) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        if (dataArray != null) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       sortedValues = null;
     }
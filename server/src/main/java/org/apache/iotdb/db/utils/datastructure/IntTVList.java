@@ -47,9 +47,7 @@ public class IntTVList extends TVList {
     timestamps.get(arrayIndex)[elementIndex] = timestamp;
     values.get(arrayIndex)[elementIndex] = value;
     size++;
-    if (sorted && size > 1 && timestamp < getTime(size - 2)) {
-      sorted = false;
-    }
+    checkSorted(timestamp);
   }
 
   @Override
@@ -88,19 +86,13 @@ public class IntTVList extends TVList {
     return cloneArray;
   }
 
-  public void sort() {
-    if (sortedTimestamps == null || sortedTimestamps.length < size) {
-      sortedTimestamps = (long[][]) PrimitiveArrayPool
-          .getInstance().getDataListsByType(TSDataType.INT64, size);
-    }
-    if (sortedValues == null || sortedValues.length < size) {
-      sortedValues = (int[][]) PrimitiveArrayPool
-          .getInstance().getDataListsByType(TSDataType.INT32, size);
+  @Override
+  protected void prepareSortedValues(int arrayNum, int fromArray) {
+    sortedValues = new int[arrayNum][];
+    for (int i = fromArray; i < arrayNum; i++) {
+      sortedValues[i] = (int[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.INT32);
     }
-    sort(0, size);
-    clearSortedValue();
-    clearSortedTime();
-    sorted = true;
   }
 
   @Override
@@ -117,7 +109,9 @@ public class IntTVList extends TVList {
   void clearSortedValue() {
     if (sortedValues != null) {
       for (int[] dataArray : sortedValues) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        if (dataArray != null) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       sortedValues = null;
     }
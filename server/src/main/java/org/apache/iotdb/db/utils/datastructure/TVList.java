@@ -39,6 +39,11 @@ public abstract class TVList {
 
   protected long[][] sortedTimestamps;
   protected boolean sorted = true;
+  /**
+   * when the list is not sorted, [0, sortedPrefix) is still in time order and only the tail
+   * [sortedPrefix, size) has to be sorted and merged into it.
+   */
+  protected int sortedPrefix;
 
   /**
    * this field is effective only in the Tvlist in a RealOnlyMemChunk.
@@ -140,7 +145,63 @@ public abstract class TVList {
     throw new UnsupportedOperationException(ERR_DATATYPE_NOT_CONSISTENT);
   }
 
-  public abstract void sort();
+  /**
+   * sort the list by time. Only the out-of-order tail is sorted and then merged into the part of
+   * the sorted prefix that overlaps with it, so the cost depends on the number of late points
+   * rather than the size of the list. The sort is stable, points with the same time keep the
+   * order in which they were inserted.
+   */
+  public void sort() {
+    if (sorted) {
+      return;
+    }
+    long tailMinTime = Long.MAX_VALUE;
+    for (int i = sortedPrefix; i < size; i++) {
+      long time = getTime(i);
+      tailMinTime = time < tailMinTime ? time : tailMinTime;
+    }
+    // the prefix before mergeStart is not greater than any point in the tail
+    int mergeStart = upperBound(0, sortedPrefix, tailMinTime);
+
+    int arrayNum = size / ARRAY_SIZE + (size % ARRAY_SIZE == 0 ? 0 : 1);
+    int fromArray = mergeStart / ARRAY_SIZE;
+    sortedTimestamps = new long[arrayNum][];
+    for (int i = fromArray; i < arrayNum; i++) {
+      sortedTimestamps[i] = (long[]) PrimitiveArrayPool.getInstance()
+          .getPrimitiveDataListByType(TSDataType.INT64);
+    }
+    prepareSortedValues(arrayNum, fromArray);
+
+    sort(sortedPrefix, size);
+    if (mergeStart < sortedPrefix) {
+      merge(mergeStart, sortedPrefix, size);
+    }
+    clearSortedValue();
+    clearSortedTime();
+    sorted = true;
+    sortedPrefix = 0;
+  }
+
+  /**
+   * @return the first index in [lo, hi) whose time is greater than the given time, the range
+   * must be sorted.
+   */
+  private int upperBound(int lo, int hi, long time) {
+    while (lo < hi) {
+      int mid = (lo + hi) >>> 1;
+      if (getTime(mid) <= time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * allocate the sorting buffer of values, only the arrays in [fromArray, arrayNum) are used.
+   */
+  protected abstract void prepareSortedValues(int arrayNum, int fromArray);
 
   public long getMinTime() {
     return minTime;
@@ -166,15 +227,20 @@ public abstract class TVList {
 
   public void delete(long upperBound) {
     int newSize = 0;
+    int newSortedPrefix = 0;
     minTime = Long.MAX_VALUE;
     for (int i = 0; i < size; i++) {
       long time = getTime(i);
       if (time > upperBound) {
         set(i, newSize++);
         minTime = time < minTime ? time : minTime;
+        if (i < sortedPrefix) {
+          newSortedPrefix++;
+        }
       }
     }
     size = newSize;
+    sortedPrefix = newSortedPrefix;
     // release primitive arrays that are empty
     int newArrayNum = newSize / ARRAY_SIZE;
     if (newSize % ARRAY_SIZE != 0) {
@@ -192,6 +258,7 @@ public abstract class TVList {
     }
     cloneList.size = size;
     cloneList.sorted = sorted;
+    cloneList.sortedPrefix = sortedPrefix;
     cloneList.minTime = minTime;
   }
 
@@ -199,6 +266,7 @@ public abstract class TVList {
     size = 0;
     timeOffset = Long.MIN_VALUE;
     sorted = true;
+    sortedPrefix = 0;
     minTime = Long.MIN_VALUE;
     clearTime();
     clearSortedTime();
@@ -219,7 +287,9 @@ public abstract class TVList {
   protected void clearSortedTime() {
     if (sortedTimestamps != null) {
       for (long[] dataArray : sortedTimestamps) {
-        PrimitiveArrayPool.getInstance().release(dataArray);
+        if (dataArray != null) {
+          PrimitiveArrayPool.getInstance().release(dataArray);
+        }
       }
       sortedTimestamps = null;
     }
@@ -236,6 +306,17 @@ public abstract class TVList {
     }
   }
 
+  /**
+   * called after a point is appended, mark the list as unsorted if the point is earlier than its
+   * predecessor, all the points before it form the sorted prefix.
+   */
+  protected void checkSorted(long timestamp) {
+    if (sorted && size > 1 && timestamp < getTime(size - 2)) {
+      sorted = false;
+      sortedPrefix = size - 1;
+    }
+  }
+
   protected long[] cloneTime(long[] array) {
     long[] cloneArray = new long[array.length];
     System.arraycopy(array, 0, cloneArray, 0, array.length);
@@ -429,6 +510,16 @@ public abstract class TVList {
       }
     }
     minTime = inPutMinTime < minTime ? inPutMinTime : minTime;
-    sorted = sorted && inputSorted && (size == 0 || inPutMinTime >= getTime(size - 1));
+    if (sorted && !(inputSorted && (size == 0 || inPutMinTime >= getTime(size - 1)))) {
+      // the leading run of the input that is still in order extends the sorted prefix
+      int run = 0;
+      long lastTime = size == 0 ? Long.MIN_VALUE : getTime(size - 1);
+      while (run < length && time[run] >= lastTime) {
+        lastTime = time[run];
+        run++;
+      }
+      sorted = false;
+      sortedPrefix = size + run;
+    }
   }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * LogSegmentPool keeps the WAL segments that are no longer needed in a directory under the WAL
+ * folder, so that a new segment can be renamed from one of them instead of being created and
+ * filled again.
+ */
+public class LogSegmentPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(LogSegmentPool.class);
+  private static final IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  public static final String POOL_DIR_NAME = "recycled";
+  private static final String SEGMENT_PREFIX = "segment";
+
+  private File poolDir;
+  private Deque<File> segments = new ArrayDeque<>();
+  private long nextSegmentId = 0;
+
+  private LogSegmentPool() {
+    poolDir = SystemFileFactory.INSTANCE
+        .getFile(DirectoryManager.getInstance().getWALFolder(), POOL_DIR_NAME);
+    File[] files = poolDir.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        segments.add(file);
+        try {
+          long id = Long.parseLong(file.getName().replace(SEGMENT_PREFIX, ""));
+          nextSegmentId = Math.max(nextSegmentId, id + 1);
+        } catch (NumberFormatException e) {
+          logger.warn("Unrecognized file {} in the WAL segment pool", file);
+        }
+      }
+    }
+  }
+
+  public static LogSegmentPool getInstance() {
+    return InstanceHolder.INSTANCE;
+  }
+
+  /**
+   * move a recycled segment to the given file.
+   *
+   * @return true if a recycled segment is moved, false if the pool is empty.
+   */
+  public synchronized boolean take(File target) {
+    while (!segments.isEmpty()) {
+      File segment = segments.poll();
+      if (segment.renameTo(target)) {
+        logger.debug("Reuse WAL segment {} as {}", segment, target);
+        return true;
+      }
+      logger.warn("Cannot move WAL segment {} to {}", segment, target);
+    }
+    return false;
+  }
+
+  /**
+   * move a segment that is no longer needed into the pool, or delete it if the pool is full.
+   */
+  public synchronized void recycle(File segment) throws IOException {
+    if (segments.size() < config.getMaxRecycledWalSegmentNum()) {
+      if (poolDir.mkdirs()) {
+        logger.info("create the WAL segment pool {}.", poolDir);
+      }
+      File target = SystemFileFactory.INSTANCE
+          .getFile(poolDir, SEGMENT_PREFIX + nextSegmentId++);
+      if (segment.renameTo(target)) {
+        segments.add(target);
+        return;
+      }
+      logger.warn("Cannot move WAL segment {} to {}, delete it", segment, target);
+    }
+    if (!segment.delete()) {
+      throw new IOException(String.format("Cannot delete WAL segment %s", segment));
+    }
+  }
+
+  public synchronized int size() {
+    return segments.size();
+  }
+
+  /**
+   * force the entries of a directory, so that a created or renamed file survives a crash. Not all
+   * platforms support it, so failures are ignored.
+   */
+  static void syncDirectory(File dir) {
+    try (FileChannel channel = FileChannel.open(dir.toPath(), StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException e) {
+      logger.debug("Cannot force directory {}", dir, e);
+    }
+  }
+
+  private static class InstanceHolder {
+
+    private InstanceHolder() {
+    }
+
+    private static final LogSegmentPool INSTANCE = new LogSegmentPool();
+  }
+}
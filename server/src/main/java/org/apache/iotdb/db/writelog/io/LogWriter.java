@@ -77,7 +77,8 @@ public class LogWriter implements ILogWriter {
     channel.write(logBuffer);
     channel.write(checkSumBuffer);
 
-    if (config.getForceWalPeriodInMs() == 0) {
+    // with group commit, the log node forces the channel once for a batch of logs
+    if (config.getForceWalPeriodInMs() == 0 && !config.isEnableWalGroupCommit()) {
       channel.force(true);
     }
   }
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * SegmentLogWriter writes the binarized logs into a preallocated segment file. A segment starts
+ * with a header of SEGMENT_MAGIC and a random version, followed by the logs in the same format as
+ * LogWriter, except that the version is also included in the check sum of each log. So the logs
+ * left by the former use of a recycled segment can be told from the new ones by the check sums.
+ * <p>
+ * The segment is filled with zeros when it is created and when it grows, so that writing logs
+ * neither allocates disk blocks nor changes the size of the file, and forcing the logs does not
+ * have to force the metadata of the file.
+ */
+public class SegmentLogWriter implements ILogWriter {
+
+  private static final Logger logger = LoggerFactory.getLogger(SegmentLogWriter.class);
+
+  /**
+   * a negative number, which is never the size of a log in a legacy WAL file, so the readers of
+   * legacy files stop at a segment.
+   */
+  public static final int SEGMENT_MAGIC = 0xCAFEF00D;
+  public static final int SEGMENT_HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+  private static final int ZERO_BUFFER_SIZE = 64 * 1024;
+
+  private File logFile;
+  private RandomAccessFile randomAccessFile;
+  private FileChannel channel;
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+
+  private long version;
+  private byte[] versionBytes = new byte[Long.BYTES];
+  private long position;
+  private long capacity;
+  /**
+   * whether the size of the file is changed since last force.
+   */
+  private boolean metadataChanged = false;
+
+  private CRC32 checkSummer = new CRC32();
+  private ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+  private ByteBuffer checkSumBuffer = ByteBuffer.allocate(Long.BYTES);
+
+  public SegmentLogWriter(File logFile) {
+    this.logFile = logFile;
+  }
+
+  @Override
+  public void write(ByteBuffer logBuffer) throws IOException {
+    if (channel == null) {
+      open();
+    }
+    logBuffer.flip();
+    int logSize = logBuffer.limit();
+    // 4 bytes size and 8 bytes check sum
+    ensureCapacity(Integer.BYTES + logSize + Long.BYTES);
+
+    checkSummer.reset();
+    checkSummer.update(logBuffer);
+    checkSummer.update(versionBytes, 0, versionBytes.length);
+    long checkSum = checkSummer.getValue();
+
+    logBuffer.flip();
+
+    lengthBuffer.clear();
+    checkSumBuffer.clear();
+    lengthBuffer.putInt(logSize);
+    checkSumBuffer.putLong(checkSum);
+    lengthBuffer.flip();
+    checkSumBuffer.flip();
+
+    channel.position(position);
+    ByteBuffer[] buffers = new ByteBuffer[]{lengthBuffer, logBuffer, checkSumBuffer};
+    long toWrite = Integer.BYTES + (long) logSize + Long.BYTES;
+    long written = 0;
+    while (written < toWrite) {
+      written += channel.write(buffers);
+    }
+    position += toWrite;
+
+    if (config.getForceWalPeriodInMs() == 0 && !config.isEnableWalGroupCommit()) {
+      force();
+    }
+  }
+
+  @Override
+  public void force() throws IOException {
+    if (channel != null) {
+      channel.force(metadataChanged);
+      metadataChanged = false;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      randomAccessFile.close();
+      randomAccessFile = null;
+      channel = null;
+    }
+  }
+
+  /**
+   * take a recycled segment or create a new one, and start a new use of it.
+   */
+  private void open() throws IOException {
+    boolean exists = logFile.exists();
+    if (!exists) {
+      LogSegmentPool.getInstance().take(logFile);
+    }
+    randomAccessFile = new RandomAccessFile(logFile, "rw");
+    channel = randomAccessFile.getChannel();
+    capacity = channel.size();
+    if (exists && capacity > 0) {
+      // the segment is written before a restart, append to it
+      readVersion();
+      position = findEnd();
+      logger.info("Continue writing WAL segment {} from {}", logFile, position);
+    } else {
+      if (capacity < config.getWalSegmentSize()) {
+        fillZeros(capacity, config.getWalSegmentSize());
+      }
+      setVersion(ThreadLocalRandom.current().nextLong());
+      ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+      header.putInt(SEGMENT_MAGIC);
+      header.putLong(version);
+      header.flip();
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      position = SEGMENT_HEADER_SIZE;
+    }
+    channel.force(true);
+    metadataChanged = false;
+    if (!exists) {
+      LogSegmentPool.syncDirectory(logFile.getParentFile());
+    }
+  }
+
+  private void readVersion() throws IOException {
+    ByteBuffer header = ByteBuffer.allocate(SEGMENT_HEADER_SIZE);
+    channel.read(header, 0);
+    header.flip();
+    if (header.remaining() < SEGMENT_HEADER_SIZE || header.getInt() != SEGMENT_MAGIC) {
+      throw new IOException(String.format("%s exists but is not a WAL segment", logFile));
+    }
+    setVersion(header.getLong());
+  }
+
+  private void setVersion(long version) {
+    this.version = version;
+    ByteBuffer.wrap(versionBytes).putLong(version);
+  }
+
+  /**
+   * @return the position after the last log of the current use of the segment.
+   */
+  private long findEnd() throws IOException {
+    long end = SEGMENT_HEADER_SIZE;
+    ByteBuffer sizeBuffer = ByteBuffer.allocate(Integer.BYTES);
+    while (end + SingleFileLogReader.LEAST_LOG_SIZE <= capacity) {
+      sizeBuffer.clear();
+      channel.read(sizeBuffer, end);
+      sizeBuffer.flip();
+      int logSize = sizeBuffer.getInt();
+      if (logSize <= 0 || end + Integer.BYTES + logSize + Long.BYTES > capacity) {
+        break;
+      }
+      ByteBuffer logAndCheckSum = ByteBuffer.allocate(logSize + Long.BYTES);
+      channel.read(logAndCheckSum, end + Integer.BYTES);
+      logAndCheckSum.flip();
+      checkSummer.reset();
+      checkSummer.update(logAndCheckSum.array(), 0, logSize);
+      checkSummer.update(versionBytes, 0, versionBytes.length);
+      logAndCheckSum.position(logSize);
+      if (checkSummer.getValue() != logAndCheckSum.getLong()) {
+        break;
+      }
+      end += Integer.BYTES + logSize + Long.BYTES;
+    }
+    return end;
+  }
+
+  private void ensureCapacity(long size) throws IOException {
+    if (position + size <= capacity) {
+      return;
+    }
+    long newCapacity = capacity + Math.max(config.getWalSegmentSize(), size);
+    fillZeros(capacity, newCapacity);
+    metadataChanged = true;
+  }
+
+  private void fillZeros(long start, long end) throws IOException {
+    ByteBuffer zeros = ByteBuffer.allocate(ZERO_BUFFER_SIZE);
+    long pos = start;
+    while (pos < end) {
+      zeros.clear();
+      zeros.limit((int) Math.min(ZERO_BUFFER_SIZE, end - pos));
+      pos += channel.write(zeros, pos);
+    }
+    capacity = end;
+  }
+
+  /**
+   * used by tests to check the zeros filled.
+   */
+  long getCapacity() {
+    return capacity;
+  }
+}
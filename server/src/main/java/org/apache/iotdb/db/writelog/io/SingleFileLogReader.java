@@ -33,7 +33,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * SingleFileLogReader reads binarized WAL logs from a file through a DataInputStream by scanning
- * the file from head to tail.
+ * the file from head to tail. Both the files written by LogWriter and the segments written by
+ * SegmentLogWriter can be read. In a segment, the logs end at the first one whose size or check
+ * sum is invalid, which is the normal end of the preallocated space rather than a corruption.
  */
 public class SingleFileLogReader implements ILogReader {
 
@@ -53,6 +55,12 @@ public class SingleFileLogReader implements ILogReader {
 
   private boolean fileCorrupted = false;
 
+  private boolean headerChecked;
+  /**
+   * the version of the segment, or null if the file is not a segment.
+   */
+  private byte[] segmentVersion;
+
   public SingleFileLogReader(File logFile) throws FileNotFoundException {
     open(logFile);
   }
@@ -64,6 +72,10 @@ public class SingleFileLogReader implements ILogReader {
         return true;
       }
 
+      if (!headerChecked) {
+        checkSegmentHeader();
+      }
+
       if (logStream.available() < LEAST_LOG_SIZE) {
         return false;
       }
@@ -72,6 +84,9 @@ public class SingleFileLogReader implements ILogReader {
       if (logSize <= 0) {
         return false;
       }
+      if (segmentVersion != null && logSize > logStream.available() - Long.BYTES) {
+        return false;
+      }
       buffer = new byte[logSize];
 
       int readLen = logStream.read(buffer, 0, logSize);
@@ -82,6 +97,13 @@ public class SingleFileLogReader implements ILogReader {
       final long checkSum = logStream.readLong();
       checkSummer.reset();
       checkSummer.update(buffer, 0, logSize);
+      if (segmentVersion != null) {
+        checkSummer.update(segmentVersion, 0, segmentVersion.length);
+        if (checkSummer.getValue() != checkSum) {
+          // a log left by the former use of a recycled segment
+          return false;
+        }
+      }
       if (checkSummer.getValue() != checkSum) {
         throw new IOException(String.format("The check sum of the No.%d log batch is incorrect! In "
             + "file: "
@@ -99,6 +121,18 @@ public class SingleFileLogReader implements ILogReader {
     return true;
   }
 
+  private void checkSegmentHeader() throws IOException {
+    headerChecked = true;
+    logStream.mark(SegmentLogWriter.SEGMENT_HEADER_SIZE);
+    if (logStream.available() >= SegmentLogWriter.SEGMENT_HEADER_SIZE
+        && logStream.readInt() == SegmentLogWriter.SEGMENT_MAGIC) {
+      segmentVersion = new byte[Long.BYTES];
+      logStream.readFully(segmentVersion);
+    } else {
+      logStream.reset();
+    }
+  }
+
   @Override
   public PhysicalPlan next() {
     if (!hasNext()){
@@ -125,6 +159,8 @@ public class SingleFileLogReader implements ILogReader {
     logStream = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
     this.filepath = logFile.getPath();
     idx = 0;
+    headerChecked = false;
+    segmentVersion = null;
   }
 
   public boolean isFileCorrupted() {
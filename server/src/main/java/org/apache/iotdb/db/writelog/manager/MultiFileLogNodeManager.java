@@ -73,6 +73,46 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
       }
   };
 
+  private Thread groupCommitThread;
+
+  private final Object groupCommitMonitor = new Object();
+  private boolean hasUncommittedLog = false;
+
+  /**
+   * Commit the logs of all nodes once some logs are written. Logs written during a commit are
+   * committed together by the next one, and the commit may be delayed by
+   * walGroupCommitLatencyInMs to gather more logs. A node whose buffer is full is committed at
+   * once by the insertion that finds the buffer full.
+   */
+  private final Runnable groupCommitTask = () -> {
+    while (true) {
+      try {
+        synchronized (groupCommitMonitor) {
+          while (!hasUncommittedLog) {
+            groupCommitMonitor.wait();
+          }
+          hasUncommittedLog = false;
+        }
+        if (config.getWalGroupCommitLatencyInMs() > 0) {
+          Thread.sleep(config.getWalGroupCommitLatencyInMs());
+        }
+      } catch (InterruptedException e) {
+        logger.info("WAL group commit thread exits.");
+        Thread.currentThread().interrupt();
+        break;
+      }
+
+      for (WriteLogNode node : nodeMap.values()) {
+        // a failed node must not stop the group commit of the others
+        try {
+          node.groupCommit();
+        } catch (Exception e) {
+          logger.error("Group commit of log node {} failed", node.getIdentifier(), e);
+        }
+      }
+    }
+  };
+
   private MultiFileLogNodeManager() {
     nodeMap = new ConcurrentHashMap<>();
   }
@@ -95,6 +135,16 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
     return node;
   }
 
+  /**
+   * wake up the group commit thread, called by a node when logs are written into its empty buffer.
+   */
+  public void notifyUncommittedLog() {
+    synchronized (groupCommitMonitor) {
+      hasUncommittedLog = true;
+      groupCommitMonitor.notifyAll();
+    }
+  }
+
   @Override
   public void deleteNode(String identifier) throws IOException {
     WriteLogNode node = nodeMap.remove(identifier);
@@ -105,7 +155,7 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
 
   @Override
   public void close() {
-    if (!isActivated(forceThread)) {
+    if (!isActivated(forceThread) && !isActivated(groupCommitThread)) {
       logger.warn("MultiFileLogNodeManager has not yet started");
       return;
     }
@@ -117,6 +167,13 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
         // wait for forceThread
       }
     }
+    if (isActivated(groupCommitThread)) {
+      groupCommitThread.interrupt();
+      logger.info("Waiting for group commit thread to stop");
+      while (groupCommitThread.isAlive()) {
+        // wait for groupCommitThread
+      }
+    }
     logger.info("{} nodes to be closed", nodeMap.size());
     for (WriteLogNode node : nodeMap.values()) {
       try {
@@ -135,14 +192,17 @@ public class MultiFileLogNodeManager implements WriteLogNodeManager, IService {
       if (!config.isEnableWal()) {
         return;
       }
-      if (!isActivated(forceThread)) {
-        if (config.getForceWalPeriodInMs() > 0) {
-          InstanceHolder.instance.forceThread = new Thread(InstanceHolder.instance.forceTask,
-              ThreadName.WAL_FORCE_DAEMON.getName());
-          InstanceHolder.instance.forceThread.start();
-        }
-      } else {
+      if (isActivated(forceThread) || isActivated(groupCommitThread)) {
         logger.warn("MultiFileLogNodeManager has already started");
+      } else if (config.isEnableWalGroupCommit()) {
+        InstanceHolder.instance.groupCommitThread = new Thread(
+            InstanceHolder.instance.groupCommitTask,
+            ThreadName.WAL_GROUP_COMMIT_DAEMON.getName());
+        InstanceHolder.instance.groupCommitThread.start();
+      } else if (config.getForceWalPeriodInMs() > 0) {
+        InstanceHolder.instance.forceThread = new Thread(InstanceHolder.instance.forceTask,
+            ThreadName.WAL_FORCE_DAEMON.getName());
+        InstanceHolder.instance.forceThread.start();
       }
     } catch (Exception e) {
       throw new StartupException(this.getID().getName(), e.getMessage());
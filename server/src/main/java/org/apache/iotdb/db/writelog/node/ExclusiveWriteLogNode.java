@@ -23,8 +23,13 @@ import java.io.IOException;
 import java.nio.BufferOverflowException;
 import java.nio.ByteBuffer;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.apache.commons.io.FileUtils;
 import org.apache.iotdb.db.conf.IoTDBConfig;
@@ -34,8 +39,11 @@ import org.apache.iotdb.db.engine.fileSystem.SystemFileFactory;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 import org.apache.iotdb.db.writelog.io.ILogWriter;
+import org.apache.iotdb.db.writelog.io.LogSegmentPool;
 import org.apache.iotdb.db.writelog.io.LogWriter;
 import org.apache.iotdb.db.writelog.io.MultiFileLogReader;
+import org.apache.iotdb.db.writelog.io.SegmentLogWriter;
+import org.apache.iotdb.db.writelog.manager.MultiFileLogNodeManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +55,8 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
   public static final String WAL_FILE_NAME = "wal";
   private static final Logger logger = LoggerFactory.getLogger(ExclusiveWriteLogNode.class);
   private static int logBufferSize = IoTDBDescriptor.getInstance().getConfig().getWalBufferSize();
+  private static final CompletableFuture<Void> COMPLETED_FUTURE = CompletableFuture
+      .completedFuture(null);
 
   private String identifier;
 
@@ -65,6 +75,30 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   private int bufferedLogNum = 0;
 
+  private boolean enableGroupCommit = config.isEnableWalGroupCommit();
+
+  /**
+   * whether the logs are written into preallocated segments, which are recycled when discarded.
+   */
+  private boolean enableSegment = config.isEnableWalSegment();
+
+  /**
+   * With group commit, new logs are put into logBuffer while the logs in commitBuffer are being
+   * written and forced, after which the two buffers are swapped by the next group commit.
+   */
+  private ByteBuffer commitBuffer;
+
+  /**
+   * completed when the logs in logBuffer are forced to disk.
+   */
+  private CompletableFuture<Void> commitFuture = new CompletableFuture<>();
+
+  /**
+   * Held when the log file is written, forced or changed. It must be acquired before lock if both
+   * are needed, so that new logs can be put into the buffer while the log file is being forced.
+   */
+  private Lock commitLock = new ReentrantLock();
+
   /**
    * constructor of ExclusiveWriteLogNode.
    *
@@ -77,13 +111,26 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     if (SystemFileFactory.INSTANCE.getFile(logDirectory).mkdirs()) {
       logger.info("create the WAL folder {}." + logDirectory);
     }
+    if (enableGroupCommit) {
+      commitBuffer = ByteBuffer.allocate(logBufferSize);
+    }
   }
 
   @Override
-  public void write(PhysicalPlan plan) throws IOException {
+  public CompletableFuture<Void> write(PhysicalPlan plan) throws IOException {
+    return write(Collections.singletonList(plan));
+  }
+
+  @Override
+  public CompletableFuture<Void> write(List<? extends PhysicalPlan> plans) throws IOException {
+    if (enableGroupCommit) {
+      return groupCommitWrite(plans);
+    }
     lock.writeLock().lock();
     try {
-      putLog(plan);
+      for (PhysicalPlan plan : plans) {
+        putLog(plan);
+      }
       if (bufferedLogNum >= config.getFlushWalThreshold()) {
         sync();
       }
@@ -92,6 +139,53 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     } finally {
       lock.writeLock().unlock();
     }
+    return COMPLETED_FUTURE;
+  }
+
+  private CompletableFuture<Void> groupCommitWrite(List<? extends PhysicalPlan> plans)
+      throws IOException {
+    // the logs committed because the buffer overflows in the middle of the plans
+    CompletableFuture<Void> committedFuture = null;
+    boolean buffered = false;
+    lock.writeLock().lock();
+    try {
+      for (PhysicalPlan plan : plans) {
+        while (true) {
+          logBuffer.mark();
+          try {
+            plan.serializeTo(logBuffer);
+            if (++bufferedLogNum == 1) {
+              MultiFileLogNodeManager.getInstance().notifyUncommittedLog();
+            }
+            buffered = true;
+            break;
+          } catch (BufferOverflowException e) {
+            logBuffer.reset();
+            if (bufferedLogNum == 0) {
+              throw new IOException("Log cannot fit into buffer, please increase wal_buffer_size",
+                  e);
+            }
+            logger.info("WAL BufferOverflow !");
+            if (buffered) {
+              committedFuture = committedFuture == null ? commitFuture
+                  : CompletableFuture.allOf(committedFuture, commitFuture);
+              buffered = false;
+            }
+            // commitLock must be acquired before lock, so release lock during the commit
+            lock.writeLock().unlock();
+            try {
+              groupCommit();
+            } finally {
+              lock.writeLock().lock();
+            }
+          }
+        }
+      }
+      return committedFuture == null ? commitFuture
+          : CompletableFuture.allOf(committedFuture, commitFuture);
+    } finally {
+      lock.writeLock().unlock();
+    }
   }
 
   private void putLog(PhysicalPlan plan) {
@@ -109,37 +203,94 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   @Override
   public void close() {
-    sync();
-    forceWal();
-    lock.writeLock().lock();
+    commitLock.lock();
     try {
-      if (this.currentFileWriter != null) {
-        this.currentFileWriter.close();
-        this.currentFileWriter = null;
+      forceSync();
+      lock.writeLock().lock();
+      try {
+        if (this.currentFileWriter != null) {
+          this.currentFileWriter.close();
+          this.currentFileWriter = null;
+        }
+        logger.debug("Log node {} closed successfully", identifier);
+      } catch (IOException e) {
+        logger.error("Cannot close log node {} because:", identifier, e);
+      } finally {
+        lock.writeLock().unlock();
       }
-      logger.debug("Log node {} closed successfully", identifier);
-    } catch (IOException e) {
-      logger.error("Cannot close log node {} because:", identifier, e);
     } finally {
-      lock.writeLock().unlock();
+      commitLock.unlock();
     }
   }
 
   @Override
   public void forceSync() {
+    if (enableGroupCommit) {
+      groupCommit();
+      return;
+    }
     sync();
     forceWal();
   }
 
+  @Override
+  public void groupCommit() {
+    if (!enableGroupCommit) {
+      forceSync();
+      return;
+    }
+    commitLock.lock();
+    try {
+      ByteBuffer buffer;
+      CompletableFuture<Void> future;
+      int logNum;
+      lock.writeLock().lock();
+      try {
+        if (bufferedLogNum == 0) {
+          return;
+        }
+        buffer = logBuffer;
+        logBuffer = commitBuffer;
+        commitBuffer = buffer;
+        future = commitFuture;
+        commitFuture = new CompletableFuture<>();
+        logNum = bufferedLogNum;
+        bufferedLogNum = 0;
+      } finally {
+        lock.writeLock().unlock();
+      }
+
+      try {
+        ILogWriter writer = getCurrentFileWriter();
+        writer.write(buffer);
+        writer.force();
+        future.complete(null);
+        logger.debug("Log node {} commits {} logs.", identifier, logNum);
+      } catch (Throwable e) {
+        // the waiting inserts must be released whatever the failure is
+        logger.error("Log node {} group commit failed, change system mode to read-only",
+            identifier, e);
+        IoTDBDescriptor.getInstance().getConfig().setReadOnly(true);
+        future.completeExceptionally(e);
+      } finally {
+        buffer.clear();
+      }
+    } finally {
+      commitLock.unlock();
+    }
+  }
+
 
   @Override
   public void notifyStartFlush() {
+    commitLock.lock();
     lock.writeLock().lock();
     try {
       close();
       nextFileWriter();
     } finally {
       lock.writeLock().unlock();
+      commitLock.unlock();
     }
   }
 
@@ -166,13 +317,28 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
 
   @Override
   public void delete() throws IOException {
+    commitLock.lock();
     lock.writeLock().lock();
     try {
       logBuffer.clear();
+      bufferedLogNum = 0;
+      // the abandoned logs will never be committed
+      commitFuture.completeExceptionally(new IOException("Log node " + identifier
+          + " is deleted"));
+      commitFuture = new CompletableFuture<>();
       close();
+      if (enableSegment) {
+        File[] logFiles = SystemFileFactory.INSTANCE.getFile(logDirectory).listFiles();
+        if (logFiles != null) {
+          for (File logFile : logFiles) {
+            LogSegmentPool.getInstance().recycle(logFile);
+          }
+        }
+      }
       FileUtils.deleteDirectory(SystemFileFactory.INSTANCE.getFile(logDirectory));
     } finally {
       lock.writeLock().unlock();
+      commitLock.unlock();
     }
   }
 
@@ -189,7 +355,11 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
       logger.info("Log file does not exist");
     } else {
       try {
-        FileUtils.forceDelete(logFile);
+        if (enableSegment) {
+          LogSegmentPool.getInstance().recycle(logFile);
+        } else {
+          FileUtils.forceDelete(logFile);
+        }
         logger.info("Log node {} cleaned old file", identifier);
       } catch (IOException e) {
         logger.error("Old log file {} of {} cannot be deleted", logFile.getName(), identifier, e);
@@ -246,7 +416,7 @@ public class ExclusiveWriteLogNode implements WriteLogNode, Comparable<Exclusive
     if (newFile.getParentFile().mkdirs()) {
       logger.info("create WAL parent folder {}.", newFile.getParent());
     }
-    currentFileWriter = new LogWriter(newFile);
+    currentFileWriter = enableSegment ? new SegmentLogWriter(newFile) : new LogWriter(newFile);
   }
 
   @Override
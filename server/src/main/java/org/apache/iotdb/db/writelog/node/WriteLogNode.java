@@ -19,6 +19,8 @@
 package org.apache.iotdb.db.writelog.node;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.writelog.io.ILogReader;
 
@@ -33,8 +35,20 @@ public interface WriteLogNode {
    * synced to disk.
    *
    * @param plan - a PhysicalPlan
+   * @return a future which is completed when the log is forced to disk by a group commit, or an
+   * already completed future if group commit is disabled.
    */
-  void write(PhysicalPlan plan) throws IOException;
+  CompletableFuture<Void> write(PhysicalPlan plan) throws IOException;
+
+  /**
+   * Write the wals of many PhysicalPlans at once, they are put into the cache together and
+   * committed by the same group commit unless the cache overflows.
+   *
+   * @param plans - PhysicalPlans
+   * @return a future which is completed when all the logs are forced to disk, as the one returned
+   * by {@link #write(PhysicalPlan)}.
+   */
+  CompletableFuture<Void> write(List<? extends PhysicalPlan> plans) throws IOException;
 
   /**
    * Sync and close streams.
@@ -46,6 +60,12 @@ public interface WriteLogNode {
    */
   void forceSync() throws IOException;
 
+  /**
+   * Write what in cache to disk and force it, then complete the futures of the written logs. Logs
+   * can still be written into this node while the former logs are being forced.
+   */
+  void groupCommit();
+
   /**
    * When data that have WALs in this node start to be flushed, this method must be called to
    * change the working WAL file.
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.MetadataManagerHelper;
+import org.apache.iotdb.db.engine.flush.TsFileFlushPolicy.DirectFlushPolicy;
+import org.apache.iotdb.db.engine.querycontext.QueryDataSource;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.apache.iotdb.db.metadata.MManager;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.TsFileSequenceReader;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ChunkCacheTest {
+
+  private QueryContext context = EnvironmentUtils.TEST_QUERY_CONTEXT;
+
+  private String storageGroup = "root.vehicle";
+  private String deviceId0 = "root.vehicle.d0";
+  private String measurementId0 = "s0";
+  private StorageGroupProcessor storageGroupProcessor;
+  private String systemDir = TestConstant.BASE_OUTPUT_PATH.concat("data")
+      .concat(File.separator).concat("info");
+
+  static {
+    MManager.getInstance().init();
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    MetadataManagerHelper.initMetadata();
+    ActiveTimeSeriesCounter.getInstance().init(storageGroup);
+    storageGroupProcessor = new StorageGroupProcessor(systemDir, storageGroup,
+        new DirectFlushPolicy());
+    for (int j = 1; j <= 100; j++) {
+      insertOneRecord(j, j);
+    }
+    storageGroupProcessor.waitForAllCurrentTsFileProcessorsClosed();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    storageGroupProcessor.syncDeleteDataFiles();
+    EnvironmentUtils.cleanEnv();
+    EnvironmentUtils.cleanDir(systemDir);
+  }
+
+  private void insertOneRecord(long time, int num) throws QueryProcessException {
+    TSRecord record = new TSRecord(time, deviceId0);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId0, String.valueOf(num)));
+    storageGroupProcessor.insert(new InsertPlan(record));
+  }
+
+  @Test
+  public void testGetAndRemove() throws IOException {
+    Path path = new Path(deviceId0, measurementId0);
+    QueryDataSource queryDataSource = storageGroupProcessor
+        .query(deviceId0, measurementId0, context, null);
+    TsFileResource resource = queryDataSource.getSeqResources().get(0);
+    Assert.assertTrue(resource.isClosed());
+
+    List<ChunkMetaData> metaDataList = DeviceMetaDataCache.getInstance().get(resource, path);
+    Assert.assertEquals(1, metaDataList.size());
+    ChunkMetaData chunkMetaData = metaDataList.get(0);
+    TsFileSequenceReader reader = FileReaderManager.getInstance().get(resource, true);
+
+    ChunkCache chunkCache = ChunkCache.getInstance();
+    Chunk first = chunkCache.get(chunkMetaData, reader);
+    Chunk second = chunkCache.get(chunkMetaData, reader);
+    // both chunks share the cached data but own their positions
+    Assert.assertEquals(first.getData(), second.getData());
+    Assert.assertNotSame(first.getData(), second.getData());
+    first.getData().get();
+    Assert.assertEquals(0, second.getData().position());
+    Assert.assertTrue(chunkCache.calculateChunkHitRatio() > 0);
+
+    // the deletion time is taken from the metadata instead of the cached chunk
+    chunkMetaData.setDeletedAt(50);
+    Assert.assertEquals(50, chunkCache.get(chunkMetaData, reader).getDeletedAt());
+
+    chunkCache.remove(resource);
+    double hitRatio = chunkCache.calculateChunkHitRatio();
+    chunkCache.get(chunkMetaData, reader);
+    Assert.assertTrue(chunkCache.calculateChunkHitRatio() < hitRatio);
+  }
+}
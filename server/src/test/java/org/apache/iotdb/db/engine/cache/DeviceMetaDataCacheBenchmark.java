@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.cache;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.apache.iotdb.db.constant.TestConstant;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.query.control.FileReaderManager;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
+import org.apache.iotdb.tsfile.file.metadata.TsFileMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.write.TsFileWriter;
+import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
+
+/**
+ * Concurrent lookup benchmark of the ChunkMetaData cache. Compares {@link DeviceMetaDataCache}
+ * with the former single LRULinkedHashMap guarded by one monitor, which builds and interns a
+ * string key and copies the cached list for each hit.
+ */
+public class DeviceMetaDataCacheBenchmark {
+
+  private static int threadNum = 64;
+  private static int lookupNumPerThread = 200000;
+  private static int deviceNum = 10;
+  private static int measurementNum = 10;
+  private static int ptNum = 1000;
+  private static int flushInterval = 100;
+
+  private static Path[] paths = new Path[deviceNum * measurementNum];
+
+  public static void main(String[] args) throws Exception {
+    EnvironmentUtils.envSetUp();
+    File file = new File(TestConstant.BASE_OUTPUT_PATH.concat("cache-bench.tsfile"));
+    TsFileResource resource = new TsFileResource(file);
+    try {
+      prepareFile(resource);
+      resource.setClosed(true);
+
+      LegacyCache legacyCache = new LegacyCache();
+      DeviceMetaDataCache cache = DeviceMetaDataCache.getInstance();
+      // warm up both caches and the JIT
+      run("legacy", path -> legacyCache.get(resource, path));
+      run("segmented", path -> cache.get(resource, path));
+
+      long legacyTime = run("legacy", path -> legacyCache.get(resource, path));
+      long segmentedTime = run("segmented", path -> cache.get(resource, path));
+      System.out.println(String.format(
+          "Num of threads: %d, Num of lookups for each thread: %d, legacy cache: %d ms, "
+              + "segmented cache: %d ms.", threadNum, lookupNumPerThread, legacyTime,
+          segmentedTime));
+    } finally {
+      FileReaderManager.getInstance().closeAndRemoveAllOpenedReaders();
+      FileReaderManager.getInstance().stop();
+      resource.remove();
+      EnvironmentUtils.cleanEnv();
+    }
+  }
+
+  private static long run(String name, Lookup lookup) throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    List<Future<Long>> futures = new ArrayList<>();
+    long startTime = System.currentTimeMillis();
+    for (int i = 0; i < threadNum; i++) {
+      final int offset = i;
+      futures.add(pool.submit(() -> {
+        long chunkNum = 0;
+        for (int j = 0; j < lookupNumPerThread; j++) {
+          chunkNum += lookup.get(paths[(offset + j) % paths.length]).size();
+        }
+        return chunkNum;
+      }));
+    }
+    long chunkNum = 0;
+    for (Future<Long> future : futures) {
+      chunkNum += future.get();
+    }
+    long time = System.currentTimeMillis() - startTime;
+    pool.shutdown();
+    pool.awaitTermination(1, TimeUnit.MINUTES);
+    System.out.println(String.format("%s: %d ms, %d chunks looked up.", name, time, chunkNum));
+    return time;
+  }
+
+  private static void prepareFile(TsFileResource resource) throws Exception {
+    TsFileWriter fileWriter = new TsFileWriter(resource.getFile());
+    for (int i = 0; i < measurementNum; i++) {
+      fileWriter.addMeasurement(new MeasurementSchema("s" + i, TSDataType.INT64,
+          TSEncoding.PLAIN));
+    }
+    for (int i = 0; i < deviceNum; i++) {
+      for (int j = 0; j < measurementNum; j++) {
+        paths[i * measurementNum + j] = new Path("root.bench.d" + i, "s" + j);
+      }
+    }
+    for (long t = 0; t < ptNum; t++) {
+      for (int i = 0; i < deviceNum; i++) {
+        String deviceId = "root.bench.d" + i;
+        TSRecord record = new TSRecord(t, deviceId);
+        for (int j = 0; j < measurementNum; j++) {
+          record.addTuple(DataPoint.getDataPoint(TSDataType.INT64, "s" + j, String.valueOf(t)));
+        }
+        fileWriter.write(record);
+        resource.updateStartTime(deviceId, t);
+        resource.updateEndTime(deviceId, t);
+      }
+      if ((t + 1) % flushInterval == 0) {
+        fileWriter.flushForTest();
+      }
+    }
+    fileWriter.close();
+  }
+
+  @FunctionalInterface
+  private interface Lookup {
+
+    List<ChunkMetaData> get(Path path) throws Exception;
+  }
+
+  /**
+   * the lookup path of the cache before it was split into segments.
+   */
+  private static class LegacyCache {
+
+    private LRULinkedHashMap<String, List<ChunkMetaData>> lruCache =
+        new LRULinkedHashMap<String, List<ChunkMetaData>>(Long.MAX_VALUE, true) {
+          @Override
+          protected long calEntrySize(String key, List<ChunkMetaData> value) {
+            return key.length() * 2L;
+          }
+        };
+
+    private List<ChunkMetaData> get(TsFileResource resource, Path seriesPath) throws Exception {
+      StringBuilder builder = new StringBuilder(resource.getFile().getPath()).append(".")
+          .append(seriesPath.getDevice());
+      String pathDeviceStr = builder.toString();
+      String key = builder.append(".").append(seriesPath.getMeasurement()).toString();
+      Object devicePathObject = pathDeviceStr.intern();
+
+      synchronized (lruCache) {
+        if (lruCache.containsKey(key)) {
+          return new ArrayList<>(lruCache.get(key));
+        }
+      }
+      synchronized (devicePathObject) {
+        synchronized (lruCache) {
+          if (lruCache.containsKey(key)) {
+            return new ArrayList<>(lruCache.get(key));
+          }
+        }
+        TsFileMetaData fileMetaData = TsFileMetaDataCache.getInstance().get(resource);
+        TsDeviceMetadata deviceMetaData = TsFileMetadataUtils
+            .getTsDeviceMetaData(resource, seriesPath, fileMetaData);
+        List<ChunkMetaData> chunkMetaDataList = TsFileMetadataUtils
+            .getChunkMetaDataList(seriesPath.getMeasurement(), deviceMetaData);
+        synchronized (lruCache) {
+          lruCache.put(key, chunkMetaDataList);
+        }
+        return new ArrayList<>(chunkMetaDataList);
+      }
+    }
+  }
+}
@@ -20,7 +20,12 @@ package org.apache.iotdb.db.engine.cache;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.constant.TestConstant;
@@ -35,6 +40,7 @@ import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.TsDeviceMetadata;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
@@ -161,5 +167,44 @@ public class DeviceMetaDataCacheTest {
     Assert.assertEquals(0, metaDataList.size());
   }
 
+  @Test
+  public void testConcurrentGet() throws Exception {
+    IoTDBDescriptor.getInstance().getConfig().setMetaDataCacheEnable(true);
+    TsFileResource resource = storageGroupProcessor
+        .query(deviceId0, measurementId0, context, null).getSeqResources().get(0);
+    String[] measurementIds = {measurementId0, measurementId1, measurementId2, measurementId3,
+        measurementId4, measurementId5};
+    // the chunks read from the file without the cache
+    List<List<ChunkMetaData>> expected = new ArrayList<>();
+    for (String measurementId : measurementIds) {
+      Path path = new Path(deviceId0, measurementId);
+      TsDeviceMetadata deviceMetadata = TsFileMetadataUtils.getTsDeviceMetaData(resource, path,
+          TsFileMetaDataCache.getInstance().get(resource));
+      expected.add(deviceMetadata == null ? Collections.emptyList()
+          : TsFileMetadataUtils.getChunkMetaDataList(measurementId, deviceMetadata));
+    }
 
+    int threadNum = 8;
+    int lookupNumPerThread = 1000;
+    ExecutorService pool = Executors.newFixedThreadPool(threadNum);
+    try {
+      List<Future<Void>> futures = new ArrayList<>();
+      for (int i = 0; i < threadNum; i++) {
+        int offset = i;
+        futures.add(pool.submit(() -> {
+          for (int j = 0; j < lookupNumPerThread; j++) {
+            int index = (offset + j) % measurementIds.length;
+            Assert.assertEquals(expected.get(index), DeviceMetaDataCache.getInstance()
+                .get(resource, new Path(deviceId0, measurementIds[index])));
+          }
+          return null;
+        }));
+      }
+      for (Future<Void> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
 }
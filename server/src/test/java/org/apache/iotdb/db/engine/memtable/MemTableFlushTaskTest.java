@@ -21,6 +21,7 @@ package org.apache.iotdb.db.engine.memtable;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.List;
 import java.util.concurrent.ExecutionException;
 import org.apache.iotdb.db.conf.adapter.ActiveTimeSeriesCounter;
 import org.apache.iotdb.db.constant.TestConstant;
@@ -82,4 +83,26 @@ public class MemTableFlushTaskTest {
     assertEquals(MemTableTestUtils.dataType0, chunkMetaData.getDataType());
     assertEquals(endTime - startTime + 1, chunkMetaData.getNumOfPoints());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testFlushMultipleDevices() throws ExecutionException, InterruptedException {
+    int deviceNum = 50;
+    for (int i = 0; i < deviceNum; i++) {
+      MemTableTestUtils.produceData(memTable, startTime + i, endTime + i, "d" + i,
+          MemTableTestUtils.measurementId0, MemTableTestUtils.dataType0);
+    }
+    MemTableFlushTask memTableFlushTask = new MemTableFlushTask(memTable,
+        MemTableTestUtils.getSchema(), writer, storageGroup);
+    memTableFlushTask.syncFlushMemTable();
+    writer.makeMetadataVisible();
+    assertEquals(deviceNum, writer.getChunkGroupMetaDatas().size());
+    for (int i = 0; i < deviceNum; i++) {
+      List<ChunkMetaData> chunkMetaDataList = writer
+          .getVisibleMetadataList("d" + i, MemTableTestUtils.measurementId0,
+              MemTableTestUtils.dataType0);
+      assertEquals(1, chunkMetaDataList.size());
+      assertEquals(startTime + i, chunkMetaDataList.get(0).getStartTime());
+      assertEquals(endTime + i, chunkMetaDataList.get(0).getEndTime());
+    }
+  }
+}
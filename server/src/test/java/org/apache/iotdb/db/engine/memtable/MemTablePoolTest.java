@@ -18,9 +18,18 @@
  */
 package org.apache.iotdb.db.engine.memtable;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.exception.query.SystemBusyException;
 import org.apache.iotdb.db.rescon.MemTablePool;
+import org.apache.iotdb.rpc.TSStatusCode;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -44,7 +53,7 @@ public class MemTablePoolTest {
   }
 
   @Test
-  public void testGetAndRelease() {
+  public void testGetAndRelease() throws SystemBusyException {
     long time = System.currentTimeMillis();
     for (int i = 0; i < 10; i++) {
       IMemTable memTable = MemTablePool.getInstance().getAvailableMemTable("test case");
@@ -54,6 +63,39 @@ public class MemTablePoolTest {
     System.out.println("memtable pool use deque and synchronized consume:" + time);
   }
 
+  @Test
+  public void testRejectWhenExhausted() throws SystemBusyException {
+    IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+    int prevMaxMemtableNumber = config.getMaxMemtableNumber();
+    long prevTimeout = config.getMemtableAcquireTimeoutInMs();
+    MemTablePool pool = MemTablePool.getInstance();
+    List<IMemTable> acquired = new ArrayList<>();
+    try {
+      // no more memtables can be created, so the pool is exhausted once the stack is drained
+      config.setMaxMemtableNumber(pool.getCreatedMemTableNum());
+      config.setMemtableAcquireTimeoutInMs(100);
+      int available = pool.getAvailableMemTableNum();
+      for (int i = 0; i < available; i++) {
+        acquired.add(pool.getAvailableMemTable("test case"));
+      }
+      long rejected = pool.getRejectedApplicationNum();
+      try {
+        pool.getAvailableMemTable("test case");
+        fail("the pool should be exhausted");
+      } catch (SystemBusyException e) {
+        assertEquals(TSStatusCode.SYSTEM_BUSY.getStatusCode(), e.getErrorCode());
+      }
+      assertEquals(rejected + 1, pool.getRejectedApplicationNum());
+      assertEquals(0, pool.getWaitingApplierNum());
+    } finally {
+      for (IMemTable memTable : acquired) {
+        pool.putBack(memTable, "test case");
+      }
+      config.setMaxMemtableNumber(prevMaxMemtableNumber);
+      config.setMemtableAcquireTimeoutInMs(prevTimeout);
+    }
+  }
+
   //@Test
   public void testSort() {
     long start = System.currentTimeMillis();
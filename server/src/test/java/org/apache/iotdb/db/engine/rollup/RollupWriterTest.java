@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.rollup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.apache.iotdb.db.utils.datastructure.TVList;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.junit.After;
+import org.junit.Test;
+
+public class RollupWriterTest {
+
+  private File file = new File("target" + File.separator + "test" + RollupFile.FILE_SUFFIX);
+
+  @After
+  public void tearDown() {
+    file.delete();
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    RollupWriter writer = new RollupWriter(file, new long[]{10, 100});
+    // the first flush, in which the point at 5 is overwritten
+    TVList list = TVList.newList(TSDataType.INT64);
+    for (long i = 0; i < 115; i++) {
+      list.putLong(i, i);
+    }
+    list.putLong(5, 1000);
+    list.sort();
+    writer.write("root.sg.d1", "s1", TSDataType.INT64, list);
+    // the second flush continues the last bucket of the first flush
+    list = TVList.newList(TSDataType.INT64);
+    for (long i = 115; i < 200; i++) {
+      list.putLong(i, i);
+    }
+    list.sort();
+    writer.write("root.sg.d1", "s1", TSDataType.INT64, list);
+    writer.endFile();
+
+    RollupFile rollupFile = RollupFile.open(file);
+    List<Statistics> buckets = rollupFile.getBuckets("root.sg.d1", "s1", 10);
+    assertEquals(20, buckets.size());
+    for (int i = 0; i < 20; i++) {
+      Statistics bucket = buckets.get(i);
+      assertEquals(i * 10, bucket.getStartTime());
+      assertEquals(i * 10 + 9, bucket.getEndTime());
+      assertEquals(10, bucket.getCount());
+    }
+    assertEquals(1000L, buckets.get(0).getMaxValue());
+    assertEquals(45 - 5 + 1000, buckets.get(0).getSumValue(), 0);
+
+    buckets = rollupFile.getBuckets("root.sg.d1", "s1", 100);
+    assertEquals(2, buckets.size());
+    assertEquals(100, buckets.get(1).getCount());
+    assertEquals(100L, buckets.get(1).getFirstValue());
+    assertEquals(199L, buckets.get(1).getLastValue());
+
+    assertNull(rollupFile.getBuckets("root.sg.d1", "s1", 1000));
+    assertNull(rollupFile.getBuckets("root.sg.d1", "s2", 10));
+    assertNull(rollupFile.getBuckets("root.sg.d2", "s1", 10));
+  }
+
+  @Test
+  public void testUnsealedFile() throws IOException {
+    RollupWriter writer = new RollupWriter(file, new long[]{10});
+    TVList list = TVList.newList(TSDataType.INT32);
+    list.putInt(1, 1);
+    list.sort();
+    writer.write("root.sg.d1", "s1", TSDataType.INT32, list);
+    writer.close();
+    assertNull(RollupFile.open(file));
+
+    writer = new RollupWriter(file, new long[]{10});
+    writer.abort();
+    assertNull(RollupFile.open(file));
+  }
+}
@@ -43,6 +43,7 @@ import org.apache.iotdb.db.utils.TimeValuePair;
 import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.utils.Pair;
+import org.apache.iotdb.tsfile.utils.TsPrimitiveType;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
 import org.apache.iotdb.tsfile.write.record.datapoint.DataPoint;
 import org.junit.After;
@@ -115,6 +116,203 @@ public class StorageGroupProcessorTest {
     Assert.assertEquals(0, pair.right.size());
   }
 
+  @Test
+  public void testLastValueCache() throws QueryProcessException, IOException {
+    for (int j = 1; j <= 10; j++) {
+      TSRecord record = new TSRecord(j, deviceId);
+      record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+      processor.insert(new InsertPlan(record));
+    }
+    TimeValuePair lastValue = processor.getLastValue(deviceId, measurementId);
+    Assert.assertEquals(10, lastValue.getTimestamp());
+    Assert.assertEquals(10, lastValue.getValue().getInt());
+
+    // an out-of-order point does not replace the latest one
+    TSRecord record = new TSRecord(5, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, "100"));
+    processor.insert(new InsertPlan(record));
+    Assert.assertEquals(10, processor.getLastValue(deviceId, measurementId).getTimestamp());
+
+    // a point at the same time may be overwritten in any order, so it is not cached
+    record = new TSRecord(10, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT32, measurementId, "100"));
+    processor.insert(new InsertPlan(record));
+    Assert.assertNull(processor.getLastValue(deviceId, measurementId));
+
+    // a query puts its result back only if the data is not changed meanwhile
+    long version = processor.getLastValueCacheVersion();
+    record = new TSRecord(3, deviceId);
+    record.addTuple(DataPoint.getDataPoint(TSDataType.INT64, "s1", "3"));
+    processor.insert(new InsertPlan(record));
+    processor.putLastValue(deviceId, measurementId,
+        new TimeValuePair(10, new TsPrimitiveType.TsInt(100)), version);
+    Assert.assertNull(processor.getLastValue(deviceId, measurementId));
+    processor.putLastValue(deviceId, measurementId,
+        new TimeValuePair(10, new TsPrimitiveType.TsInt(100)),
+        processor.getLastValueCacheVersion());
+    Assert.assertEquals(100, processor.getLastValue(deviceId, measurementId).getValue().getInt());
+
+    // the series s1 is not known to be latest as the device has later points
+    Assert.assertNull(processor.getLastValue(deviceId, "s1"));
+
+    processor.delete(deviceId, measurementId, 8);
+    Assert.assertEquals(10, processor.getLastValue(deviceId, measurementId).getTimestamp());
+    processor.delete(deviceId, measurementId, 10);
+    Assert.assertNull(processor.getLastValue(deviceId, measurementId));
+  }
+
+  @Test
+  public void testBatchLastValueCache() throws QueryProcessException {
+    String[] measurements = new String[]{"s0", "s3"};
+    List<Integer> dataTypes = new ArrayList<>();
+    dataTypes.add(TSDataType.INT32.ordinal());
+    dataTypes.add(TSDataType.DOUBLE.ordinal());
+
+    BatchInsertPlan batchInsertPlan = new BatchInsertPlan(deviceId, measurements, dataTypes);
+    long[] times = new long[]{3, 7, 5};
+    Object[] columns = new Object[]{new int[]{3, 7, 5}, new double[]{3.0, 7.0, 5.0}};
+    batchInsertPlan.setTimes(times);
+    batchInsertPlan.setColumns(columns);
+    batchInsertPlan.setRowCount(times.length);
+    processor.insertBatch(batchInsertPlan);
+
+    TimeValuePair lastValue = processor.getLastValue(deviceId, "s0");
+    Assert.assertEquals(7, lastValue.getTimestamp());
+    Assert.assertEquals(7, lastValue.getValue().getInt());
+    lastValue = processor.getLastValue(deviceId, "s3");
+    Assert.assertEquals(7, lastValue.getTimestamp());
+    Assert.assertEquals(7.0, lastValue.getValue().getDouble(), 0);
+  }
+
+  @Test
+  public void testConcurrentLastValueCache() throws Exception {
+    int threadNum = 2;
+    int pointNum = 1000;
+    List<Thread> threads = new ArrayList<>();
+    List<Exception> exceptions = Collections.synchronizedList(new ArrayList<>());
+    // the threads write interleaved times of the same device
+    for (int i = 0; i < threadNum; i++) {
+      int offset = i;
+      threads.add(new Thread(() -> {
+        try {
+          for (int j = 0; j < pointNum; j++) {
+            int time = j * threadNum + offset;
+            TSRecord record = new TSRecord(time, deviceId);
+            record.addTuple(
+                DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(time)));
+            processor.insert(new InsertPlan(record));
+          }
+        } catch (Exception e) {
+          exceptions.add(e);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertTrue(exceptions.isEmpty());
+
+    int latestTime = pointNum * threadNum - 1;
+    TimeValuePair lastValue = processor.getLastValue(deviceId, measurementId);
+    Assert.assertEquals(latestTime, lastValue.getTimestamp());
+    Assert.assertEquals(latestTime, lastValue.getValue().getInt());
+  }
+
+  @Test
+  public void testConcurrentInsertOfDevices() throws Exception {
+    int deviceNum = 4;
+    int pointNum = 1000;
+    List<Thread> threads = new ArrayList<>();
+    List<Exception> exceptions = Collections.synchronizedList(new ArrayList<>());
+    for (int i = 0; i < deviceNum; i++) {
+      String device = deviceId + ".d" + i;
+      threads.add(new Thread(() -> {
+        try {
+          for (int j = 1; j <= pointNum; j++) {
+            TSRecord record = new TSRecord(j, device);
+            record.addTuple(
+                DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+            processor.insert(new InsertPlan(record));
+          }
+        } catch (QueryProcessException e) {
+          exceptions.add(e);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Assert.assertTrue(exceptions.isEmpty());
+
+    for (int i = 0; i < deviceNum; i++) {
+      String device = deviceId + ".d" + i;
+      Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair = processor.getWorkSequenceTsFileProcessor()
+          .query(device, measurementId, TSDataType.INT32, Collections.emptyMap(),
+              new QueryContext());
+      List<TimeValuePair> timeValuePairs = pair.left.getSortedTimeValuePairList();
+      Assert.assertEquals(pointNum, timeValuePairs.size());
+      for (int j = 0; j < pointNum; j++) {
+        Assert.assertEquals(j + 1, timeValuePairs.get(j).getTimestamp());
+      }
+      Assert.assertEquals(pointNum,
+          processor.getLastValue(device, measurementId).getTimestamp());
+    }
+  }
+
+  @Test
+  public void testInsertRows() throws QueryProcessException {
+    int deviceNum = 3;
+    int pointNum = 100;
+    List<InsertPlan> insertPlans = new ArrayList<>();
+    // the rows of the devices are interleaved
+    for (int j = 1; j <= pointNum; j++) {
+      for (int i = 0; i < deviceNum; i++) {
+        TSRecord record = new TSRecord(j, deviceId + ".d" + i);
+        record.addTuple(
+            DataPoint.getDataPoint(TSDataType.INT32, measurementId, String.valueOf(j)));
+        insertPlans.add(new InsertPlan(record));
+      }
+    }
+    // a malformed row only fails itself
+    InsertPlan malformedPlan = new InsertPlan(deviceId + ".d0", pointNum + 1, measurementId,
+        "abc");
+    malformedPlan.setDataTypes(new TSDataType[]{TSDataType.INT32});
+    insertPlans.add(malformedPlan);
+    List<Integer> indexes = new ArrayList<>();
+    for (int i = 0; i < insertPlans.size(); i++) {
+      indexes.add(i);
+    }
+
+    QueryProcessException[] results = new QueryProcessException[insertPlans.size()];
+    processor.insertRows(insertPlans, indexes, results).join();
+    for (int i = 0; i < results.length - 1; i++) {
+      Assert.assertNull(results[i]);
+    }
+    Assert.assertNotNull(results[results.length - 1]);
+
+    for (int i = 0; i < deviceNum; i++) {
+      String device = deviceId + ".d" + i;
+      Pair<ReadOnlyMemChunk, List<ChunkMetaData>> pair = processor.getWorkSequenceTsFileProcessor()
+          .query(device, measurementId, TSDataType.INT32, Collections.emptyMap(),
+              new QueryContext());
+      List<TimeValuePair> timeValuePairs = pair.left.getSortedTimeValuePairList();
+      Assert.assertEquals(pointNum, timeValuePairs.size());
+      for (int j = 0; j < pointNum; j++) {
+        Assert.assertEquals(j + 1, timeValuePairs.get(j).getTimestamp());
+        Assert.assertEquals(j + 1, timeValuePairs.get(j).getValue().getInt());
+      }
+      TimeValuePair lastValue = processor.getLastValue(device, measurementId);
+      Assert.assertEquals(pointNum, lastValue.getTimestamp());
+      Assert.assertEquals(pointNum, lastValue.getValue().getInt());
+    }
+  }
+
   @Test
   public void testSequenceSyncClose() throws QueryProcessException {
     for (int j = 1; j <= 10; j++) {
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.engine.storagegroup;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.apache.iotdb.tsfile.read.common.TimeRange;
+import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.junit.Test;
+
+public class TsFileTimeIndexTest {
+
+  private static final String DEVICE = "root.sg.d0";
+
+  private TsFileResource createResource(String name, long startTime, long endTime,
+      boolean closed) {
+    TsFileResource resource = new TsFileResource(new File(name));
+    resource.updateStartTime(DEVICE, startTime);
+    if (closed) {
+      resource.updateEndTime(DEVICE, endTime);
+    }
+    resource.setClosed(closed);
+    return resource;
+  }
+
+  @Test
+  public void testSelectSequenceFiles() {
+    List<TsFileResource> resources = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      resources.add(createResource("seq" + i, i * 100, i * 100 + 49, true));
+    }
+    // an unsealed file whose end time is unknown
+    resources.add(createResource("seq10", 1000, 0, false));
+    TsFileTimeIndex index = new TsFileTimeIndex(resources);
+
+    assertEquals(resources, index.select(DEVICE, Long.MIN_VALUE, Long.MAX_VALUE));
+    assertEquals(Arrays.asList(resources.get(2), resources.get(3)),
+        index.select(DEVICE, 220, 320));
+    // the gap between two files
+    assertEquals(0, index.select(DEVICE, 50, 99).size());
+    assertEquals(Arrays.asList(resources.get(9), resources.get(10)),
+        index.select(DEVICE, 949, 2000));
+    assertEquals(0, index.select("root.sg.d1", Long.MIN_VALUE, Long.MAX_VALUE).size());
+  }
+
+  @Test
+  public void testSelectOverlappedFiles() {
+    List<TsFileResource> resources = new ArrayList<>();
+    resources.add(createResource("unseq0", 500, 600, true));
+    resources.add(createResource("unseq1", 0, 1000, true));
+    resources.add(createResource("unseq2", 100, 200, true));
+    resources.add(createResource("unseq3", 300, 400, true));
+    TsFileTimeIndex index = new TsFileTimeIndex(resources);
+
+    assertEquals(Arrays.asList(resources.get(0), resources.get(1)),
+        index.select(DEVICE, 450, 550));
+    assertEquals(Arrays.asList(resources.get(1), resources.get(2), resources.get(3)),
+        index.select(DEVICE, 200, 300));
+    assertEquals(0, index.select(DEVICE, 1001, 2000).size());
+  }
+
+  private void assertRange(long min, long max, TimeRange range) {
+    assertEquals(min, range.getMin());
+    assertEquals(max, range.getMax());
+  }
+
+  @Test
+  public void testGetTimeRange() {
+    assertRange(Long.MIN_VALUE, Long.MAX_VALUE, TsFileTimeIndex.getTimeRange(null));
+    assertRange(Long.MIN_VALUE, Long.MAX_VALUE, TsFileTimeIndex.getTimeRange(ValueFilter.gt(10)));
+    assertRange(11, 99, TsFileTimeIndex.getTimeRange(
+        FilterFactory.and(TimeFilter.gt(10L), TimeFilter.lt(100L))));
+    assertRange(10, 100, TsFileTimeIndex.getTimeRange(
+        FilterFactory.and(TimeFilter.gtEq(10L), TimeFilter.ltEq(100L))));
+    assertRange(5, 5, TsFileTimeIndex.getTimeRange(
+        FilterFactory.and(TimeFilter.eq(5L), ValueFilter.gt(10))));
+    assertRange(0, 200, TsFileTimeIndex.getTimeRange(
+        FilterFactory.or(TimeFilter.eq(0L), new GroupByFilter(10, 20, 100, 200))));
+    assertNull(TsFileTimeIndex.getTimeRange(
+        FilterFactory.and(TimeFilter.gt(100L), TimeFilter.lt(50L))));
+    assertNull(TsFileTimeIndex.getTimeRange(TimeFilter.gt(Long.MAX_VALUE)));
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.jdbc.Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * last_value and max_time without a time filter are answered by the cached latest points, which
+ * must be consistent with the data after insertions and deletions.
+ */
+public class IoTDBLastValueCacheIT {
+
+  private static final String LAST_QUERY = "select last_value(s0), max_time(s0), "
+      + "last_value(s1), max_time(s1) from root.sg.d0";
+  private static final String[] COLUMNS = new String[]{"last_value(root.sg.d0.s0)",
+      "max_time(root.sg.d0.s0)", "last_value(root.sg.d0.s1)", "max_time(root.sg.d0.s1)"};
+
+  private StorageGroupProcessor processor;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+    Class.forName(Config.JDBC_DRIVER_NAME);
+    try (Connection connection = DriverManager
+        .getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      statement.execute("SET STORAGE GROUP TO root.sg");
+      statement.execute("CREATE TIMESERIES root.sg.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+      statement.execute("CREATE TIMESERIES root.sg.d0.s1 WITH DATATYPE=TEXT, ENCODING=PLAIN");
+    }
+    processor = StorageEngine.getInstance().getProcessor("root.sg");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void test() throws Exception {
+    try (Connection connection = DriverManager
+        .getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      for (int time = 1; time <= 100; time++) {
+        statement.execute(String.format("INSERT INTO root.sg.d0(timestamp,s0,s1) "
+            + "values(%d,%d,'v%d')", time, time, time));
+      }
+      statement.execute("flush");
+      statement.execute("INSERT INTO root.sg.d0(timestamp,s0) values(50,-50)");
+      // the latest points are cached by the insertions
+      assertNotNull(processor.getLastValue("root.sg.d0", "s0"));
+      assertEquals("0,100,100,v100,100", query(statement));
+
+      // an insertion at the latest time removes the cached point, which is computed again
+      statement.execute("INSERT INTO root.sg.d0(timestamp,s0) values(100,-100)");
+      assertNull(processor.getLastValue("root.sg.d0", "s0"));
+      assertEquals("0,-100,100,v100,100", query(statement));
+      assertEquals(-100, processor.getLastValue("root.sg.d0", "s0").getValue().getLong());
+      assertEquals("0,-100,100,v100,100", query(statement));
+
+      // a deletion that covers the latest point
+      statement.execute("DELETE FROM root.sg.d0.s1 WHERE time <= 100");
+      assertNull(processor.getLastValue("root.sg.d0", "s1"));
+      assertEquals("0,-100,100,null,null", query(statement));
+
+      // an older point of the device becomes the latest point of s1
+      statement.execute("INSERT INTO root.sg.d0(timestamp,s1) values(60,'v60')");
+      assertEquals("0,-100,100,v60,60", query(statement));
+      assertEquals(60, processor.getLastValue("root.sg.d0", "s1").getTimestamp());
+
+      statement.execute("INSERT INTO root.sg.d0(timestamp,s0,s1) values(200,200,'v200')");
+      assertEquals("0,200,200,v200,200", query(statement));
+
+      // a time filter is not answered by the cache
+      assertTrue(statement.execute("select last_value(s0) from root.sg.d0 where time < 150"));
+      try (ResultSet resultSet = statement.getResultSet()) {
+        assertTrue(resultSet.next());
+        assertEquals("-100", resultSet.getString("last_value(root.sg.d0.s0)"));
+        assertFalse(resultSet.next());
+      }
+    }
+  }
+
+  private String query(Statement statement) throws Exception {
+    StringBuilder builder = new StringBuilder();
+    try (ResultSet resultSet = statement.executeQuery(LAST_QUERY)) {
+      assertTrue(resultSet.next());
+      builder.append(resultSet.getString("Time"));
+      for (String column : COLUMNS) {
+        builder.append(',').append(resultSet.getString(column));
+      }
+      assertFalse(resultSet.next());
+    }
+    return builder.toString();
+  }
+}
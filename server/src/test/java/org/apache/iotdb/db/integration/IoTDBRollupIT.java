@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.commons.io.FileUtils;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.rollup.RollupFile;
+import org.apache.iotdb.db.engine.storagegroup.StorageGroupProcessor;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.jdbc.Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Group by queries using rollups should return the same results as those scanning the points.
+ */
+public class IoTDBRollupIT {
+
+  private static final String AGGREGATIONS = "select count(s0), sum(s0), max_value(s0), "
+      + "min_value(s0), first_value(s0), last_value(s0), max_time(s0), count(s1), avg(s1) "
+      + "from root.sg.d0 ";
+
+  private static IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private boolean enableRollup;
+  private long[] rollupIntervals;
+
+  @Before
+  public void setUp() throws Exception {
+    enableRollup = config.isEnableRollup();
+    rollupIntervals = config.getRollupIntervalsInMs();
+    config.setEnableRollup(true);
+    config.setRollupIntervalsInMs(new long[]{10, 100});
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+    Class.forName(Config.JDBC_DRIVER_NAME);
+    prepareData();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setEnableRollup(enableRollup);
+    config.setRollupIntervalsInMs(rollupIntervals);
+  }
+
+  private void prepareData() throws Exception {
+    try (Connection connection = DriverManager
+        .getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement()) {
+      statement.execute("SET STORAGE GROUP TO root.sg");
+      statement.execute("CREATE TIMESERIES root.sg.d0.s0 WITH DATATYPE=INT64, ENCODING=RLE");
+      statement.execute("CREATE TIMESERIES root.sg.d0.s1 WITH DATATYPE=DOUBLE, ENCODING=GORILLA");
+      StorageGroupProcessor processor = StorageEngine.getInstance().getProcessor("root.sg");
+      // a sealed file of several flushes, whose buckets are split between flushes
+      for (int time = 0; time < 1000; time++) {
+        statement.execute(String.format("INSERT INTO root.sg.d0(timestamp,s0,s1) "
+            + "values(%d,%d,%d.5)", time, time, time % 7));
+        if (time % 333 == 0) {
+          processor.getWorkSequenceTsFileProcessor().syncFlush();
+        }
+      }
+      StorageEngine.getInstance().syncCloseAllProcessor();
+      // an unsealed file
+      for (int time = 1000; time < 1200; time++) {
+        statement.execute(String.format("INSERT INTO root.sg.d0(timestamp,s0,s1) "
+            + "values(%d,%d,%d.5)", time, time, time % 7));
+      }
+      processor.getWorkSequenceTsFileProcessor().syncFlush();
+      // unsequence data and deletions invalidate the buckets
+      statement.execute("INSERT INTO root.sg.d0(timestamp,s0,s1) values(505,-1,-1.5)");
+      processor.getWorkUnSequenceTsFileProcessor().syncFlush();
+      statement.execute("INSERT INTO root.sg.d0(timestamp,s0) values(777,10000)");
+      statement.execute("DELETE FROM root.sg.d0.s1 WHERE time <= 250");
+    }
+  }
+
+  @Test
+  public void test() throws Exception {
+    File[] rollupFiles = FileUtils.listFiles(new File(DirectoryManager.getInstance()
+        .getNextFolderForSequenceFile()), new String[]{RollupFile.FILE_SUFFIX.substring(1)}, true)
+        .toArray(new File[0]);
+    assertEquals(2, rollupFiles.length);
+
+    List<String> result = query(AGGREGATIONS + "GROUP BY ([0, 1199], 100ms)");
+    assertEquals(12, result.size());
+    assertEquals("500,100,54444.0,599,-1,500,599,599,100,3.48", result.get(5));
+    assertEquals("700,100,84173.0,10000,700,700,799,799,100,3.45", result.get(7));
+
+    compare(AGGREGATIONS + "GROUP BY ([0, 1199], 100ms)");
+    compare(AGGREGATIONS + "GROUP BY ([0, 1199], 200ms)");
+    compare(AGGREGATIONS + "GROUP BY ([0, 1199], 30ms)");
+    compare(AGGREGATIONS + "GROUP BY ([0, 1150], 50ms)");
+    compare(AGGREGATIONS + "GROUP BY ([5, 1199], 100ms)");
+    compare(AGGREGATIONS + "WHERE time > 123 GROUP BY ([0, 1199], 100ms)");
+    compare(AGGREGATIONS + "WHERE time < 456 or time >= 900 GROUP BY ([0, 1199], 20ms)");
+  }
+
+  /**
+   * the results with rollups should be the same as those without rollups.
+   */
+  private void compare(String sql) throws Exception {
+    List<String> result = query(sql);
+    config.setEnableRollup(false);
+    try {
+      assertEquals(sql, query(sql), result);
+    } finally {
+      config.setEnableRollup(true);
+    }
+    assertTrue(!result.isEmpty());
+  }
+
+  private List<String> query(String sql) throws Exception {
+    List<String> result = new ArrayList<>();
+    try (Connection connection = DriverManager
+        .getConnection("jdbc:iotdb://127.0.0.1:6667/", "root", "root");
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(sql)) {
+      int columnCount = resultSet.getMetaData().getColumnCount();
+      while (resultSet.next()) {
+        StringBuilder builder = new StringBuilder(resultSet.getString(1));
+        for (int i = 2; i <= columnCount; i++) {
+          String value = resultSet.getString(i);
+          if (value != null && value.contains(".") && i == columnCount) {
+            value = String.format("%.2f", Double.parseDouble(value));
+          }
+          builder.append(',').append(value);
+        }
+        result.add(builder.toString());
+      }
+    }
+    return result;
+  }
+}
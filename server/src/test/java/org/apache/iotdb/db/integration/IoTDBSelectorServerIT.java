@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.storagegroup.TsFileResource;
+import org.apache.iotdb.db.service.JDBCService;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.jdbc.Config;
+import org.apache.iotdb.rpc.RpcUtils;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSIService;
+import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
+import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TBinaryProtocol;
+import org.apache.thrift.transport.TFramedTransport;
+import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Serve the clients by the selector server with framed transport.
+ */
+public class IoTDBSelectorServerIT {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int prevWorkerThreadNum;
+  private int prevWorkerQueueSize;
+
+  @Before
+  public void setUp() throws Exception {
+    Class.forName(Config.JDBC_DRIVER_NAME);
+    config.setRpcSelectorServerEnable(true);
+    prevWorkerThreadNum = config.getRpcWorkerThreadNum();
+    prevWorkerQueueSize = config.getRpcWorkerQueueSize();
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+    config.setRpcSelectorServerEnable(false);
+    config.setRpcWorkerThreadNum(prevWorkerThreadNum);
+    config.setRpcWorkerQueueSize(prevWorkerQueueSize);
+  }
+
+  @Test
+  public void testManyConnections() throws Exception {
+    Properties info = new Properties();
+    info.setProperty("user", "root");
+    info.setProperty("password", "root");
+    info.setProperty(Config.FRAMED_TRANSPORT, "true");
+    String url = Config.IOTDB_URL_PREFIX + "127.0.0.1:6667/";
+
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < 20; i++) {
+        connections.add(DriverManager.getConnection(url, info));
+      }
+      assertEquals(20, JDBCService.getInstance().getConnectionNum());
+
+      try (Statement statement = connections.get(0).createStatement()) {
+        statement.execute("SET STORAGE GROUP TO root.sg1");
+        statement.execute("CREATE TIMESERIES root.sg1.d1.s1 WITH DATATYPE=INT64,ENCODING=PLAIN");
+      }
+      for (int i = 0; i < connections.size(); i++) {
+        try (Statement statement = connections.get(i).createStatement()) {
+          statement.execute(
+              String.format("INSERT INTO root.sg1.d1(timestamp, s1) VALUES (%d, %d)", i, i));
+        }
+      }
+      try (Statement statement = connections.get(19).createStatement();
+          ResultSet resultSet = statement.executeQuery("SELECT s1 FROM root.sg1.d1")) {
+        int cnt = 0;
+        while (resultSet.next()) {
+          assertEquals(cnt, resultSet.getLong("root.sg1.d1.s1"));
+          cnt++;
+        }
+        assertEquals(20, cnt);
+      }
+    } finally {
+      for (Connection connection : connections) {
+        connection.close();
+      }
+    }
+
+    // the contexts are deleted by the selector threads after the connections are closed
+    for (int i = 0; i < 100 && JDBCService.getInstance().getConnectionNum() > 0; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(0, JDBCService.getInstance().getConnectionNum());
+    assertEquals(0, JDBCService.getInstance().getWorkerQueueSize());
+    assertEquals(0, JDBCService.getInstance().getRejectedRequestNum());
+    assertTrue(JDBCService.getInstance().getConnectionInfo().length == 0);
+  }
+
+  /**
+   * A client exits with an open query while its worker rejects requests, its query must still be
+   * released by the worker, which holds the read locks of the TsFiles.
+   */
+  @Test(timeout = 60000)
+  public void testClientExitWhenWorkerIsFull() throws Exception {
+    config.setRpcWorkerThreadNum(1);
+    config.setRpcWorkerQueueSize(1);
+    JDBCService.getInstance().restartService();
+
+    Properties info = new Properties();
+    info.setProperty("user", "root");
+    info.setProperty("password", "root");
+    info.setProperty(Config.FRAMED_TRANSPORT, "true");
+    String url = Config.IOTDB_URL_PREFIX + "127.0.0.1:6667/";
+    try (Connection connection = DriverManager.getConnection(url, info);
+        Statement statement = connection.createStatement()) {
+      statement.execute("SET STORAGE GROUP TO root.sg1");
+      statement.execute("CREATE TIMESERIES root.sg1.d1.s1 WITH DATATYPE=INT64,ENCODING=PLAIN");
+      for (int i = 0; i < 10; i++) {
+        statement.execute(
+            String.format("INSERT INTO root.sg1.d1(timestamp, s1) VALUES (%d, %d)", i, i));
+      }
+      statement.execute("FLUSH");
+    }
+    List<TsFileResource> resources = StorageEngine.getInstance().getProcessor("root.sg1")
+        .getSequenceFileList();
+
+    // the query stays open as only the first row is fetched
+    RawClient queryClient = new RawClient();
+    TSExecuteStatementReq queryReq = queryClient.newRequest("SELECT s1 FROM root.sg1.d1");
+    queryReq.setFetchSize(1);
+    RpcUtils.verifySuccess(queryClient.client.executeQueryStatement(queryReq).getStatus());
+    assertTrue(resources.stream().anyMatch(r -> r.getWriteQueryLock().getReadLockCount() > 0));
+
+    List<RawClient> floodClients = new ArrayList<>();
+    List<TSExecuteStatementReq> floodReqs = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      RawClient floodClient = new RawClient();
+      floodClients.add(floodClient);
+      floodReqs.add(floodClient.newRequest("SELECT s1 FROM root.sg1.d1"));
+    }
+    try {
+      // send the requests without waiting for the responses, so that they pile up in the worker
+      for (int i = 0; i < floodClients.size(); i++) {
+        floodClients.get(i).client.send_executeQueryStatement(floodReqs.get(i));
+        if (i == floodClients.size() / 2) {
+          queryClient.transport.close();
+        }
+      }
+      for (RawClient floodClient : floodClients) {
+        try {
+          floodClient.client.recv_executeQueryStatement();
+        } catch (TException e) {
+          // the connection is closed as the worker rejects its request
+        }
+      }
+      assertTrue(JDBCService.getInstance().getRejectedRequestNum() > 0);
+    } finally {
+      for (RawClient floodClient : floodClients) {
+        floodClient.transport.close();
+      }
+    }
+
+    // the selector threads survive and the worker releases the query
+    for (int i = 0; i < 100 && JDBCService.getInstance().getConnectionNum() > 0; i++) {
+      Thread.sleep(50);
+    }
+    assertEquals(0, JDBCService.getInstance().getConnectionNum());
+    for (int i = 0; i < 100
+        && resources.stream().anyMatch(r -> r.getWriteQueryLock().getReadLockCount() > 0); i++) {
+      Thread.sleep(50);
+    }
+    for (TsFileResource resource : resources) {
+      assertEquals(0, resource.getWriteQueryLock().getReadLockCount());
+    }
+    try (Connection connection = DriverManager.getConnection(url, info);
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("SELECT s1 FROM root.sg1.d1")) {
+      int cnt = 0;
+      while (resultSet.next()) {
+        cnt++;
+      }
+      assertEquals(10, cnt);
+    }
+  }
+
+  /**
+   * A client over the framed transport which may send requests without waiting for the responses.
+   */
+  private static class RawClient {
+
+    private TTransport transport;
+    private TSIService.Client client;
+    private long sessionId;
+
+    private RawClient() throws TException {
+      transport = new TFramedTransport(new TSocket("127.0.0.1", 6667),
+          RpcUtils.THRIFT_FRAME_MAX_SIZE);
+      transport.open();
+      client = new TSIService.Client(new TBinaryProtocol(transport));
+      TSOpenSessionReq openReq = new TSOpenSessionReq(TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V1);
+      openReq.setUsername("root");
+      openReq.setPassword("root");
+      sessionId = client.openSession(openReq).getSessionId();
+    }
+
+    private TSExecuteStatementReq newRequest(String sql) throws TException {
+      return new TSExecuteStatementReq(sessionId, sql, client.requestStatementId(sessionId));
+    }
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.integration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import org.apache.iotdb.db.service.TSServiceImpl;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
+import org.apache.iotdb.service.rpc.thrift.TSOpenSessionReq;
+import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.service.rpc.thrift.TSTypedInsertReq;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Insert typed values of other types than their series, and malformed typed values, which must be
+ * rejected with an error status.
+ */
+public class IoTDBTypedInsertIT {
+
+  private TSServiceImpl service;
+  private long sessionId;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+    service = new TSServiceImpl();
+    TSOpenSessionReq openReq = new TSOpenSessionReq(TSProtocolVersion.IOTDB_SERVICE_PROTOCOL_V1);
+    openReq.setUsername("root");
+    openReq.setPassword("root");
+    sessionId = service.openSession(openReq).getSessionId();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testTruncatedText() {
+    ByteBuffer values = ByteBuffer.allocate(9);
+    values.put((byte) TSDataType.TEXT.ordinal());
+    values.putInt(100);
+    values.put(new byte[]{1, 2, 3, 4});
+    values.flip();
+    assertEquals(TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode(),
+        insertTyped(values).getStatusType().getCode());
+  }
+
+  @Test
+  public void testNegativeTextLength() {
+    ByteBuffer values = ByteBuffer.allocate(5);
+    values.put((byte) TSDataType.TEXT.ordinal());
+    values.putInt(-1);
+    values.flip();
+    assertEquals(TSStatusCode.EXECUTE_STATEMENT_ERROR.getStatusCode(),
+        insertTyped(values).getStatusType().getCode());
+  }
+
+  @Test
+  public void testConvertFloatToInt64() {
+    execute("SET STORAGE GROUP TO root.sg1");
+    execute("CREATE TIMESERIES root.sg1.d1.s1 WITH DATATYPE=INT64, ENCODING=RLE");
+    assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+        insertTyped(floatValue(3.0f)).getStatusType().getCode());
+    // a fraction cannot be stored in an INT64 series
+    assertNotEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+        insertTyped(floatValue(3.5f)).getStatusType().getCode());
+  }
+
+  private ByteBuffer floatValue(float value) {
+    ByteBuffer values = ByteBuffer.allocate(5);
+    values.put((byte) TSDataType.FLOAT.ordinal());
+    values.putFloat(value);
+    values.flip();
+    return values;
+  }
+
+  private void execute(String sql) {
+    TSExecuteStatementReq req = new TSExecuteStatementReq(sessionId, sql,
+        service.requestStatementId(sessionId));
+    assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+        service.executeStatement(req).getStatus().getStatusType().getCode());
+  }
+
+  private TSStatus insertTyped(ByteBuffer values) {
+    TSTypedInsertReq req = new TSTypedInsertReq();
+    req.setSessionId(sessionId);
+    req.setDeviceId("root.sg1.d1");
+    req.setMeasurements(Collections.singletonList("s1"));
+    req.setValues(values);
+    req.setTimestamp(1);
+    return service.insertTyped(req);
+  }
+}
@@ -142,4 +142,57 @@ public class FileReaderManagerTest {
       }
     }
   }
+
+  @Test
+  public void testEvictIdleReaders() throws IOException {
+    String filePath = TestConstant.BASE_OUTPUT_PATH.concat("evict.file");
+
+    FileReaderManager manager = FileReaderManager.getInstance();
+    manager.closeAndRemoveAllOpenedReaders();
+    int maxCachedReaderNum = manager.getMaxCachedReaderNum();
+    manager.setMaxCachedReaderNum(MAX_FILE_SIZE);
+    QueryFileManager testManager = new QueryFileManager();
+    testManager.addQueryId(1L);
+
+    TsFileResource[] tsFileResources = new TsFileResource[MAX_FILE_SIZE + 2];
+    try {
+      for (int i = 1; i <= MAX_FILE_SIZE + 1; i++) {
+        File file = SystemFileFactory.INSTANCE.getFile(filePath + i);
+        file.createNewFile();
+        tsFileResources[i] = new TsFileResource(file);
+      }
+
+      // the first file is used by a query all the time
+      testManager.addFilePathToMap(1L, tsFileResources[1], false);
+      for (int i = 1; i <= MAX_FILE_SIZE; i++) {
+        manager.get(tsFileResources[i], false);
+      }
+      for (int i = 1; i <= MAX_FILE_SIZE; i++) {
+        Assert.assertTrue(manager.contains(tsFileResources[i], false));
+      }
+
+      // exceeding the limit evicts the least recently used readers not used by any query
+      manager.get(tsFileResources[MAX_FILE_SIZE + 1], false);
+      Assert.assertTrue(manager.contains(tsFileResources[1], false));
+      Assert.assertFalse(manager.contains(tsFileResources[2], false));
+      Assert.assertFalse(manager.contains(tsFileResources[3], false));
+      for (int i = 4; i <= MAX_FILE_SIZE + 1; i++) {
+        Assert.assertTrue(manager.contains(tsFileResources[i], false));
+      }
+
+      // an evicted reader is opened again on demand
+      manager.get(tsFileResources[2], false);
+      Assert.assertTrue(manager.contains(tsFileResources[2], false));
+    } finally {
+      testManager.removeUsedFilesForQuery(1L);
+      manager.setMaxCachedReaderNum(maxCachedReaderNum);
+      manager.closeAndRemoveAllOpenedReaders();
+      for (int i = 1; i <= MAX_FILE_SIZE + 1; i++) {
+        File file = SystemFileFactory.INSTANCE.getFile(filePath + i);
+        if (file.exists() && !file.delete()) {
+          fail();
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.pool;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.iotdb.db.exception.query.QueryProcessException;
+import org.junit.Test;
+
+public class QueryTaskPoolManagerTest {
+
+  private QueryTaskPoolManager pool = QueryTaskPoolManager.getInstance();
+
+  @Test
+  public void testInvokeAll() throws IOException, QueryProcessException {
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      int value = i;
+      tasks.add(() -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        Thread.sleep(1);
+        running.decrementAndGet();
+        return value;
+      });
+    }
+    List<Integer> results = pool.invokeAll(tasks, 2, 0);
+    assertEquals(100, results.size());
+    for (int i = 0; i < 100; i++) {
+      assertEquals(i, (int) results.get(i));
+    }
+    assertTrue(maxRunning.get() <= 2);
+  }
+
+  @Test
+  public void testTimeout() throws IOException {
+    AtomicInteger finished = new AtomicInteger();
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 100; i++) {
+      tasks.add(() -> {
+        Thread.sleep(50);
+        return finished.incrementAndGet();
+      });
+    }
+    try {
+      pool.invokeAll(tasks, 1, 100);
+      fail();
+    } catch (QueryProcessException e) {
+      assertTrue(e.getMessage().contains("100 ms"));
+    }
+    // the remaining tasks are cancelled
+    try {
+      Thread.sleep(200);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    assertTrue(finished.get() < 10);
+  }
+
+  @Test
+  public void testWaitRunningTasksWhenTimeout() throws IOException {
+    AtomicBoolean interrupted = new AtomicBoolean();
+    AtomicInteger finished = new AtomicInteger();
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      // ignore the interrupt, like a read of a file
+      tasks.add(() -> {
+        long deadline = System.currentTimeMillis() + 500;
+        while (System.currentTimeMillis() < deadline) {
+          Thread.yield();
+        }
+        interrupted.set(Thread.currentThread().isInterrupted());
+        return finished.incrementAndGet();
+      });
+    }
+    long startTime = System.currentTimeMillis();
+    try {
+      pool.invokeAll(tasks, 1, 100);
+      fail();
+    } catch (QueryProcessException e) {
+      assertTrue(e.getMessage().contains("100 ms"));
+    }
+    // the running task is interrupted and finished before the query fails, the other is cancelled
+    assertTrue(System.currentTimeMillis() - startTime >= 500);
+    assertTrue(interrupted.get());
+    assertEquals(1, finished.get());
+  }
+
+  @Test
+  public void testException() throws QueryProcessException {
+    List<Callable<Integer>> tasks = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      int value = i;
+      tasks.add(() -> {
+        if (value == 5) {
+          throw new IOException("failed series");
+        }
+        return value;
+      });
+    }
+    try {
+      pool.invokeAll(tasks, 4, 0);
+      fail();
+    } catch (IOException e) {
+      assertEquals("failed series", e.getMessage());
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.query.reader.chunkRelated;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.query.context.QueryContext;
+import org.apache.iotdb.tsfile.encoding.common.EndianType;
+import org.apache.iotdb.tsfile.file.header.ChunkHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.file.metadata.statistics.Statistics;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.controller.IChunkLoader;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrefetchChunkLoaderTest {
+
+  private static final int CHUNK_SIZE = 100;
+
+  private List<ChunkMetaData> chunkMetaDataList = new ArrayList<>();
+  private FakedChunkLoader fakedChunkLoader = new FakedChunkLoader();
+  private long prevPrefetchMemory;
+
+  @Before
+  public void setUp() {
+    prevPrefetchMemory = IoTDBDescriptor.getInstance().getConfig()
+        .getChunkPrefetchMemoryPerQueryInByte();
+    // chunk i contains the points in [i * 10, i * 10 + 9]
+    for (int i = 0; i < 10; i++) {
+      Statistics<?> statistics = Statistics.getStatsByType(TSDataType.INT64);
+      statistics.update(i * 10L, (long) i);
+      statistics.update(i * 10L + 9, (long) i);
+      chunkMetaDataList.add(new ChunkMetaData("s0", TSDataType.INT64, i * 1000L, statistics));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    IoTDBDescriptor.getInstance().getConfig()
+        .setChunkPrefetchMemoryPerQueryInByte(prevPrefetchMemory);
+  }
+
+  @Test
+  public void testPrefetchNextChunks() throws Exception {
+    PrefetchChunkLoader loader = new PrefetchChunkLoader(fakedChunkLoader, chunkMetaDataList,
+        null, new QueryContext(), 2);
+    // nothing is read before the first chunk is requested
+    assertEquals(0, fakedChunkLoader.loaded.size());
+
+    for (int i = 0; i < chunkMetaDataList.size(); i++) {
+      ChunkMetaData chunkMetaData = chunkMetaDataList.get(i);
+      Chunk chunk = loader.getChunk(chunkMetaData);
+      assertEquals(chunkMetaData.getOffsetOfChunkHeader(), chunk.getHeader().getDataSize());
+      // the next two chunks are prefetched
+      for (int j = i + 1; j <= i + 2 && j < chunkMetaDataList.size(); j++) {
+        loader.waitPrefetched(j);
+        assertTrue(fakedChunkLoader.loaded.contains(chunkMetaDataList.get(j)));
+      }
+    }
+    // each chunk is read once
+    assertEquals(chunkMetaDataList.size(), fakedChunkLoader.loadCount);
+    loader.close();
+  }
+
+  @Test
+  public void testSkipUnsatisfiedChunks() throws Exception {
+    PrefetchChunkLoader loader = new PrefetchChunkLoader(fakedChunkLoader, chunkMetaDataList,
+        TimeFilter.gtEq(50L), new QueryContext(), 2);
+    loader.getChunk(chunkMetaDataList.get(0));
+    loader.waitPrefetched(5);
+    loader.waitPrefetched(6);
+    assertEquals(3, fakedChunkLoader.loadCount);
+    assertTrue(fakedChunkLoader.loaded.contains(chunkMetaDataList.get(5)));
+    assertTrue(fakedChunkLoader.loaded.contains(chunkMetaDataList.get(6)));
+
+    // the reader jumps over a prefetched chunk
+    loader.getChunk(chunkMetaDataList.get(6));
+    loader.waitPrefetched(7);
+    loader.waitPrefetched(8);
+    assertEquals(5, fakedChunkLoader.loadCount);
+    loader.close();
+  }
+
+  @Test
+  public void testMemoryBudget() throws Exception {
+    // only one chunk can be prefetched
+    IoTDBDescriptor.getInstance().getConfig().setChunkPrefetchMemoryPerQueryInByte(CHUNK_SIZE);
+    QueryContext context = new QueryContext();
+    PrefetchChunkLoader loader1 = new PrefetchChunkLoader(fakedChunkLoader, chunkMetaDataList,
+        null, context, 2);
+    PrefetchChunkLoader loader2 = new PrefetchChunkLoader(fakedChunkLoader, chunkMetaDataList,
+        null, context, 2);
+    loader1.getChunk(chunkMetaDataList.get(0));
+    loader2.getChunk(chunkMetaDataList.get(0));
+    loader1.waitPrefetched(1);
+    assertEquals(3, fakedChunkLoader.loadCount);
+
+    // the budget is released once the prefetched chunk is read
+    loader1.getChunk(chunkMetaDataList.get(1));
+    loader1.waitPrefetched(2);
+    assertEquals(4, fakedChunkLoader.loadCount);
+    loader1.clear();
+    loader2.getChunk(chunkMetaDataList.get(1));
+    loader2.waitPrefetched(2);
+    assertEquals(6, fakedChunkLoader.loadCount);
+    loader2.close();
+  }
+
+  @Test
+  public void testWaitRunningPrefetchWhenClear() throws Exception {
+    IoTDBDescriptor.getInstance().getConfig().setChunkPrefetchMemoryPerQueryInByte(CHUNK_SIZE);
+    QueryContext context = new QueryContext();
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch blocker = new CountDownLatch(1);
+    IChunkLoader blockingLoader = new FakedChunkLoader() {
+      @Override
+      public Chunk getChunk(ChunkMetaData chunkMetaData) {
+        if (chunkMetaData == chunkMetaDataList.get(1)) {
+          reading.countDown();
+          try {
+            blocker.await();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+        }
+        return super.getChunk(chunkMetaData);
+      }
+    };
+    PrefetchChunkLoader loader = new PrefetchChunkLoader(blockingLoader, chunkMetaDataList,
+        null, context, 1);
+    loader.getChunk(chunkMetaDataList.get(0));
+    reading.await();
+
+    Thread clearThread = new Thread(loader::clear);
+    clearThread.start();
+    clearThread.join(100);
+    // the file is not released while the discarded prefetch is reading, nor is its memory
+    assertTrue(clearThread.isAlive());
+    assertFalse(context.reservePrefetchMemory(1));
+
+    blocker.countDown();
+    clearThread.join();
+    assertTrue(context.reservePrefetchMemory(CHUNK_SIZE));
+    loader.close();
+  }
+
+  private static class FakedChunkLoader implements IChunkLoader {
+
+    private Set<ChunkMetaData> loaded = ConcurrentHashMap.newKeySet();
+    private volatile int loadCount = 0;
+
+    @Override
+    public synchronized Chunk getChunk(ChunkMetaData chunkMetaData) {
+      loaded.add(chunkMetaData);
+      loadCount++;
+      // the data size of the header records the offset of the chunk for verification
+      ChunkHeader header = new ChunkHeader("s0", (int) chunkMetaData.getOffsetOfChunkHeader(),
+          TSDataType.INT64, CompressionType.UNCOMPRESSED, TSEncoding.PLAIN, 1);
+      return new Chunk(header, ByteBuffer.allocate(CHUNK_SIZE), Long.MIN_VALUE,
+          EndianType.BIG_ENDIAN);
+    }
+
+    @Override
+    public void close() {
+      // nothing to close
+    }
+
+    @Override
+    public void clear() {
+      // nothing to clear
+    }
+  }
+}
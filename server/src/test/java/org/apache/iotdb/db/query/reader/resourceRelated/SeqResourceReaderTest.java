@@ -24,6 +24,7 @@ import org.apache.iotdb.db.exception.query.QueryProcessException;
 import org.apache.iotdb.db.query.context.QueryContext;
 import org.apache.iotdb.db.query.reader.ReaderTestHelper;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 import org.apache.iotdb.tsfile.read.common.BatchData;
 import org.apache.iotdb.tsfile.read.common.Path;
 import org.junit.Assert;
@@ -52,6 +53,36 @@ public class SeqResourceReaderTest extends ReaderTestHelper {
 //    Assert.assertEquals(5049L, time);
   }
 
+  @Test
+  public void testSeqResourceIterateReaderByChunk() throws IOException {
+    QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
+        null);
+    Path path = new Path(deviceId, measurementId);
+    SeqResourceIterateReader reader = new SeqResourceIterateReader(path,
+        queryDataSource.getSeqResources(), null, EnvironmentUtils.TEST_QUERY_CONTEXT);
+    long count = 0;
+    int skippedChunkNum = 0;
+    while (true) {
+      ChunkMetaData chunkMetaData = reader.nextChunkMetaData();
+      if (chunkMetaData != null && skippedChunkNum % 2 == 0) {
+        // use the statistics of every other chunk
+        count += chunkMetaData.getNumOfPoints();
+        reader.skipChunkData();
+        skippedChunkNum++;
+      } else if (reader.hasNextBatch()) {
+        if (chunkMetaData != null) {
+          skippedChunkNum++;
+        }
+        BatchData batchData = reader.nextBatch();
+        count += batchData.length();
+      } else {
+        break;
+      }
+    }
+    Assert.assertTrue(skippedChunkNum > 0);
+    Assert.assertEquals(4050, count);
+  }
+
   @Test
   public void testSeqResourceReaderByTimestamp() throws IOException {
     QueryDataSource queryDataSource = storageGroupProcessor.query(deviceId, measurementId, context,
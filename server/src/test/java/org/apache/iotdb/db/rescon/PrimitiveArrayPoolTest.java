@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.rescon;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.utils.Binary;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrimitiveArrayPoolTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private long prevCapacity;
+  private PrimitiveArrayPool pool = PrimitiveArrayPool.getInstance();
+
+  @Before
+  public void setUp() {
+    prevCapacity = config.getPrimitiveArrayPoolCapacity();
+  }
+
+  @After
+  public void tearDown() {
+    config.setPrimitiveArrayPoolCapacity(prevCapacity);
+  }
+
+  @Test
+  public void testReuseInThread() {
+    long[] array = (long[]) pool.getPrimitiveDataListByType(TSDataType.INT64);
+    assertEquals(PrimitiveArrayPool.ARRAY_SIZE, array.length);
+    pool.release(array);
+    assertSame(array, pool.getPrimitiveDataListByType(TSDataType.INT64));
+  }
+
+  @Test
+  public void testReuseAcrossThreads() throws InterruptedException {
+    long pooled = pool.getPooledBytes();
+    Thread releaseThread = new Thread(() -> {
+      // more than a thread can cache, the rest go to the shared pool
+      for (int i = 0; i < 100; i++) {
+        pool.release(new double[PrimitiveArrayPool.ARRAY_SIZE]);
+      }
+    });
+    releaseThread.start();
+    releaseThread.join();
+    assertTrue(pool.getPooledBytes() > pooled);
+
+    long allocated = pool.getAllocatedBytes();
+    // the releasing thread keeps the first few arrays in its own cache
+    for (int i = 0; i < 50; i++) {
+      pool.getPrimitiveDataListByType(TSDataType.DOUBLE);
+    }
+    // the arrays released by the other thread are reused
+    assertEquals(allocated, pool.getAllocatedBytes());
+  }
+
+  @Test
+  public void testCapacity() throws InterruptedException {
+    config.setPrimitiveArrayPoolCapacity(10 * 1024L);
+    // the caches of the threads of former tests stay counted until GC collects them
+    long pooled = Math.max(pool.getPooledBytes(), 10 * 1024L);
+    long discarded = pool.getDiscardedBytes();
+    Thread releaseThread = new Thread(() -> {
+      for (int i = 0; i < 1000; i++) {
+        pool.release(new int[PrimitiveArrayPool.ARRAY_SIZE]);
+      }
+    });
+    releaseThread.start();
+    releaseThread.join();
+    assertTrue(pool.getPooledBytes() <= pooled);
+    assertTrue(pool.getDiscardedBytes() > discarded);
+  }
+
+  @Test
+  public void testThreadCacheInCapacity() {
+    config.setPrimitiveArrayPoolCapacity(0);
+    long pooled = pool.getPooledBytes();
+    long discarded = pool.getDiscardedBytes();
+    float[] array = (float[]) pool.getPrimitiveDataListByType(TSDataType.FLOAT);
+    // the thread cache is full as well when the capacity is reached
+    pool.release(array);
+    assertTrue(pool.getPooledBytes() <= pooled);
+    assertTrue(pool.getDiscardedBytes() > discarded);
+    assertNotSame(array, pool.getPrimitiveDataListByType(TSDataType.FLOAT));
+  }
+
+  @Test
+  public void testReleaseBinaries() {
+    Binary[] array = (Binary[]) pool.getPrimitiveDataListByType(TSDataType.TEXT);
+    array[0] = new Binary("test");
+    pool.release(array);
+    Binary[] reused = (Binary[]) pool.getPrimitiveDataListByType(TSDataType.TEXT);
+    assertSame(array, reused);
+    assertNull(reused[0]);
+  }
+}
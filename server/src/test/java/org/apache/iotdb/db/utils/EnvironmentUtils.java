@@ -31,8 +31,10 @@ import org.apache.iotdb.db.conf.adapter.IoTDBConfigDynamicAdapter;
 import org.apache.iotdb.db.conf.directories.DirectoryManager;
 import org.apache.iotdb.db.constant.TestConstant;
 import org.apache.iotdb.db.engine.StorageEngine;
+import org.apache.iotdb.db.engine.cache.ChunkCache;
 import org.apache.iotdb.db.engine.cache.DeviceMetaDataCache;
 import org.apache.iotdb.db.engine.cache.TsFileMetaDataCache;
+import org.apache.iotdb.db.engine.rollup.RollupManager;
 import org.apache.iotdb.db.exception.StartupException;
 import org.apache.iotdb.db.exception.StorageEngineException;
 import org.apache.iotdb.db.metadata.MManager;
@@ -90,7 +92,9 @@ public class EnvironmentUtils {
     if (config.isMetaDataCacheEnable()) {
       TsFileMetaDataCache.getInstance().clear();
       DeviceMetaDataCache.getInstance().clear();
+      ChunkCache.getInstance().clear();
     }
+    RollupManager.getInstance().clear();
     // close metadata
     MManager.getInstance().clear();
 
@@ -75,6 +75,78 @@ public class LongTVListTest {
   }
 
 
+  @Test
+  public void testOutOfOrderTail() {
+    Random random = new Random();
+    LongTVList tvList = new LongTVList();
+    List<TimeValuePair> inputs = new ArrayList<>();
+    long value = 0;
+    for (long i = 0; i < 5000; i++) {
+      tvList.putLong(i, value);
+      inputs.add(new TimeValuePair(i, new TsLong(value++)));
+    }
+    // late points, including ones with the same time as existing points
+    for (int i = 0; i < 300; i++) {
+      long time = 4000 + random.nextInt(1500);
+      tvList.putLong(time, value);
+      inputs.add(new TimeValuePair(time, new TsLong(value++)));
+    }
+    tvList.sort();
+    inputs.sort(TimeValuePair::compareTo);
+    for (int i = 0; i < tvList.size; i++) {
+      Assert.assertEquals(inputs.get(i).getTimestamp(), tvList.getTime(i));
+      Assert.assertEquals(inputs.get(i).getValue().getLong(), tvList.getLong(i));
+    }
+  }
+
+  @Test
+  public void testSortAfterCloneAndDelete() {
+    LongTVList tvList = new LongTVList();
+    for (long i = 100; i < 1000; i++) {
+      tvList.putLong(i, i);
+    }
+    for (long i = 99; i >= 0; i--) {
+      tvList.putLong(i, i);
+    }
+    TVList clone = tvList.clone();
+    clone.sort();
+    for (int i = 0; i < 1000; i++) {
+      Assert.assertEquals(i, clone.getTime(i));
+      Assert.assertEquals(i, clone.getLong(i));
+    }
+
+    tvList.delete(199);
+    Assert.assertEquals(800, tvList.size());
+    tvList.sort();
+    for (int i = 0; i < 800; i++) {
+      Assert.assertEquals(i + 200, tvList.getTime(i));
+      Assert.assertEquals(i + 200, tvList.getLong(i));
+    }
+  }
+
+  @Test
+  public void testPutLongsWithOutOfOrderTail() {
+    LongTVList tvList = new LongTVList();
+    long[] time = new long[1000];
+    long[] value = new long[1000];
+    for (int i = 0; i < 1000; i++) {
+      time[i] = i * 2;
+      value[i] = i * 2;
+    }
+    tvList.putLongs(time, value);
+    for (int i = 0; i < 1000; i++) {
+      // odd times first in order, then a descending run
+      time[i] = i < 500 ? 1001 + i * 2L : 999 - (i - 500) * 2L;
+      value[i] = time[i];
+    }
+    tvList.putLongs(time, value);
+    tvList.sort();
+    for (int i = 0; i < 2000; i++) {
+      Assert.assertEquals(i, tvList.getTime(i));
+      Assert.assertEquals(i, tvList.getLong(i));
+    }
+  }
+
   @Test
   public void compareLongTVListSortTime() {
     for (int j = 0; j < 100; j++) {
@@ -24,6 +24,9 @@ import static junit.framework.TestCase.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.apache.iotdb.db.conf.IoTDBConfig;
 import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
@@ -193,4 +196,93 @@ public class WriteLogNodeTest {
 
     logNode.delete();
   }
+
+  @Test
+  public void testGroupCommit() throws IOException {
+    // this test checks that with group commit, the futures of logs are completed only after the
+    // logs are committed, and a full buffer is committed by the writer itself
+    boolean enableGroupCommit = config.isEnableWalGroupCommit();
+    config.setEnableWalGroupCommit(true);
+    String identifier = "root.logTestDevice";
+    try {
+      WriteLogNode logNode = new ExclusiveWriteLogNode(identifier);
+
+      InsertPlan bwInsertPlan = new InsertPlan(identifier, 100,
+          new String[]{"s1", "s2", "s3", "s4"},
+          new String[]{"1.0", "15", "str", "false"});
+      DeletePlan deletePlan = new DeletePlan(50, new Path(identifier + ".s1"));
+
+      CompletableFuture<Void> insertFuture = logNode.write(bwInsertPlan);
+      CompletableFuture<Void> deleteFuture = logNode.write(deletePlan);
+      assertFalse(insertFuture.isDone());
+      assertFalse(deleteFuture.isDone());
+
+      logNode.groupCommit();
+      assertTrue(insertFuture.isDone());
+      assertTrue(deleteFuture.isDone());
+      assertFalse(insertFuture.isCompletedExceptionally());
+
+      // write until the buffer overflows, the former logs must be committed then
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      int logNum = config.getWalBufferSize() / 20;
+      for (int i = 0; i < logNum; i++) {
+        futures.add(logNode.write(deletePlan));
+      }
+      assertTrue(futures.get(0).isDone());
+      assertFalse(futures.get(logNum - 1).isDone());
+      logNode.close();
+      assertTrue(futures.get(logNum - 1).isDone());
+
+      ILogReader reader = logNode.getLogReader();
+      assertEquals(bwInsertPlan, reader.next());
+      assertEquals(deletePlan, reader.next());
+      int readLogNum = 0;
+      while (reader.hasNext()) {
+        assertEquals(deletePlan, reader.next());
+        readLogNum++;
+      }
+      assertEquals(logNum, readLogNum);
+      reader.close();
+
+      logNode.delete();
+    } finally {
+      config.setEnableWalGroupCommit(enableGroupCommit);
+    }
+  }
+
+  @Test
+  public void testGroupCommitOfPlans() throws IOException {
+    // this test checks that the future of many logs written at once is completed only after all
+    // of them are committed, even if the buffer overflows in the middle of them
+    boolean enableGroupCommit = config.isEnableWalGroupCommit();
+    config.setEnableWalGroupCommit(true);
+    String identifier = "root.logTestDevice";
+    try {
+      WriteLogNode logNode = new ExclusiveWriteLogNode(identifier);
+
+      List<InsertPlan> plans = new ArrayList<>();
+      int logNum = config.getWalBufferSize() / 20;
+      for (int i = 0; i < logNum; i++) {
+        plans.add(new InsertPlan(identifier, i, new String[]{"s1", "s2"},
+            new String[]{"1.0", String.valueOf(i)}));
+      }
+      CompletableFuture<Void> future = logNode.write(plans);
+      assertFalse(future.isDone());
+      logNode.groupCommit();
+      assertTrue(future.isDone());
+      assertFalse(future.isCompletedExceptionally());
+      logNode.close();
+
+      ILogReader reader = logNode.getLogReader();
+      for (InsertPlan plan : plans) {
+        assertEquals(plan, reader.next());
+      }
+      assertFalse(reader.hasNext());
+      reader.close();
+
+      logNode.delete();
+    } finally {
+      config.setEnableWalGroupCommit(enableGroupCommit);
+    }
+  }
 }
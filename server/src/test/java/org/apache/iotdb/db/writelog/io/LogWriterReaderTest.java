@@ -29,7 +29,9 @@ import java.util.List;
 import org.apache.iotdb.db.qp.physical.PhysicalPlan;
 import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
 import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.Path;
+import org.apache.iotdb.tsfile.utils.Binary;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -48,9 +50,14 @@ public class LogWriterReaderTest {
         new String[]{"1", "2"});
     InsertPlan insertPlan2 = new InsertPlan("d1", 10L, new String[]{"s1", "s2"},
         new String[]{"1", "2"});
+    InsertPlan typedInsertPlan = new InsertPlan("d1", 10L,
+        new String[]{"s1", "s2", "s3", "s4", "s5", "s6"}, null);
+    typedInsertPlan.setTypedValues(TSDataType.values(),
+        new Object[]{true, 1, 2L, 3.0f, 4.0, new Binary("5")});
     DeletePlan deletePlan = new DeletePlan(10L, new Path("root.d1.s1"));
     plans.add(insertPlan1);
     plans.add(insertPlan2);
+    plans.add(typedInsertPlan);
     plans.add(deletePlan);
     for (PhysicalPlan plan : plans) {
       plan.serializeTo(logsBuffer);
@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.db.writelog.io;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.iotdb.db.conf.IoTDBConfig;
+import org.apache.iotdb.db.conf.IoTDBDescriptor;
+import org.apache.iotdb.db.conf.directories.DirectoryManager;
+import org.apache.iotdb.db.qp.physical.PhysicalPlan;
+import org.apache.iotdb.db.qp.physical.crud.DeletePlan;
+import org.apache.iotdb.db.qp.physical.crud.InsertPlan;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.tsfile.read.common.Path;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SegmentLogWriterTest {
+
+  private IoTDBConfig config = IoTDBDescriptor.getInstance().getConfig();
+  private int walSegmentSize;
+  private File logDir;
+
+  @Before
+  public void setUp() throws Exception {
+    EnvironmentUtils.envSetUp();
+    walSegmentSize = config.getWalSegmentSize();
+    config.setWalSegmentSize(1024);
+    logDir = new File(DirectoryManager.getInstance().getWALFolder(), "root.segmentTest");
+    logDir.mkdirs();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    config.setWalSegmentSize(walSegmentSize);
+    EnvironmentUtils.cleanEnv();
+  }
+
+  private List<PhysicalPlan> writePlans(ILogWriter writer, int planNum, long time)
+      throws IOException {
+    List<PhysicalPlan> plans = new ArrayList<>();
+    ByteBuffer logsBuffer = ByteBuffer.allocate(64 * 1024);
+    for (int i = 0; i < planNum; i++) {
+      PhysicalPlan plan = i % 2 == 0 ? new InsertPlan("root.d1", time + i,
+          new String[]{"s1", "s2"}, new String[]{"1", "2"})
+          : new DeletePlan(time + i, new Path("root.d1.s1"));
+      plan.serializeTo(logsBuffer);
+      writer.write(logsBuffer);
+      logsBuffer.clear();
+      plans.add(plan);
+    }
+    writer.force();
+    return plans;
+  }
+
+  private List<PhysicalPlan> readPlans(File file) {
+    SingleFileLogReader reader = null;
+    List<PhysicalPlan> res = new ArrayList<>();
+    try {
+      reader = new SingleFileLogReader(file);
+      while (reader.hasNext()) {
+        res.add(reader.next());
+      }
+      assertFalse(reader.isFileCorrupted());
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    } finally {
+      if (reader != null) {
+        reader.close();
+      }
+    }
+    return res;
+  }
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    File file = new File(logDir, "wal1");
+    SegmentLogWriter writer = new SegmentLogWriter(file);
+    // more logs than a segment can hold, so the segment grows
+    List<PhysicalPlan> plans = writePlans(writer, 100, 0);
+    assertTrue(writer.getCapacity() > 1024);
+    writer.close();
+    assertEquals(writer.getCapacity(), file.length());
+    assertEquals(plans, readPlans(file));
+
+    // continue writing after a restart
+    writer = new SegmentLogWriter(file);
+    plans.addAll(writePlans(writer, 10, 100));
+    writer.close();
+    assertEquals(plans, readPlans(file));
+  }
+
+  @Test
+  public void testRecycle() throws IOException {
+    LogSegmentPool pool = LogSegmentPool.getInstance();
+    // drop the segments left by other tests
+    while (pool.take(new File(logDir, "stale"))) {
+      new File(logDir, "stale").delete();
+    }
+
+    File file = new File(logDir, "wal1");
+    SegmentLogWriter writer = new SegmentLogWriter(file);
+    writePlans(writer, 20, 0);
+    writer.close();
+    pool.recycle(file);
+    assertFalse(file.exists());
+    assertEquals(1, pool.size());
+
+    // the new segment reuses the recycled one and the old logs in it are not read
+    File newFile = new File(logDir, "wal2");
+    writer = new SegmentLogWriter(newFile);
+    List<PhysicalPlan> plans = writePlans(writer, 5, 100);
+    writer.close();
+    assertEquals(0, pool.size());
+    assertEquals(1024, newFile.length());
+    assertEquals(plans, readPlans(newFile));
+  }
+}
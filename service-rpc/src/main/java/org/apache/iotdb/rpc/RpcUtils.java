@@ -24,6 +24,12 @@ import org.apache.iotdb.service.rpc.thrift.TSStatus;
 
 public class RpcUtils {
 
+  /**
+   * the max size of a frame read by a client with framed transport, which bounds the size of one
+   * response rather than allocating buffers in advance.
+   */
+  public static final int THRIFT_FRAME_MAX_SIZE = 512 * 1024 * 1024;
+
   public static TSIService.Iface newSynchronizedClient(TSIService.Iface client) {
     return (TSIService.Iface) Proxy.newProxyInstance(RpcUtils.class.getClassLoader(),
         new Class[]{TSIService.Iface.class}, new SynchronizedHandler(client));
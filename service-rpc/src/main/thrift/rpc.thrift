@@ -198,12 +198,44 @@ struct TSInsertInBatchReq {
     5: required list<i64> timestamps
 }
 
+// for session, each value is serialized as its type (the ordinal of TSDataType in one byte)
+// followed by the value in binary, so the server does not parse strings
+struct TSTypedInsertReq {
+    1: required i64 sessionId
+    2: required string deviceId
+    3: required list<string> measurements
+    4: required binary values
+    5: required i64 timestamp
+}
+
+struct TSTypedInsertInBatchReq {
+    1: required i64 sessionId
+    2: required list<string> deviceIds
+    3: required list<list<string>> measurementsList
+    4: required list<binary> valuesList
+    5: required list<i64> timestamps
+}
+
 struct TSDeleteDataReq {
     1: required i64 sessionId
     2: required list<string> paths
     3: required i64 timestamp
 }
 
+struct TSFetchLastValuesReq {
+    1: required i64 sessionId
+    2: required list<string> paths
+}
+
+// the latest point of each requested path, hasValues[i] is false if the path has no data
+struct TSFetchLastValuesResp {
+    1: required TSStatus status
+    2: optional list<bool> hasValues
+    3: optional list<i64> timestamps
+    4: optional list<string> values
+    5: optional list<string> dataTypes
+}
+
 struct TSCreateTimeseriesReq {
   1: required i64 sessionId
   2: required string path
@@ -269,6 +301,10 @@ service TSIService {
 
 	TSExecuteInsertRowInBatchResp insertRowInBatch(1:TSInsertInBatchReq req);
 
+  TSStatus insertTyped(1:TSTypedInsertReq req);
+
+  TSExecuteInsertRowInBatchResp insertTypedRowInBatch(1:TSTypedInsertInBatchReq req);
+
 	TSExecuteBatchStatementResp testInsertBatch(1:TSBatchInsertionReq req);
 
   TSStatus testInsertRow(1:TSInsertReq req);
@@ -277,5 +313,7 @@ service TSIService {
 
 	TSStatus deleteData(1:TSDeleteDataReq req);
 
+	TSFetchLastValuesResp fetchLastValues(1:TSFetchLastValuesReq req);
+
 	i64 requestStatementId(1:i64 sessionId);
 }
@@ -0,0 +1,428 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An asynchronous session, whose insertions return a future of the status instead of waiting for
+ * the response.
+ * <p>
+ * Rows inserted one by one are buffered and coalesced into one insertRowInBatch request (or
+ * insertTypedRowInBatch for typed values) when batchSize rows are buffered or lingerMs after the
+ * first row of the buffer is inserted. At most maxInFlight requests are sent without their
+ * responses, each over its own connection since a connection serves one request at a time, and the
+ * caller blocks when the window is full.
+ * <p>
+ * Requests on different connections may be applied in any order, so a row should not be
+ * overwritten before the future of its previous insertion completes.
+ */
+public class AsyncSession {
+
+  private static final Logger logger = LoggerFactory.getLogger(AsyncSession.class);
+
+  private String host;
+  private int port;
+  private String username;
+  private String password;
+  private int maxInFlight;
+  private int batchSize;
+  private long lingerMs;
+  private boolean enableFramedTransport = false;
+
+  /**
+   * the sessions which are not sending a request
+   */
+  private BlockingQueue<Session> idleSessions;
+  /**
+   * one permit for each request that may be sent without its response
+   */
+  private Semaphore window;
+  private ExecutorService senderPool;
+  private ScheduledExecutorService lingerTimer;
+  private volatile boolean isClosed = true;
+
+  /**
+   * guards the buffered rows and isClosed
+   */
+  private final Object bufferLock = new Object();
+  private BufferedRows typedRows;
+  private BufferedRows stringRows;
+
+  public AsyncSession(String host, int port, String username, String password) {
+    this(host, port, username, password, Config.DEFAULT_MAX_IN_FLIGHT,
+        Config.DEFAULT_ASYNC_BATCH_SIZE, Config.DEFAULT_LINGER_MS);
+  }
+
+  /**
+   * @param maxInFlight the number of requests sent without their responses
+   * @param batchSize the number of rows coalesced into one request
+   * @param lingerMs the time to wait for more rows before sending a request that is not full
+   */
+  public AsyncSession(String host, int port, String username, String password, int maxInFlight,
+      int batchSize, long lingerMs) {
+    if (maxInFlight <= 0 || batchSize <= 0 || lingerMs < 0) {
+      throw new IllegalArgumentException(
+          "maxInFlight and batchSize should be positive and lingerMs should not be negative");
+    }
+    this.host = host;
+    this.port = port;
+    this.username = username;
+    this.password = password;
+    this.maxInFlight = maxInFlight;
+    this.batchSize = batchSize;
+    this.lingerMs = lingerMs;
+  }
+
+  /**
+   * @see Session#setEnableFramedTransport(boolean)
+   */
+  public synchronized void setEnableFramedTransport(boolean enableFramedTransport) {
+    this.enableFramedTransport = enableFramedTransport;
+  }
+
+  public synchronized void open() throws IoTDBSessionException {
+    if (!isClosed) {
+      return;
+    }
+    List<Session> sessions = new ArrayList<>(maxInFlight);
+    try {
+      for (int i = 0; i < maxInFlight; i++) {
+        Session session = new Session(host, port, username, password);
+        session.setEnableFramedTransport(enableFramedTransport);
+        session.open();
+        sessions.add(session);
+      }
+    } catch (IoTDBSessionException e) {
+      closeSessions(sessions);
+      throw e;
+    }
+    idleSessions = new ArrayBlockingQueue<>(maxInFlight, false, sessions);
+    window = new Semaphore(maxInFlight);
+    senderPool = Executors.newFixedThreadPool(maxInFlight, newThreadFactory("AsyncSession-Sender"));
+    lingerTimer = Executors.newSingleThreadScheduledExecutor(newThreadFactory("AsyncSession-Linger"));
+    synchronized (bufferLock) {
+      isClosed = false;
+    }
+  }
+
+  /**
+   * send the buffered rows, wait for the responses of all requests in flight and close the
+   * connections.
+   */
+  public synchronized void close() throws IoTDBSessionException {
+    if (isClosed) {
+      return;
+    }
+    synchronized (bufferLock) {
+      isClosed = true;
+    }
+    flush();
+    // a linger task may be sending its rows, wait for it to hand them to the senders
+    lingerTimer.shutdownNow();
+    try {
+      lingerTimer.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    window.acquireUninterruptibly(maxInFlight);
+    senderPool.shutdown();
+    // a late insertBatch() gets a permit and is rejected by the sender pool
+    window.release(maxInFlight);
+    closeSessions(new ArrayList<>(idleSessions));
+  }
+
+  /**
+   * Insert typed values in one row. The values are serialized before this method returns and sent
+   * together with other buffered rows.
+   *
+   * @param types the types of the values
+   * @param values Boolean, Integer, Long, Float, Double, or String or Binary for TEXT
+   * @return the future of the status of this row, which completes exceptionally if the request
+   * cannot be sent
+   */
+  public CompletableFuture<TSStatus> insert(String deviceId, long time, List<String> measurements,
+      List<TSDataType> types, List<Object> values) {
+    ByteBuffer valueBuffer = SessionUtils.getValueBuffer(types, values);
+    CompletableFuture<TSStatus> future = new CompletableFuture<>();
+    BufferedRows fullRows = null;
+    synchronized (bufferLock) {
+      if (isClosed) {
+        future.completeExceptionally(new IoTDBSessionException("AsyncSession is closed"));
+        return future;
+      }
+      if (typedRows == null) {
+        typedRows = newBufferedRows(true);
+      }
+      typedRows.add(deviceId, time, measurements, valueBuffer, null, future);
+      if (typedRows.size() >= batchSize) {
+        fullRows = typedRows;
+        typedRows = null;
+      }
+    }
+    if (fullRows != null) {
+      send(fullRows);
+    }
+    return future;
+  }
+
+  /**
+   * Insert values in one row, which are strings parsed by the server. The row is sent together
+   * with other buffered rows.
+   *
+   * @return the future of the status of this row, which completes exceptionally if the request
+   * cannot be sent
+   */
+  public CompletableFuture<TSStatus> insert(String deviceId, long time, List<String> measurements,
+      List<String> values) {
+    if (measurements.size() != values.size()) {
+      throw new IllegalArgumentException("measurements and values' size should be equal");
+    }
+    CompletableFuture<TSStatus> future = new CompletableFuture<>();
+    BufferedRows fullRows = null;
+    synchronized (bufferLock) {
+      if (isClosed) {
+        future.completeExceptionally(new IoTDBSessionException("AsyncSession is closed"));
+        return future;
+      }
+      if (stringRows == null) {
+        stringRows = newBufferedRows(false);
+      }
+      stringRows.add(deviceId, time, measurements, null, values, future);
+      if (stringRows.size() >= batchSize) {
+        fullRows = stringRows;
+        stringRows = null;
+      }
+    }
+    if (fullRows != null) {
+      send(fullRows);
+    }
+    return future;
+  }
+
+  /**
+   * send a batch at once without coalescing it with other insertions. The batch is serialized
+   * before this method returns, so it can be reused by the caller.
+   *
+   * @return the future of the status of the batch
+   */
+  public CompletableFuture<TSStatus> insertBatch(RowBatch rowBatch) {
+    TSBatchInsertionReq request = SessionUtils.getBatchInsertionReq(rowBatch);
+    CompletableFuture<TSStatus> future = new CompletableFuture<>();
+    if (isClosed) {
+      future.completeExceptionally(new IoTDBSessionException("AsyncSession is closed"));
+      return future;
+    }
+    submit(session -> future.complete(session.insertBatch(request).getStatus()),
+        future::completeExceptionally);
+    return future;
+  }
+
+  /**
+   * send the buffered rows without waiting for the linger time. It does not wait for the
+   * responses.
+   */
+  public void flush() {
+    BufferedRows typed;
+    BufferedRows strings;
+    synchronized (bufferLock) {
+      typed = typedRows;
+      strings = stringRows;
+      typedRows = null;
+      stringRows = null;
+    }
+    if (typed != null) {
+      send(typed);
+    }
+    if (strings != null) {
+      send(strings);
+    }
+  }
+
+  /**
+   * must be called with bufferLock held.
+   */
+  private BufferedRows newBufferedRows(boolean typed) {
+    BufferedRows rows = new BufferedRows(typed);
+    rows.lingerTask = lingerTimer.schedule(() -> lingerFlush(rows), lingerMs,
+        TimeUnit.MILLISECONDS);
+    return rows;
+  }
+
+  private void lingerFlush(BufferedRows rows) {
+    synchronized (bufferLock) {
+      if (rows == typedRows) {
+        typedRows = null;
+      } else if (rows == stringRows) {
+        stringRows = null;
+      } else {
+        // already sent because it is full or flushed
+        return;
+      }
+    }
+    send(rows);
+  }
+
+  private void send(BufferedRows rows) {
+    rows.lingerTask.cancel(false);
+    submit(session -> {
+      List<TSStatus> statuses = rows.typed
+          ? session.insertTypedInBatch(rows.deviceIds, rows.times, rows.measurementsList,
+          rows.typedValuesList)
+          : session.insertInBatch(rows.deviceIds, rows.times, rows.measurementsList,
+              rows.valuesList);
+      for (int i = 0; i < rows.futures.size(); i++) {
+        rows.futures.get(i).complete(statuses.get(i));
+      }
+    }, e -> rows.futures.forEach(future -> future.completeExceptionally(e)));
+  }
+
+  /**
+   * run the task with an idle session in the sender pool, blocking the caller until the window
+   * has room for one more request. A session whose connection breaks is reopened before it becomes
+   * idle again.
+   */
+  private void submit(SessionTask task, Consumer<Throwable> onFailure) {
+    window.acquireUninterruptibly();
+    try {
+      senderPool.execute(() -> {
+        Session session = idleSessions.poll();
+        try {
+          task.run(session);
+        } catch (Exception e) {
+          onFailure.accept(e);
+          if (e.getCause() instanceof TException) {
+            reconnect(session);
+          }
+        } finally {
+          idleSessions.add(session);
+          window.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      window.release();
+      onFailure.accept(new IoTDBSessionException("AsyncSession is closed", e));
+    }
+  }
+
+  /**
+   * reopen a session whose connection is broken. If the server is still unreachable, the session
+   * stays closed, fails its next request and is reopened again after it.
+   */
+  private void reconnect(Session session) {
+    try {
+      session.close();
+    } catch (IoTDBSessionException e) {
+      logger.debug("Cannot close a broken session of AsyncSession", e);
+    }
+    try {
+      session.open();
+    } catch (IoTDBSessionException e) {
+      logger.warn("Cannot reconnect a session of AsyncSession", e);
+    }
+  }
+
+  private void closeSessions(List<Session> sessions) throws IoTDBSessionException {
+    IoTDBSessionException exception = null;
+    for (Session session : sessions) {
+      try {
+        session.close();
+      } catch (IoTDBSessionException e) {
+        logger.error("Cannot close a session of AsyncSession", e);
+        exception = e;
+      }
+    }
+    if (exception != null) {
+      throw exception;
+    }
+  }
+
+  private static ThreadFactory newThreadFactory(String name) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return r -> {
+      Thread thread = new Thread(r, name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @FunctionalInterface
+  private interface SessionTask {
+
+    void run(Session session) throws IoTDBSessionException;
+  }
+
+  /**
+   * rows buffered to be sent in one request, either all typed or all strings.
+   */
+  private static class BufferedRows {
+
+    private final boolean typed;
+    private final List<String> deviceIds = new ArrayList<>();
+    private final List<Long> times = new ArrayList<>();
+    private final List<List<String>> measurementsList = new ArrayList<>();
+    private final List<ByteBuffer> typedValuesList = new ArrayList<>();
+    private final List<List<String>> valuesList = new ArrayList<>();
+    private final List<CompletableFuture<TSStatus>> futures = new ArrayList<>();
+    private ScheduledFuture<?> lingerTask;
+
+    private BufferedRows(boolean typed) {
+      this.typed = typed;
+    }
+
+    private void add(String deviceId, long time, List<String> measurements,
+        ByteBuffer typedValues, List<String> values, CompletableFuture<TSStatus> future) {
+      deviceIds.add(deviceId);
+      times.add(time);
+      measurementsList.add(measurements);
+      if (typed) {
+        typedValuesList.add(typedValues);
+      } else {
+        valuesList.add(values);
+      }
+      futures.add(future);
+    }
+
+    private int size() {
+      return futures.size();
+    }
+  }
+}
@@ -28,6 +28,36 @@ public class Config {
   public static final int DEFAULT_FETCH_SIZE = 10000;
   public static final int DEFAULT_TIMEOUT_MS = 0;
 
+  /**
+   * default number of requests an AsyncSession sends without waiting for their responses
+   */
+  public static final int DEFAULT_MAX_IN_FLIGHT = 4;
+  /**
+   * default number of rows an AsyncSession coalesces into one request
+   */
+  public static final int DEFAULT_ASYNC_BATCH_SIZE = 1000;
+  /**
+   * default time an AsyncSession waits for more rows before sending a request
+   */
+  public static final long DEFAULT_LINGER_MS = 10;
+
+  /**
+   * default maximum number of sessions of a SessionPool
+   */
+  public static final int DEFAULT_POOL_MAX_SIZE = 8;
+  /**
+   * default time to wait for a session when all sessions of a SessionPool are in use
+   */
+  public static final long DEFAULT_POOL_WAIT_TIMEOUT_MS = 60000;
+  /**
+   * default time after which an idle session of a SessionPool is closed
+   */
+  public static final long DEFAULT_POOL_MAX_IDLE_MS = 60000;
+  /**
+   * time during which a SessionPool prefers other endpoints after failing to connect to one
+   */
+  public static final long DEFAULT_ENDPOINT_RETRY_INTERVAL_MS = 1000;
+
   public static final String PATH_MATCHER =
       PATH_ROOT + "([" + PATH_SEPARATOR + "](([a-zA-Z_][a-zA-Z0-9_-]*)|([+-]?[0-9]+)))+";
 
@@ -20,6 +20,7 @@ package org.apache.iotdb.session;
 
 import static org.apache.iotdb.session.Config.PATH_MATCHER;
 
+import java.nio.ByteBuffer;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
@@ -36,6 +37,8 @@ import org.apache.iotdb.service.rpc.thrift.TSDeleteDataReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementReq;
 import org.apache.iotdb.service.rpc.thrift.TSExecuteStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSFetchLastValuesReq;
+import org.apache.iotdb.service.rpc.thrift.TSFetchLastValuesResp;
 import org.apache.iotdb.service.rpc.thrift.TSGetTimeZoneResp;
 import org.apache.iotdb.service.rpc.thrift.TSIService;
 import org.apache.iotdb.service.rpc.thrift.TSInsertInBatchReq;
@@ -45,15 +48,19 @@ import org.apache.iotdb.service.rpc.thrift.TSOpenSessionResp;
 import org.apache.iotdb.service.rpc.thrift.TSProtocolVersion;
 import org.apache.iotdb.service.rpc.thrift.TSSetTimeZoneReq;
 import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.service.rpc.thrift.TSTypedInsertInBatchReq;
+import org.apache.iotdb.service.rpc.thrift.TSTypedInsertReq;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
-import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TBinaryProtocol;
 import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.transport.TFramedTransport;
 import org.apache.thrift.transport.TSocket;
+import org.apache.thrift.transport.TTransport;
 import org.apache.thrift.transport.TTransportException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,7 +75,8 @@ public class Session {
   private String password;
   private TSIService.Iface client = null;
   private long sessionId;
-  private TSocket transport;
+  private TTransport transport;
+  private boolean enableFramedTransport = false;
   private boolean isClosed = true;
   private ZoneId zoneId;
   private long statementId;
@@ -98,6 +106,14 @@ public class Session {
     this.fetchSize = fetchSize;
   }
 
+  /**
+   * use framed transport, which is required by a server with rpc_selector_server_enable. It takes
+   * effect when the session is opened.
+   */
+  public synchronized void setEnableFramedTransport(boolean enableFramedTransport) {
+    this.enableFramedTransport = enableFramedTransport;
+  }
+
   public synchronized void open() throws IoTDBSessionException {
     open(false, Config.DEFAULT_TIMEOUT_MS);
   }
@@ -108,6 +124,9 @@ public class Session {
       return;
     }
     transport = new TSocket(host, port, connectionTimeoutInMs);
+    if (enableFramedTransport) {
+      transport = new TFramedTransport(transport, RpcUtils.THRIFT_FRAME_MAX_SIZE);
+    }
     if (!transport.isOpen()) {
       try {
         transport.open();
@@ -183,17 +202,15 @@ public class Session {
    */
   public TSExecuteBatchStatementResp insertBatch(RowBatch rowBatch)
       throws IoTDBSessionException {
-    TSBatchInsertionReq request = new TSBatchInsertionReq();
-    request.setSessionId(sessionId);
-    request.deviceId = rowBatch.deviceId;
-    for (MeasurementSchema measurementSchema : rowBatch.measurements) {
-      request.addToMeasurements(measurementSchema.getMeasurementId());
-      request.addToTypes(measurementSchema.getType().ordinal());
-    }
-    request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
-    request.setValues(SessionUtils.getValueBuffer(rowBatch));
-    request.setSize(rowBatch.batchSize);
+    return insertBatch(SessionUtils.getBatchInsertionReq(rowBatch));
+  }
 
+  /**
+   * send a request of batch insertion whose data is already serialized.
+   */
+  TSExecuteBatchStatementResp insertBatch(TSBatchInsertionReq request)
+      throws IoTDBSessionException {
+    request.setSessionId(sessionId);
     try {
       return checkAndReturn(client.insertBatch(request));
     } catch (TException e) {
@@ -204,8 +221,10 @@ public class Session {
   /**
    * Insert data in batch format, which can reduce the overhead of network. This method is just like
    * jdbc batch insert, we pack some insert request in batch and send them to server If you want
-   * improve your performance, please see insertBatch method
+   * improve your performance, please see insertBatch method. The values are strings parsed by the
+   * server, prefer inserting typed values if the types are known.
    *
+   * @see Session#insertInBatch(List, List, List, List, List)
    * @see Session#insertBatch(RowBatch)
    */
   public List<TSStatus> insertInBatch(List<String> deviceIds, List<Long> times,
@@ -237,10 +256,92 @@ public class Session {
     }
   }
 
+  /**
+   * Insert rows of typed values in batch format. The values are sent in binary, so neither the
+   * client nor the server converts them to or from strings.
+   *
+   * @param typesList the types of the values of each row
+   * @param valuesList the values of each row, which are Boolean, Integer, Long, Float, Double, or
+   * String or Binary for TEXT
+   * @see Session#insertBatch(RowBatch)
+   */
+  public List<TSStatus> insertInBatch(List<String> deviceIds, List<Long> times,
+      List<List<String>> measurementsList, List<List<TSDataType>> typesList,
+      List<List<Object>> valuesList)
+      throws IoTDBSessionException {
+    // check params size
+    int len = deviceIds.size();
+    if (len != times.size() || len != measurementsList.size() || len != typesList.size()
+        || len != valuesList.size()) {
+      throw new IllegalArgumentException(
+          "deviceIds, times, measurementsList, typesList and valuesList's size should be equal");
+    }
+
+    List<ByteBuffer> buffers = new ArrayList<>(len);
+    for (int i = 0; i < len; i++) {
+      buffers.add(SessionUtils.getValueBuffer(typesList.get(i), valuesList.get(i)));
+    }
+    return insertTypedInBatch(deviceIds, times, measurementsList, buffers);
+  }
+
+  /**
+   * send rows of typed values whose values are already serialized by
+   * {@link SessionUtils#getValueBuffer(List, List)}.
+   */
+  List<TSStatus> insertTypedInBatch(List<String> deviceIds, List<Long> times,
+      List<List<String>> measurementsList, List<ByteBuffer> valuesList)
+      throws IoTDBSessionException {
+    TSTypedInsertInBatchReq request = new TSTypedInsertInBatchReq();
+    request.setSessionId(sessionId);
+    request.setDeviceIds(deviceIds);
+    request.setTimestamps(times);
+    request.setMeasurementsList(measurementsList);
+    request.setValuesList(valuesList);
+
+    try {
+      List<TSStatus> result = new ArrayList<>();
+      for (TSStatus cur : client.insertTypedRowInBatch(request).getStatusList()) {
+        result.add(checkAndReturn(cur));
+      }
+      return result;
+    } catch (TException e) {
+      throw new IoTDBSessionException(e);
+    }
+  }
+
+  /**
+   * Insert typed values in one row. The values are sent in binary, so neither the client nor the
+   * server converts them to or from strings. If you want improve your performance, please use
+   * insertInBatch method or insertBatch method
+   *
+   * @param types the types of the values
+   * @param values Boolean, Integer, Long, Float, Double, or String or Binary for TEXT
+   * @see Session#insertInBatch(List, List, List, List, List)
+   * @see Session#insertBatch(RowBatch)
+   */
+  public TSStatus insert(String deviceId, long time, List<String> measurements,
+      List<TSDataType> types, List<Object> values)
+      throws IoTDBSessionException {
+    TSTypedInsertReq request = new TSTypedInsertReq();
+    request.setSessionId(sessionId);
+    request.setDeviceId(deviceId);
+    request.setTimestamp(time);
+    request.setMeasurements(measurements);
+    request.setValues(SessionUtils.getValueBuffer(types, values));
+
+    try {
+      return checkAndReturn(client.insertTyped(request));
+    } catch (TException e) {
+      throw new IoTDBSessionException(e);
+    }
+  }
+
   /**
    * insert data in one row, if you want improve your performance, please use insertInBatch method
-   * or insertBatch method
+   * or insertBatch method. The values are strings parsed by the server, prefer inserting typed
+   * values if the types are known.
    *
+   * @see Session#insert(String, long, List, List, List)
    * @see Session#insertInBatch(List, List, List, List)
    * @see Session#insertBatch(RowBatch)
    */
@@ -267,16 +368,8 @@ public class Session {
    */
   public TSExecuteBatchStatementResp testInsertBatch(RowBatch rowBatch)
       throws IoTDBSessionException {
-    TSBatchInsertionReq request = new TSBatchInsertionReq();
+    TSBatchInsertionReq request = SessionUtils.getBatchInsertionReq(rowBatch);
     request.setSessionId(sessionId);
-    request.deviceId = rowBatch.deviceId;
-    for (MeasurementSchema measurementSchema : rowBatch.measurements) {
-      request.addToMeasurements(measurementSchema.getMeasurementId());
-      request.addToTypes(measurementSchema.getType().ordinal());
-    }
-    request.setTimestamps(SessionUtils.getTimeBuffer(rowBatch));
-    request.setValues(SessionUtils.getValueBuffer(rowBatch));
-    request.setSize(rowBatch.batchSize);
 
     try {
       return client.testInsertBatch(request);
@@ -392,6 +485,37 @@ public class Session {
     }
   }
 
+  /**
+   * fetch the latest point of multiple timeseries in one request
+   *
+   * @param paths full paths of the timeseries
+   * @return the latest point of each timeseries as a record of its time and a single field, or
+   * null if the timeseries has no data
+   */
+  public List<RowRecord> fetchLastValues(List<String> paths) throws IoTDBSessionException {
+    TSFetchLastValuesReq request = new TSFetchLastValuesReq(sessionId, paths);
+    TSFetchLastValuesResp resp;
+    try {
+      resp = client.fetchLastValues(request);
+      RpcUtils.verifySuccess(resp.getStatus());
+    } catch (TException | IoTDBRPCException e) {
+      throw new IoTDBSessionException(e);
+    }
+
+    List<RowRecord> lastValues = new ArrayList<>();
+    for (int i = 0; i < paths.size(); i++) {
+      if (!resp.getHasValues().get(i)) {
+        lastValues.add(null);
+        continue;
+      }
+      RowRecord record = new RowRecord(resp.getTimestamps().get(i));
+      record.addField(SessionUtils.parseField(TSDataType.valueOf(resp.getDataTypes().get(i)),
+          resp.getValues().get(i)));
+      lastValues.add(record);
+    }
+    return lastValues;
+  }
+
   public TSStatus setStorageGroup(String storageGroupId) throws IoTDBSessionException {
     checkPathValidity(storageGroupId);
     try {
@@ -0,0 +1,594 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.service.rpc.thrift.TSExecuteBatchStatementResp;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A thread-safe pool of sessions to one or more servers.
+ * <p>
+ * At most maxSize sessions are borrowed at the same time, and a borrower waits at most
+ * waitTimeoutMs for one to be returned. An idle session is lent first, from the endpoints in the
+ * order of the {@link DispatchPolicy}, and a new one is opened only if no endpoint has an idle
+ * session. Idle sessions are closed after being idle for maxIdleMs. An endpoint which cannot be
+ * connected is tried after the others for a while.
+ * <p>
+ * The methods of this class borrow a session, run the operation and return the session. If the
+ * operation fails with a {@link TException}, the connection is considered broken, e.g., the server
+ * has restarted, so all the sessions of its endpoint opened until then are closed instead of being
+ * lent again, and the operation is retried once with a newly opened session. Sessions borrowed by
+ * {@link #getSession()} must be returned by {@link #putBack(Session)}, or by
+ * {@link #invalidate(Session)} if they are broken.
+ */
+public class SessionPool {
+
+  private static final Logger logger = LoggerFactory.getLogger(SessionPool.class);
+
+  public enum DispatchPolicy {
+    /**
+     * use the endpoints in turn
+     */
+    ROUND_ROBIN,
+    /**
+     * use the endpoint with the fewest borrowed sessions
+     */
+    LEAST_IN_FLIGHT
+  }
+
+  private final Endpoint[] endpoints;
+  private final String username;
+  private final String password;
+  private final int maxSize;
+  private final long waitTimeoutMs;
+  private final long maxIdleMs;
+  private final DispatchPolicy dispatchPolicy;
+  private volatile boolean enableFramedTransport = false;
+
+  /**
+   * one permit for each session that may be borrowed
+   */
+  private final Semaphore permits;
+  private final Map<Session, PooledSession> borrowedSessions = new ConcurrentHashMap<>();
+  private final AtomicInteger roundRobinIndex = new AtomicInteger();
+  private ScheduledExecutorService evictor;
+  private volatile boolean isClosed = false;
+
+  private final AtomicLong borrowCount = new AtomicLong();
+  private final AtomicLong timeoutCount = new AtomicLong();
+  private final AtomicLong totalWaitTimeNs = new AtomicLong();
+  private final AtomicLong maxWaitTimeNs = new AtomicLong();
+  private final AtomicLong reconnectCount = new AtomicLong();
+  private final AtomicLong evictedCount = new AtomicLong();
+
+  public SessionPool(String host, int port, String username, String password, int maxSize) {
+    this(Collections.singletonList(host + ":" + port), username, password, maxSize,
+        Config.DEFAULT_POOL_WAIT_TIMEOUT_MS, Config.DEFAULT_POOL_MAX_IDLE_MS,
+        DispatchPolicy.ROUND_ROBIN);
+  }
+
+  /**
+   * @param endpoints the servers in the form of "host:port"
+   * @param maxSize the maximum number of sessions borrowed at the same time
+   * @param waitTimeoutMs the time to wait for a session when all of them are borrowed
+   * @param maxIdleMs the time after which an idle session is closed, or non-positive to keep idle
+   * sessions open
+   */
+  public SessionPool(List<String> endpoints, String username, String password, int maxSize,
+      long waitTimeoutMs, long maxIdleMs, DispatchPolicy dispatchPolicy) {
+    if (endpoints.isEmpty() || maxSize <= 0) {
+      throw new IllegalArgumentException("endpoints should not be empty and maxSize should be "
+          + "positive");
+    }
+    this.endpoints = new Endpoint[endpoints.size()];
+    for (int i = 0; i < endpoints.size(); i++) {
+      this.endpoints[i] = Endpoint.parse(endpoints.get(i));
+    }
+    this.username = username;
+    this.password = password;
+    this.maxSize = maxSize;
+    this.waitTimeoutMs = waitTimeoutMs;
+    this.maxIdleMs = maxIdleMs;
+    this.dispatchPolicy = dispatchPolicy;
+    this.permits = new Semaphore(maxSize, true);
+
+    if (maxIdleMs > 0) {
+      evictor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "SessionPool-Evictor");
+        thread.setDaemon(true);
+        return thread;
+      });
+      long period = Math.max(maxIdleMs / 2, 1);
+      evictor.scheduleWithFixedDelay(this::evictIdleSessions, period, period,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * use framed transport for the sessions opened afterwards.
+   *
+   * @see Session#setEnableFramedTransport(boolean)
+   */
+  public void setEnableFramedTransport(boolean enableFramedTransport) {
+    this.enableFramedTransport = enableFramedTransport;
+  }
+
+  /**
+   * borrow a session, which is opened if there is no idle one.
+   *
+   * @throws IoTDBSessionException if no session is returned in waitTimeoutMs or no endpoint can be
+   * connected
+   */
+  public Session getSession() throws IoTDBSessionException {
+    return getSession(false);
+  }
+
+  /**
+   * @param openNew open a new session even if there are idle ones
+   */
+  private Session getSession(boolean openNew) throws IoTDBSessionException {
+    if (isClosed) {
+      throw new IoTDBSessionException("SessionPool is closed");
+    }
+    long startTime = System.nanoTime();
+    boolean acquired;
+    try {
+      acquired = permits.tryAcquire(waitTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IoTDBSessionException("Interrupted while waiting for a session", e);
+    }
+    long waitTime = System.nanoTime() - startTime;
+    totalWaitTimeNs.addAndGet(waitTime);
+    maxWaitTimeNs.accumulateAndGet(waitTime, Math::max);
+    if (!acquired) {
+      timeoutCount.incrementAndGet();
+      throw new IoTDBSessionException(String.format(
+          "Cannot get a session in %dms, all %d sessions are in use", waitTimeoutMs, maxSize));
+    }
+    borrowCount.incrementAndGet();
+
+    try {
+      PooledSession pooledSession = borrow(openNew);
+      borrowedSessions.put(pooledSession.session, pooledSession);
+      return pooledSession.session;
+    } catch (IoTDBSessionException e) {
+      permits.release();
+      throw e;
+    }
+  }
+
+  /**
+   * return a session borrowed by {@link #getSession()} to the pool.
+   */
+  public void putBack(Session session) {
+    PooledSession pooledSession = release(session);
+    Endpoint endpoint = pooledSession.endpoint;
+    if (pooledSession.generation != endpoint.generation.get()) {
+      // the connection of the endpoint was broken after the session was opened
+      closeQuietly(session);
+      permits.release();
+      return;
+    }
+    pooledSession.lastReturnTime = System.currentTimeMillis();
+    endpoint.idleSessions.offerFirst(pooledSession);
+    // the pool may be closed while the session was being returned
+    if (isClosed && endpoint.idleSessions.remove(pooledSession)) {
+      closeQuietly(session);
+    }
+    permits.release();
+  }
+
+  /**
+   * close a broken session borrowed by {@link #getSession()} instead of returning it to the pool.
+   * The other sessions of its endpoint are considered broken too, so the idle ones are closed and
+   * the borrowed ones are closed when they are returned.
+   */
+  public void invalidate(Session session) {
+    PooledSession pooledSession = release(session);
+    closeQuietly(session);
+    invalidateEndpoint(pooledSession.endpoint, pooledSession.generation);
+    permits.release();
+  }
+
+  /**
+   * close the idle sessions of the endpoint opened in or before the given generation.
+   */
+  private void invalidateEndpoint(Endpoint endpoint, long generation) {
+    // only the first failure of a generation closes the sessions
+    if (!endpoint.generation.compareAndSet(generation, generation + 1)) {
+      return;
+    }
+    for (PooledSession idleSession : endpoint.idleSessions) {
+      if (idleSession.generation <= generation && endpoint.idleSessions.remove(idleSession)) {
+        closeQuietly(idleSession.session);
+      }
+    }
+  }
+
+  /**
+   * run the callback with a borrowed session, retrying once with a newly opened session if the
+   * connection is broken.
+   */
+  public <T> T execute(SessionCallback<T> callback) throws IoTDBSessionException {
+    for (int retry = 0; ; retry++) {
+      Session session = getSession(retry > 0);
+      try {
+        T result = callback.apply(session);
+        putBack(session);
+        return result;
+      } catch (IoTDBSessionException | TException | IoTDBRPCException e) {
+        if (!isBroken(e)) {
+          putBack(session);
+        } else {
+          invalidate(session);
+          if (retry == 0) {
+            logger.warn("The connection is broken, retry with a new session", e);
+            reconnectCount.incrementAndGet();
+            continue;
+          }
+        }
+        throw e instanceof IoTDBSessionException ? (IoTDBSessionException) e
+            : new IoTDBSessionException(e);
+      } catch (RuntimeException e) {
+        putBack(session);
+        throw e;
+      }
+    }
+  }
+
+  /**
+   * @see Session#insertBatch(RowBatch)
+   */
+  public TSExecuteBatchStatementResp insertBatch(RowBatch rowBatch) throws IoTDBSessionException {
+    return execute(session -> session.insertBatch(rowBatch));
+  }
+
+  /**
+   * @see Session#insertInBatch(List, List, List, List)
+   */
+  public List<TSStatus> insertInBatch(List<String> deviceIds, List<Long> times,
+      List<List<String>> measurementsList, List<List<String>> valuesList)
+      throws IoTDBSessionException {
+    return execute(session -> session.insertInBatch(deviceIds, times, measurementsList,
+        valuesList));
+  }
+
+  /**
+   * @see Session#insertInBatch(List, List, List, List, List)
+   */
+  public List<TSStatus> insertInBatch(List<String> deviceIds, List<Long> times,
+      List<List<String>> measurementsList, List<List<TSDataType>> typesList,
+      List<List<Object>> valuesList) throws IoTDBSessionException {
+    return execute(session -> session.insertInBatch(deviceIds, times, measurementsList,
+        typesList, valuesList));
+  }
+
+  /**
+   * @see Session#insert(String, long, List, List)
+   */
+  public TSStatus insert(String deviceId, long time, List<String> measurements,
+      List<String> values) throws IoTDBSessionException {
+    return execute(session -> session.insert(deviceId, time, measurements, values));
+  }
+
+  /**
+   * @see Session#insert(String, long, List, List, List)
+   */
+  public TSStatus insert(String deviceId, long time, List<String> measurements,
+      List<TSDataType> types, List<Object> values) throws IoTDBSessionException {
+    return execute(session -> session.insert(deviceId, time, measurements, types, values));
+  }
+
+  public TSStatus deleteData(List<String> paths, long time) throws IoTDBSessionException {
+    return execute(session -> session.deleteData(paths, time));
+  }
+
+  public List<RowRecord> fetchLastValues(List<String> paths) throws IoTDBSessionException {
+    return execute(session -> session.fetchLastValues(paths));
+  }
+
+  public TSStatus setStorageGroup(String storageGroupId) throws IoTDBSessionException {
+    return execute(session -> session.setStorageGroup(storageGroupId));
+  }
+
+  public TSStatus createTimeseries(String path, TSDataType dataType, TSEncoding encoding,
+      CompressionType compressor) throws IoTDBSessionException {
+    return execute(session -> session.createTimeseries(path, dataType, encoding, compressor));
+  }
+
+  /**
+   * execute a non query statement. A query should be run by {@link #execute(SessionCallback)}
+   * with its result set consumed in the callback, since the result set is fetched through the
+   * session.
+   */
+  public void executeNonQueryStatement(String sql) throws IoTDBSessionException {
+    execute(session -> {
+      session.executeNonQueryStatement(sql);
+      return null;
+    });
+  }
+
+  /**
+   * close the idle sessions, the borrowed ones are closed when they are returned.
+   */
+  public void close() {
+    isClosed = true;
+    if (evictor != null) {
+      evictor.shutdownNow();
+    }
+    for (Endpoint endpoint : endpoints) {
+      PooledSession pooledSession;
+      while ((pooledSession = endpoint.idleSessions.pollFirst()) != null) {
+        closeQuietly(pooledSession.session);
+      }
+    }
+  }
+
+  public int getActiveSessionCount() {
+    return borrowedSessions.size();
+  }
+
+  public int getIdleSessionCount() {
+    int count = 0;
+    for (Endpoint endpoint : endpoints) {
+      count += endpoint.idleSessions.size();
+    }
+    return count;
+  }
+
+  public long getBorrowCount() {
+    return borrowCount.get();
+  }
+
+  /**
+   * the number of borrowers which give up after waiting for waitTimeoutMs.
+   */
+  public long getTimeoutCount() {
+    return timeoutCount.get();
+  }
+
+  /**
+   * the average time a borrower waits for a permit of the pool, excluding opening the session,
+   * including the borrowers which time out.
+   */
+  public double getAverageWaitTimeMs() {
+    long count = borrowCount.get() + timeoutCount.get();
+    return count == 0 ? 0 : totalWaitTimeNs.get() / 1e6 / count;
+  }
+
+  public double getMaxWaitTimeMs() {
+    return maxWaitTimeNs.get() / 1e6;
+  }
+
+  /**
+   * the number of operations retried because their connections are broken.
+   */
+  public long getReconnectCount() {
+    return reconnectCount.get();
+  }
+
+  public long getEvictedCount() {
+    return evictedCount.get();
+  }
+
+  /**
+   * lend an idle session of the first endpoint that has one, or else open a new session on the
+   * first endpoint that can be connected.
+   */
+  private PooledSession borrow(boolean openNew) throws IoTDBSessionException {
+    List<Endpoint> endpointOrder = dispatchOrder();
+    if (!openNew) {
+      long currentTime = System.currentTimeMillis();
+      for (Endpoint endpoint : endpointOrder) {
+        if (endpoint.unavailableUntil > currentTime) {
+          // the unavailable endpoints are at the tail
+          break;
+        }
+        PooledSession pooledSession = endpoint.idleSessions.pollFirst();
+        if (pooledSession != null) {
+          endpoint.inFlight.incrementAndGet();
+          return pooledSession;
+        }
+      }
+    }
+
+    IoTDBSessionException lastException = null;
+    for (Endpoint endpoint : endpointOrder) {
+      long generation = endpoint.generation.get();
+      Session session = new Session(endpoint.host, endpoint.port, username, password);
+      session.setEnableFramedTransport(enableFramedTransport);
+      try {
+        session.open();
+        endpoint.unavailableUntil = 0;
+        endpoint.inFlight.incrementAndGet();
+        return new PooledSession(session, endpoint, generation);
+      } catch (IoTDBSessionException e) {
+        endpoint.unavailableUntil =
+            System.currentTimeMillis() + Config.DEFAULT_ENDPOINT_RETRY_INTERVAL_MS;
+        // the idle sessions of the endpoint cannot be used either
+        invalidateEndpoint(endpoint, generation);
+        logger.warn("Cannot connect to {}, try the next endpoint", endpoint, e);
+        lastException = e;
+      }
+    }
+    throw lastException;
+  }
+
+  /**
+   * the endpoints in the order to be tried, the ones failing recently come last.
+   */
+  private List<Endpoint> dispatchOrder() {
+    int endpointNum = endpoints.length;
+    Endpoint[] ordered = new Endpoint[endpointNum];
+    if (dispatchPolicy == DispatchPolicy.ROUND_ROBIN) {
+      int start = Math.floorMod(roundRobinIndex.getAndIncrement(), endpointNum);
+      for (int i = 0; i < endpointNum; i++) {
+        ordered[i] = endpoints[(start + i) % endpointNum];
+      }
+    } else {
+      // sort by a snapshot since the numbers change concurrently
+      long[] keys = new long[endpointNum];
+      for (int i = 0; i < endpointNum; i++) {
+        keys[i] = ((long) endpoints[i].inFlight.get() << 32) | i;
+      }
+      Arrays.sort(keys);
+      for (int i = 0; i < endpointNum; i++) {
+        ordered[i] = endpoints[(int) keys[i]];
+      }
+    }
+
+    long currentTime = System.currentTimeMillis();
+    List<Endpoint> result = new ArrayList<>(endpointNum);
+    List<Endpoint> unavailable = new ArrayList<>();
+    for (Endpoint endpoint : ordered) {
+      if (endpoint.unavailableUntil > currentTime) {
+        unavailable.add(endpoint);
+      } else {
+        result.add(endpoint);
+      }
+    }
+    result.addAll(unavailable);
+    return result;
+  }
+
+  private PooledSession release(Session session) {
+    PooledSession pooledSession = borrowedSessions.remove(session);
+    if (pooledSession == null) {
+      throw new IllegalArgumentException("The session is not borrowed from this pool");
+    }
+    pooledSession.endpoint.inFlight.decrementAndGet();
+    return pooledSession;
+  }
+
+  private void evictIdleSessions() {
+    long deadline = System.currentTimeMillis() - maxIdleMs;
+    for (Endpoint endpoint : endpoints) {
+      // sessions are returned to the head, so the tail has been idle for the longest time
+      PooledSession pooledSession;
+      while ((pooledSession = endpoint.idleSessions.peekLast()) != null
+          && pooledSession.lastReturnTime < deadline) {
+        if (endpoint.idleSessions.removeLastOccurrence(pooledSession)) {
+          evictedCount.incrementAndGet();
+          closeQuietly(pooledSession.session);
+        }
+      }
+    }
+  }
+
+  private static boolean isBroken(Exception e) {
+    return e instanceof TException || e.getCause() instanceof TException;
+  }
+
+  private static void closeQuietly(Session session) {
+    try {
+      session.close();
+    } catch (IoTDBSessionException e) {
+      logger.debug("Cannot close a session of SessionPool", e);
+    }
+  }
+
+  @FunctionalInterface
+  public interface SessionCallback<T> {
+
+    T apply(Session session) throws IoTDBSessionException, TException, IoTDBRPCException;
+  }
+
+  private static class Endpoint {
+
+    private final String host;
+    private final int port;
+    private final ConcurrentLinkedDeque<PooledSession> idleSessions =
+        new ConcurrentLinkedDeque<>();
+    /**
+     * the number of borrowed sessions of this endpoint
+     */
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile long unavailableUntil = 0;
+    /**
+     * increased each time the connection to the endpoint is found broken, the sessions opened in
+     * the former generations are not lent again
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    private Endpoint(String host, int port) {
+      this.host = host;
+      this.port = port;
+    }
+
+    private static Endpoint parse(String endpoint) {
+      int index = endpoint.lastIndexOf(':');
+      if (index <= 0) {
+        throw new IllegalArgumentException(
+            String.format("Endpoint %s should be in the form of host:port", endpoint));
+      }
+      try {
+        return new Endpoint(endpoint.substring(0, index),
+            Integer.parseInt(endpoint.substring(index + 1)));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException(
+            String.format("Endpoint %s should be in the form of host:port", endpoint), e);
+      }
+    }
+
+    @Override
+    public String toString() {
+      return host + ":" + port;
+    }
+  }
+
+  private static class PooledSession {
+
+    private final Session session;
+    private final Endpoint endpoint;
+    /**
+     * the generation of the endpoint when the session is opened
+     */
+    private final long generation;
+    private volatile long lastReturnTime;
+
+    private PooledSession(Session session, Endpoint endpoint, long generation) {
+      this.session = session;
+      this.endpoint = endpoint;
+      this.generation = generation;
+    }
+  }
+}
@@ -18,16 +18,38 @@
  */
 package org.apache.iotdb.session;
 
+import org.apache.iotdb.service.rpc.thrift.TSBatchInsertionReq;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.read.common.Field;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.BytesUtils;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
+import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 
 public class SessionUtils {
 
+  /**
+   * serialize a RowBatch into a request of batch insertion without the session id, so that the
+   * RowBatch can be reused once this method returns.
+   */
+  public static TSBatchInsertionReq getBatchInsertionReq(RowBatch rowBatch) {
+    TSBatchInsertionReq request = new TSBatchInsertionReq();
+    request.deviceId = rowBatch.deviceId;
+    for (MeasurementSchema measurementSchema : rowBatch.measurements) {
+      request.addToMeasurements(measurementSchema.getMeasurementId());
+      request.addToTypes(measurementSchema.getType().ordinal());
+    }
+    request.setTimestamps(getTimeBuffer(rowBatch));
+    request.setValues(getValueBuffer(rowBatch));
+    request.setSize(rowBatch.batchSize);
+    return request;
+  }
+
   public static ByteBuffer getTimeBuffer(RowBatch rowBatch) {
     ByteBuffer timeBuffer = ByteBuffer.allocate(rowBatch.getTimeBytesSize());
     for (int i = 0; i < rowBatch.batchSize; i++) {
@@ -87,4 +109,110 @@ public class SessionUtils {
     valueBuffer.flip();
     return valueBuffer;
   }
+
+  /**
+   * serialize the values of one row, each one as the ordinal of its type in one byte followed by
+   * the value in binary. A TEXT value can be either a String or a Binary.
+   */
+  public static ByteBuffer getValueBuffer(List<TSDataType> types, List<Object> values) {
+    if (types.size() != values.size()) {
+      throw new IllegalArgumentException("types and values' size should be equal");
+    }
+    int size = types.size();
+    List<Binary> texts = null;
+    for (int i = 0; i < types.size(); i++) {
+      if (types.get(i) == TSDataType.TEXT) {
+        Binary text = values.get(i) instanceof Binary ? (Binary) values.get(i)
+            : new Binary(values.get(i).toString());
+        if (texts == null) {
+          texts = new ArrayList<>();
+        }
+        texts.add(text);
+        size += Integer.BYTES + text.getLength();
+      } else {
+        size += getValueSize(types.get(i));
+      }
+    }
+
+    ByteBuffer valueBuffer = ByteBuffer.allocate(size);
+    int textIndex = 0;
+    for (int i = 0; i < types.size(); i++) {
+      TSDataType dataType = types.get(i);
+      valueBuffer.put((byte) dataType.ordinal());
+      switch (dataType) {
+        case BOOLEAN:
+          valueBuffer.put(BytesUtils.boolToByte((Boolean) values.get(i)));
+          break;
+        case INT32:
+          valueBuffer.putInt(((Number) values.get(i)).intValue());
+          break;
+        case INT64:
+          valueBuffer.putLong(((Number) values.get(i)).longValue());
+          break;
+        case FLOAT:
+          valueBuffer.putFloat(((Number) values.get(i)).floatValue());
+          break;
+        case DOUBLE:
+          valueBuffer.putDouble(((Number) values.get(i)).doubleValue());
+          break;
+        case TEXT:
+          Binary text = texts.get(textIndex++);
+          valueBuffer.putInt(text.getLength());
+          valueBuffer.put(text.getValues());
+          break;
+        default:
+          throw new UnSupportedDataTypeException(
+              String.format("Data type %s is not supported.", dataType));
+      }
+    }
+    valueBuffer.flip();
+    return valueBuffer;
+  }
+
+  private static int getValueSize(TSDataType dataType) {
+    switch (dataType) {
+      case BOOLEAN:
+        return 1;
+      case INT32:
+      case FLOAT:
+        return 4;
+      case INT64:
+      case DOUBLE:
+        return 8;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+  }
+
+  /**
+   * convert the string form of a value returned by the server into a field of the given type.
+   */
+  public static Field parseField(TSDataType dataType, String value) {
+    Field field = new Field(dataType);
+    switch (dataType) {
+      case BOOLEAN:
+        field.setBoolV(Boolean.parseBoolean(value));
+        break;
+      case INT32:
+        field.setIntV(Integer.parseInt(value));
+        break;
+      case INT64:
+        field.setLongV(Long.parseLong(value));
+        break;
+      case FLOAT:
+        field.setFloatV(Float.parseFloat(value));
+        break;
+      case DOUBLE:
+        field.setDoubleV(Double.parseDouble(value));
+        break;
+      case TEXT:
+        field.setBinaryV(new Binary(value));
+        break;
+      default:
+        throw new UnSupportedDataTypeException(
+            String.format("Data type %s is not supported.", dataType));
+    }
+    return field;
+  }
 }
@@ -24,10 +24,13 @@ import org.apache.iotdb.db.conf.IoTDBDescriptor;
 import org.apache.iotdb.db.utils.EnvironmentUtils;
 import org.apache.iotdb.jdbc.Config;
 import org.apache.iotdb.rpc.IoTDBRPCException;
+import org.apache.iotdb.rpc.TSStatusCode;
+import org.apache.iotdb.service.rpc.thrift.TSStatus;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.Field;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.apache.iotdb.tsfile.write.schema.Schema;
@@ -40,7 +43,10 @@ import org.junit.Test;
 import java.io.File;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.junit.Assert.assertEquals;
 
@@ -184,6 +190,152 @@ public class IoTDBSessionIT {
     session.close();
   }
 
+  @Test
+  public void testFetchLastValues() throws IoTDBSessionException {
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+
+    session.setStorageGroup("root.sg1");
+    createTimeseries();
+    insert();
+    session.insert("root.sg1.d1", 50, Collections.singletonList("s1"),
+        Collections.singletonList("5"));
+
+    List<String> paths = new ArrayList<>();
+    paths.add("root.sg1.d1.s1");
+    paths.add("root.sg1.d2.s1");
+    paths.add("root.sg1.d1.s3");
+    paths.add("root.sg1.d1.s1");
+    List<RowRecord> lastValues = session.fetchLastValues(paths);
+    assertEquals(4, lastValues.size());
+    assertEquals(99, lastValues.get(0).getTimestamp());
+    assertEquals(1, lastValues.get(0).getFields().get(0).getLongV());
+    Assert.assertNull(lastValues.get(1));
+    assertEquals(99, lastValues.get(2).getTimestamp());
+    assertEquals(3, lastValues.get(2).getFields().get(0).getLongV());
+    assertEquals(99, lastValues.get(3).getTimestamp());
+
+    session.deleteData("root.sg1.d1.s3", 99);
+    Assert.assertNull(session.fetchLastValues(paths).get(2));
+  }
+
+  @Test
+  public void testInsertTypedValues() throws IoTDBSessionException {
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+
+    session.setStorageGroup("root.sg1");
+    createTimeseries();
+    IoTDBConfig conf = IoTDBDescriptor.getInstance().getConfig();
+    conf.setAutoCreateSchemaEnabled(true);
+    // the series of d3 are created by the types of the values
+    List<String> measurements = new ArrayList<>();
+    List<TSDataType> types = new ArrayList<>();
+    List<Object> values = new ArrayList<>();
+    Object[] objects = {true, 1, 2L, 3.5f, 4.5, "text"};
+    for (TSDataType type : TSDataType.values()) {
+      measurements.add("m" + type.ordinal());
+      types.add(type);
+      values.add(objects[type.ordinal()]);
+    }
+    session.insert("root.sg1.d3", 1, measurements, types, values);
+
+    List<String> deviceIds = new ArrayList<>();
+    List<Long> times = new ArrayList<>();
+    List<List<String>> measurementsList = new ArrayList<>();
+    List<List<TSDataType>> typesList = new ArrayList<>();
+    List<List<Object>> valuesList = new ArrayList<>();
+    for (long time = 2; time < 100; time++) {
+      deviceIds.add("root.sg1.d3");
+      times.add(time);
+      measurementsList.add(measurements);
+      typesList.add(types);
+      valuesList.add(values);
+      // an INT32 value is converted to the INT64 series
+      deviceIds.add("root.sg1.d1");
+      times.add(time);
+      measurementsList.add(Collections.singletonList("s1"));
+      typesList.add(Collections.singletonList(TSDataType.INT32));
+      valuesList.add(Collections.singletonList((int) time));
+    }
+    session.insertInBatch(deviceIds, times, measurementsList, typesList, valuesList);
+    conf.setAutoCreateSchemaEnabled(false);
+
+    List<String> paths = new ArrayList<>();
+    for (String measurement : measurements) {
+      paths.add("root.sg1.d3." + measurement);
+    }
+    paths.add("root.sg1.d1.s1");
+    List<RowRecord> lastValues = session.fetchLastValues(paths);
+    for (int i = 0; i < TSDataType.values().length; i++) {
+      assertEquals(99, lastValues.get(i).getTimestamp());
+      Field field = lastValues.get(i).getFields().get(0);
+      assertEquals(TSDataType.values()[i], field.getDataType());
+      assertEquals(objects[i].toString(), field.getStringValue());
+    }
+    assertEquals(99, lastValues.get(6).getFields().get(0).getLongV());
+  }
+
+  @Test
+  public void testAsyncSession() throws Exception {
+    session = new Session("127.0.0.1", 6667, "root", "root");
+    session.open();
+
+    session.setStorageGroup("root.sg1");
+    createTimeseries();
+
+    AsyncSession asyncSession = new AsyncSession("127.0.0.1", 6667, "root", "root", 2, 7, 5);
+    asyncSession.open();
+    List<String> measurements = new ArrayList<>();
+    measurements.add("s1");
+    measurements.add("s2");
+    measurements.add("s3");
+    List<TSDataType> types = Collections.nCopies(3, TSDataType.INT64);
+    List<CompletableFuture<TSStatus>> futures = new ArrayList<>();
+    for (long time = 0; time < 100; time++) {
+      futures.add(asyncSession.insert("root.sg1.d1", time, measurements, types,
+          Arrays.<Object>asList(time, time + 1, time + 2)));
+      futures.add(asyncSession.insert("root.sg1.d2", time, measurements,
+          Arrays.asList(String.valueOf(time), String.valueOf(time + 1), String.valueOf(time + 2))));
+    }
+
+    Schema schema = new Schema();
+    for (String measurement : measurements) {
+      schema.registerMeasurement(new MeasurementSchema(measurement, TSDataType.INT64,
+          TSEncoding.RLE));
+    }
+    RowBatch rowBatch = schema.createRowBatch("root.sg1.d1", 10);
+    for (long time = 100; time < 110; time++) {
+      int row = rowBatch.batchSize++;
+      rowBatch.timestamps[row] = time;
+      for (int i = 0; i < 3; i++) {
+        ((long[]) rowBatch.values[i])[row] = time + i;
+      }
+    }
+    futures.add(asyncSession.insertBatch(rowBatch));
+    asyncSession.close();
+
+    for (CompletableFuture<TSStatus> future : futures) {
+      assertEquals(TSStatusCode.SUCCESS_STATUS.getStatusCode(),
+          future.get().getStatusType().getCode());
+    }
+    Assert.assertTrue(asyncSession.insert("root.sg1.d1", 200, measurements, types,
+        Arrays.<Object>asList(1L, 2L, 3L)).isCompletedExceptionally());
+
+    List<String> paths = new ArrayList<>();
+    for (String measurement : measurements) {
+      paths.add("root.sg1.d1." + measurement);
+      paths.add("root.sg1.d2." + measurement);
+    }
+    List<RowRecord> lastValues = session.fetchLastValues(paths);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(109, lastValues.get(2 * i).getTimestamp());
+      assertEquals(109 + i, lastValues.get(2 * i).getFields().get(0).getLongV());
+      assertEquals(99, lastValues.get(2 * i + 1).getTimestamp());
+      assertEquals(99 + i, lastValues.get(2 * i + 1).getFields().get(0).getLongV());
+    }
+  }
+
   private void createTimeseries() throws IoTDBSessionException {
     session.createTimeseries("root.sg1.d1.s1", TSDataType.INT64, TSEncoding.RLE,
         CompressionType.SNAPPY);
@@ -0,0 +1,194 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.session;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.iotdb.db.conf.IoTDBConstant;
+import org.apache.iotdb.db.utils.EnvironmentUtils;
+import org.apache.iotdb.session.SessionPool.DispatchPolicy;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.apache.iotdb.tsfile.read.common.RowRecord;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionPoolIT {
+
+  private SessionPool pool;
+
+  @Before
+  public void setUp() throws Exception {
+    System.setProperty(IoTDBConstant.IOTDB_CONF, "src/test/resources/");
+    EnvironmentUtils.closeStatMonitor();
+    EnvironmentUtils.envSetUp();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    pool.close();
+    EnvironmentUtils.cleanEnv();
+  }
+
+  @Test
+  public void testConcurrentInsert() throws Exception {
+    pool = new SessionPool(Arrays.asList("127.0.0.1:6667", "127.0.0.1:6667"), "root", "root", 3,
+        60000, 60000, DispatchPolicy.LEAST_IN_FLIGHT);
+    pool.setStorageGroup("root.sg1");
+    List<String> paths = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      pool.createTimeseries("root.sg1.d" + i + ".s1", TSDataType.INT64, TSEncoding.RLE,
+          CompressionType.SNAPPY);
+      paths.add("root.sg1.d" + i + ".s1");
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(6);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int i = 0; i < 6; i++) {
+      String deviceId = "root.sg1.d" + i;
+      futures.add(executor.submit(() -> {
+        for (long time = 0; time < 50; time++) {
+          pool.insert(deviceId, time, Collections.singletonList("s1"),
+              Collections.singletonList(String.valueOf(time)));
+        }
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+
+    assertEquals(0, pool.getActiveSessionCount());
+    assertTrue(pool.getIdleSessionCount() <= 3);
+    assertEquals(307, pool.getBorrowCount());
+    for (RowRecord record : pool.fetchLastValues(paths)) {
+      assertEquals(49, record.getTimestamp());
+      assertEquals(49, record.getFields().get(0).getLongV());
+    }
+  }
+
+  @Test
+  public void testBorrowTimeout() throws Exception {
+    pool = new SessionPool(Collections.singletonList("127.0.0.1:6667"), "root", "root", 1, 100,
+        60000, DispatchPolicy.ROUND_ROBIN);
+    Session session = pool.getSession();
+    assertEquals(1, pool.getActiveSessionCount());
+    try {
+      pool.getSession();
+      fail();
+    } catch (IoTDBSessionException e) {
+      assertTrue(e.getMessage().contains("all 1 sessions are in use"));
+    }
+    assertEquals(1, pool.getTimeoutCount());
+    assertTrue(pool.getMaxWaitTimeMs() >= 100);
+
+    pool.putBack(session);
+    assertEquals(0, pool.getActiveSessionCount());
+    assertEquals(1, pool.getIdleSessionCount());
+    // the idle session is reused
+    assertTrue(session == pool.getSession());
+    pool.putBack(session);
+  }
+
+  @Test
+  public void testEvictIdleSessions() throws Exception {
+    pool = new SessionPool(Collections.singletonList("127.0.0.1:6667"), "root", "root", 2, 60000,
+        100, DispatchPolicy.ROUND_ROBIN);
+    Session session1 = pool.getSession();
+    Session session2 = pool.getSession();
+    pool.putBack(session1);
+    pool.putBack(session2);
+    assertEquals(2, pool.getIdleSessionCount());
+    Thread.sleep(500);
+    assertEquals(0, pool.getIdleSessionCount());
+    assertEquals(2, pool.getEvictedCount());
+    pool.setStorageGroup("root.sg1");
+  }
+
+  @Test
+  public void testReconnect() throws Exception {
+    // nothing listens on 6668, so the sessions are opened on 6667
+    pool = new SessionPool(Arrays.asList("127.0.0.1:6668", "127.0.0.1:6667"), "root", "root", 2,
+        60000, 60000, DispatchPolicy.ROUND_ROBIN);
+    pool.setStorageGroup("root.sg1");
+    pool.createTimeseries("root.sg1.d1.s1", TSDataType.INT64, TSEncoding.RLE,
+        CompressionType.SNAPPY);
+
+    // break the connection of the idle session
+    Session session = pool.getSession();
+    session.close();
+    pool.putBack(session);
+    pool.insert("root.sg1.d1", 1, Collections.singletonList("s1"),
+        Collections.singletonList(TSDataType.INT64), Collections.singletonList(1L));
+    assertEquals(1, pool.getReconnectCount());
+    assertEquals(1, pool.getIdleSessionCount());
+    RowRecord record = pool.fetchLastValues(Collections.singletonList("root.sg1.d1.s1")).get(0);
+    assertEquals(1, record.getFields().get(0).getLongV());
+  }
+
+  @Test
+  public void testDropBrokenIdleSessions() throws Exception {
+    pool = new SessionPool(Collections.singletonList("127.0.0.1:6667"), "root", "root", 3, 60000,
+        60000, DispatchPolicy.ROUND_ROBIN);
+    pool.setStorageGroup("root.sg1");
+    pool.createTimeseries("root.sg1.d1.s1", TSDataType.INT64, TSEncoding.RLE,
+        CompressionType.SNAPPY);
+    // break the connections of all the idle sessions, like a restart of the server
+    List<Session> sessions = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      sessions.add(pool.getSession());
+    }
+    for (Session session : sessions) {
+      session.close();
+      pool.putBack(session);
+    }
+    assertEquals(3, pool.getIdleSessionCount());
+
+    // the first failure drops the other broken sessions, so only one call is retried
+    for (long time = 0; time < 3; time++) {
+      pool.insert("root.sg1.d1", time, Collections.singletonList("s1"),
+          Collections.singletonList(TSDataType.INT64), Collections.singletonList(time));
+    }
+    assertEquals(1, pool.getReconnectCount());
+    assertEquals(1, pool.getIdleSessionCount());
+  }
+
+  @Test
+  public void testPreferIdleSession() throws Exception {
+    pool = new SessionPool(Arrays.asList("127.0.0.1:6667", "127.0.0.1:6667"), "root", "root", 2,
+        60000, 60000, DispatchPolicy.ROUND_ROBIN);
+    for (int i = 0; i < 4; i++) {
+      pool.setStorageGroup("root.sg" + i);
+    }
+    // the idle session of the other endpoint is used instead of opening a new one
+    assertEquals(1, pool.getIdleSessionCount());
+  }
+}
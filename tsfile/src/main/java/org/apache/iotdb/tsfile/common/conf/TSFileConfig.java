@@ -127,10 +127,14 @@ public class TSFileConfig {
    */
   private double dftSatisfyRate = 0.1;
   /**
-   * Data compression method, TsFile supports UNCOMPRESSED or SNAPPY. Default value is UNCOMPRESSED
-   * which means no compression
+   * Data compression method, TsFile supports UNCOMPRESSED, SNAPPY, LZ4 or ZSTD. Default value is
+   * UNCOMPRESSED which means no compression
    */
   private String compressor = "UNCOMPRESSED";
+  /**
+   * Compression level of ZSTD, from 1 (fastest) to 22 (smallest). Default value is 3.
+   */
+  private int zstdLevel = 3;
   /**
    * Line count threshold for checking page memory occupied size.
    */
@@ -191,6 +195,10 @@ public class TSFileConfig {
    * The acceptable error rate of bloom filter
    */
   private double bloomFilterErrorRate = 0.05;
+  /**
+   * whether to read sealed TsFiles through memory mapping
+   */
+  private boolean mmapSealedFile = false;
 
   public TSFileConfig() {
 
@@ -324,6 +332,14 @@ public class TSFileConfig {
     this.compressor = compressor;
   }
 
+  public int getZstdLevel() {
+    return zstdLevel;
+  }
+
+  public void setZstdLevel(int zstdLevel) {
+    this.zstdLevel = zstdLevel;
+  }
+
   public int getPageCheckSizeThreshold() {
     return pageCheckSizeThreshold;
   }
@@ -372,6 +388,14 @@ public class TSFileConfig {
     this.bloomFilterErrorRate = bloomFilterErrorRate;
   }
 
+  public boolean isMmapSealedFile() {
+    return mmapSealedFile;
+  }
+
+  public void setMmapSealedFile(boolean mmapSealedFile) {
+    this.mmapSealedFile = mmapSealedFile;
+  }
+
 
   public FSType getTSFileStorageFs() {
     return this.TSFileStorageFs;
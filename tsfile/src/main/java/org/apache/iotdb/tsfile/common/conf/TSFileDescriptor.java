@@ -128,6 +128,10 @@ public class TSFileDescriptor {
       conf.setTimeEncoder(properties.getProperty("time_encoder", conf.getTimeEncoder()));
       conf.setValueEncoder(properties.getProperty("value_encoder", conf.getValueEncoder()));
       conf.setCompressor(properties.getProperty("compressor", conf.getCompressor()));
+      conf.setZstdLevel(Integer.parseInt(properties
+          .getProperty("zstd_level", Integer.toString(conf.getZstdLevel()))));
+      conf.setMmapSealedFile(Boolean.parseBoolean(properties
+          .getProperty("mmap_sealed_file", Boolean.toString(conf.isMmapSealedFile()))));
     } catch (IOException e) {
       logger.warn("Cannot load config file, use default configuration", e);
     } catch (Exception e) {
@@ -22,6 +22,9 @@ package org.apache.iotdb.tsfile.compress;
 import java.io.IOException;
 import java.io.Serializable;
 import java.nio.ByteBuffer;
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Factory;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.xerial.snappy.Snappy;
@@ -51,6 +54,10 @@ public interface ICompressor extends Serializable {
         return new NoCompressor();
       case SNAPPY:
         return new SnappyCompressor();
+      case LZ4:
+        return new LZ4Compressor();
+      case ZSTD:
+        return new ZstdCompressor(TSFileDescriptor.getInstance().getConfig().getZstdLevel());
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -70,7 +77,8 @@ public interface ICompressor extends Serializable {
    * If the data is large, this function is better than byte[].
    *
    * @param data MUST be DirectByteBuffer for Snappy.
-   * @param compressed MUST be DirectByteBuffer for Snappy.
+   * @param compressed MUST be DirectByteBuffer for Snappy. The compressed data is written from its
+   * position, and its limit is set to the end of the compressed data.
    * @return byte length of compressed data.
    */
   int compress(ByteBuffer data, ByteBuffer compressed) throws IOException;
@@ -140,4 +148,113 @@ public interface ICompressor extends Serializable {
       return CompressionType.SNAPPY;
     }
   }
+
+  /**
+   * LZ4 raw block format, which decompresses faster than Snappy. The uncompressed size is not
+   * stored, so it is given by the page header when reading.
+   */
+  class LZ4Compressor implements ICompressor {
+
+    private static final net.jpountz.lz4.LZ4Compressor compressor = LZ4Factory.fastestInstance()
+        .fastCompressor();
+
+    @Override
+    public byte[] compress(byte[] data) {
+      if (data == null) {
+        return new byte[0];
+      }
+      return compressor.compress(data);
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed) {
+      return compressor.compress(data, offset, length, compressed, 0);
+    }
+
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) {
+      int size = compressor.compress(data, data.position(), data.remaining(), compressed,
+          compressed.position(), compressed.remaining());
+      compressed.limit(compressed.position() + size);
+      return size;
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      return compressor.maxCompressedLength(uncompressedDataSize);
+    }
+
+    @Override
+    public CompressionType getType() {
+      return CompressionType.LZ4;
+    }
+  }
+
+  /**
+   * Zstandard, which compresses much more than Snappy and LZ4 at a configurable level.
+   */
+  class ZstdCompressor implements ICompressor {
+
+    private final int level;
+
+    public ZstdCompressor(int level) {
+      this.level = level;
+    }
+
+    @Override
+    public byte[] compress(byte[] data) {
+      if (data == null) {
+        return new byte[0];
+      }
+      return Zstd.compress(data, level);
+    }
+
+    @Override
+    public int compress(byte[] data, int offset, int length, byte[] compressed) throws IOException {
+      return checkResult(Zstd.compressByteArray(compressed, 0, compressed.length, data, offset,
+          length, level));
+    }
+
+    @Override
+    public int compress(ByteBuffer data, ByteBuffer compressed) throws IOException {
+      int size;
+      if (data.isDirect() && compressed.isDirect()) {
+        size = checkResult(Zstd.compressDirectByteBuffer(compressed, compressed.position(),
+            compressed.remaining(), data, data.position(), data.remaining(), level));
+      } else if (data.hasArray() && compressed.hasArray()) {
+        size = checkResult(Zstd.compressByteArray(compressed.array(),
+            compressed.arrayOffset() + compressed.position(), compressed.remaining(),
+            data.array(), data.arrayOffset() + data.position(), data.remaining(), level));
+      } else {
+        byte[] result = compress(toArray(data));
+        compressed.duplicate().put(result);
+        size = result.length;
+      }
+      compressed.limit(compressed.position() + size);
+      return size;
+    }
+
+    @Override
+    public int getMaxBytesForCompression(int uncompressedDataSize) {
+      return (int) Zstd.compressBound(uncompressedDataSize);
+    }
+
+    @Override
+    public CompressionType getType() {
+      return CompressionType.ZSTD;
+    }
+
+    static int checkResult(long result) throws IOException {
+      if (Zstd.isError(result)) {
+        throw new IOException("Zstd error: " + Zstd.getErrorName(result));
+      }
+      return (int) result;
+    }
+
+    static byte[] toArray(ByteBuffer buffer) {
+      byte[] bytes = new byte[buffer.remaining()];
+      buffer.duplicate().get(bytes);
+      return bytes;
+    }
+  }
 }
@@ -21,6 +21,12 @@ package org.apache.iotdb.tsfile.compress;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Exception;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4SafeDecompressor;
+import org.apache.iotdb.tsfile.compress.ICompressor.ZstdCompressor;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.slf4j.Logger;
@@ -47,6 +53,10 @@ public interface IUnCompressor {
         return new NoUnCompressor();
       case SNAPPY:
         return new SnappyUnCompressor();
+      case LZ4:
+        return new LZ4UnCompressor();
+      case ZSTD:
+        return new ZstdUnCompressor();
       default:
         throw new CompressionTypeNotSupportedException(name.toString());
     }
@@ -184,4 +194,139 @@ public interface IUnCompressor {
       return CompressionType.SNAPPY;
     }
   }
+
+  /**
+   * LZ4 does not store the uncompressed length, so the output given to the methods with an output
+   * must be large enough, e.g., sized by the uncompressed size in the page header.
+   */
+  class LZ4UnCompressor implements IUnCompressor {
+
+    /**
+     * the max compression ratio of LZ4, used to bound the output of {@link #uncompress(byte[])}.
+     */
+    private static final int MAX_COMPRESS_RATIO = 255;
+    /**
+     * the first guess of the compression ratio by {@link #uncompress(byte[])}, the output buffer is
+     * doubled until the data fits in it.
+     */
+    private static final int INITIAL_COMPRESS_RATIO = 4;
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    private static final LZ4SafeDecompressor decompressor = LZ4Factory.fastestInstance()
+        .safeDecompressor();
+
+    @Override
+    public int getUncompressedLength(byte[] array, int offset, int length) throws IOException {
+      throw new IOException("LZ4 does not store the uncompressed length.");
+    }
+
+    @Override
+    public int getUncompressedLength(ByteBuffer buffer) throws IOException {
+      throw new IOException("LZ4 does not store the uncompressed length.");
+    }
+
+    @Override
+    public byte[] uncompress(byte[] bytes) {
+      if (bytes == null) {
+        return new byte[0];
+      }
+      // LZ4 does not store the uncompressed length, so the output grows until the data fits
+      int maxLength = (int) Math.min((long) bytes.length * MAX_COMPRESS_RATIO, MAX_ARRAY_LENGTH);
+      int length = (int) Math.min((long) bytes.length * INITIAL_COMPRESS_RATIO, maxLength);
+      while (true) {
+        try {
+          return decompressor.decompress(bytes, length);
+        } catch (LZ4Exception e) {
+          if (length == maxLength) {
+            throw e;
+          }
+          length = (int) Math.min((long) length * 2, maxLength);
+        }
+      }
+    }
+
+    @Override
+    public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset) {
+      return decompressor.decompress(byteArray, offset, length, output, outOffset);
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) {
+      if (compressed == null || !compressed.hasRemaining()) {
+        return 0;
+      }
+      int size = decompressor.decompress(compressed, compressed.position(), compressed.remaining(),
+          uncompressed, uncompressed.position(), uncompressed.remaining());
+      uncompressed.limit(uncompressed.position() + size);
+      return size;
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.LZ4;
+    }
+  }
+
+  class ZstdUnCompressor implements IUnCompressor {
+
+    @Override
+    public int getUncompressedLength(byte[] array, int offset, int length) throws IOException {
+      if (offset != 0 || length != array.length) {
+        array = Arrays.copyOfRange(array, offset, offset + length);
+      }
+      return ZstdCompressor.checkResult(Zstd.decompressedSize(array));
+    }
+
+    @Override
+    public int getUncompressedLength(ByteBuffer buffer) throws IOException {
+      if (buffer.isDirect()) {
+        return ZstdCompressor.checkResult(Zstd.decompressedDirectByteBufferSize(buffer,
+            buffer.position(), buffer.remaining()));
+      }
+      return ZstdCompressor.checkResult(Zstd.decompressedSize(ZstdCompressor.toArray(buffer)));
+    }
+
+    @Override
+    public byte[] uncompress(byte[] bytes) {
+      if (bytes == null) {
+        return new byte[0];
+      }
+      return Zstd.decompress(bytes, (int) Zstd.decompressedSize(bytes));
+    }
+
+    @Override
+    public int uncompress(byte[] byteArray, int offset, int length, byte[] output, int outOffset)
+        throws IOException {
+      return ZstdCompressor.checkResult(Zstd.decompressByteArray(output, outOffset,
+          output.length - outOffset, byteArray, offset, length));
+    }
+
+    @Override
+    public int uncompress(ByteBuffer compressed, ByteBuffer uncompressed) throws IOException {
+      if (compressed == null || !compressed.hasRemaining()) {
+        return 0;
+      }
+      int size;
+      if (compressed.isDirect() && uncompressed.isDirect()) {
+        size = ZstdCompressor.checkResult(Zstd.decompressDirectByteBuffer(uncompressed,
+            uncompressed.position(), uncompressed.remaining(), compressed, compressed.position(),
+            compressed.remaining()));
+      } else if (compressed.hasArray() && uncompressed.hasArray()) {
+        size = ZstdCompressor.checkResult(Zstd.decompressByteArray(uncompressed.array(),
+            uncompressed.arrayOffset() + uncompressed.position(), uncompressed.remaining(),
+            compressed.array(), compressed.arrayOffset() + compressed.position(),
+            compressed.remaining()));
+      } else {
+        byte[] result = uncompress(ZstdCompressor.toArray(compressed));
+        uncompressed.duplicate().put(result);
+        size = result.length;
+      }
+      uncompressed.limit(uncompressed.position() + size);
+      return size;
+    }
+
+    @Override
+    public CompressionType getCodecName() {
+      return CompressionType.ZSTD;
+    }
+  }
 }
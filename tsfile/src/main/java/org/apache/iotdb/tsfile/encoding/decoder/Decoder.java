@@ -149,6 +149,57 @@ public abstract class Decoder {
     throw new TsFileDecodingException("Method readBigDecimal is not supproted by Decoder");
   }
 
+  /**
+   * decode at most {@code length} values into {@code dest} starting from {@code offset}, it stops
+   * early only when there is no more value in the buffer. Decoders that keep decoded values in
+   * blocks override these methods to copy a block at a time.
+   *
+   * @return the number of values decoded
+   */
+  public int readBooleans(ByteBuffer buffer, boolean[] dest, int offset, int length)
+      throws IOException {
+    int num = 0;
+    while (num < length && hasNext(buffer)) {
+      dest[offset + num++] = readBoolean(buffer);
+    }
+    return num;
+  }
+
+  public int readInts(ByteBuffer buffer, int[] dest, int offset, int length) throws IOException {
+    int num = 0;
+    while (num < length && hasNext(buffer)) {
+      dest[offset + num++] = readInt(buffer);
+    }
+    return num;
+  }
+
+  public int readLongs(ByteBuffer buffer, long[] dest, int offset, int length)
+      throws IOException {
+    int num = 0;
+    while (num < length && hasNext(buffer)) {
+      dest[offset + num++] = readLong(buffer);
+    }
+    return num;
+  }
+
+  public int readFloats(ByteBuffer buffer, float[] dest, int offset, int length)
+      throws IOException {
+    int num = 0;
+    while (num < length && hasNext(buffer)) {
+      dest[offset + num++] = readFloat(buffer);
+    }
+    return num;
+  }
+
+  public int readDoubles(ByteBuffer buffer, double[] dest, int offset, int length)
+      throws IOException {
+    int num = 0;
+    while (num < length && hasNext(buffer)) {
+      dest[offset + num++] = readDouble(buffer);
+    }
+    return num;
+  }
+
   public abstract boolean hasNext(ByteBuffer buffer) throws IOException;
 
   public abstract void reset();
@@ -113,6 +113,26 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    @Override
+    public int readInts(ByteBuffer buffer, int[] dest, int offset, int length) {
+      int num = 0;
+      while (num < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          dest[offset + num++] = loadIntBatch(buffer);
+        } else {
+          // copy as many decoded values of the current pack as possible
+          int copyNum = Math.min(length - num, readIntTotalCount - nextReadIndex);
+          System.arraycopy(data, nextReadIndex, dest, offset + num, copyNum);
+          nextReadIndex += copyNum;
+          num += copyNum;
+        }
+      }
+      return num;
+    }
+
     /**
      * if remaining data has been run out, load next pack from InputStream.
      *
@@ -163,7 +183,9 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     @Override
     public void reset() {
-      // do nothing
+      // drop the rest of the current pack, a page may not be read to its end
+      nextReadIndex = 0;
+      readIntTotalCount = 0;
     }
   }
 
@@ -231,6 +253,26 @@ public abstract class DeltaBinaryDecoder extends Decoder {
       return readT(buffer);
     }
 
+    @Override
+    public int readLongs(ByteBuffer buffer, long[] dest, int offset, int length) {
+      int num = 0;
+      while (num < length) {
+        if (nextReadIndex == readIntTotalCount) {
+          if (!buffer.hasRemaining()) {
+            break;
+          }
+          dest[offset + num++] = loadIntBatch(buffer);
+        } else {
+          // copy as many decoded values of the current pack as possible
+          int copyNum = Math.min(length - num, readIntTotalCount - nextReadIndex);
+          System.arraycopy(data, nextReadIndex, dest, offset + num, copyNum);
+          nextReadIndex += copyNum;
+          num += copyNum;
+        }
+      }
+      return num;
+    }
+
     @Override
     protected void readHeader(ByteBuffer buffer) {
       minDeltaBase = ReadWriteIOUtils.readLong(buffer);
@@ -250,7 +292,9 @@ public abstract class DeltaBinaryDecoder extends Decoder {
 
     @Override
     public void reset() {
-      // do nothing
+      // drop the rest of the current pack, a page may not be read to its end
+      nextReadIndex = 0;
+      readIntTotalCount = 0;
     }
 
   }
@@ -73,6 +73,16 @@ public class DoublePrecisionDecoder extends GorillaDecoder {
     return Double.NaN;
   }
 
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] dest, int offset, int length) {
+    int num = 0;
+    // the end flag is set when the last value is read
+    while (num < length && (!isEnd || buffer.hasRemaining())) {
+      dest[offset + num++] = readDouble(buffer);
+    }
+    return num;
+  }
+
   /**
    * check whether there is any value to encode left.
    *
@@ -50,6 +50,12 @@ public class FloatDecoder extends Decoder {
    */
   private boolean isMaxPointNumberRead;
 
+  /**
+   * reusable buffers of the encoded integers when decoding in batch.
+   */
+  private int[] intBuffer;
+  private long[] longBuffer;
+
   public FloatDecoder(TSEncoding encodingType, TSDataType dataType) {
     super(encodingType);
     if (encodingType == TSEncoding.RLE) {
@@ -96,6 +102,34 @@ public class FloatDecoder extends Decoder {
     return value / maxPointValue;
   }
 
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] dest, int offset, int length)
+      throws IOException {
+    readMaxPointValue(buffer);
+    if (intBuffer == null || intBuffer.length < length) {
+      intBuffer = new int[length];
+    }
+    int num = decoder.readInts(buffer, intBuffer, 0, length);
+    for (int i = 0; i < num; i++) {
+      dest[offset + i] = (float) (intBuffer[i] / maxPointValue);
+    }
+    return num;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] dest, int offset, int length)
+      throws IOException {
+    readMaxPointValue(buffer);
+    if (longBuffer == null || longBuffer.length < length) {
+      longBuffer = new long[length];
+    }
+    int num = decoder.readLongs(buffer, longBuffer, 0, length);
+    for (int i = 0; i < num; i++) {
+      dest[offset + i] = longBuffer[i] / maxPointValue;
+    }
+    return num;
+  }
+
   private void readMaxPointValue(ByteBuffer buffer) {
     if (!isMaxPointNumberRead) {
       int maxPointNumber = ReadWriteForEncodingUtils.readUnsignedVarInt(buffer);
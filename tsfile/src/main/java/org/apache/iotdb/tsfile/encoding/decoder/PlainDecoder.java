@@ -97,6 +97,50 @@ public class PlainDecoder extends Decoder {
     return buffer.getDouble();
   }
 
+  @Override
+  public int readInts(ByteBuffer buffer, int[] dest, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int num = Math.min(length, buffer.remaining() / Integer.BYTES);
+    buffer.asIntBuffer().get(dest, offset, num);
+    buffer.position(buffer.position() + num * Integer.BYTES);
+    return num;
+  }
+
+  @Override
+  public int readLongs(ByteBuffer buffer, long[] dest, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int num = Math.min(length, buffer.remaining() / Long.BYTES);
+    buffer.asLongBuffer().get(dest, offset, num);
+    buffer.position(buffer.position() + num * Long.BYTES);
+    return num;
+  }
+
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] dest, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int num = Math.min(length, buffer.remaining() / Float.BYTES);
+    buffer.asFloatBuffer().get(dest, offset, num);
+    buffer.position(buffer.position() + num * Float.BYTES);
+    return num;
+  }
+
+  @Override
+  public int readDoubles(ByteBuffer buffer, double[] dest, int offset, int length) {
+    if (this.getEndianType() == EndianType.LITTLE_ENDIAN) {
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    int num = Math.min(length, buffer.remaining() / Double.BYTES);
+    buffer.asDoubleBuffer().get(dest, offset, num);
+    buffer.position(buffer.position() + num * Double.BYTES);
+    return num;
+  }
+
   @Override
   public Binary readBinary(ByteBuffer buffer) {
     int length = readInt(buffer);
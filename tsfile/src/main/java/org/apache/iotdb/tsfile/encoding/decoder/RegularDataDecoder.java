@@ -169,7 +169,9 @@ public abstract class RegularDataDecoder extends Decoder {
 
     @Override
     public void reset() {
-      // do nothing
+      // drop the rest of the current pack, a page may not be read to its end
+      nextReadIndex = 0;
+      readIntTotalCount = 0;
     }
   }
 
@@ -282,7 +284,9 @@ public abstract class RegularDataDecoder extends Decoder {
 
     @Override
     public void reset() {
-      // do nothing
+      // drop the rest of the current pack, a page may not be read to its end
+      nextReadIndex = 0;
+      readIntTotalCount = 0;
     }
   }
 }
@@ -69,6 +69,16 @@ public class SinglePrecisionDecoder extends GorillaDecoder {
     return Float.NaN;
   }
 
+  @Override
+  public int readFloats(ByteBuffer buffer, float[] dest, int offset, int length) {
+    int num = 0;
+    // the end flag is set when the last value is read
+    while (num < length && (!isEnd || buffer.hasRemaining())) {
+      dest[offset + num++] = readFloat(buffer);
+    }
+    return num;
+  }
+
   /**
    * check whether there is any value to encode left.
    *
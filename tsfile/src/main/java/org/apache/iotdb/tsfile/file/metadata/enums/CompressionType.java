@@ -21,7 +21,7 @@ package org.apache.iotdb.tsfile.file.metadata.enums;
 import org.apache.iotdb.tsfile.exception.compress.CompressionTypeNotSupportedException;
 
 public enum CompressionType {
-  UNCOMPRESSED, SNAPPY, GZIP, LZO, SDT, PAA, PLA;
+  UNCOMPRESSED, SNAPPY, GZIP, LZO, SDT, PAA, PLA, LZ4, ZSTD;
 
   /**
    * deserialize short number.
@@ -45,6 +45,10 @@ public enum CompressionType {
         return PAA;
       case 6:
         return PLA;
+      case 7:
+        return LZ4;
+      case 8:
+        return ZSTD;
       default:
         return UNCOMPRESSED;
     }
@@ -79,6 +83,10 @@ public enum CompressionType {
         return PAA;
       case "PLA":
         return PLA;
+      case "LZ4":
+        return LZ4;
+      case "ZSTD":
+        return ZSTD;
       default:
         throw new CompressionTypeNotSupportedException(name);
     }
@@ -105,6 +113,10 @@ public enum CompressionType {
         return 5;
       case PLA:
         return 6;
+      case LZ4:
+        return 7;
+      case ZSTD:
+        return 8;
       default:
         return 0;
     }
@@ -131,6 +143,10 @@ public enum CompressionType {
         return ".paa";
       case PLA:
         return ".pla";
+      case LZ4:
+        return ".lz4";
+      case ZSTD:
+        return ".zstd";
       default:
         return "";
     }
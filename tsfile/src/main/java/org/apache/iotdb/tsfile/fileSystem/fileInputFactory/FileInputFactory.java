@@ -25,4 +25,9 @@ public interface FileInputFactory {
 
   TsFileInput getTsFileInput(String filePath);
 
+  /**
+   * get the input of a sealed file, which is never modified, so it may be read differently.
+   */
+  TsFileInput getSealedTsFileInput(String filePath);
+
 }
@@ -51,4 +51,8 @@ public class HDFSInputFactory implements FileInputFactory {
       return null;
     }
   }
+
+  public TsFileInput getSealedTsFileInput(String filePath) {
+    return getTsFileInput(filePath);
+  }
 }
@@ -21,7 +21,9 @@ package org.apache.iotdb.tsfile.fileSystem.fileInputFactory;
 
 import java.io.IOException;
 import java.nio.file.Paths;
+import org.apache.iotdb.tsfile.common.conf.TSFileDescriptor;
 import org.apache.iotdb.tsfile.read.reader.DefaultTsFileInput;
+import org.apache.iotdb.tsfile.read.reader.MmapTsFileInput;
 import org.apache.iotdb.tsfile.read.reader.TsFileInput;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,4 +40,19 @@ public class LocalFSInputFactory implements FileInputFactory {
       return null;
     }
   }
+
+  /**
+   * map the sealed file into memory if it is enabled, or fall back to the default input if the
+   * file cannot be mapped.
+   */
+  public TsFileInput getSealedTsFileInput(String filePath) {
+    if (TSFileDescriptor.getInstance().getConfig().isMmapSealedFile()) {
+      try {
+        return new MmapTsFileInput(Paths.get(filePath));
+      } catch (IOException e) {
+        logger.warn("Failed to map file: {} into memory, read it without mapping, ", filePath, e);
+      }
+    }
+    return getTsFileInput(filePath);
+  }
 }
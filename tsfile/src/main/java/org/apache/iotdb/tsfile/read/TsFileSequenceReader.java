@@ -92,8 +92,21 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @param loadMetadataSize -whether load meta data size
    */
   public TsFileSequenceReader(String file, boolean loadMetadataSize) throws IOException {
+    this(file, FSFactoryProducer.getFileInputFactory().getTsFileInput(file), loadMetadataSize);
+  }
+
+  /**
+   * construct function for TsFileSequenceReader with a given input of the file, e.g., the input
+   * from {@link org.apache.iotdb.tsfile.fileSystem.fileInputFactory.FileInputFactory#getSealedTsFileInput}.
+   *
+   * @param file -given file name
+   * @param input -the input of the file
+   * @param loadMetadataSize -whether load meta data size
+   */
+  public TsFileSequenceReader(String file, TsFileInput input, boolean loadMetadataSize)
+      throws IOException {
     this.file = file;
-    tsFileInput = FSFactoryProducer.getFileInputFactory().getTsFileInput(file);
+    tsFileInput = input;
     // old version number of TsFile using little endian starts with "v"
     this.endianType = this.readVersionNumber().startsWith("v")
         ? EndianType.LITTLE_ENDIAN : EndianType.BIG_ENDIAN;
@@ -441,7 +454,12 @@ public class TsFileSequenceReader implements AutoCloseable {
       case UNCOMPRESSED:
         return buffer;
       default:
-        // FIXME if the buffer is not array-implemented.
+        if (!buffer.hasArray()) {
+          // e.g., a slice of a memory-mapped file
+          byte[] compressed = new byte[buffer.remaining()];
+          buffer.get(compressed);
+          buffer = ByteBuffer.wrap(compressed);
+        }
         unCompressor.uncompress(buffer.array(), buffer.position(), buffer.remaining(),
             uncompressedBuffer.array(),
             0);
@@ -490,6 +508,11 @@ public class TsFileSequenceReader implements AutoCloseable {
    * @return data that been read.
    */
   private ByteBuffer readData(long position, int size) throws IOException {
+    // the input may provide the data without copying
+    ByteBuffer slice = tsFileInput.slice(position, size);
+    if (slice != null) {
+      return slice;
+    }
     ByteBuffer buffer = ByteBuffer.allocate(size);
     if (position == -1) {
       if (ReadWriteIOUtils.readAsPossible(tsFileInput, buffer) != size) {
@@ -46,6 +46,14 @@ public class GroupByFilter implements Filter, Serializable {
 
   }
 
+  public long getStartTime() {
+    return startTime;
+  }
+
+  public long getEndTime() {
+    return endTime;
+  }
+
   @Override
   public boolean satisfy(Statistics statistics) {
     return satisfyStartEndTime(statistics.getStartTime(), statistics.getEndTime());
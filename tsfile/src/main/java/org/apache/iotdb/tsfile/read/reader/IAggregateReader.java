@@ -20,6 +20,7 @@ package org.apache.iotdb.tsfile.read.reader;
 
 import java.io.IOException;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.ChunkMetaData;
 
 public interface IAggregateReader extends IBatchReader {
 
@@ -32,4 +33,24 @@ public interface IAggregateReader extends IBatchReader {
   PageHeader nextPageHeader() throws IOException;
 
   void skipPageData() throws IOException;
+
+  /**
+   * Returns meta-information of the next chunk without loading the chunk, so that an aggregation
+   * can use the statistics of the whole chunk.
+   * <p>
+   * Returns null if there is no more chunk or the next data is not a whole chunk on disk, e.g., the
+   * remaining pages of a partly read chunk or data in memory. Call hasNextBatch() to read them
+   * page by page.
+   */
+  default ChunkMetaData nextChunkMetaData() throws IOException {
+    return null;
+  }
+
+  /**
+   * Skip the chunk returned by the last call of nextChunkMetaData(). Does nothing by default, as
+   * a reader without chunk meta-information never returns a chunk to skip.
+   */
+  default void skipChunkData() throws IOException {
+    // no chunk is returned by nextChunkMetaData(), so there is nothing to skip
+  }
 }
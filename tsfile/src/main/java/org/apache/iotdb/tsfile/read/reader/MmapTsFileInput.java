@@ -0,0 +1,156 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.read.reader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A TsFileInput of a sealed file, which maps the whole file into memory when it is opened, so that
+ * reads copy from the mapped memory and {@link #slice} returns read-only views of it without any
+ * system call.
+ * <p>
+ * The mapping is not unmapped explicitly when the input is closed, because the slices may still
+ * be used by queries or caches. It is released by GC once neither the input nor any slice refers
+ * to it.
+ */
+public class MmapTsFileInput implements TsFileInput {
+
+  private FileChannel channel;
+  private MappedByteBuffer buffer;
+  private long size;
+
+  /**
+   * @throws IOException if the file cannot be mapped, e.g., it is not smaller than 2GB
+   */
+  public MmapTsFileInput(Path file) throws IOException {
+    channel = FileChannel.open(file, StandardOpenOption.READ);
+    try {
+      size = channel.size();
+      if (size > Integer.MAX_VALUE) {
+        throw new IOException("File " + file + " of " + size + " bytes is too large to be mapped");
+      }
+      buffer = channel.map(MapMode.READ_ONLY, 0, size);
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  @Override
+  public long size() {
+    return size;
+  }
+
+  @Override
+  public long position() throws IOException {
+    return channel.position();
+  }
+
+  @Override
+  public TsFileInput position(long newPosition) throws IOException {
+    channel.position(newPosition);
+    return this;
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    long position = channel.position();
+    int read = read(dst, position);
+    if (read > 0) {
+      channel.position(position + read);
+    }
+    return read;
+  }
+
+  @Override
+  public int read(ByteBuffer dst, long position) throws IOException {
+    if (position >= size) {
+      return -1;
+    }
+    int length = (int) Math.min(dst.remaining(), size - position);
+    // the mapped buffer is shared by concurrent reads, so its position must not be changed
+    ByteBuffer src = getBuffer().duplicate();
+    src.position((int) position);
+    src.limit((int) position + length);
+    dst.put(src);
+    return length;
+  }
+
+  @Override
+  public int read() throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public ByteBuffer slice(long position, int size) throws IOException {
+    long start = position == -1 ? channel.position() : position;
+    if (start + size > this.size) {
+      throw new IOException("reach the end of the data");
+    }
+    ByteBuffer src = getBuffer().duplicate();
+    src.position((int) start);
+    src.limit((int) start + size);
+    if (position == -1) {
+      channel.position(start + size);
+    }
+    return src.slice();
+  }
+
+  private MappedByteBuffer getBuffer() throws IOException {
+    MappedByteBuffer mappedBuffer = buffer;
+    if (mappedBuffer == null) {
+      throw new IOException("The input has been closed");
+    }
+    return mappedBuffer;
+  }
+
+  @Override
+  public FileChannel wrapAsFileChannel() {
+    return channel;
+  }
+
+  @Override
+  public InputStream wrapAsInputStream() {
+    return Channels.newInputStream(channel);
+  }
+
+  @Override
+  public void close() throws IOException {
+    buffer = null;
+    channel.close();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    throw new UnsupportedOperationException();
+  }
+}
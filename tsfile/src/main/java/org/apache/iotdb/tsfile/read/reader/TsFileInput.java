@@ -117,6 +117,21 @@ public interface TsFileInput {
    */
   int read(byte[] b, int off, int len) throws IOException;
 
+  /**
+   * Returns the given number of bytes from the given position without copying them, if this
+   * TsFileInput supports it. The returned buffer may share memory with this TsFileInput and must
+   * not be modified.
+   *
+   * @param position the position of the bytes, or -1 for the current position, which is then
+   * advanced by size
+   * @param size the number of bytes
+   * @return the bytes, or null if this TsFileInput can only read bytes into a given buffer
+   * @throws IOException if there are less than size bytes from the position
+   */
+  default ByteBuffer slice(long position, int size) throws IOException {
+    return null;
+  }
+
   FileChannel wrapAsFileChannel() throws IOException;
 
   InputStream wrapAsInputStream() throws IOException;
@@ -27,6 +27,7 @@ import org.apache.iotdb.tsfile.encoding.common.EndianType;
 import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.file.header.ChunkHeader;
 import org.apache.iotdb.tsfile.file.header.PageHeader;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.read.common.BatchData;
@@ -136,7 +137,6 @@ public class ChunkReader {
   private PageReader constructPageReaderForNextPage(PageHeader pageHeader)
       throws IOException {
     int compressedPageBodyLength = pageHeader.getCompressedSize();
-    byte[] compressedPageBody = new byte[compressedPageBodyLength];
 
     // doesn't has a complete page body
     if (compressedPageBodyLength > chunkDataBuffer.remaining()) {
@@ -144,9 +144,29 @@ public class ChunkReader {
               + ". Actual:" + chunkDataBuffer.remaining());
     }
 
-    chunkDataBuffer.get(compressedPageBody);
     valueDecoder.reset();
-    ByteBuffer pageData = ByteBuffer.wrap(unCompressor.uncompress(compressedPageBody));
+    ByteBuffer pageData;
+    if (unCompressor.getCodecName() == CompressionType.UNCOMPRESSED) {
+      // decode the page in place, the chunk data is never modified
+      pageData = chunkDataBuffer.slice();
+      pageData.limit(compressedPageBodyLength);
+      skipBytesInStreamByLength(compressedPageBodyLength);
+    } else {
+      // the output is sized by the page header, as some codecs (e.g., LZ4) do not store the size
+      byte[] uncompressedPageBody = new byte[pageHeader.getUncompressedSize()];
+      if (chunkDataBuffer.hasArray()) {
+        unCompressor.uncompress(chunkDataBuffer.array(),
+            chunkDataBuffer.arrayOffset() + chunkDataBuffer.position(), compressedPageBodyLength,
+            uncompressedPageBody, 0);
+        skipBytesInStreamByLength(compressedPageBodyLength);
+      } else {
+        byte[] compressedPageBody = new byte[compressedPageBodyLength];
+        chunkDataBuffer.get(compressedPageBody);
+        unCompressor.uncompress(compressedPageBody, 0, compressedPageBodyLength,
+            uncompressedPageBody, 0);
+      }
+      pageData = ByteBuffer.wrap(uncompressedPageBody);
+    }
     PageReader reader = new PageReader(pageData, chunkHeader.getDataType(),
         valueDecoder, timeDecoder, filter);
     reader.setDeletedAt(deletedAt);
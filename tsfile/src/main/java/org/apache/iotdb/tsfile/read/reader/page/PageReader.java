@@ -22,15 +22,28 @@ import org.apache.iotdb.tsfile.encoding.decoder.Decoder;
 import org.apache.iotdb.tsfile.exception.write.UnSupportedDataTypeException;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.GroupByFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.BinaryFilter;
 import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.basic.UnaryFilter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterType;
+import org.apache.iotdb.tsfile.read.filter.operator.AndFilter;
+import org.apache.iotdb.tsfile.read.filter.operator.NotFilter;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.utils.ReadWriteForEncodingUtils;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 public class PageReader {
 
+  /**
+   * initial capacity of the decoded time column, doubled when it is full.
+   */
+  private static final int INITIAL_TIME_CAPACITY = 1024;
+
   private TSDataType dataType;
 
   /** decoder for value column */
@@ -47,6 +60,12 @@ public class PageReader {
 
   private Filter filter;
 
+  /** the part of the filter that can be evaluated by time only, null if there is none */
+  private Filter timeFilter;
+
+  /** the filter to be evaluated with values, null if timeFilter is all of the filter */
+  private Filter valueFilter;
+
   /** Data whose timestamp <= deletedAt should be considered deleted(not be returned). */
   private long deletedAt = Long.MIN_VALUE;
 
@@ -56,6 +75,10 @@ public class PageReader {
     this.valueDecoder = valueDecoder;
     this.timeDecoder = timeDecoder;
     this.filter = filter;
+    if (filter != null) {
+      timeFilter = extractTimeFilter(filter);
+      valueFilter = timeFilter == filter ? null : filter;
+    }
     splitDataToTimeStampAndValue(pageData);
   }
 
@@ -75,59 +98,173 @@ public class PageReader {
   }
 
   /**
+   * the page is read in two phases. The time column is decoded first and the points are selected
+   * by the deletion and the time part of the filter. Then the value column is decoded only up to
+   * the last selected point, and not at all if no point is selected.
+   *
    * @return the returned BatchData may be empty, but never be null
    */
   public BatchData getAllSatisfiedPageData() throws IOException {
 
     BatchData pageData = new BatchData(dataType);
 
-    while (timeDecoder.hasNext(timeBuffer)) {
-      long timestamp = timeDecoder.readLong(timeBuffer);
-
-      switch (dataType) {
-        case BOOLEAN:
-          boolean aBoolean = valueDecoder.readBoolean(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aBoolean))) {
-            pageData.putBoolean(timestamp, aBoolean);
-          }
-          break;
-        case INT32:
-          int anInt = valueDecoder.readInt(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, anInt))) {
-            pageData.putInt(timestamp, anInt);
-          }
-          break;
-        case INT64:
-          long aLong = valueDecoder.readLong(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aLong))) {
-            pageData.putLong(timestamp, aLong);
-          }
-          break;
-        case FLOAT:
-          float aFloat = valueDecoder.readFloat(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aFloat))) {
-            pageData.putFloat(timestamp, aFloat);
-          }
-          break;
-        case DOUBLE:
-          double aDouble = valueDecoder.readDouble(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aDouble))) {
-            pageData.putDouble(timestamp, aDouble);
-          }
-          break;
-        case TEXT:
-          Binary aBinary = valueDecoder.readBinary(valueBuffer);
-          if (timestamp > deletedAt && (filter == null || filter.satisfy(timestamp, aBinary))) {
-            pageData.putBinary(timestamp, aBinary);
-          }
-          break;
-        default:
-          throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    // phase one: decode the time column and select points by time
+    long[] times = new long[INITIAL_TIME_CAPACITY];
+    int timeNum = 0;
+    int num;
+    while ((num = timeDecoder.readLongs(timeBuffer, times, timeNum, times.length - timeNum)) > 0) {
+      timeNum += num;
+      if (timeNum == times.length) {
+        times = Arrays.copyOf(times, times.length * 2);
+      }
+    }
+    int[] selected = new int[timeNum];
+    int selectedNum = 0;
+    for (int i = 0; i < timeNum; i++) {
+      if (times[i] > deletedAt && (timeFilter == null || timeFilter.satisfy(times[i], null))) {
+        selected[selectedNum++] = i;
       }
     }
+    if (selectedNum == 0) {
+      return pageData;
+    }
+
+    // phase two: decode the values until the last selected point
+    int valueNum = selected[selectedNum - 1] + 1;
+    switch (dataType) {
+      case BOOLEAN:
+        putBooleans(pageData, times, selected, selectedNum, valueNum);
+        break;
+      case INT32:
+        putInts(pageData, times, selected, selectedNum, valueNum);
+        break;
+      case INT64:
+        putLongs(pageData, times, selected, selectedNum, valueNum);
+        break;
+      case FLOAT:
+        putFloats(pageData, times, selected, selectedNum, valueNum);
+        break;
+      case DOUBLE:
+        putDoubles(pageData, times, selected, selectedNum, valueNum);
+        break;
+      case TEXT:
+        putBinaries(pageData, times, selected, selectedNum, valueNum);
+        break;
+      default:
+        throw new UnSupportedDataTypeException(String.valueOf(dataType));
+    }
     return pageData;
   }
 
+  private void putBooleans(BatchData pageData, long[] times, int[] selected, int selectedNum,
+      int valueNum) throws IOException {
+    boolean[] values = new boolean[valueNum];
+    valueDecoder.readBooleans(valueBuffer, values, 0, valueNum);
+    for (int i = 0; i < selectedNum; i++) {
+      int idx = selected[i];
+      if (valueFilter == null || valueFilter.satisfy(times[idx], values[idx])) {
+        pageData.putBoolean(times[idx], values[idx]);
+      }
+    }
+  }
+
+  private void putInts(BatchData pageData, long[] times, int[] selected, int selectedNum,
+      int valueNum) throws IOException {
+    int[] values = new int[valueNum];
+    valueDecoder.readInts(valueBuffer, values, 0, valueNum);
+    for (int i = 0; i < selectedNum; i++) {
+      int idx = selected[i];
+      if (valueFilter == null || valueFilter.satisfy(times[idx], values[idx])) {
+        pageData.putInt(times[idx], values[idx]);
+      }
+    }
+  }
+
+  private void putLongs(BatchData pageData, long[] times, int[] selected, int selectedNum,
+      int valueNum) throws IOException {
+    long[] values = new long[valueNum];
+    valueDecoder.readLongs(valueBuffer, values, 0, valueNum);
+    for (int i = 0; i < selectedNum; i++) {
+      int idx = selected[i];
+      if (valueFilter == null || valueFilter.satisfy(times[idx], values[idx])) {
+        pageData.putLong(times[idx], values[idx]);
+      }
+    }
+  }
+
+  private void putFloats(BatchData pageData, long[] times, int[] selected, int selectedNum,
+      int valueNum) throws IOException {
+    float[] values = new float[valueNum];
+    valueDecoder.readFloats(valueBuffer, values, 0, valueNum);
+    for (int i = 0; i < selectedNum; i++) {
+      int idx = selected[i];
+      if (valueFilter == null || valueFilter.satisfy(times[idx], values[idx])) {
+        pageData.putFloat(times[idx], values[idx]);
+      }
+    }
+  }
+
+  private void putDoubles(BatchData pageData, long[] times, int[] selected, int selectedNum,
+      int valueNum) throws IOException {
+    double[] values = new double[valueNum];
+    valueDecoder.readDoubles(valueBuffer, values, 0, valueNum);
+    for (int i = 0; i < selectedNum; i++) {
+      int idx = selected[i];
+      if (valueFilter == null || valueFilter.satisfy(times[idx], values[idx])) {
+        pageData.putDouble(times[idx], values[idx]);
+      }
+    }
+  }
+
+  private void putBinaries(BatchData pageData, long[] times, int[] selected, int selectedNum,
+      int valueNum) {
+    int next = 0;
+    for (int idx = 0; idx < valueNum; idx++) {
+      Binary aBinary = valueDecoder.readBinary(valueBuffer);
+      if (idx == selected[next]) {
+        next++;
+        if (valueFilter == null || valueFilter.satisfy(times[idx], aBinary)) {
+          pageData.putBinary(times[idx], aBinary);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return whether the filter only refers to time, so it can be evaluated without values
+   */
+  private static boolean isTimeFilter(Filter filter) {
+    if (filter instanceof UnaryFilter) {
+      return ((UnaryFilter) filter).getFilterType() == FilterType.TIME_FILTER;
+    } else if (filter instanceof GroupByFilter) {
+      return true;
+    } else if (filter instanceof BinaryFilter) {
+      return isTimeFilter(((BinaryFilter) filter).getLeft())
+          && isTimeFilter(((BinaryFilter) filter).getRight());
+    } else if (filter instanceof NotFilter) {
+      return isTimeFilter(((NotFilter) filter).getFilter());
+    }
+    return false;
+  }
+
+  /**
+   * @return the conjunction of the time filters that every satisfied point must pass, or null if
+   * there is no such filter
+   */
+  private static Filter extractTimeFilter(Filter filter) {
+    if (isTimeFilter(filter)) {
+      return filter;
+    }
+    if (filter instanceof AndFilter) {
+      Filter left = extractTimeFilter(((AndFilter) filter).getLeft());
+      Filter right = extractTimeFilter(((AndFilter) filter).getRight());
+      if (left != null && right != null) {
+        return FilterFactory.and(left, right);
+      }
+      return left != null ? left : right;
+    }
+    return null;
+  }
 
   public void close() {
     timeBuffer = null;
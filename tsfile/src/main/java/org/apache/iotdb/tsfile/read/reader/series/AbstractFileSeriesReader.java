@@ -103,6 +103,27 @@ public abstract class AbstractFileSeriesReader implements IAggregateReader {
     chunkReader.skipPageData();
   }
 
+  @Override
+  public ChunkMetaData nextChunkMetaData() throws IOException {
+    if (chunkReader != null && chunkReader.hasNextSatisfiedPage()) {
+      // the current chunk is partly read
+      return null;
+    }
+    while (chunkToRead < chunkMetaDataList.size()) {
+      ChunkMetaData chunkMetaData = chunkMetaDataList.get(chunkToRead);
+      if (chunkSatisfied(chunkMetaData)) {
+        return chunkMetaData;
+      }
+      chunkToRead++;
+    }
+    return null;
+  }
+
+  @Override
+  public void skipChunkData() {
+    chunkToRead++;
+  }
+
   protected abstract void initChunkReader(ChunkMetaData chunkMetaData) throws IOException;
 
   protected abstract boolean chunkSatisfied(ChunkMetaData chunkMetaData);
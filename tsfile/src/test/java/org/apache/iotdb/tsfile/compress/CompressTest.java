@@ -18,11 +18,14 @@
  */
 package org.apache.iotdb.tsfile.compress;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
 import org.apache.iotdb.tsfile.utils.PublicBAOS;
 import org.junit.After;
 import org.junit.Before;
@@ -77,4 +80,60 @@ public class CompressTest {
     assertEquals(inputString, result);
   }
 
+  @Test
+  public void lz4CompressorTest() throws IOException {
+    testCompressor(CompressionType.LZ4);
+  }
+
+  @Test
+  public void lz4HighRatioTest() throws IOException {
+    // the output of uncompress(byte[]) grows beyond its first guess of the size
+    byte[] input = new byte[1024 * 1024];
+    byte[] compressed = ICompressor.getCompressor(CompressionType.LZ4).compress(input);
+    assertArrayEquals(input,
+        IUnCompressor.getUnCompressor(CompressionType.LZ4).uncompress(compressed));
+  }
+
+  @Test
+  public void zstdCompressorTest() throws IOException {
+    testCompressor(CompressionType.ZSTD);
+  }
+
+  private void testCompressor(CompressionType type) throws IOException {
+    ICompressor compressor = ICompressor.getCompressor(type);
+    IUnCompressor unCompressor = IUnCompressor.getUnCompressor(type);
+    byte[] input = inputString.getBytes(StandardCharsets.UTF_8);
+
+    // byte array
+    byte[] uncompressed = unCompressor.uncompress(compressor.compress(input));
+    assertEquals(inputString, new String(uncompressed, StandardCharsets.UTF_8));
+
+    // byte array with offset, whose uncompressed size is given as in a page header
+    byte[] compressed = new byte[compressor.getMaxBytesForCompression(input.length) + 2];
+    int size = compressor.compress(input, 0, input.length, compressed);
+    System.arraycopy(compressed, 0, compressed, 2, size);
+    uncompressed = new byte[input.length];
+    assertEquals(input.length, unCompressor.uncompress(compressed, 2, size, uncompressed, 0));
+    assertEquals(inputString, new String(uncompressed, StandardCharsets.UTF_8));
+
+    // heap and direct ByteBuffers
+    for (boolean direct : new boolean[]{false, true}) {
+      ByteBuffer data = allocate(input.length, direct);
+      data.put(input).flip();
+      ByteBuffer compressedBuffer = allocate(compressor.getMaxBytesForCompression(input.length),
+          direct);
+      size = compressor.compress(data, compressedBuffer);
+      assertEquals(size, compressedBuffer.remaining());
+      ByteBuffer uncompressedBuffer = allocate(input.length, direct);
+      assertEquals(input.length, unCompressor.uncompress(compressedBuffer, uncompressedBuffer));
+      byte[] result = new byte[input.length];
+      uncompressedBuffer.get(result);
+      assertEquals(inputString, new String(result, StandardCharsets.UTF_8));
+    }
+  }
+
+  private ByteBuffer allocate(int size, boolean direct) {
+    return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+  }
+
 }
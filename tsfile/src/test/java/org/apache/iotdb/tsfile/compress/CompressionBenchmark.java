@@ -0,0 +1,121 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.CompressionType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+
+/**
+ * Compression benchmark. Compress pages of a long and a double series in each encoding by each
+ * compressor, and print the compression ratio and the compression and decompression speed.
+ */
+public class CompressionBenchmark {
+
+  private static int numOfPage = 200;
+  private static int numOfPointPerPage = 10000;
+  private static int numOfRound = 5;
+
+  private static CompressionType[] compressionTypes = {CompressionType.SNAPPY,
+      CompressionType.LZ4, CompressionType.ZSTD};
+
+  public static void main(String[] args) throws IOException {
+    bench(TSDataType.INT64, TSEncoding.PLAIN);
+    bench(TSDataType.INT64, TSEncoding.RLE);
+    bench(TSDataType.INT64, TSEncoding.TS_2DIFF);
+    bench(TSDataType.DOUBLE, TSEncoding.PLAIN);
+    bench(TSDataType.DOUBLE, TSEncoding.GORILLA);
+  }
+
+  private static void bench(TSDataType dataType, TSEncoding encoding) throws IOException {
+    byte[][] pages = encodePages(dataType, encoding);
+    long uncompressedSize = 0;
+    for (byte[] page : pages) {
+      uncompressedSize += page.length;
+    }
+
+    for (CompressionType compressionType : compressionTypes) {
+      ICompressor compressor = ICompressor.getCompressor(compressionType);
+      IUnCompressor unCompressor = IUnCompressor.getUnCompressor(compressionType);
+      byte[][] compressedPages = new byte[pages.length][];
+      int[] compressedSizes = new int[pages.length];
+      byte[] uncompressed = new byte[numOfPointPerPage * Long.BYTES * 2];
+
+      long compressTime = Long.MAX_VALUE;
+      long uncompressTime = Long.MAX_VALUE;
+      // the first rounds warm up the JIT, so the best round is reported
+      for (int round = 0; round < numOfRound; round++) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < pages.length; i++) {
+          if (compressedPages[i] == null) {
+            compressedPages[i] = new byte[compressor.getMaxBytesForCompression(pages[i].length)];
+          }
+          compressedSizes[i] = compressor
+              .compress(pages[i], 0, pages[i].length, compressedPages[i]);
+        }
+        compressTime = Math.min(compressTime, System.nanoTime() - startTime);
+
+        startTime = System.nanoTime();
+        for (int i = 0; i < pages.length; i++) {
+          unCompressor.uncompress(compressedPages[i], 0, compressedSizes[i], uncompressed, 0);
+        }
+        uncompressTime = Math.min(uncompressTime, System.nanoTime() - startTime);
+      }
+
+      long compressedSize = 0;
+      for (int size : compressedSizes) {
+        compressedSize += size;
+      }
+      System.out.println(String.format(
+          "%s %s %s: ratio %.2f, compression %.1f MB/s, decompression %.1f MB/s",
+          dataType, encoding, compressionType, uncompressedSize * 1.0 / compressedSize,
+          uncompressedSize * 1000.0 / compressTime, uncompressedSize * 1000.0 / uncompressTime));
+    }
+  }
+
+  /**
+   * the values are a random walk with two decimals, like the readings of a sensor.
+   */
+  private static byte[][] encodePages(TSDataType dataType, TSEncoding encoding)
+      throws IOException {
+    Random random = new Random(0);
+    byte[][] pages = new byte[numOfPage][];
+    long value = 0;
+    for (int i = 0; i < numOfPage; i++) {
+      Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(dataType);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (int j = 0; j < numOfPointPerPage; j++) {
+        value += random.nextInt(21) - 10;
+        if (dataType == TSDataType.INT64) {
+          encoder.encode(value, out);
+        } else {
+          encoder.encode(value / 100.0, out);
+        }
+      }
+      encoder.flush(out);
+      pages[i] = out.toByteArray();
+    }
+    return pages;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.iotdb.tsfile.encoding.decoder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import org.apache.iotdb.tsfile.encoding.encoder.Encoder;
+import org.apache.iotdb.tsfile.encoding.encoder.TSEncodingBuilder;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
+import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
+import org.junit.Test;
+
+public class DecoderBatchReadTest {
+
+  private static final int VALUE_NUM = 3000;
+  private static final int[] BATCH_SIZES = {1, 7, 300, 4096};
+  private static final double DELTA = 0.0000001;
+
+  private Random random = new Random(0);
+
+  @Test
+  public void testReadInts() throws IOException {
+    int[] values = new int[VALUE_NUM];
+    for (int i = 0; i < VALUE_NUM; i++) {
+      // mix repeated runs with random values so that rle uses both modes
+      values[i] = (i / 100) % 2 == 0 ? i / 100 : random.nextInt(1000);
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF}) {
+      Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(TSDataType.INT32);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (int value : values) {
+        encoder.encode(value, out);
+      }
+      encoder.flush(out);
+      for (int batchSize : BATCH_SIZES) {
+        Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.INT32);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        int[] result = new int[VALUE_NUM];
+        int num = 0;
+        int read;
+        while ((read = decoder.readInts(buffer, result, num,
+            Math.min(batchSize, VALUE_NUM - num))) > 0) {
+          num += read;
+        }
+        assertEquals(VALUE_NUM, num);
+        assertArrayEquals(values, result);
+      }
+    }
+  }
+
+  @Test
+  public void testReadLongs() throws IOException {
+    long[] values = new long[VALUE_NUM];
+    for (int i = 0; i < VALUE_NUM; i++) {
+      values[i] = (i / 100) % 2 == 0 ? 1000000L * i : random.nextLong() >> 8;
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF}) {
+      Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(TSDataType.INT64);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (long value : values) {
+        encoder.encode(value, out);
+      }
+      encoder.flush(out);
+      for (int batchSize : BATCH_SIZES) {
+        Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.INT64);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        long[] result = new long[VALUE_NUM];
+        int num = 0;
+        int read;
+        while ((read = decoder.readLongs(buffer, result, num,
+            Math.min(batchSize, VALUE_NUM - num))) > 0) {
+          num += read;
+        }
+        assertEquals(VALUE_NUM, num);
+        assertArrayEquals(values, result);
+        assertEquals(0, decoder.readLongs(buffer, result, 0, batchSize));
+      }
+    }
+  }
+
+  @Test
+  public void testReadDoubles() throws IOException {
+    double[] values = new double[VALUE_NUM];
+    for (int i = 0; i < VALUE_NUM; i++) {
+      // the default precision of rle and ts_2diff keeps no decimal places
+      values[i] = random.nextInt(100000);
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF, TSEncoding.GORILLA}) {
+      Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(TSDataType.DOUBLE);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (double value : values) {
+        encoder.encode(value, out);
+      }
+      encoder.flush(out);
+      for (int batchSize : BATCH_SIZES) {
+        Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.DOUBLE);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        double[] result = new double[VALUE_NUM];
+        int num = 0;
+        int read;
+        while ((read = decoder.readDoubles(buffer, result, num,
+            Math.min(batchSize, VALUE_NUM - num))) > 0) {
+          num += read;
+        }
+        assertEquals(VALUE_NUM, num);
+        assertArrayEquals(values, result, DELTA);
+      }
+    }
+  }
+
+  @Test
+  public void testReadFloats() throws IOException {
+    float[] values = new float[VALUE_NUM];
+    for (int i = 0; i < VALUE_NUM; i++) {
+      values[i] = random.nextInt(100000);
+    }
+    for (TSEncoding encoding : new TSEncoding[]{TSEncoding.PLAIN, TSEncoding.RLE,
+        TSEncoding.TS_2DIFF, TSEncoding.GORILLA}) {
+      Encoder encoder = TSEncodingBuilder.getConverter(encoding).getEncoder(TSDataType.FLOAT);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      for (float value : values) {
+        encoder.encode(value, out);
+      }
+      encoder.flush(out);
+      for (int batchSize : BATCH_SIZES) {
+        Decoder decoder = Decoder.getDecoderByType(encoding, TSDataType.FLOAT);
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        float[] result = new float[VALUE_NUM];
+        int num = 0;
+        int read;
+        while ((read = decoder.readFloats(buffer, result, num,
+            Math.min(batchSize, VALUE_NUM - num))) > 0) {
+          num += read;
+        }
+        assertEquals(VALUE_NUM, num);
+        assertArrayEquals(values, result, (float) DELTA);
+      }
+    }
+  }
+}
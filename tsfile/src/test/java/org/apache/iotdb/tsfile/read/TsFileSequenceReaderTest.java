@@ -21,6 +21,7 @@ package org.apache.iotdb.tsfile.read;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -45,6 +46,9 @@ import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSEncoding;
 import org.apache.iotdb.tsfile.fileSystem.FSFactoryProducer;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.common.Chunk;
+import org.apache.iotdb.tsfile.read.reader.MmapTsFileInput;
+import org.apache.iotdb.tsfile.read.reader.chunk.ChunkReader;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.FileGenerator;
 import org.apache.iotdb.tsfile.utils.Pair;
@@ -117,4 +121,46 @@ public class TsFileSequenceReaderTest {
     }
     reader.close();
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testReadMemoryMappedFile() throws IOException {
+    TsFileSequenceReader reader = new TsFileSequenceReader(FILE_PATH);
+    TsFileSequenceReader mmapReader = new TsFileSequenceReader(FILE_PATH,
+        new MmapTsFileInput(Paths.get(FILE_PATH)), true);
+    TsFileMetaData metaData = reader.readFileMetadata();
+    Assert.assertEquals(metaData.getDeviceMap().keySet(),
+        mmapReader.readFileMetadata().getDeviceMap().keySet());
+
+    for (TsDeviceMetadataIndex index : metaData.getDeviceMap().values()) {
+      for (ChunkGroupMetaData chunkGroupMetaData : reader.readTsDeviceMetaData(index)
+          .getChunkGroupMetaDataList()) {
+        for (ChunkMetaData chunkMetaData : chunkGroupMetaData.getChunkMetaDataList()) {
+          Chunk chunk = reader.readMemChunk(chunkMetaData);
+          Chunk mmapChunk = mmapReader.readMemChunk(chunkMetaData);
+          // the data is a view of the mapped file rather than a copy
+          Assert.assertTrue(mmapChunk.getData().isReadOnly());
+          Assert.assertEquals(chunk.getData(), mmapChunk.getData());
+
+          ChunkReader chunkReader = new ChunkReader(chunk, null);
+          ChunkReader mmapChunkReader = new ChunkReader(mmapChunk, null);
+          while (chunkReader.hasNextSatisfiedPage()) {
+            Assert.assertTrue(mmapChunkReader.hasNextSatisfiedPage());
+            BatchData batchData = chunkReader.nextPageData();
+            BatchData mmapBatchData = mmapChunkReader.nextPageData();
+            while (batchData.hasCurrent()) {
+              Assert.assertTrue(mmapBatchData.hasCurrent());
+              Assert.assertEquals(batchData.currentTime(), mmapBatchData.currentTime());
+              Assert.assertEquals(batchData.currentValue(), mmapBatchData.currentValue());
+              batchData.next();
+              mmapBatchData.next();
+            }
+            Assert.assertFalse(mmapBatchData.hasCurrent());
+          }
+          Assert.assertFalse(mmapChunkReader.hasNextSatisfiedPage());
+        }
+      }
+    }
+    reader.close();
+    mmapReader.close();
+  }
+}
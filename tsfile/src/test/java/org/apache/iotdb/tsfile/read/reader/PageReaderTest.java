@@ -37,6 +37,10 @@ import org.apache.iotdb.tsfile.encoding.encoder.PlainEncoder;
 import org.apache.iotdb.tsfile.encoding.encoder.SinglePrecisionEncoder;
 import org.apache.iotdb.tsfile.file.metadata.enums.TSDataType;
 import org.apache.iotdb.tsfile.read.common.BatchData;
+import org.apache.iotdb.tsfile.read.filter.TimeFilter;
+import org.apache.iotdb.tsfile.read.filter.ValueFilter;
+import org.apache.iotdb.tsfile.read.filter.basic.Filter;
+import org.apache.iotdb.tsfile.read.filter.factory.FilterFactory;
 import org.apache.iotdb.tsfile.read.reader.page.PageReader;
 import org.apache.iotdb.tsfile.utils.Binary;
 import org.apache.iotdb.tsfile.write.page.PageWriter;
@@ -142,6 +146,58 @@ public class PageReaderTest {
     test.test(TSDataType.TEXT);
   }
 
+  @Test
+  public void testFilterAndDeletion() throws IOException {
+    PageWriter pageWriter = new PageWriter();
+    pageWriter.setTimeEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.setValueEncoder(new DeltaBinaryEncoder.LongDeltaEncoder());
+    pageWriter.initStatistics(TSDataType.INT64);
+    for (long i = 0; i < 10000; i++) {
+      pageWriter.write(i, i * 2);
+    }
+    byte[] page = pageWriter.getUncompressedBytes().array();
+    // the value decoder is shared by the pages of a chunk like in ChunkReader
+    Decoder valueDecoder = new DeltaBinaryDecoder.LongDeltaDecoder();
+
+    Filter timeFilter = FilterFactory.and(TimeFilter.gtEq(100L), TimeFilter.lt(200L));
+    assertPageData(page, valueDecoder, timeFilter, Long.MIN_VALUE, 100, 200);
+    assertPageData(page, valueDecoder, timeFilter, 150, 151, 200);
+    assertPageData(page, valueDecoder, TimeFilter.lt(100L), 200, 0, 0);
+    Filter mixedFilter = FilterFactory.and(TimeFilter.lt(500L), ValueFilter.gt(600L));
+    assertPageData(page, valueDecoder, mixedFilter, Long.MIN_VALUE, 301, 500);
+    Filter orFilter = FilterFactory.or(TimeFilter.lt(10L), ValueFilter.gtEq(19980L));
+    BatchData data = readPage(page, valueDecoder, orFilter, Long.MIN_VALUE);
+    int count = 0;
+    while (data.hasCurrent()) {
+      Assert.assertEquals(data.currentTime() * 2, data.getLong());
+      data.next();
+      count++;
+    }
+    Assert.assertEquals(20, count);
+    assertPageData(page, valueDecoder, null, Long.MIN_VALUE, 0, 10000);
+  }
+
+  private BatchData readPage(byte[] page, Decoder valueDecoder, Filter filter, long deletedAt)
+      throws IOException {
+    valueDecoder.reset();
+    PageReader pageReader = new PageReader(ByteBuffer.wrap(page), TSDataType.INT64,
+        valueDecoder, new DeltaBinaryDecoder.LongDeltaDecoder(), filter);
+    pageReader.setDeletedAt(deletedAt);
+    return pageReader.getAllSatisfiedPageData();
+  }
+
+  private void assertPageData(byte[] page, Decoder valueDecoder, Filter filter, long deletedAt,
+      long startTime, long endTime) throws IOException {
+    BatchData data = readPage(page, valueDecoder, filter, deletedAt);
+    for (long time = startTime; time < endTime; time++) {
+      Assert.assertTrue(data.hasCurrent());
+      Assert.assertEquals(time, data.currentTime());
+      Assert.assertEquals(time * 2, data.getLong());
+      data.next();
+    }
+    Assert.assertFalse(data.hasCurrent());
+  }
+
   private abstract static class LoopWriteReadTest {
 
     private Encoder encoder;
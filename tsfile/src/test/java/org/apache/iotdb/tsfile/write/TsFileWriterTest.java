@@ -42,8 +42,10 @@ import org.apache.iotdb.tsfile.read.expression.QueryExpression;
 import org.apache.iotdb.tsfile.read.query.dataset.QueryDataSet;
 import org.apache.iotdb.tsfile.write.record.RowBatch;
 import org.apache.iotdb.tsfile.write.record.TSRecord;
+import org.apache.iotdb.tsfile.write.record.datapoint.DoubleDataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.FloatDataPoint;
 import org.apache.iotdb.tsfile.write.record.datapoint.IntDataPoint;
+import org.apache.iotdb.tsfile.write.record.datapoint.LongDataPoint;
 import org.apache.iotdb.tsfile.write.schema.MeasurementSchema;
 import org.junit.After;
 import org.junit.Assert;
@@ -221,6 +223,37 @@ public class TsFileWriterTest {
     readNothing();
   }
 
+  @Test
+  public void writeLZ4AndZstd() throws IOException, WriteProcessException {
+    writer.addMeasurement(
+        new MeasurementSchema("s3", TSDataType.INT64, TSEncoding.TS_2DIFF, CompressionType.LZ4));
+    writer.addMeasurement(
+        new MeasurementSchema("s4", TSDataType.DOUBLE, TSEncoding.GORILLA, CompressionType.ZSTD));
+    for (long time = 0; time < 100000; time++) {
+      TSRecord record = new TSRecord(time, "d1");
+      record.addTuple(new LongDataPoint("s3", time * 3));
+      record.addTuple(new DoubleDataPoint("s4", time / 4.0));
+      writer.write(record);
+    }
+    closeFile();
+
+    try (ReadOnlyTsFile readOnlyTsFile = new ReadOnlyTsFile(
+        new TsFileSequenceReader("target/tsfileWriter-" + fileName))) {
+      QueryDataSet dataSet = readOnlyTsFile.query(QueryExpression.create()
+          .addSelectedPath(new Path("d1.s3"))
+          .addSelectedPath(new Path("d1.s4")));
+      long time = 0;
+      while (dataSet.hasNext()) {
+        RowRecord result = dataSet.next();
+        assertEquals(time, result.getTimestamp());
+        assertEquals(time * 3, result.getFields().get(0).getLongV());
+        assertEquals(time / 4.0, result.getFields().get(1).getDoubleV(), 0.00001);
+        time++;
+      }
+      assertEquals(100000, time);
+    }
+  }
+
   @Test
   public void flushForTest() throws IOException {
     //The interface is just for test